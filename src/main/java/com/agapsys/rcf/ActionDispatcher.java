@@ -17,18 +17,34 @@
 package com.agapsys.rcf;
 
 import com.agapsys.rcf.exceptions.NotFoundException;
+import com.agapsys.rcf.exceptions.ServiceUnavailableException;
+import com.agapsys.rcf.util.AdaptiveLimiter;
+import com.agapsys.rcf.util.CountingServletResponse;
 import java.io.IOException;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
+import java.util.Collections;
+import java.util.EnumMap;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
 import java.util.regex.Pattern;
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
 import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 
 /**
  * Action dispatcher.
  *
  * The dispatcher is responsible by mapping request to actions.
+ *
+ * Unless explicitly registered, HEAD and OPTIONS requests are answered automatically: HEAD runs the GET action discarding the body (only its length is sent), and OPTIONS sends the methods registered for the path (Allow header) without invoking any action.
+ * CORS preflight requests for actions having a {@linkplain Cors} policy are answered from precomputed headers (see {@linkplain ActionDispatcher#dispatchPreflight(HttpServletRequest, HttpServletResponse)}).
+ * Routes may be guarded by adaptive concurrency limiters (see {@linkplain ActionDispatcher#getConcurrencyLimiter(HttpMethod, String)}).
  */
 public class ActionDispatcher {
 
@@ -53,13 +69,40 @@ public class ActionDispatcher {
         if (child.endsWith("/"))
             child = child.substring(0, child.length() - 1);
 
-        String tmpPath = child.replaceFirst(Pattern.quote(parent), "");
+        // Removes the first occurrence of parent path (usually a prefix)...
+        String tmpPath;
+        int parentIndex = child.indexOf(parent);
+
+        if (parentIndex == 0) {
+            tmpPath = child.substring(parent.length());
+        } else if (parentIndex > 0) {
+            tmpPath = child.substring(0, parentIndex) + child.substring(parentIndex + parent.length());
+        } else {
+            tmpPath = child;
+        }
+
         return tmpPath.startsWith("/") ? tmpPath : "/" + tmpPath;
     }
     
+    // Wrapper constructors are resolved once per request class...
+    private static final ClassValue<Constructor> WRAPPER_CONSTRUCTORS = new ClassValue<Constructor>() {
+        @Override
+        protected Constructor computeValue(Class<?> type) {
+            try {
+                return type.getConstructor(ActionRequest.class);
+            } catch (NoSuchMethodException | SecurityException ex) {
+                return null;
+            }
+        }
+    };
+
     private static ActionRequest __getWrapped(String parentPath, ActionRequest wrappedRequest) {
         try {
-            Constructor constructor = wrappedRequest.getClass().getConstructor(ActionRequest.class);
+            Constructor constructor = WRAPPER_CONSTRUCTORS.get(wrappedRequest.getClass());
+
+            if (constructor == null)
+                throw new NoSuchMethodException();
+
             ActionRequest customRequest = (ActionRequest) constructor.newInstance(wrappedRequest);
             String pathInfo = getRelativePath(parentPath, wrappedRequest.getPathInfo());
             customRequest._setPathInfo(pathInfo);
@@ -71,10 +114,248 @@ public class ActionDispatcher {
         }
 
     }
+
+    public static final String ALLOW_HEADER = "Allow";
+
+    /**
+     * Action which may complete after {@linkplain Action#processRequest(ActionRequest, ActionResponse)} returns (e.g. on another thread, see {@linkplain WebAction#timeout()}).
+     *
+     * Such actions run {@linkplain ActionDispatcher#beforeAction(ActionRequest, ActionResponse)} and {@linkplain ActionDispatcher#afterAction(ActionRequest, ActionResponse)} hooks by themselves, around their execution.
+     */
+    static interface DeferredAction extends Action {
+
+        /**
+         * Returns a boolean indicating if given request is completed by the action itself.
+         *
+         * @param request HTTP request.
+         * @return a boolean indicating if given request is completed by the action itself (along with phase hooks).
+         */
+        public boolean isDeferred(ActionRequest request);
+    }
+
+    /** Answers a HEAD request through a GET action, sending only the length of the body. */
+    private static class HeadAction implements Action {
+        private final Action getAction;
+
+        private HeadAction(Action getAction) {
+            this.getAction = getAction;
+        }
+
+        @Override
+        public void processRequest(ActionRequest request, ActionResponse response) throws ServletException, IOException {
+            CountingServletResponse countingResponse = new CountingServletResponse(response.getServletResponse());
+            ActionResponse headResponse = new ActionResponse(request.getServletRequest(), countingResponse);
+            headResponse._setRequest(request);
+            request._setResponse(headResponse);
+
+            getAction.processRequest(request, headResponse);
+            countingResponse.finish();
+        }
+    }
+
+    /** Answers an OPTIONS request with the methods allowed for a path. */
+    private static class OptionsAction implements Action {
+        private final String allow;
+
+        private OptionsAction(String allow) {
+            this.allow = allow;
+        }
+
+        @Override
+        public void processRequest(ActionRequest request, ActionResponse response) throws ServletException, IOException {
+            response.setHeader(ALLOW_HEADER, allow);
+            response.getServletResponse().setContentLength(0);
+        }
+    }
+
+    /** Runs an action through an adaptive concurrency limiter, rejecting requests which cannot be admitted in time. */
+    private static class LimitedAction implements DeferredAction {
+        private final Action action;
+        private final AdaptiveLimiter limiter;
+
+        private LimitedAction(Action action, AdaptiveLimiter limiter) {
+            this.action = action;
+            this.limiter = limiter;
+        }
+
+        @Override
+        public boolean isDeferred(ActionRequest request) {
+            return action instanceof DeferredAction && ((DeferredAction) action).isDeferred(request);
+        }
+
+        @Override
+        public void processRequest(ActionRequest request, ActionResponse response) throws ServletException, IOException {
+            if (!limiter.tryAcquire()) {
+                response.setHeader(Controller.RETRY_AFTER_HEADER, "1");
+                throw new ServiceUnavailableException("Service unavailable"); // <-- not shared: exceptions are mutable (cause, suppressed exceptions) and handlers may keep them
+            }
+
+            final long start = System.nanoTime();
+
+            try {
+                action.processRequest(request, response);
+            } finally {
+                HttpServletRequest servletRequest = request.getServletRequest();
+
+                if (servletRequest.isAsyncStarted()) {
+                    __releaseOnComplete(servletRequest.getAsyncContext(), start); // <-- action is still running (see WebAction.timeout())
+                } else {
+                    limiter.release(System.nanoTime() - start);
+                }
+            }
+        }
+
+        private void __releaseOnComplete(AsyncContext asyncContext, final long start) {
+            try {
+                asyncContext.addListener(new AsyncListener() {
+                    @Override
+                    public void onComplete(AsyncEvent event) throws IOException {
+                        limiter.release(System.nanoTime() - start);
+                    }
+
+                    @Override
+                    public void onTimeout(AsyncEvent event) throws IOException {}
+
+                    @Override
+                    public void onError(AsyncEvent event) throws IOException {}
+
+                    @Override
+                    public void onStartAsync(AsyncEvent event) throws IOException {}
+                });
+            } catch (IllegalStateException ex) {
+                limiter.release(System.nanoTime() - start); // <-- request was completed in the meantime
+            }
+        }
+    }
+
+    /** CORS policies of the actions mapped to a path. */
+    private static class CorsRoute {
+        private final Map<HttpMethod, CorsPolicy> policyMap = new EnumMap<>(HttpMethod.class);
+        private String allowMethods;
+    }
+
+    private static <T> T __resolve(Map<String, T> map, String actionPath) {
+        T t = map.get(actionPath);
+
+        if (t == null)
+            t = map.get(__getWildcardPath(actionPath));
+
+        if (t == null)
+            t = map.get("/*");
+
+        return t;
+    }
     // =========================================================================
     // </editor-fold>
 
-    private final Map<HttpMethod, Map<String, Action>> actionMap = new LinkedHashMap<>();
+    // Explicitly registered actions (guarded by this)...
+    private final Map<HttpMethod, Map<String, Action>> registeredActionMap = new EnumMap<>(HttpMethod.class);
+
+    // Concurrency limiters by route (guarded by this)...
+    private final Map<HttpMethod, Map<String, AdaptiveLimiter>> limiterMap = new EnumMap<>(HttpMethod.class);
+
+    // Route table used by dispatch: an immutable snapshot (including implicit HEAD/OPTIONS actions) replaced on each registration, so dispatching does not need locks...
+    private volatile Map<HttpMethod, Map<String, Action>> actionMap = Collections.emptyMap();
+
+    // CORS policies by path (replaced along with route table)...
+    private volatile Map<String, CorsRoute> corsRouteMap = Collections.emptyMap();
+
+    private void __updateActionMap() {
+        Map<HttpMethod, Map<String, Action>> newActionMap = new EnumMap<>(HttpMethod.class);
+        Map<String, Set<HttpMethod>> allowedMethodMap = new LinkedHashMap<>();
+        Map<String, CorsRoute> newCorsRouteMap = new LinkedHashMap<>();
+
+        for (Map.Entry<HttpMethod, Map<String, Action>> entry : registeredActionMap.entrySet()) {
+            Map<String, Action> methodMap = new LinkedHashMap<>(entry.getValue());
+            Map<String, AdaptiveLimiter> methodLimiterMap = limiterMap.get(entry.getKey());
+
+            if (methodLimiterMap != null) {
+                for (Map.Entry<String, AdaptiveLimiter> limiterEntry : methodLimiterMap.entrySet()) {
+                    methodMap.put(limiterEntry.getKey(), new LimitedAction(methodMap.get(limiterEntry.getKey()), limiterEntry.getValue()));
+                }
+            }
+
+            newActionMap.put(entry.getKey(), methodMap);
+
+            for (Map.Entry<String, Action> actionEntry : entry.getValue().entrySet()) {
+                String path = actionEntry.getKey();
+                Action action = actionEntry.getValue();
+                CorsPolicy corsPolicy = action instanceof CorsPolicy.Source ? ((CorsPolicy.Source) action).getCorsPolicy() : null;
+
+                if (corsPolicy != null) {
+                    CorsRoute corsRoute = newCorsRouteMap.get(path);
+
+                    if (corsRoute == null) {
+                        corsRoute = new CorsRoute();
+                        newCorsRouteMap.put(path, corsRoute);
+                    }
+
+                    corsRoute.policyMap.put(entry.getKey(), corsPolicy);
+                }
+
+                Set<HttpMethod> allowedMethods = allowedMethodMap.get(path);
+
+                if (allowedMethods == null) {
+                    allowedMethods = new TreeSet<>();
+                    allowedMethodMap.put(path, allowedMethods);
+                }
+
+                allowedMethods.add(entry.getKey());
+            }
+        }
+
+        for (Map.Entry<String, Set<HttpMethod>> entry : allowedMethodMap.entrySet()) {
+            String path = entry.getKey();
+            Set<HttpMethod> allowedMethods = entry.getValue();
+
+            if (allowedMethods.contains(HttpMethod.GET) && !allowedMethods.contains(HttpMethod.HEAD)) {
+                __getMethodMap(newActionMap, HttpMethod.HEAD).put(path, new HeadAction(newActionMap.get(HttpMethod.GET).get(path)));
+                allowedMethods.add(HttpMethod.HEAD);
+            }
+
+            if (!allowedMethods.contains(HttpMethod.OPTIONS)) {
+                allowedMethods.add(HttpMethod.OPTIONS);
+
+                StringBuilder allow = new StringBuilder();
+
+                for (HttpMethod allowedMethod : allowedMethods) {
+                    if (allow.length() > 0)
+                        allow.append(", ");
+
+                    allow.append(allowedMethod.name());
+                }
+
+                __getMethodMap(newActionMap, HttpMethod.OPTIONS).put(path, new OptionsAction(allow.toString()));
+            }
+        }
+
+        for (CorsRoute corsRoute : newCorsRouteMap.values()) {
+            StringBuilder allowMethods = new StringBuilder();
+
+            for (HttpMethod method : corsRoute.policyMap.keySet()) {
+                if (allowMethods.length() > 0)
+                    allowMethods.append(", ");
+
+                allowMethods.append(method.name());
+            }
+
+            corsRoute.allowMethods = allowMethods.toString();
+        }
+
+        actionMap = newActionMap;
+        corsRouteMap = newCorsRouteMap;
+    }
+
+    private static Map<String, Action> __getMethodMap(Map<HttpMethod, Map<String, Action>> actionMap, HttpMethod method) {
+        Map<String, Action> methodMap = actionMap.get(method);
+
+        if (methodMap == null) {
+            methodMap = new LinkedHashMap<>();
+            actionMap.put(method, methodMap);
+        }
+
+        return methodMap;
+    }
 
     /**
      * Registers an action with given URL.
@@ -93,23 +374,93 @@ public class ActionDispatcher {
         if (action == null)
             throw new IllegalArgumentException("Null action");
 
-        Map<String, Action> methodMap = actionMap.get(method);
-
-        if (methodMap == null) {
-            methodMap = new LinkedHashMap<>();
-            actionMap.put(method, methodMap);
-        }
+        Map<String, Action> methodMap = __getMethodMap(registeredActionMap, method);
 
         if (methodMap.containsKey(path))
             throw new IllegalArgumentException(String.format("Mapping already exists: %s %s", method, path));
 
         methodMap.put(path, action);
+
+        AdaptiveLimiter limiter = getConcurrencyLimiter(method, path);
+
+        if (limiter != null) {
+            Map<String, AdaptiveLimiter> methodLimiterMap = limiterMap.get(method);
+
+            if (methodLimiterMap == null) {
+                methodLimiterMap = new LinkedHashMap<>();
+                limiterMap.put(method, methodLimiterMap);
+            }
+
+            methodLimiterMap.put(path, limiter);
+        }
+
+        __updateActionMap();
         return this;
     }
 
     /** Removes all registered actions. */
     public synchronized void clearActions() {
-        actionMap.clear();
+        registeredActionMap.clear();
+        limiterMap.clear();
+        actionMap = Collections.emptyMap();
+        corsRouteMap = Collections.emptyMap();
+    }
+
+    /**
+     * Answers a CORS preflight request.
+     *
+     * This method is intended to be called before request and response wrappers are created: preflight responses are sent from precomputed headers, without invoking any action.
+     *
+     * @param request HTTP request.
+     * @param response HTTP response.
+     * @return a boolean indicating if given request is a preflight request for an action having a CORS policy (in this case, the request was answered). Preflight requests from disallowed origins are not answered.
+     */
+    boolean dispatchPreflight(HttpServletRequest request, HttpServletResponse response) {
+        if (!HttpMethod.OPTIONS.name().equals(request.getMethod()))
+            return false;
+
+        String origin = request.getHeader(CorsPolicy.HEADER_ORIGIN);
+        String requestMethod = request.getHeader(CorsPolicy.HEADER_REQUEST_METHOD);
+
+        if (origin == null || requestMethod == null)
+            return false;
+
+        Map<String, CorsRoute> routeMap = corsRouteMap;
+
+        if (routeMap.isEmpty())
+            return false;
+
+        String pathInfo = request.getPathInfo();
+
+        if (pathInfo == null)
+            pathInfo = "/";
+
+        int secondSlashIndex = pathInfo.indexOf("/", 1);
+        String actionPath = secondSlashIndex == -1 ? pathInfo : pathInfo.substring(0, secondSlashIndex);
+
+        CorsRoute corsRoute = __resolve(routeMap, actionPath);
+
+        if (corsRoute == null)
+            return false;
+
+        CorsPolicy corsPolicy;
+
+        try {
+            corsPolicy = corsRoute.policyMap.get(HttpMethod.valueOf(requestMethod));
+        } catch (IllegalArgumentException ex) {
+            return false;
+        }
+
+        if (corsPolicy == null)
+            return false;
+
+        if (!corsPolicy.isAllowed(origin)) {
+            corsPolicy.applyVary(response);
+            return false;
+        }
+
+        corsPolicy.applyPreflight(origin, corsRoute.allowMethods, response);
+        return true;
     }
 
     /**
@@ -121,7 +472,7 @@ public class ActionDispatcher {
      * @throws IOException if an input or output error occurs while the servlet is handling the HTTP request.
      * @throws NotFoundException if there is not action to process given request.
      */
-    public synchronized void dispatch(ActionRequest request, ActionResponse response) throws ServletException, IOException, NotFoundException {
+    public void dispatch(ActionRequest request, ActionResponse response) throws ServletException, IOException, NotFoundException {
         String pathInfo = request.getPathInfo();
         int secondSlashIndex = pathInfo.indexOf("/", 1);
 
@@ -129,6 +480,9 @@ public class ActionDispatcher {
 
         Map<String, Action> methodMap = actionMap.get(request.getMethod());
 
+        if (methodMap == null)
+            throw new NotFoundException();
+
         Action action;
         boolean usingWildcard = false;
 
@@ -178,13 +532,30 @@ public class ActionDispatcher {
                     request = __getWrapped(actionPath, request);
                 }
 
-                beforeAction(request, response);
-                action.processRequest(request, response);
-                afterAction(request, response);
+                if (action instanceof DeferredAction && ((DeferredAction) action).isDeferred(request)) {
+                    action.processRequest(request, response); // <-- phase hooks are run by the action, around its execution
+                } else {
+                    beforeAction(request, response);
+                    action.processRequest(request, response);
+                    afterAction(request, response);
+                }
             }
         }
     }
 
+    /**
+     * Returns the adaptive concurrency limiter placed in front of a route.
+     *
+     * This method is called once per route, when an action is registered. Implicit HEAD requests share the limiter of the GET action.
+     *
+     * @param method HTTP method.
+     * @param path action path.
+     * @return the limiter used to admit requests to given route. Requests which are not admitted are rejected with a 503 status. Default implementation returns null (requests are not limited).
+     */
+    protected AdaptiveLimiter getConcurrencyLimiter(HttpMethod method, String path) {
+        return null;
+    }
+
     /**
      * Called before an action. Default implementation does nothing.
      *
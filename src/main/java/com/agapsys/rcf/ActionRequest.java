@@ -18,14 +18,15 @@ package com.agapsys.rcf;
 import com.agapsys.rcf.exceptions.BadRequestException;
 import com.agapsys.rcf.exceptions.MethodNotAllowedException;
 import java.math.BigDecimal;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
 import java.util.Collections;
 import java.util.Date;
 import java.util.Enumeration;
 import java.util.LinkedHashMap;
 import java.util.Map;
-import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
 import javax.servlet.http.Cookie;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
@@ -34,7 +35,8 @@ import javax.servlet.http.HttpServletResponse;
 public class ActionRequest extends ServletExchange {
     
     //<editor-fold defaultstate="collapsed" desc="STATIC SCOPE">
-    private static interface ParamConverter<T> {
+    /** Converts a string value (either a parameter, a header or a cookie) into a typed value. */
+    static interface ParamConverter<T> {
         public T getParam(String strVal) throws BadRequestException;
     }
     
@@ -90,9 +92,6 @@ public class ActionRequest extends ServletExchange {
     private static final Map<Class, ParamConverter> PARAM_CONVERTER_MAP = new LinkedHashMap<>();
     
     static {
-        final SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd");
-        sdf.setTimeZone(TimeZone.getTimeZone("UTC"));
-        
         PARAM_CONVERTER_MAP.put(Byte.class,       new AbstractParamConverter<Byte>(Byte.class) {
             @Override
             public Byte _getParam(String strVal) throws BadRequestException {
@@ -136,15 +135,21 @@ public class ActionRequest extends ServletExchange {
             }
         });
         PARAM_CONVERTER_MAP.put(Date.class,       new AbstractParamConverter<Date>(Date.class) {
-            
-            
             @Override
             protected Date _getParam(String strVal) throws BadRequestException {
-                try {
-                    return sdf.parse(strVal);
-                } catch (ParseException ex) {
-                    throw new BadRequestException(ex.getMessage());
-                }
+                return Date.from(LocalDate.parse(strVal, DateTimeFormatter.ISO_LOCAL_DATE).atStartOfDay(ZoneOffset.UTC).toInstant()); // <-- immutable formatter: converters are shared by concurrent requests
+            }
+        });
+        PARAM_CONVERTER_MAP.put(Boolean.class,    new AbstractParamConverter<Boolean>(Boolean.class) {
+            @Override
+            protected Boolean _getParam(String strVal) throws BadRequestException {
+                if (strVal.equals("true"))
+                    return Boolean.TRUE;
+
+                if (strVal.equals("false"))
+                    return Boolean.FALSE;
+
+                throw new IllegalArgumentException();
             }
         });
         PARAM_CONVERTER_MAP.put(String.class,     new AbstractParamConverter<String>(String.class, false) {
@@ -154,49 +159,100 @@ public class ActionRequest extends ServletExchange {
             }
         });
         
+        // Primitives share converters with their wrappers...
+        PARAM_CONVERTER_MAP.put(Byte.TYPE,    PARAM_CONVERTER_MAP.get(Byte.class));
+        PARAM_CONVERTER_MAP.put(Short.TYPE,   PARAM_CONVERTER_MAP.get(Short.class));
+        PARAM_CONVERTER_MAP.put(Integer.TYPE, PARAM_CONVERTER_MAP.get(Integer.class));
+        PARAM_CONVERTER_MAP.put(Long.TYPE,    PARAM_CONVERTER_MAP.get(Long.class));
+        PARAM_CONVERTER_MAP.put(Float.TYPE,   PARAM_CONVERTER_MAP.get(Float.class));
+        PARAM_CONVERTER_MAP.put(Double.TYPE,  PARAM_CONVERTER_MAP.get(Double.class));
+        PARAM_CONVERTER_MAP.put(Boolean.TYPE, PARAM_CONVERTER_MAP.get(Boolean.class));
+    }
+    
+    /**
+     * Returns the converter for given type.
+     *
+     * @param targetClass target class (primitive types and enums are supported).
+     * @return converter for given type or null if there is no such converter.
+     */
+    static <T> ParamConverter<T> getParamConverter(final Class<T> targetClass) {
+        if (Enum.class.isAssignableFrom(targetClass)) {
+            return new ParamConverter<T>() {
+                @Override
+                public T getParam(String strVal) throws BadRequestException {
+                    return __getEnum(targetClass, strVal);
+                }
+            };
+        }
+        
+        return PARAM_CONVERTER_MAP.get(targetClass);
+    }
+
+    /** Name of the header through which a client declares the time budget (in milliseconds) of a request. */
+    public static final String REQUEST_TIMEOUT_HEADER = "X-Request-Timeout";
+
+    private static final String REQUEST_ATTR_DEADLINE = ActionRequest.class.getName() + ".REQUEST_ATTR_DEADLINE";
+
+    /** Stores the deadline declared by the client (if any) as a request attribute, so it is shared by wrappers and internal requests. */
+    private static void __initDeadline(HttpServletRequest servletRequest) {
+        if (servletRequest.getAttribute(REQUEST_ATTR_DEADLINE) != null)
+            return; // <-- internal requests inherit caller's deadline
+
+        String timeout = servletRequest.getHeader(REQUEST_TIMEOUT_HEADER);
+
+        if (timeout == null)
+            return;
+
+        long timeoutMillis;
+
+        try {
+            timeoutMillis = Long.parseLong(timeout.trim());
+        } catch (NumberFormatException ex) {
+            return; // <-- invalid values are ignored
+        }
+
+        long now = System.nanoTime();
+        servletRequest.setAttribute(REQUEST_ATTR_DEADLINE, timeoutMillis <= 0 ? now : now + TimeUnit.MILLISECONDS.toNanos(Math.min(timeoutMillis, TimeUnit.DAYS.toMillis(1))));
     }
     //</editor-fold>
     
     private final ActionRequest       wrappedRequest;
     private final HttpMethod          method;
     private final String              requestUri;
-    private final Map<String, String> paramMap;
-    
-    private String         pathInfo;
-    private ActionResponse response;
+
+    private Map<String, String> paramMap = null; // <-- built on demand (see getParameterMap())
+    private String              pathInfo;
+    private ActionResponse      response;
 
     // Generic constructor
     private ActionRequest(ActionRequest wrappedRequest, HttpServletRequest servletRequest, HttpServletResponse servletResponse) throws MethodNotAllowedException {
         super(servletRequest, servletResponse);
         this.wrappedRequest = wrappedRequest;
 
-        try {
-            this.method = HttpMethod.valueOf(servletRequest.getMethod());
-        } catch (IllegalArgumentException ex) {
-            throw new MethodNotAllowedException();
-        }
-
-        requestUri = servletRequest.getRequestURI();
-        
         if (wrappedRequest != null) {
             
             //<editor-fold defaultstate="collapsed" desc="Wrapper">
+            method               = wrappedRequest.method;
+            requestUri           = wrappedRequest.requestUri;
             pathInfo             = wrappedRequest.pathInfo;
-            paramMap             = wrappedRequest.paramMap;
             response             = wrappedRequest.response;
             //</editor-fold>
             
         } else { 
             
             //<editor-fold defaultstate="collapsed" desc="First level constructor">
+            try {
+                this.method = HttpMethod.valueOf(servletRequest.getMethod());
+            } catch (IllegalArgumentException ex) {
+                throw new MethodNotAllowedException();
+            }
+
+            requestUri = servletRequest.getRequestURI();
+
             String pathInfo = servletRequest.getPathInfo();
             this.pathInfo = pathInfo == null ? "/" : pathInfo;
-            Map<String, String> tmpParameters = new LinkedHashMap<>();
-            for (Map.Entry<String, String[]> entry : servletRequest.getParameterMap().entrySet()) {
-                String[] values = entry.getValue();
-                tmpParameters.put(entry.getKey(), values[values.length - 1]);
-            }
-            paramMap = Collections.unmodifiableMap(tmpParameters);
+
+            __initDeadline(servletRequest);
             //</editor-fold>
             
         }
@@ -322,9 +378,32 @@ public class ActionRequest extends ServletExchange {
      * @return query string parameter map.
      */
     public final Map<String, String> getParameterMap() {
+        if (wrappedRequest != null)
+            return wrappedRequest.getParameterMap(); // <-- wrappers share the map of first level request
+
+        if (paramMap == null) {
+            Map<String, String> tmpParameters = new LinkedHashMap<>();
+            for (Map.Entry<String, String[]> entry : getServletRequest().getParameterMap().entrySet()) {
+                String[] values = entry.getValue();
+                tmpParameters.put(entry.getKey(), values[values.length - 1]);
+            }
+            paramMap = Collections.unmodifiableMap(tmpParameters);
+        }
+
         return paramMap;
     }
 
+    /**
+     * Returns all values of a (possibly repeated) query string parameter.
+     *
+     * @param paramName parameter name
+     * @return parameter values. If there is no such parameter, returns null.
+     * @see HttpServletRequest#getParameterValues(java.lang.String)
+     */
+    public final String[] getParameterValues(String paramName) {
+        return getServletRequest().getParameterValues(paramName);
+    }
+
     /**
      * Returns a mandatory parameter contained in the request.
      *
@@ -428,6 +507,45 @@ public class ActionRequest extends ServletExchange {
         return response;
     }
 
+    private long __getRemainingNanos() {
+        Object deadline = getServletRequest().getAttribute(REQUEST_ATTR_DEADLINE);
+
+        if (deadline == null)
+            return Long.MAX_VALUE;
+
+        return Math.max(0, (Long) deadline - System.nanoTime());
+    }
+
+    /**
+     * Returns a boolean indicating if this request has a deadline, either declared by the client (see {@linkplain ActionRequest#REQUEST_TIMEOUT_HEADER}) or defined by the action (see {@linkplain WebAction#timeout()}).
+     *
+     * @return a boolean indicating if this request has a deadline.
+     */
+    public final boolean hasDeadline() {
+        return getServletRequest().getAttribute(REQUEST_ATTR_DEADLINE) != null;
+    }
+
+    /**
+     * Returns the time left before the deadline of this request.
+     *
+     * Downstream calls (e.g. remote services and queries) should not wait longer than this.
+     *
+     * @return remaining time (in milliseconds), zero if the deadline has passed, or Long.MAX_VALUE if the request has no deadline.
+     */
+    public final long getRemainingTime() {
+        long remainingNanos = __getRemainingNanos();
+        return remainingNanos == Long.MAX_VALUE ? Long.MAX_VALUE : TimeUnit.NANOSECONDS.toMillis(remainingNanos);
+    }
+
+    /**
+     * Returns a boolean indicating if the deadline of this request has passed.
+     *
+     * @return a boolean indicating if the deadline of this request has passed. Requests without a deadline never expire.
+     */
+    public final boolean isExpired() {
+        return __getRemainingNanos() == 0;
+    }
+
     
     final void _setPathInfo(String pathInfo) {
         this.pathInfo = pathInfo;
@@ -436,6 +554,15 @@ public class ActionRequest extends ServletExchange {
     final void _setResponse(ActionResponse response) {
         this.response = response;
     }
+
+    /** Shortens the deadline of this request, so it does not exceed given timeout (in milliseconds) from now. */
+    final void _setTimeout(long timeoutMillis) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        Object currentDeadline = getServletRequest().getAttribute(REQUEST_ATTR_DEADLINE);
+
+        if (currentDeadline == null || deadline - (Long) currentDeadline < 0)
+            getServletRequest().setAttribute(REQUEST_ATTR_DEADLINE, deadline);
+    }
     
     
     @Override
@@ -1,6 +1,8 @@
 package com.agapsys.rcf;
 
 import com.agapsys.rcf.exceptions.ClientException;
+import com.agapsys.rcf.exceptions.NotModifiedException;
+import com.agapsys.rcf.util.AdaptiveLimiter;
 import java.io.IOException;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServlet;
@@ -23,9 +25,16 @@ public class ActionServlet extends HttpServlet {
             ActionServlet.this.afterAction(request, response);
         }
 
+        @Override
+        protected AdaptiveLimiter getConcurrencyLimiter(HttpMethod method, String path) {
+            return ActionServlet.this.getConcurrencyLimiter(method, path);
+        }
+
     };
     private boolean initialized = false;
 
+    private ErrorRenderer errorRenderer;
+
     /**
      * Returns a boolean indicating this servlet initialization status.
      *
@@ -37,11 +46,28 @@ public class ActionServlet extends HttpServlet {
 
     private synchronized void __init() {
         if (!isInitialized()) {
+            errorRenderer = getErrorRenderer();
+
+            if (errorRenderer == null)
+                throw new RuntimeException("Null error renderer");
+
             onInit();
             initialized = true;
         }
     }
 
+    @Override
+    public void init() throws ServletException {
+        super.init();
+        ControllerRegistry.getInstance(getServletContext()).register(this);
+    }
+
+    @Override
+    public void destroy() {
+        ControllerRegistry.getInstance(getServletContext()).unregister(this);
+        super.destroy();
+    }
+
     /**
      * Called during servlet initialization.
      *
@@ -77,6 +103,8 @@ public class ActionServlet extends HttpServlet {
     /**
      * Called upon a client error.
      *
+     * Default implementation sets response status and writes response body through servlet's {@linkplain ActionServlet#getErrorRenderer() error renderer}.
+     *
      * @param request HTTP request.
      * @param response HTTP response.
      * @param error client error.
@@ -85,21 +113,38 @@ public class ActionServlet extends HttpServlet {
      */
     protected void onClientError(ActionRequest request, ActionResponse response, ClientException error) throws ServletException, IOException {
         response.setStatus(error.getHttpStatus());
-        
-        HttpServletResponse servletResponse = response.getServletResponse();
-        
-        servletResponse.setContentType("text/plain");
-        servletResponse.setCharacterEncoding("UTF-8");
-        
-        Integer appStatus = error.getAppStatus();
-        servletResponse.getWriter().printf(
-            "%s%s",
-            appStatus == null ? "" : String.format("%d:", appStatus),
-            error.getMessage()
-        );
+
+        if (error.getHttpStatus() == NotModifiedException.CODE)
+            return; // <-- a 304 response must not include a body
+
+        errorRenderer.render(request, response, error);
     }
 
 
+    /**
+     * Returns the renderer used by this servlet to write the body of client errors (see {@linkplain ActionServlet#onClientError(ActionRequest, ActionResponse, ClientException)}).
+     *
+     * This method is called only once, during servlet initialization.
+     *
+     * @return the error renderer used by this servlet. Default implementation returns {@linkplain DefaultErrorRenderer#PLAIN}.
+     */
+    protected ErrorRenderer getErrorRenderer() {
+        return DefaultErrorRenderer.PLAIN;
+    }
+
+    /**
+     * Returns the adaptive concurrency limiter placed in front of a route (see {@linkplain AdaptiveLimiter}).
+     *
+     * This method is called only once per route, during servlet initialization. Requests which are not admitted by the limiter are rejected with a 503 status and a Retry-After header.
+     *
+     * @param method HTTP method.
+     * @param path action path.
+     * @return the limiter used to admit requests to given route. Default implementation returns null (requests are not limited).
+     */
+    protected AdaptiveLimiter getConcurrencyLimiter(HttpMethod method, String path) {
+        return null;
+    }
+
     /**
      * Called before an action. Default implementation does nothing.
      *
@@ -167,6 +212,9 @@ public class ActionServlet extends HttpServlet {
             return;
         }
 
+        if (actionDispatcher.dispatchPreflight(req, resp))
+            return; // <-- CORS preflight answered from precomputed headers
+
         ActionRequest request;
         ActionResponse response;
 
@@ -191,4 +239,31 @@ public class ActionServlet extends HttpServlet {
                 throw ex;
         }
     }
+
+    /**
+     * Dispatches a request issued by another servlet of the same application, without going through the servlet container (see {@linkplain Controller#dispatchInternal(ActionRequest, Controller.InternalRequest, Class)}).
+     *
+     * Client errors are not rendered: they are propagated to the caller.
+     *
+     * @param req internal HTTP request.
+     * @param resp internal HTTP response.
+     * @throws ServletException if the HTTP request cannot be handled.
+     * @throws IOException if an input or output error occurs while the servlet is handling the HTTP request.
+     */
+    void _dispatch(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+        __init();
+
+        ActionRequest request = getActionRequest(req, resp);
+        ActionResponse response = getActionResponse(req, resp);
+
+        request._setResponse(response);
+        response._setRequest(request);
+
+        try {
+            actionDispatcher.dispatch(request, response);
+        } catch (RuntimeException ex) {
+            if (ex instanceof ClientException || onUncaughtError(request, response, ex)) // <-- client errors are propagated to the caller as-is
+                throw ex;
+        }
+    }
 }
@@ -0,0 +1,194 @@
+/*
+ * Copyright 2017 Agapsys Tecnologia Ltda-ME.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.agapsys.rcf;
+
+import com.agapsys.rcf.exceptions.ClientException;
+import com.agapsys.rcf.exceptions.NotModifiedException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Date;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Validator of an action (see {@linkplain WebAction#validator()}).
+ *
+ * A validator is a controller method which cheaply returns either the current version of action's response (a String, sent as an ETag) or its last modification (a {@linkplain Date} or a long timestamp, sent as Last-Modified). Validators are called before the action, so a conditional request can be answered without invoking the action at all.
+ */
+final class ActionValidator {
+
+    // <editor-fold desc="STATIC SCOPE" defaultstate="collapsed">
+    // =========================================================================
+    static final String HEADER_ETAG              = "ETag";
+    static final String HEADER_IF_NONE_MATCH     = "If-None-Match";
+    static final String HEADER_LAST_MODIFIED     = "Last-Modified";
+    static final String HEADER_IF_MODIFIED_SINCE = "If-Modified-Since";
+
+    private static final String WEAK_PREFIX = "W/";
+
+    /**
+     * Returns a weak entity tag for given opaque value.
+     *
+     * @param opaqueTag opaque tag.
+     * @return weak entity tag.
+     */
+    static String getWeakEtag(String opaqueTag) {
+        return String.format("%s\"%s\"", WEAK_PREFIX, opaqueTag.replace("\"", ""));
+    }
+
+    private static String __getOpaqueTag(String etag) {
+        etag = etag.trim();
+
+        if (etag.startsWith(WEAK_PREFIX))
+            etag = etag.substring(WEAK_PREFIX.length());
+
+        return etag;
+    }
+
+    /**
+     * Checks if given entity tag matches an If-None-Match header (weak comparison).
+     *
+     * @param ifNoneMatch value of If-None-Match header.
+     * @param etag entity tag.
+     * @return a boolean indicating if given tag matches the header.
+     */
+    static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || etag == null)
+            return false;
+
+        ifNoneMatch = ifNoneMatch.trim();
+
+        if (ifNoneMatch.equals("*"))
+            return true;
+
+        String opaqueTag = __getOpaqueTag(etag);
+
+        for (String candidate : ifNoneMatch.split(",")) {
+            if (__getOpaqueTag(candidate).equals(opaqueTag))
+                return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Returns a boolean indicating if a request can be answered with a 304 status.
+     *
+     * @param request HTTP request.
+     * @return a boolean indicating if a request can be answered with a 304 status.
+     */
+    static boolean isConditional(ActionRequest request) {
+        HttpMethod method = request.getMethod();
+        return method == HttpMethod.GET || method == HttpMethod.HEAD;
+    }
+
+    private static boolean __isValidReturnType(Class<?> returnType) {
+        return returnType == String.class || Date.class.isAssignableFrom(returnType) || returnType == Long.class || returnType == Long.TYPE;
+    }
+
+    /**
+     * Resolves a validator method.
+     *
+     * @param controllerClass controller class.
+     * @param methodName validator method name.
+     * @return validator method.
+     */
+    static Method getValidatorMethod(Class<?> controllerClass, String methodName) {
+        for (Method method : controllerClass.getMethods()) {
+            if (!method.getName().equals(methodName) || Modifier.isStatic(method.getModifiers()) || !__isValidReturnType(method.getReturnType()))
+                continue;
+
+            Class<?>[] paramTypes = method.getParameterTypes();
+
+            if (paramTypes.length == 0 || (paramTypes.length == 1 && paramTypes[0] == ActionRequest.class))
+                return method;
+        }
+
+        throw new RuntimeException(String.format("Invalid validator method: %s.%s (a public method returning a String, a Date or a long and accepting either no arguments or an ActionRequest is expected)", controllerClass.getName(), methodName));
+    }
+    // =========================================================================
+    // </editor-fold>
+
+    private final Method method;
+    private final boolean passRequest;
+
+    ActionValidator(Method method) {
+        this.method = method;
+        this.passRequest = method.getParameterCount() == 1;
+    }
+
+    private Object __invoke(Object controller, ActionRequest request) {
+        try {
+            return passRequest ? method.invoke(controller, request) : method.invoke(controller);
+        } catch (InvocationTargetException ex) {
+            Throwable targetException = ex.getTargetException();
+
+            if (targetException instanceof ClientException)
+                throw (ClientException) targetException;
+
+            throw new RuntimeException(targetException);
+        } catch (IllegalAccessException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    /**
+     * Sends validator headers and answers the request with a 304 status if client's copy is still valid.
+     *
+     * @param controller controller instance.
+     * @param request HTTP request.
+     * @param response HTTP response.
+     * @throws NotModifiedException if client's copy is still valid.
+     */
+    void validate(Object controller, ActionRequest request, ActionResponse response) throws NotModifiedException {
+        Object value = __invoke(controller, request);
+
+        if (value == null)
+            return; // <-- nothing to validate against
+
+        HttpServletResponse servletResponse = response.getServletResponse();
+
+        if (value instanceof String) {
+            String etag = getWeakEtag((String) value);
+            servletResponse.setHeader(HEADER_ETAG, etag);
+
+            if (isConditional(request) && matches(request.getHeader(HEADER_IF_NONE_MATCH), etag))
+                throw new NotModifiedException();
+
+            return;
+        }
+
+        long lastModified = value instanceof Date ? ((Date) value).getTime() : (Long) value;
+        lastModified -= lastModified % 1000; // <-- HTTP dates have a precision of seconds
+        servletResponse.setDateHeader(HEADER_LAST_MODIFIED, lastModified);
+
+        if (!isConditional(request) || request.getHeader(HEADER_IF_NONE_MATCH) != null)
+            return; // <-- If-Modified-Since is ignored when If-None-Match is present
+
+        long ifModifiedSince;
+
+        try {
+            ifModifiedSince = request.getServletRequest().getDateHeader(HEADER_IF_MODIFIED_SINCE);
+        } catch (IllegalArgumentException ex) {
+            return; // <-- invalid dates are ignored
+        }
+
+        if (ifModifiedSince >= 0 && lastModified <= ifModifiedSince)
+            throw new NotModifiedException();
+    }
+
+}
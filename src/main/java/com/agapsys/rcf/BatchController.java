@@ -0,0 +1,488 @@
+/*
+ * Copyright 2017 Agapsys Tecnologia Ltda-ME.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.agapsys.rcf;
+
+import com.agapsys.rcf.exceptions.BadRequestException;
+import com.agapsys.rcf.util.CapturingServletResponse;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.servlet.RequestDispatcher;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Controller which executes several requests (sub-requests) in a single HTTP request.
+ *
+ * Clients post a JSON array of {@linkplain SubRequest sub-requests} to controller's root path (e.g. "/batch/"). Each sub-request is handed to the servlet mapped to its path, so it goes through the same routing and security checks of a regular request (sub-requests share caller's session, cookies and headers).
+ * Content coding and conditional headers (e.g. Accept-Encoding and If-None-Match) are not passed to sub-requests, so their bodies can be embedded into the batch response.
+ * Sub-requests targeting controllers are handed straight to them (see {@linkplain ControllerRegistry}); other paths are forwarded through the servlet container, from the request thread.
+ *
+ * Consecutive safe sub-requests (GET, HEAD and OPTIONS) targeting controllers are executed in parallel on a bounded executor. Any other sub-request is a barrier: it is executed alone, after all previous sub-requests, so writes are applied in order.
+ * Parallel sub-requests which do not finish in time (see {@linkplain BatchController#getSubRequestTimeout()}) are answered with a 504 status.
+ * Responses are streamed as a JSON array in the same order of sub-requests, each one with its own status code (e.g. {@code [{"status":200,"body":{...}},{"status":404,"body":"Not Found"}]}). JSON bodies are embedded as-is; other bodies are sent as strings.
+ *
+ * Cookies set by sub-requests are not sent to the client.
+ */
+@WebController("batch")
+public class BatchController extends Controller {
+
+    // <editor-fold desc="STATIC SCOPE" defaultstate="collapsed">
+    // =========================================================================
+    public static final int DEFAULT_MAX_REQUESTS = 20;
+    public static final int DEFAULT_THREADS      = 8;
+
+    public static final long DEFAULT_SUB_REQUEST_TIMEOUT = 30000;
+
+    private static final String HEADER_ACCEPT_ENCODING = "Accept-Encoding";
+
+    private static final String CONTENT_TYPE = JsonRequest.JSON_CONTENT_TYPE + "; charset=" + JsonRequest.JSON_ENCODING;
+
+    /** Sub-request of a batch. */
+    public static class SubRequest {
+        /** HTTP method (defaults to GET). */
+        public String method;
+
+        /** Context-relative path (e.g. "/users/get"). May contain a query string. */
+        public String path;
+
+        /** Request parameters (appended to the query string). */
+        public Map<String, String> params;
+
+        /** Headers (replacing caller's headers with same names). */
+        public Map<String, String> headers;
+
+        /** Request body (e.g. a JSON document). */
+        public String body;
+
+        /** Content type of the body (defaults to JSON). */
+        public String contentType;
+    }
+
+    private static boolean __isSafe(HttpMethod method) {
+        return method == HttpMethod.GET || method == HttpMethod.HEAD || method == HttpMethod.OPTIONS;
+    }
+
+    private static String __encode(String str) {
+        try {
+            return URLEncoder.encode(str, StandardCharsets.UTF_8.name());
+        } catch (UnsupportedEncodingException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    private static String __decode(String str) {
+        try {
+            return URLDecoder.decode(str, StandardCharsets.UTF_8.name());
+        } catch (UnsupportedEncodingException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    /** Parses the query string of a path (if any) into given map. */
+    private static void __readQuery(String path, Map<String, String> params) {
+        int queryIndex = path.indexOf('?');
+
+        if (queryIndex < 0)
+            return;
+
+        for (String param : path.substring(queryIndex + 1).split("&")) {
+            if (param.isEmpty())
+                continue;
+
+            int separatorIndex = param.indexOf('=');
+
+            if (separatorIndex < 0) {
+                params.put(__decode(param), "");
+            } else {
+                params.put(__decode(param.substring(0, separatorIndex)), __decode(param.substring(separatorIndex + 1)));
+            }
+        }
+    }
+
+    private static Charset __getCharset(String characterEncoding) {
+        try {
+            return Charset.forName(characterEncoding);
+        } catch (IllegalArgumentException ex) {
+            return StandardCharsets.ISO_8859_1;
+        }
+    }
+    // =========================================================================
+    // </editor-fold>
+
+    private final Action batchAction = new Action() {
+        @Override
+        public void processRequest(ActionRequest request, ActionResponse response) throws ServletException, IOException {
+            __processBatch(request, response);
+        }
+    };
+
+    private JsonCodec                                jsonCodec;
+    private JsonCodec.ObjectReader<List<SubRequest>> subRequestsReader;
+    private ExecutorService                          executor;
+    private ControllerRegistry                       registry;
+    private int                                      maxRequests;
+    private long                                     subRequestTimeout;
+
+    /**
+     * Returns the maximum number of sub-requests in a batch.
+     *
+     * This method is called only once, during controller initialization.
+     *
+     * @return the maximum number of sub-requests in a batch. Default implementation returns {@linkplain BatchController#DEFAULT_MAX_REQUESTS}.
+     */
+    protected int getMaxRequests() {
+        return DEFAULT_MAX_REQUESTS;
+    }
+
+    /**
+     * Returns how long the batch waits for a sub-request executed in parallel.
+     *
+     * This method is called only once, during controller initialization. When the batch request has a deadline (see {@linkplain ActionRequest#getRemainingTime()}), the shorter time is used.
+     *
+     * @return how long (in milliseconds) the batch waits for a sub-request executed in parallel. Default implementation returns {@linkplain BatchController#DEFAULT_SUB_REQUEST_TIMEOUT}.
+     */
+    protected long getSubRequestTimeout() {
+        return DEFAULT_SUB_REQUEST_TIMEOUT;
+    }
+
+    /**
+     * Returns the executor used to run safe sub-requests in parallel.
+     *
+     * This method is called only once, during controller initialization. Returned executor is shut down when the controller is destroyed.
+     *
+     * @return executor used to run sub-requests. Default implementation returns a pool of {@linkplain BatchController#DEFAULT_THREADS} threads with a bounded queue (when the queue is full, sub-requests are executed by the calling thread).
+     */
+    protected ExecutorService getExecutor() {
+        final AtomicInteger threadCount = new AtomicInteger();
+
+        ThreadPoolExecutor threadPoolExecutor = new ThreadPoolExecutor(
+            DEFAULT_THREADS,
+            DEFAULT_THREADS,
+            60, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<Runnable>(DEFAULT_THREADS * DEFAULT_MAX_REQUESTS),
+            new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, String.format("%s-%d", BatchController.this.getClass().getSimpleName(), threadCount.incrementAndGet()));
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            },
+            new ThreadPoolExecutor.CallerRunsPolicy()
+        );
+
+        threadPoolExecutor.allowCoreThreadTimeOut(true);
+        return threadPoolExecutor;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * Subclasses overriding this method must call super implementation, which registers the batch action.
+     */
+    @Override
+    protected void onControllerInit() {
+        super.onControllerInit();
+
+        jsonCodec = getJsonCodec();
+        subRequestsReader = jsonCodec.getReader(new JsonRequest.ListType(SubRequest.class));
+
+        maxRequests = getMaxRequests();
+
+        if (maxRequests <= 0)
+            throw new RuntimeException("Invalid max requests: " + maxRequests);
+
+        subRequestTimeout = getSubRequestTimeout();
+
+        if (subRequestTimeout <= 0)
+            throw new RuntimeException("Invalid sub-request timeout: " + subRequestTimeout);
+
+        executor = getExecutor();
+
+        if (executor == null)
+            throw new RuntimeException("Null executor");
+
+        registry = ControllerRegistry.getInstance(getServletContext());
+
+        registerAction(HttpMethod.POST, "/", batchAction);
+    }
+
+    @Override
+    public void destroy() {
+        super.destroy();
+
+        if (executor != null)
+            executor.shutdown();
+    }
+
+    private HttpMethod __getMethod(SubRequest subRequest) {
+        if (subRequest == null)
+            return null;
+
+        if (subRequest.method == null)
+            return HttpMethod.GET;
+
+        try {
+            return HttpMethod.valueOf(subRequest.method.trim().toUpperCase());
+        } catch (IllegalArgumentException ex) {
+            return null;
+        }
+    }
+
+    /** Returns the path of a sub-request, without the query string. */
+    private static String __getPath(String path) {
+        int queryIndex = path.indexOf('?');
+        return queryIndex < 0 ? path : path.substring(0, queryIndex);
+    }
+
+    /** Returns the controller which handles given sub-request, or null if the sub-request must be forwarded through the container. */
+    private ControllerRegistry.Target __resolve(SubRequest subRequest) {
+        if (subRequest == null || subRequest.path == null || !subRequest.path.startsWith("/"))
+            return null;
+
+        return registry.resolve(__getPath(subRequest.path));
+    }
+
+    /**
+     * Executes a sub-request, returning its captured response.
+     *
+     * Sub-requests targeting controllers may be executed by any thread: caller's request is only read through given snapshot. Other sub-requests must be executed by the request thread.
+     */
+    private CapturingServletResponse __execute(HttpServletRequest servletRequest, InternalServletRequest.CallerState caller, String batchPath, HttpServletResponse servletResponse, SubRequest subRequest, HttpMethod method) {
+        CapturingServletResponse subResponse = new CapturingServletResponse(servletResponse);
+        String path = subRequest == null ? null : subRequest.path;
+
+        try {
+            if (method == null || path == null || !path.startsWith("/")) {
+                subResponse.sendError(HttpServletResponse.SC_BAD_REQUEST, "Invalid sub-request");
+                return subResponse;
+            }
+
+            if (path.equals(batchPath) || path.startsWith(batchPath + "/") || path.startsWith(batchPath + "?")) {
+                subResponse.sendError(HttpServletResponse.SC_BAD_REQUEST, "Nested batches are not allowed");
+                return subResponse;
+            }
+
+            final byte[] body = subRequest.body == null ? null : subRequest.body.getBytes(StandardCharsets.UTF_8);
+            String contentType = subRequest.contentType == null ? CONTENT_TYPE : subRequest.contentType;
+
+            InternalServletRequest.BodySource bodySource = body == null ? null : new InternalServletRequest.BodySource() {
+                @Override
+                public byte[] getBody() {
+                    return body;
+                }
+            };
+
+            Map<String, String> headers = null;
+
+            if (subRequest.headers != null) {
+                headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+                headers.putAll(subRequest.headers);
+                headers.remove(HEADER_ACCEPT_ENCODING); // <-- encoded bodies cannot be embedded into the batch response
+            }
+
+            InternalServletRequest subServletRequest = new InternalServletRequest(servletRequest, caller, method.name(), headers, bodySource, contentType);
+            ControllerRegistry.Target target = registry.resolve(__getPath(path));
+
+            if (target != null) {
+                Map<String, String> params = new LinkedHashMap<>();
+                __readQuery(path, params);
+
+                if (subRequest.params != null)
+                    params.putAll(subRequest.params);
+
+                subServletRequest._setTarget(target.servletPath, target.pathInfo, params);
+                target.servlet.service(subServletRequest, subResponse);
+                return subResponse;
+            }
+
+            if (subRequest.params != null && !subRequest.params.isEmpty()) {
+                StringBuilder sb = new StringBuilder(path);
+                char separator = path.indexOf('?') < 0 ? '?' : '&';
+
+                for (Map.Entry<String, String> param : subRequest.params.entrySet()) {
+                    sb.append(separator).append(__encode(param.getKey())).append('=').append(__encode(param.getValue() == null ? "" : param.getValue()));
+                    separator = '&';
+                }
+
+                path = sb.toString();
+            }
+
+            RequestDispatcher dispatcher = servletRequest.getRequestDispatcher(path);
+
+            if (dispatcher == null) {
+                subResponse.sendError(HttpServletResponse.SC_NOT_FOUND, null);
+                return subResponse;
+            }
+
+            synchronized (servletRequest) { // <-- container updates caller's request while forwarding
+                dispatcher.forward(subServletRequest, subResponse);
+            }
+        } catch (ServletException | IOException | RuntimeException ex) {
+            log(String.format("Sub-request failed: %s %s", method, path), ex);
+            subResponse = new CapturingServletResponse(servletResponse);
+            subResponse.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+        }
+
+        return subResponse;
+    }
+
+    private void __write(OutputStream out, boolean first, CapturingServletResponse subResponse) throws IOException {
+        StringBuilder sb = new StringBuilder();
+
+        if (!first)
+            sb.append(',');
+
+        sb.append("{\"status\":").append(subResponse.getStatus()).append(",\"body\":");
+
+        byte[] body = subResponse.getBytes();
+        String contentType = subResponse.getContentType();
+
+        if (body.length == 0) {
+            sb.append("null}");
+            out.write(sb.toString().getBytes(StandardCharsets.UTF_8));
+        } else if (contentType != null && contentType.startsWith(JsonRequest.JSON_CONTENT_TYPE)) {
+            out.write(sb.toString().getBytes(StandardCharsets.UTF_8));
+            out.write(body); // <-- JSON bodies are embedded as-is
+            out.write('}');
+        } else {
+            StringWriter sw = new StringWriter();
+            jsonCodec.writeObject(sw, new String(body, __getCharset(subResponse.getCharacterEncoding())));
+            sb.append(sw.toString()).append('}');
+            out.write(sb.toString().getBytes(StandardCharsets.UTF_8));
+        }
+
+        out.flush();
+    }
+
+    private void __processBatch(ActionRequest request, ActionResponse response) throws ServletException, IOException {
+        List<SubRequest> subRequests = new JsonRequest(request, jsonCodec).readList(subRequestsReader);
+
+        if (subRequests == null || subRequests.isEmpty())
+            throw new BadRequestException("Empty batch");
+
+        if (subRequests.size() > maxRequests)
+            throw new BadRequestException("Too many requests in batch (maximum: %d)", maxRequests);
+
+        final HttpServletRequest  servletRequest  = request.getServletRequest();
+        final HttpServletResponse servletResponse = response.getServletResponse();
+
+        // Resolved by the request thread: container request is not touched by executor threads...
+        final InternalServletRequest.CallerState caller = new InternalServletRequest.CallerState(servletRequest);
+        final String batchPath = servletRequest.getServletPath();
+
+        int count = subRequests.size();
+        HttpMethod[] methods = new HttpMethod[count];
+
+        for (int i = 0; i < count; i++) {
+            methods[i] = __getMethod(subRequests.get(i));
+        }
+
+        servletResponse.setStatus(HttpServletResponse.SC_OK);
+        servletResponse.setContentType(CONTENT_TYPE);
+
+        OutputStream out = servletResponse.getOutputStream();
+        out.write('[');
+
+        int i = 0;
+
+        while (i < count) {
+            // A sub-request which is not safe is executed alone...
+            if (methods[i] == null || !__isSafe(methods[i])) {
+                __write(out, i == 0, __execute(servletRequest, caller, batchPath, servletResponse, subRequests.get(i), methods[i]));
+                i++;
+                continue;
+            }
+
+            // ...while consecutive safe sub-requests are executed in parallel.
+            int groupEnd = i;
+
+            while (groupEnd < count && methods[groupEnd] != null && __isSafe(methods[groupEnd])) {
+                groupEnd++;
+            }
+
+            List<Future<CapturingServletResponse>> futures = new ArrayList<>(groupEnd - i);
+
+            for (int j = i; j < groupEnd; j++) {
+                final SubRequest subRequest = subRequests.get(j);
+                final HttpMethod method = methods[j];
+
+                if (__resolve(subRequest) == null) {
+                    // Container forwards are not thread-safe: they are executed by the request thread...
+                    futures.add(CompletableFuture.completedFuture(__execute(servletRequest, caller, batchPath, servletResponse, subRequest, method)));
+                    continue;
+                }
+
+                futures.add(executor.submit(new Callable<CapturingServletResponse>() {
+                    @Override
+                    public CapturingServletResponse call() throws Exception {
+                        return __execute(servletRequest, caller, batchPath, servletResponse, subRequest, method);
+                    }
+                }));
+            }
+
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(Math.min(subRequestTimeout, request.getRemainingTime()));
+
+            for (Future<CapturingServletResponse> future : futures) {
+                CapturingServletResponse subResponse;
+
+                try {
+                    subResponse = future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    throw new ServletException(ex);
+                } catch (ExecutionException ex) {
+                    throw new ServletException(ex.getCause()); // <-- never thrown (errors are captured as 500 responses)
+                } catch (TimeoutException ex) {
+                    future.cancel(true);
+                    subResponse = new CapturingServletResponse(servletResponse);
+                    subResponse.setStatus(HttpServletResponse.SC_GATEWAY_TIMEOUT);
+                }
+
+                __write(out, i == 0, subResponse);
+                i++;
+            }
+        }
+
+        out.write(']');
+        out.flush();
+    }
+
+}
@@ -15,10 +15,27 @@
  */
 package com.agapsys.rcf;
 
+import com.agapsys.rcf.exceptions.BadRequestException;
 import com.agapsys.rcf.exceptions.ClientException;
 import com.agapsys.rcf.exceptions.ForbiddenException;
+import com.agapsys.rcf.exceptions.GatewayTimeoutException;
+import com.agapsys.rcf.exceptions.NotFoundException;
+import com.agapsys.rcf.exceptions.RateLimitingException;
+import com.agapsys.rcf.exceptions.ServiceUnavailableException;
 import com.agapsys.rcf.exceptions.UnauthorizedException;
+import com.agapsys.rcf.util.Bulkhead;
+import com.agapsys.rcf.util.CapturingServletResponse;
+import com.agapsys.rcf.util.RateLimiter;
+import com.agapsys.rcf.util.TokenGenerator;
+import com.agapsys.rcf.util.Utf8Reader;
+import com.agapsys.rcf.util.Utf8Writer;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.Reader;
+import java.io.Serializable;
+import java.io.UnsupportedEncodingException;
+import java.io.Writer;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
@@ -26,6 +43,7 @@ import java.lang.reflect.Modifier;
 import java.lang.reflect.Parameter;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
+import java.net.URLEncoder;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.LinkedHashMap;
@@ -33,9 +51,25 @@ import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
-import java.util.Random;
 import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.RequestDispatcher;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
@@ -52,8 +86,19 @@ public class Controller extends ActionServlet {
 
     // <editor-fold desc="Private static members" defaultstate="collapsed">
     // -------------------------------------------------------------------------
-    private static final Set<String> EMPTY_ROLE_SET = Collections.unmodifiableSet(new LinkedHashSet<String>());
     private static final Object[]    EMPTY_OBJ_ARRAY = new Object[] {};
+
+    // Kinds of action parameters (resolved during controller initialization)
+    private static final int PARAM_REQUEST          = 0;
+    private static final int PARAM_RESPONSE         = 1;
+    private static final int PARAM_CUSTOM_REQUEST   = 2;
+    private static final int PARAM_CUSTOM_RESPONSE  = 3;
+    private static final int PARAM_SERVLET_REQUEST  = 4;
+    private static final int PARAM_SERVLET_RESPONSE = 5;
+    private static final int PARAM_JSON_OBJECT      = 6;
+    private static final int PARAM_JSON_LIST        = 7;
+    private static final int PARAM_JSON_FIELD       = 8;
+    private static final int PARAM_BOUND            = 9; // <-- request parameter, header or cookie
     // -------------------------------------------------------------------------
     // </editor-fold>
 
@@ -68,6 +113,84 @@ public class Controller extends ActionServlet {
         public T getDto();
     }
 
+    /** Request dispatched in-process to an action of the application (see {@linkplain Controller#dispatchInternal(ActionRequest, InternalRequest, Class)}). */
+    public static class InternalRequest {
+        private final HttpMethod          method;
+        private final String              path;
+        private final Map<String, String> params  = new LinkedHashMap<>();
+        private final Map<String, String> headers = new LinkedHashMap<>();
+
+        private Object body = null;
+
+        /**
+         * Constructor.
+         *
+         * @param method HTTP method.
+         * @param path context-relative path, without query string (e.g. "/users/get").
+         */
+        public InternalRequest(HttpMethod method, String path) {
+            if (method == null)
+                throw new IllegalArgumentException("Null method");
+
+            if (path == null || !path.startsWith("/") || path.indexOf('?') >= 0)
+                throw new IllegalArgumentException("Invalid path: " + path);
+
+            this.method = method;
+            this.path = path;
+        }
+
+        /**
+         * Sets a request parameter.
+         *
+         * @param name parameter name.
+         * @param value parameter value.
+         * @return this instance.
+         */
+        public InternalRequest setParam(String name, String value) {
+            if (name == null)
+                throw new IllegalArgumentException("Null name");
+
+            params.put(name, value);
+            return this;
+        }
+
+        /**
+         * Sets a header (replacing caller's header with the same name).
+         *
+         * @param name header name.
+         * @param value header value.
+         * @return this instance.
+         */
+        public InternalRequest setHeader(String name, String value) {
+            if (name == null)
+                throw new IllegalArgumentException("Null name");
+
+            headers.put(name, value);
+            return this;
+        }
+
+        /**
+         * Sets request body.
+         *
+         * Action parameters receiving the whole body get given object as-is when it is an instance of parameter's type. Otherwise, the object is serialized to JSON when the action reads the body.
+         *
+         * @param body request body (may be null).
+         * @return this instance.
+         */
+        public InternalRequest setBody(Object body) {
+            this.body = body;
+            return this;
+        }
+
+        public HttpMethod getMethod() {
+            return method;
+        }
+
+        public String getPath() {
+            return path;
+        }
+    }
+
     /** Name of the session attribute used to store current user. */
     public static final String SESSION_ATTR_USER = Controller.class.getName() + ".SESSION_ATTR_USER";
 
@@ -80,149 +203,659 @@ public class Controller extends ActionServlet {
     /** Name of the header used to send/retrieve a XSRF token. */
     public static final String XSRF_HEADER  = "X-XSRF-TOKEN";
 
+    /** Key of the bulkhead shared by all controller's actions (see {@linkplain Controller#getBulkheads()}). */
+    public static final String CONTROLLER_BULKHEAD = "*";
+
+    /** Name of the header sent along with rate limited responses (see {@linkplain RateLimit}). */
+    public static final String RETRY_AFTER_HEADER = "Retry-After";
+
+    /** Default maximum number of threads running actions which declare a timeout (see {@linkplain Controller#getActionExecutor()}). */
+    public static final int DEFAULT_ACTION_THREADS = 200;
+
     // Default size of XSRF token
     private static final int XSRF_TOKEN_LENGTH = 128;
 
-    private static String __getRandom(int length) {
-        char[] chars = "abcdefghijklmnopqrstuvwxyz0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZ".toCharArray();
-        return __getRandom(length, chars);
+    // Request attribute holding the user resolved for current request
+    private static final String REQUEST_ATTR_USER = Controller.class.getName() + ".REQUEST_ATTR_USER";
+
+    // Request attribute holding the internal call handled by a request (see dispatchInternal)
+    private static final String REQUEST_ATTR_INTERNAL_CALL = Controller.class.getName() + ".REQUEST_ATTR_INTERNAL_CALL";
+
+    // Session attribute holding the role mask of session user
+    private static final String SESSION_ATTR_ROLE_MASK = Controller.class.getName() + ".SESSION_ATTR_ROLE_MASK";
+
+    /** State shared between the caller and the target of an internal request. */
+    private static class InternalCall {
+        private final Object body;
+
+        private MethodCallerAction action = null; // <-- set when the call is handled by a controller action
+        private Object result = null;
+
+        private InternalCall(Object body) {
+            this.body = body;
+        }
     }
 
-    private static String __getRandom(int length, char[] chars)  {
-        if (length < 1) throw new IllegalArgumentException("Invalid length: " + length);
+    private static String __encode(String str) {
+        try {
+            return URLEncoder.encode(str, JsonRequest.JSON_ENCODING);
+        } catch (UnsupportedEncodingException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
 
-        if (chars == null || chars.length == 0) throw new IllegalArgumentException("Null/Empty chars");
+    private static class ResolvedUser {
+        private final Controller controller;
+        private final User user;
 
-        StringBuilder sb = new StringBuilder();
-        Random random = new Random();
-        for (int i = 0; i < length; i++) {
-            char c = chars[random.nextInt(chars.length)];
-            sb.append(c);
+        private ResolvedUser(Controller controller, User user) {
+            this.controller = controller;
+            this.user = user;
         }
+    }
+
+    /** Role mask of an user (see {@linkplain RoleRegistry}). Masks are meaningful only within a JVM, so they are not serialized along with the session. */
+    private static class UserRoleMask implements Serializable {
+        private transient User   user;
+        private transient int    version;
+        private transient long[] mask;
 
-        return sb.toString();
+        private UserRoleMask(User user, int version, long[] mask) {
+            this.user = user;
+            this.version = version;
+            this.mask = mask;
+        }
     }
     // =========================================================================
     // </editor-fold>
 
-    private class MethodCallerAction implements Action {
+    private class RateLimitGuard {
+
+        private final RateLimiter     limiter;
+        private final RateLimit.Scope scope;
+
+        private RateLimitGuard(RateLimit rateLimit) {
+            this.limiter = new RateLimiter(rateLimit.permits(), rateLimit.period(), TimeUnit.SECONDS, rateLimit.maxKeys());
+            this.scope = rateLimit.scope();
+        }
+
+        private Object __getKey(ActionRequest request) throws ServletException, IOException {
+            switch (scope) {
+                case GLOBAL:
+                    return RateLimit.Scope.GLOBAL;
+
+                case USER:
+                    User user = __getUser(request);
+
+                    if (user != null)
+                        return user;
+
+                    // fall through: requests without a user are grouped by origin IP...
+
+                default:
+                    String originIp = request.getOriginIp();
+                    return originIp == null ? "" : originIp;
+            }
+        }
+
+        private void __check(ActionRequest request, ActionResponse response) throws ServletException, IOException, RateLimitingException {
+            long wait = limiter.tryAcquire(__getKey(request));
+
+            if (wait > 0) {
+                long retryAfter = Math.max(1, (wait + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+                response.setHeader(RETRY_AFTER_HEADER, Long.toString(retryAfter));
+                throw new RateLimitingException("Too many requests");
+            }
+        }
+    }
+
+    private static class BulkheadGuard {
+
+        private final Bulkhead bulkhead;
+        private final String   retryAfter;
+
+        private BulkheadGuard(int maxConcurrency, int maxQueue, int queueTimeout) {
+            this.bulkhead = new Bulkhead(maxConcurrency, maxQueue, queueTimeout, TimeUnit.MILLISECONDS);
+            this.retryAfter = Long.toString(Math.max(1, (queueTimeout + 999) / 1000));
+        }
+
+        private void __enter(ActionResponse response) throws ServiceUnavailableException {
+            if (!bulkhead.tryEnter()) {
+                response.setHeader(RETRY_AFTER_HEADER, retryAfter);
+                throw new ServiceUnavailableException("Service unavailable"); // <-- not shared: exceptions are mutable (cause, suppressed exceptions) and handlers may keep them
+            }
+        }
+    }
+
+    /**
+     * Execution of an action which declares a timeout (see {@linkplain WebAction#timeout()}).
+     *
+     * The action runs on controller's executor and writes into a captured response. Whoever finishes first (the action or the timeout) answers the request: a late action response is discarded.
+     * When the container supports asynchronous processing, container's thread is released while the action runs and the timeout is enforced by the asynchronous context.
+     * The action reads a {@linkplain InternalServletRequest#detach(HttpServletRequest) detached copy} of the request, which is released on timeout: a late action never touches a container request recycled for another client.
+     * Phase hooks (see {@linkplain ActionServlet#beforeAction(ActionRequest, ActionResponse)} and {@linkplain ActionServlet#afterAction(ActionRequest, ActionResponse)}) run along with the action, except for HEAD requests (whose hooks are run by the dispatcher).
+     */
+    private class TimedExecution implements Runnable, AsyncListener {
+
+        private final MethodCallerAction       action;
+        private final ActionRequest            request;
+        private final ActionResponse           response;
+        private final InternalServletRequest   detachedRequest;
+        private final CapturingServletResponse capturedResponse;
+        private final ActionRequest            actionRequest;
+        private final ActionResponse           actionResponse;
+        private final boolean                  runPhases;
+        private final AtomicBoolean            done = new AtomicBoolean(false);
+
+        private volatile AsyncContext asyncContext = null;
+        private volatile Future<?>    future = null;
+        private Throwable             error = null; // <-- published through 'done'
+
+        private TimedExecution(MethodCallerAction action, ActionRequest request, ActionResponse response) throws IOException {
+            this.action = action;
+            this.request = request;
+            this.response = response;
+            this.detachedRequest = InternalServletRequest.detach(request.getServletRequest());
+            this.capturedResponse = new CapturingServletResponse(response.getServletResponse());
+            this.actionRequest = getActionRequest(detachedRequest, capturedResponse);
+            this.actionResponse = getActionResponse(detachedRequest, capturedResponse);
+            this.runPhases = action.isDeferred(request);
+
+            actionRequest._setPathInfo(request.getPathInfo()); // <-- path relative to the action (see ActionDispatcher)
+            actionRequest._setResponse(actionResponse);
+            actionResponse._setRequest(actionRequest);
+        }
+
+        /** Called once the request is answered by someone else than the action. */
+        private void __detach() {
+            __cancel();
+            detachedRequest._release(); // <-- container may recycle the request as soon as it is answered
+        }
+
+        private void __cancel() {
+            Future<?> currentFuture = future;
+
+            if (currentFuture != null)
+                currentFuture.cancel(true); // <-- interrupts the action
+        }
+
+        /** Sends a client error and completes the asynchronous request. */
+        private void __abort(ClientException clientError) {
+            try {
+                onClientError(request, response, clientError);
+            } catch (ServletException | IOException | RuntimeException ex) {
+                log(String.format("Error sending response: %s", request.getRequestLine()), ex);
+            } finally {
+                asyncContext.complete();
+            }
+        }
+
+        /** Sends action's response (or error) and completes the asynchronous request. */
+        private void __finishAsync() {
+            HttpServletResponse servletResponse = response.getServletResponse();
+            Throwable uncaughtError = error;
+
+            try {
+                if (uncaughtError == null) {
+                    capturedResponse.writeTo(servletResponse);
+                } else if (uncaughtError instanceof RuntimeException && !onUncaughtError(request, response, (RuntimeException) uncaughtError)) {
+                    uncaughtError = null; // <-- error was suppressed
+                }
+            } catch (Throwable ex) {
+                uncaughtError = ex;
+            }
+
+            try {
+                if (uncaughtError != null) {
+                    log(String.format("Uncaught error: %s", request.getRequestLine()), uncaughtError); // <-- there is no container thread to propagate the error to
+
+                    if (!servletResponse.isCommitted())
+                        servletResponse.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+                }
+            } catch (IOException ex) {
+                // Client is gone...
+            } finally {
+                asyncContext.complete();
+            }
+        }
+
+        private void __rethrow(Throwable throwable) throws ServletException, IOException {
+            if (throwable instanceof ServletException)
+                throw (ServletException) throwable;
+
+            if (throwable instanceof IOException)
+                throw (IOException) throwable;
+
+            if (throwable instanceof RuntimeException)
+                throw (RuntimeException) throwable;
+
+            if (throwable instanceof Error)
+                throw (Error) throwable;
+
+            throw new RuntimeException(throwable);
+        }
+
+        /**
+         * Executes the action.
+         *
+         * @param timeoutMillis time budget (in milliseconds).
+         */
+        private void __execute(long timeoutMillis) throws ServletException, IOException {
+            HttpServletRequest servletRequest = request.getServletRequest();
+
+            // HEAD responses are completed by the dispatcher as soon as the action returns, so they are not processed asynchronously...
+            if (request.getMethod() != HttpMethod.HEAD && servletRequest.isAsyncSupported() && !servletRequest.isAsyncStarted()) {
+                asyncContext = servletRequest.startAsync(servletRequest, response.getServletResponse());
+                asyncContext.setTimeout(Math.max(1, timeoutMillis)); // <-- zero would disable the timeout
+                asyncContext.addListener(this);
+
+                try {
+                    future = actionExecutor.submit(this);
+                } catch (RejectedExecutionException ex) {
+                    if (done.compareAndSet(false, true))
+                        __abort(new ServiceUnavailableException("Service unavailable"));
+                }
+
+                return; // <-- response will be sent either by the action or by the timeout
+            }
+
+            // Asynchronous processing is not available: container's thread waits for the action...
+            try {
+                future = actionExecutor.submit(this);
+            } catch (RejectedExecutionException ex) {
+                throw new ServiceUnavailableException("Service unavailable");
+            }
+
+            try {
+                future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException ex) {
+                if (done.compareAndSet(false, true)) {
+                    __detach();
+                    throw new GatewayTimeoutException("Request timed out");
+                }
+
+                // Action has just finished...
+            } catch (InterruptedException ex) {
+                done.set(true);
+                __detach();
+                Thread.currentThread().interrupt();
+                throw new ServletException(ex);
+            } catch (ExecutionException ex) {
+                throw new RuntimeException(ex); // <-- never completed exceptionally (errors are kept by the execution)
+            }
+
+            if (error != null)
+                __rethrow(error);
 
-        private final String[] requiredRoles;
-        private final long     requiredPerms;
-        private final Method   method;
-        private final boolean  secured;
+            capturedResponse.writeTo(response.getServletResponse());
+        }
+
+        @Override
+        public void run() {
+            try {
+                try {
+                    if (runPhases)
+                        beforeAction(actionRequest, actionResponse);
+
+                    action.__admit(actionRequest, actionResponse);
+
+                    if (runPhases)
+                        afterAction(actionRequest, actionResponse);
+                } catch (ClientException ex) {
+                    onClientError(actionRequest, actionResponse, ex);
+                }
+            } catch (Throwable ex) {
+                error = ex;
+            }
+
+            if (!done.compareAndSet(false, true))
+                return; // <-- request has already timed out: response is discarded
+
+            if (asyncContext != null)
+                __finishAsync();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) throws IOException {
+            if (!done.compareAndSet(false, true))
+                return; // <-- action is sending its response
+
+            __detach();
+            __abort(new GatewayTimeoutException("Request timed out"));
+        }
 
-        private MethodCallerAction(Method method, boolean secured, String[] requiredRoles, long requiredPerms) {
+        @Override
+        public void onError(AsyncEvent event) throws IOException {
+            if (done.compareAndSet(false, true))
+                __detach();
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) throws IOException {}
+
+        @Override
+        public void onStartAsync(AsyncEvent event) throws IOException {}
+    }
+
+    private class MethodCallerAction implements ActionDispatcher.DeferredAction, CorsPolicy.Source {
+
+        private final long[]                   requiredRoleMask;
+        private final long                     requiredPerms;
+        private final Method                   method;
+        private final boolean                  secured;
+        private final Parameter[]              params;
+        private final int[]                    paramKinds;
+        private final Constructor[]            paramConstructors;
+        private final JsonCodec.ObjectReader[] bodyReaders;
+        private final JsonCodec.FieldsReader   fieldsReader;
+        private final int[]                    fieldIndexes;
+        private final ParamBinding[]           paramBindings;
+        private final String[]                 unsupportedParams;
+        private final ResponsePayload          payload;
+        private final ActionValidator          validator;
+        private final ResponseCache            cache;
+        private final boolean                  cacheByRoles;
+        private final RateLimitGuard           rateLimitGuard;
+        private final BulkheadGuard            bulkheadGuard;
+        private final int                      timeout;
+        private final CorsPolicy               corsPolicy;
+
+        private MethodCallerAction(Method method, WebAction webAction) {
             if (!Modifier.isPublic(method.getModifiers()))
                 throw new RuntimeException("Action method is not public: " + method.toGenericString());
 
             this.method = method;
-            this.requiredRoles = requiredRoles;
-            this.requiredPerms = requiredPerms;
-            this.secured = secured || requiredRoles.length > 0 || requiredPerms != 0;
-        }
+            this.requiredRoleMask = RoleRegistry.register(webAction.requiredRoles());
+            this.requiredPerms = webAction.requiredPerms();
+            this.secured = webAction.secured() || requiredRoleMask.length > 0 || requiredPerms != 0;
+
+            if (webAction.compressionThreshold() >= 0 || webAction.cacheable() || webAction.etag()) {
+                this.payload = new ResponsePayload(webAction.compressionThreshold(), webAction.compressionLevel(), webAction.cacheable(), webAction.etag());
+            } else {
+                this.payload = null;
+            }
+
+            String validatorName = webAction.validator().trim();
+            this.validator = validatorName.isEmpty() ? null : new ActionValidator(ActionValidator.getValidatorMethod(Controller.this.getClass(), validatorName));
+
+            this.cache = webAction.cacheTtl() > 0 ? new ResponseCache(webAction.cacheTtl(), webAction.cacheMaxEntries(), webAction.cacheParams()) : null;
+            this.cacheByRoles = webAction.cacheByRoles();
+
+            RateLimit rateLimit = method.getAnnotation(RateLimit.class);
+            this.rateLimitGuard = rateLimit == null ? null : new RateLimitGuard(rateLimit);
 
-        private Object[] __getCallParams(Method method, ActionRequest request, ActionResponse response) throws IOException {
-            if (method.getParameterCount() == 0) return EMPTY_OBJ_ARRAY;
+            this.bulkheadGuard = webAction.maxConcurrency() > 0 ? new BulkheadGuard(webAction.maxConcurrency(), webAction.maxQueue(), webAction.queueTimeout()) : null;
 
-            List argList = new LinkedList();
+            if (webAction.timeout() < 0)
+                throw new RuntimeException(String.format("Invalid timeout: %d (%s)", webAction.timeout(), method.toGenericString()));
 
-            for (Parameter param : method.getParameters()) {
+            this.timeout = webAction.timeout();
+
+            Cors cors = method.getAnnotation(Cors.class);
+            this.corsPolicy = cors == null ? controllerCorsPolicy : new CorsPolicy(cors);
+
+            // Parameter kinds, wrapper constructors and readers for JSON body parameters are resolved once, so requests do not pay for type lookups...
+            this.params = method.getParameters();
+            this.paramKinds = new int[params.length];
+            this.paramConstructors = new Constructor[params.length];
+            this.bodyReaders = new JsonCodec.ObjectReader[params.length];
+            this.unsupportedParams = new String[params.length];
+            this.fieldIndexes = new int[params.length];
+            this.paramBindings = new ParamBinding[params.length];
+
+            List<String> fieldNames = new LinkedList<>();
+            List<Type>   fieldTypes = new LinkedList<>();
+            String bodyParam = null;
+
+            for (int i = 0; i < params.length; i++) {
+                Parameter param = params[i];
                 Class<?> paramClass = param.getType();
-                
-                //<editor-fold defaultstate="collapsed" desc="It's an ActionRequest">
+
+                ParamBinding paramBinding = ParamBinding.getBinding(param);
+
+                if (paramBinding != null) {
+                    paramKinds[i] = PARAM_BOUND;
+                    paramBindings[i] = paramBinding;
+                    continue;
+                }
+
                 if (ActionRequest.class.isAssignableFrom(paramClass)) {
-                    if (paramClass == ActionRequest.class) {
-                        argList.add(request);
-                    } else {
-                        try {
-                            Constructor constructor = paramClass.getConstructor(ActionRequest.class);
-                            Object customRequest = constructor.newInstance(request);
-                            argList.add(customRequest);
-                        } catch (NoSuchMethodException | SecurityException | InstantiationException | IllegalAccessException | IllegalArgumentException | InvocationTargetException ex) {
-                            throw new RuntimeException(String.format("Cannot create request instance for %s", paramClass.getName()));
-                        }
-                    }
-                    
+                    paramKinds[i] = paramClass == ActionRequest.class ? PARAM_REQUEST : PARAM_CUSTOM_REQUEST;
+                    paramConstructors[i] = __getWrapperConstructor(paramClass, ActionRequest.class);
                     continue;
                 }
-                //</editor-fold>
-                
-                //<editor-fold defaultstate="collapsed" desc="It's an ActionResponse">
+
                 if (ActionResponse.class.isAssignableFrom(paramClass)) {
-                    if (paramClass == ActionResponse.class) {
-                        argList.add(response);
-                    } else {
-                        try {
-                            Constructor constructor = paramClass.getConstructor(ActionResponse.class);
-                            Object customResponse = constructor.newInstance(response);
-                            argList.add(customResponse);
-                        } catch (NoSuchMethodException | SecurityException | InstantiationException | IllegalAccessException | IllegalArgumentException | InvocationTargetException ex) {
-                            throw new RuntimeException(String.format("Cannot create response instance for %s", paramClass.getName()));
-                        }
-                    }
-                    
+                    paramKinds[i] = paramClass == ActionResponse.class ? PARAM_RESPONSE : PARAM_CUSTOM_RESPONSE;
+                    paramConstructors[i] = __getWrapperConstructor(paramClass, ActionResponse.class);
                     continue;
                 }
-                //</editor-fold>
-                
-                //<editor-fold defaultstate="collapsed" desc="It's an HttpServletRequest">
+
                 if (HttpServletRequest.class.isAssignableFrom(paramClass)) {
-                    argList.add(request.getServletRequest());
+                    paramKinds[i] = PARAM_SERVLET_REQUEST;
                     continue;
                 }
-                //</editor-fold>
 
-                //<editor-fold defaultstate="collapsed" desc="It's an HttpServletResponse">
                 if (HttpServletResponse.class.isAssignableFrom(paramClass)) {
-                    argList.add(response.getServletResponse());
+                    paramKinds[i] = PARAM_SERVLET_RESPONSE;
+                    continue;
+                }
+
+                JsonField jsonField = param.getAnnotation(JsonField.class);
+
+                if (jsonField != null) {
+                    paramKinds[i] = PARAM_JSON_FIELD;
+                    fieldIndexes[i] = fieldNames.size();
+                    fieldNames.add(jsonField.value());
+                    fieldTypes.add(param.getParameterizedType());
+                    continue;
+                }
+
+                paramKinds[i] = Collection.class.isAssignableFrom(paramClass) ? PARAM_JSON_LIST : PARAM_JSON_OBJECT;
+
+                // Unsupported parameters are reported when the action is called...
+                if (bodyParam != null) {
+                    unsupportedParams[i] = String.format("Request body is already bound to parameter '%s' (use @%s in order to bind parameters to members of the body)", bodyParam, JsonField.class.getSimpleName());
                     continue;
                 }
-                //</editor-fold>
-
-                //<editor-fold defaultstate="collapsed" desc="It's a json for an object or a list of objects">
-                JsonRequest jsonRequest = new JsonRequest(request);
-
-                if (Collection.class.isAssignableFrom(paramClass)) {
-                    // Must be a list...
-                    if (!List.class.isAssignableFrom(paramClass))
-                        throw new UnsupportedOperationException(String.format("Unsupported param type: %s", paramClass));
-                    
-                    Type pType = param.getParameterizedType();
-                    if (! (pType instanceof ParameterizedType))
-                        throw new UnsupportedOperationException("Missing list element type");
-                    
-                    Type elementType = ((ParameterizedType) pType).getActualTypeArguments()[0];
-                    if (!elementType.getClass().equals(Class.class))
-                        throw new UnsupportedOperationException("Unsupported list element type: " + elementType);
-                    
-                    argList.add(jsonRequest.readList((Class)elementType));
+
+                bodyParam = param.getName();
+
+                try {
+                    bodyReaders[i] = jsonCodec.getReader(__getBodyType(param));
+                } catch (UnsupportedOperationException ex) {
+                    unsupportedParams[i] = ex.getMessage();
+                }
+            }
+
+            // All JSON fields are read through a single reader, so the body is parsed once...
+            JsonCodec.FieldsReader tmpFieldsReader = null;
+
+            if (!fieldNames.isEmpty()) {
+                String fieldsError = null;
+
+                if (bodyParam != null) {
+                    fieldsError = String.format("Request body is already bound to parameter '%s'", bodyParam);
                 } else {
-                    // It's an object...
-                    argList.add(jsonRequest.readObject(paramClass));
+                    try {
+                        tmpFieldsReader = jsonCodec.getFieldsReader(fieldNames.toArray(new String[fieldNames.size()]), fieldTypes.toArray(new Type[fieldTypes.size()]));
+                    } catch (UnsupportedOperationException | IllegalArgumentException ex) {
+                        fieldsError = ex.getMessage();
+                    }
+                }
+
+                for (int i = 0; i < params.length; i++) {
+                    if (paramKinds[i] == PARAM_JSON_FIELD)
+                        unsupportedParams[i] = fieldsError;
+                }
+            }
+
+            this.fieldsReader = tmpFieldsReader;
+
+            __prepareReturnType();
+        }
+
+        private Constructor __getWrapperConstructor(Class<?> wrapperClass, Class<?> wrappedClass) {
+            if (wrapperClass == wrappedClass)
+                return null;
+
+            try {
+                return wrapperClass.getConstructor(wrappedClass);
+            } catch (NoSuchMethodException | SecurityException ex) {
+                return null; // <-- reported when the action is called
+            }
+        }
+
+        private Object __newWrapper(int paramIndex, Object wrapped, String wrapperType) {
+            Class<?> paramClass = params[paramIndex].getType();
+            Constructor constructor = paramConstructors[paramIndex];
+
+            try {
+                if (constructor == null)
+                    throw new NoSuchMethodException();
+
+                return constructor.newInstance(wrapped);
+            } catch (NoSuchMethodException | InstantiationException | IllegalAccessException | IllegalArgumentException | InvocationTargetException ex) {
+                throw new RuntimeException(String.format("Cannot create %s instance for %s", wrapperType, paramClass.getName()));
+            }
+        }
+
+        private Type __getBodyType(Parameter param) {
+            Class<?> paramClass = param.getType();
+
+            if (Collection.class.isAssignableFrom(paramClass)) {
+                // Must be a list...
+                if (!List.class.isAssignableFrom(paramClass))
+                    throw new UnsupportedOperationException(String.format("Unsupported param type: %s", paramClass));
+
+                Type pType = param.getParameterizedType();
+                if (! (pType instanceof ParameterizedType))
+                    throw new UnsupportedOperationException("Missing list element type");
+
+                Type elementType = ((ParameterizedType) pType).getActualTypeArguments()[0];
+                if (!elementType.getClass().equals(Class.class))
+                    throw new UnsupportedOperationException("Unsupported list element type: " + elementType);
+
+                return new JsonRequest.ListType((Class) elementType);
+            }
+
+            // It's an object...
+            return paramClass;
+        }
+
+        private void __prepareReturnType() {
+            Class<?> returnClass = method.getReturnType();
+
+            if (returnClass == Void.TYPE || Collection.class.isAssignableFrom(returnClass) || Map.class.isAssignableFrom(returnClass))
+                return; // <-- collections are rebuilt by DTO conversion, so their runtime types are not known here
+
+            if (Dto.class.isAssignableFrom(returnClass)) {
+                for (Type iface : returnClass.getGenericInterfaces()) {
+                    if (iface instanceof ParameterizedType && ((ParameterizedType) iface).getRawType() == Dto.class) {
+                        Type dtoType = ((ParameterizedType) iface).getActualTypeArguments()[0];
+
+                        if (dtoType instanceof Class)
+                            jsonCodec.prepare(dtoType);
+                    }
+                }
+
+                return;
+            }
+
+            jsonCodec.prepare(returnClass);
+        }
+
+        private Object[] __getCallParams(ActionRequest request, ActionResponse response, InternalCall internalCall) throws IOException {
+            if (params.length == 0) return EMPTY_OBJ_ARRAY;
+
+            Object[] args = new Object[params.length];
+            JsonRequest jsonRequest = null;
+            Object[] fieldValues = null;
+
+            for (int i = 0; i < params.length; i++) {
+                switch (paramKinds[i]) {
+                    case PARAM_REQUEST:
+                        args[i] = request;
+                        break;
+
+                    case PARAM_RESPONSE:
+                        args[i] = response;
+                        break;
+
+                    case PARAM_CUSTOM_REQUEST:
+                        args[i] = __newWrapper(i, request, "request");
+                        break;
+
+                    case PARAM_CUSTOM_RESPONSE:
+                        args[i] = __newWrapper(i, response, "response");
+                        break;
+
+                    case PARAM_SERVLET_REQUEST:
+                        args[i] = request.getServletRequest();
+                        break;
+
+                    case PARAM_SERVLET_RESPONSE:
+                        args[i] = response.getServletResponse();
+                        break;
+
+                    case PARAM_BOUND:
+                        args[i] = paramBindings[i].getValue(request);
+                        break;
+
+                    case PARAM_JSON_FIELD:
+                        //<editor-fold defaultstate="collapsed" desc="It's a member of a JSON object">
+                        if (unsupportedParams[i] != null)
+                            throw new UnsupportedOperationException(unsupportedParams[i]);
+
+                        if (fieldValues == null) {
+                            if (jsonRequest == null)
+                                jsonRequest = new JsonRequest(request, jsonCodec);
+
+                            fieldValues = jsonRequest.readFields(fieldsReader);
+                        }
+
+                        args[i] = fieldValues[fieldIndexes[i]];
+
+                        if (args[i] == null && params[i].getType().isPrimitive())
+                            throw new BadRequestException("Missing field: %s", params[i].getAnnotation(JsonField.class).value());
+                        //</editor-fold>
+                        break;
+
+                    default:
+                        //<editor-fold defaultstate="collapsed" desc="It's a json for an object or a list of objects">
+                        if (internalCall != null && params[i].getType().isInstance(internalCall.body)) {
+                            args[i] = internalCall.body; // <-- body object given by an internal caller skips JSON round-trip
+                            break;
+                        }
+
+                        if (unsupportedParams[i] != null)
+                            throw new UnsupportedOperationException(unsupportedParams[i]);
+
+                        if (jsonRequest == null)
+                            jsonRequest = new JsonRequest(request, jsonCodec);
+
+                        if (paramKinds[i] == PARAM_JSON_LIST) {
+                            args[i] = jsonRequest.readList(bodyReaders[i]);
+                        } else {
+                            args[i] = jsonRequest.readObject(bodyReaders[i]);
+                        }
+                        //</editor-fold>
+                        break;
                 }
-                //</editor-fold>
             }
 
-            return argList.toArray();
+            return args;
         }
 
         private void __checkSecurity(ActionRequest request, ActionResponse response) throws ServletException, IOException, UnauthorizedException, ForbiddenException {
             if (secured) {
-                User user = getUser(request);
+                User user = __getUser(request);
 
                 if (user == null)
                     throw new UnauthorizedException("Unauthorized");
 
-                Set<String> userRoles = user.getRoles();
-
-                if (userRoles == null)
-                    userRoles = EMPTY_ROLE_SET;
-
-                for (String requiredRole : requiredRoles) {
-                    if (!userRoles.contains(requiredRole))
-                        throw new ForbiddenException();
-                }
+                if (requiredRoleMask.length > 0 && !RoleRegistry.containsAll(__getRoleMask(request, user), requiredRoleMask))
+                    throw new ForbiddenException();
 
                 long userPerms = user.getPermissions();
 
@@ -288,20 +921,33 @@ public class Controller extends ActionServlet {
             return dto;
         }
 
-        @Override
-        public void processRequest(ActionRequest request, ActionResponse response) throws ServletException, IOException {
-            try {
-                __checkSecurity(request, response);
+        private String __getCacheVariant(ActionRequest request) throws ServletException, IOException {
+            StringBuilder sb = new StringBuilder();
 
-                Object[] callParams = __getCallParams(method, request, response);
+            if (payload != null) {
+                String encoding = payload.getEncoding(request);
 
-                Object returnedObj = method.invoke(Controller.this, callParams);
+                if (encoding != null)
+                    sb.append(encoding);
+            }
 
-                if (returnedObj == null && method.getReturnType().equals(Void.TYPE))
-                    return;
+            if (cacheByRoles) {
+                User user = __getUser(request);
+                Set<String> userRoles = user == null ? null : user.getRoles();
 
-                sendObject(request, response, __getDtoObject(returnedObj));
+                sb.append('|');
+
+                if (userRoles != null)
+                    sb.append(String.join(",", new TreeSet<>(userRoles)));
+            }
+
+            return sb.toString();
+        }
 
+        private Object __call(ActionRequest request, ActionResponse response, InternalCall internalCall) throws IOException {
+            try {
+                Object[] callParams = __getCallParams(request, response, internalCall);
+                return method.invoke(Controller.this, callParams);
             } catch (InvocationTargetException | IllegalAccessException ex) {
                 if (ex instanceof InvocationTargetException) {
                     Throwable targetException = ((InvocationTargetException) ex).getTargetException();
@@ -317,12 +963,154 @@ public class Controller extends ActionServlet {
             }
         }
 
+        private void __invoke(final ActionRequest request, ActionResponse response) throws ServletException, IOException {
+            final Object returnedObj = __call(request, response, null);
+
+            if (returnedObj == null && method.getReturnType().equals(Void.TYPE))
+                return;
+
+            if (payload == null) {
+                sendObject(request, response, __getDtoObject(returnedObj));
+            } else {
+                payload.send(request, response, new ResponsePayload.PayloadWriter() {
+                    @Override
+                    public void write(ActionResponse bufferedResponse) throws ServletException, IOException {
+                        sendObject(request, bufferedResponse, __getDtoObject(returnedObj));
+                    }
+                });
+            }
+        }
+
+        @Override
+        public CorsPolicy getCorsPolicy() {
+            return corsPolicy;
+        }
+
+        @Override
+        public boolean isDeferred(ActionRequest request) {
+            return timeout > 0 && request.getMethod() != HttpMethod.HEAD && !(request.getMetadata(REQUEST_ATTR_INTERNAL_CALL) instanceof InternalCall);
+        }
+
+        @Override
+        public void processRequest(final ActionRequest request, ActionResponse response) throws ServletException, IOException {
+            Object internalCall = request.getMetadata(REQUEST_ATTR_INTERNAL_CALL);
+
+            if (internalCall instanceof InternalCall) {
+                if (request.isExpired())
+                    throw new GatewayTimeoutException("Request timed out"); // <-- caller's deadline is inherited
+
+                // Caller's request was already admitted: only security checks apply. Returned object is handed to the caller as-is...
+                __checkSecurity(request, response);
+
+                ((InternalCall) internalCall).result = __call(request, response, (InternalCall) internalCall);
+                ((InternalCall) internalCall).action = this;
+                return;
+            }
+
+            if (corsPolicy != null)
+                corsPolicy.apply(request.getHeader(CorsPolicy.HEADER_ORIGIN), response.getServletResponse());
+
+            if (controllerRateLimitGuard != null)
+                controllerRateLimitGuard.__check(request, response);
+
+            if (rateLimitGuard != null)
+                rateLimitGuard.__check(request, response);
+
+            if (request.isExpired())
+                throw new GatewayTimeoutException("Request timed out"); // <-- client has already given up
+
+            if (timeout > 0) {
+                request._setTimeout(timeout);
+                new TimedExecution(this, request, response).__execute(request.getRemainingTime());
+                return;
+            }
+
+            __admit(request, response);
+        }
+
+        private void __admit(ActionRequest request, ActionResponse response) throws ServletException, IOException {
+            if (controllerBulkheadGuard != null)
+                controllerBulkheadGuard.__enter(response);
+
+            try {
+                if (bulkheadGuard != null)
+                    bulkheadGuard.__enter(response);
+
+                try {
+                    __process(request, response);
+                } finally {
+                    if (bulkheadGuard != null)
+                        bulkheadGuard.bulkhead.exit();
+                }
+            } finally {
+                if (controllerBulkheadGuard != null)
+                    controllerBulkheadGuard.bulkhead.exit();
+            }
+        }
+
+        private void __process(final ActionRequest request, ActionResponse response) throws ServletException, IOException {
+            if (request.isExpired())
+                throw new GatewayTimeoutException("Request timed out"); // <-- deadline passed while waiting for an execution slot
+
+            __checkSecurity(request, response);
+
+            if (validator != null)
+                validator.validate(Controller.this, request, response);
+
+            if (cache == null) {
+                __invoke(request, response);
+            } else {
+                cache.process(request, response, __getCacheVariant(request), new ResponseCache.ResponseProducer() {
+                    @Override
+                    public void produce(ActionResponse cachedResponse) throws ServletException, IOException {
+                        __invoke(request, cachedResponse);
+                    }
+                });
+            }
+        }
+
     }
 
+    private JsonCodec jsonCodec;
+
+    private TokenAuthenticator tokenAuthenticator;
+
+    private RateLimitGuard controllerRateLimitGuard;
+
+    private BulkheadGuard controllerBulkheadGuard;
+
+    private ExecutorService actionExecutor;
+
+    private final Map<String, Bulkhead> bulkheadMap = new LinkedHashMap<>();
+
+    private CorsPolicy controllerCorsPolicy;
+
+    private final Map<String, List<ResponseCache>> responseCacheMap = new LinkedHashMap<>();
+
     @Override
     protected final void onInit() {
         super.onInit();
 
+        jsonCodec = getJsonCodec();
+
+        if (jsonCodec == null)
+            throw new RuntimeException("Null JSON codec");
+
+        tokenAuthenticator = getTokenAuthenticator();
+
+        RateLimit controllerRateLimit = getClass().getAnnotation(RateLimit.class);
+        controllerRateLimitGuard = controllerRateLimit == null ? null : new RateLimitGuard(controllerRateLimit);
+
+        WebController webController = getClass().getAnnotation(WebController.class);
+
+        if (webController != null && webController.maxConcurrency() > 0) {
+            controllerBulkheadGuard = new BulkheadGuard(webController.maxConcurrency(), webController.maxQueue(), webController.queueTimeout());
+            bulkheadMap.put(CONTROLLER_BULKHEAD, controllerBulkheadGuard.bulkhead);
+        }
+
+        Cors controllerCors = getClass().getAnnotation(Cors.class);
+        controllerCorsPolicy = controllerCors == null ? null : new CorsPolicy(controllerCors);
+
         Class<? extends Controller> actionServletClass = Controller.this.getClass();
 
         // Check for WebAction annotations...
@@ -351,10 +1139,31 @@ public class Controller extends ActionServlet {
                     path = "/" + method.getName();
                 }
 
-                MethodCallerAction action = new MethodCallerAction(method, webAction.secured(), webAction.requiredRoles(), webAction.requiredPerms());
+                MethodCallerAction action = new MethodCallerAction(method, webAction);
+
+                if (action.timeout > 0 && actionExecutor == null) {
+                    actionExecutor = getActionExecutor(); // <-- controllers without timed actions do not own threads
+
+                    if (actionExecutor == null)
+                        throw new RuntimeException("Null action executor");
+                }
+
+                if (action.cache != null) {
+                    List<ResponseCache> pathCaches = responseCacheMap.get(path);
+
+                    if (pathCaches == null) {
+                        pathCaches = new LinkedList<>();
+                        responseCacheMap.put(path, pathCaches);
+                    }
+
+                    pathCaches.add(action.cache);
+                }
 
                 for (HttpMethod httpMethod : httpMethods) {
                     registerAction(httpMethod, path, action);
+
+                    if (action.bulkheadGuard != null)
+                        bulkheadMap.put(String.format("%s %s", httpMethod.name(), path), action.bulkheadGuard.bulkhead);
                 }
             }
         }
@@ -367,15 +1176,356 @@ public class Controller extends ActionServlet {
      */
     protected void onControllerInit() {}
 
+    @Override
+    public void destroy() {
+        super.destroy();
+
+        if (actionExecutor != null)
+            actionExecutor.shutdown();
+    }
+
+    /**
+     * Returns the executor which runs actions declaring a timeout (see {@linkplain WebAction#timeout()}).
+     *
+     * This method is called only once, during controller initialization, and only if at least one action declares a timeout. Returned executor is shut down when the controller is destroyed.
+     *
+     * @return executor used to run actions with a timeout. Default implementation returns a pool of up to {@linkplain Controller#DEFAULT_ACTION_THREADS} threads without a queue (when all threads are busy, requests are rejected with a 503 status).
+     */
+    protected ExecutorService getActionExecutor() {
+        final AtomicInteger threadCount = new AtomicInteger();
+
+        return new ThreadPoolExecutor(
+            0,
+            DEFAULT_ACTION_THREADS,
+            60, TimeUnit.SECONDS,
+            new SynchronousQueue<Runnable>(),
+            new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, String.format("%s-action-%d", Controller.this.getClass().getSimpleName(), threadCount.incrementAndGet()));
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            }
+        );
+    }
+
+    /**
+     * Returns the bulkheads of this controller, so their occupancy can be monitored (see {@linkplain WebAction#maxConcurrency()} and {@linkplain WebController#maxConcurrency()}).
+     *
+     * @return bulkheads keyed by HTTP method and action path (e.g. "GET /report"). The bulkhead shared by all actions is keyed by {@linkplain Controller#CONTROLLER_BULKHEAD}.
+     */
+    public final Map<String, Bulkhead> getBulkheads() {
+        return Collections.unmodifiableMap(bulkheadMap);
+    }
+
+    /**
+     * Removes all responses cached by this controller's actions (see {@linkplain WebAction#cacheTtl()}).
+     */
+    public final void invalidateResponseCache() {
+        for (List<ResponseCache> pathCaches : responseCacheMap.values()) {
+            for (ResponseCache cache : pathCaches) {
+                cache.clear();
+            }
+        }
+    }
+
+    /**
+     * Removes all responses cached by the action mapped to given path (see {@linkplain WebAction#cacheTtl()}).
+     *
+     * @param path action path, as declared in {@linkplain WebAction#mapping()} (or "/" followed by method name when mapping is not declared).
+     */
+    public final void invalidateResponseCache(String path) {
+        List<ResponseCache> pathCaches = responseCacheMap.get(path);
+
+        if (pathCaches == null)
+            throw new IllegalArgumentException("There is no cached action mapped to " + path);
+
+        for (ResponseCache cache : pathCaches) {
+            cache.clear();
+        }
+    }
+
+    private byte[] __toJson(Object obj) throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+
+        try (Writer writer = new Utf8Writer(baos)) {
+            jsonCodec.writeObject(writer, obj);
+        }
+
+        return baos.toByteArray();
+    }
+
+    private <T> T __fromJson(byte[] json, Class<T> type) throws IOException {
+        try (Reader reader = new Utf8Reader(new ByteArrayInputStream(json))) {
+            return jsonCodec.readObject(reader, type);
+        } catch (BadRequestException ex) {
+            throw new RuntimeException(String.format("Internal response cannot be read as %s: %s", type.getName(), ex.getMessage()), ex);
+        }
+    }
+
+    private <T> T __getInternalResult(InternalCall internalCall, CapturingServletResponse internalResponse, Class<T> resultType) throws IOException {
+        if (resultType == Void.class || resultType == Void.TYPE)
+            return null;
+
+        if (internalCall.action != null) {
+            Object result = internalCall.result;
+
+            if (result == null || resultType.isInstance(result))
+                return (T) result;
+
+            Object dto = internalCall.action.__getDtoObject(result);
+
+            if (dto == null || resultType.isInstance(dto))
+                return (T) dto;
+
+            return __fromJson(__toJson(dto), resultType);
+        }
+
+        // Target servlet sent the response by itself...
+        byte[] body = internalResponse.getBytes();
+        return body.length == 0 ? null : __fromJson(body, resultType);
+    }
+
+    /**
+     * Invokes an action of this application in-process, on behalf of given request.
+     *
+     * Internal requests do not use sockets nor container threads: when target controller is already initialized, the request is handed straight to it (otherwise, it is forwarded through the servlet container).
+     * Internal requests share caller's session, cookies and headers, so target action applies the same security checks of a regular request. Rate limits, validators and cached responses of target action are bypassed. Headers, cookies and body produced by target action are not sent to the client.
+     *
+     * @param <T> result type.
+     * @param request caller's request.
+     * @param internalRequest request to be dispatched.
+     * @param resultType result type (Void.class ignores the result). Objects returned by target action are given back as-is when they are instances of this type (DTO conversion and JSON serialization are skipped). Otherwise, they are converted through this controller's JSON codec.
+     * @return object returned by target action (may be null).
+     * @throws ClientException if target action fails with a client error.
+     * @throws ServletException if the HTTP request cannot be handled.
+     * @throws IOException if an input or output error occurs while the servlet is handling the HTTP request.
+     */
+    protected final <T> T dispatchInternal(ActionRequest request, InternalRequest internalRequest, Class<T> resultType) throws ServletException, IOException {
+        if (request == null)
+            throw new IllegalArgumentException("Null request");
+
+        if (internalRequest == null)
+            throw new IllegalArgumentException("Null internal request");
+
+        if (resultType == null)
+            throw new IllegalArgumentException("Null result type");
+
+        HttpServletRequest servletRequest = request.getServletRequest();
+        ControllerRegistry.Target target = ControllerRegistry.getInstance(getServletContext()).resolve(internalRequest.path);
+
+        return __dispatchInternal(request, new InternalServletRequest.CallerState(servletRequest), target, internalRequest, resultType);
+    }
+
+    /**
+     * Dispatches an internal request.
+     *
+     * @param caller caller's state, captured on caller's thread.
+     * @param target target controller, or null if the request must be forwarded through the servlet container (which can be done only on caller's thread).
+     */
+    private <T> T __dispatchInternal(ActionRequest request, InternalServletRequest.CallerState caller, ControllerRegistry.Target target, InternalRequest internalRequest, Class<T> resultType) throws ServletException, IOException {
+        final InternalCall internalCall = new InternalCall(internalRequest.body);
+
+        InternalServletRequest.BodySource bodySource = internalRequest.body == null ? null : new InternalServletRequest.BodySource() {
+            @Override
+            public byte[] getBody() throws IOException {
+                return __toJson(internalCall.body); // <-- serialized only if target action reads the body
+            }
+        };
+
+        HttpServletRequest servletRequest = request.getServletRequest();
+
+        InternalServletRequest internalServletRequest = new InternalServletRequest(servletRequest, caller, internalRequest.method.name(), internalRequest.headers, bodySource, JsonRequest.JSON_CONTENT_TYPE);
+        internalServletRequest.setAttribute(REQUEST_ATTR_INTERNAL_CALL, internalCall);
+
+        CapturingServletResponse internalResponse = new CapturingServletResponse(request.getServletResponse());
+
+        if (target != null) {
+            internalServletRequest._setTarget(target.servletPath, target.pathInfo, internalRequest.params);
+            target.servlet._dispatch(internalServletRequest, internalResponse);
+        } else {
+            StringBuilder uri = new StringBuilder(internalRequest.path);
+            char separator = '?';
+
+            for (Map.Entry<String, String> param : internalRequest.params.entrySet()) {
+                uri.append(separator).append(__encode(param.getKey())).append('=').append(__encode(param.getValue() == null ? "" : param.getValue()));
+                separator = '&';
+            }
+
+            RequestDispatcher dispatcher = servletRequest.getRequestDispatcher(uri.toString());
+
+            if (dispatcher == null)
+                throw new NotFoundException();
+
+            synchronized (servletRequest) { // <-- container updates caller's request while forwarding
+                dispatcher.forward(internalServletRequest, internalResponse);
+            }
+
+            int status = internalResponse.getStatus();
+
+            if (status >= HttpServletResponse.SC_BAD_REQUEST && status < HttpServletResponse.SC_INTERNAL_SERVER_ERROR)
+                throw new ClientException(status, "%s", new String(internalResponse.getBytes(), JsonRequest.JSON_ENCODING));
+
+            if (status >= HttpServletResponse.SC_INTERNAL_SERVER_ERROR)
+                throw new ServletException(String.format("Internal request failed with status %d: %s %s", status, internalRequest.method.name(), internalRequest.path));
+        }
+
+        return __getInternalResult(internalCall, internalResponse, resultType);
+    }
+
+    /**
+     * Invokes an action of this application in-process, through given executor (see {@linkplain Controller#dispatchInternal(ActionRequest, InternalRequest, Class)}).
+     *
+     * Used to fan out several internal requests in parallel. Caller must wait for returned futures before completing its own request.
+     * Caller's state (session, cookies, headers and attributes) is captured before returning. Requests which target a servlet which is not a controller are forwarded through the servlet container on caller's thread (returned future is already completed).
+     *
+     * @param <T> result type.
+     * @param request caller's request.
+     * @param internalRequest request to be dispatched.
+     * @param resultType result type.
+     * @param executor executor which will dispatch the request.
+     * @return a future completed with the object returned by target action (or with the error thrown while dispatching the request).
+     */
+    protected final <T> CompletableFuture<T> dispatchInternalAsync(final ActionRequest request, final InternalRequest internalRequest, final Class<T> resultType, Executor executor) {
+        if (request == null)
+            throw new IllegalArgumentException("Null request");
+
+        if (internalRequest == null)
+            throw new IllegalArgumentException("Null internal request");
+
+        if (resultType == null)
+            throw new IllegalArgumentException("Null result type");
+
+        if (executor == null)
+            throw new IllegalArgumentException("Null executor");
+
+        final CompletableFuture<T> future = new CompletableFuture<>();
+
+        // Caller's request is read only on caller's thread...
+        final InternalServletRequest.CallerState caller = new InternalServletRequest.CallerState(request.getServletRequest());
+        final ControllerRegistry.Target target = ControllerRegistry.getInstance(getServletContext()).resolve(internalRequest.path);
+
+        if (target == null) {
+            try {
+                future.complete(__dispatchInternal(request, caller, null, internalRequest, resultType)); // <-- container forwards run on caller's thread
+            } catch (Throwable ex) {
+                future.completeExceptionally(ex);
+            }
+
+            return future;
+        }
+
+        try {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        future.complete(__dispatchInternal(request, caller, target, internalRequest, resultType));
+                    } catch (Throwable ex) {
+                        future.completeExceptionally(ex);
+                    }
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            future.completeExceptionally(ex);
+        }
+
+        return future;
+    }
+
+    /**
+     * Returns the JSON codec used by this controller to read request bodies and to send objects.
+     *
+     * This method is called only once, during controller initialization.
+     *
+     * @return the JSON codec used by this controller. Default implementation returns {@linkplain GsonJsonCodec#DEFAULT}.
+     */
+    protected JsonCodec getJsonCodec() {
+        return GsonJsonCodec.DEFAULT;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * Controllers create JSON requests using controller's codec (see {@linkplain Controller#getJsonCodec()}), which is inherited by JSON requests wrapping the returned instance.
+     */
+    @Override
+    protected ActionRequest getActionRequest(HttpServletRequest request, HttpServletResponse response) {
+        return new JsonRequest(request, response, jsonCodec);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * Controllers create JSON responses using controller's codec (see {@linkplain Controller#getJsonCodec()}), which is inherited by JSON responses wrapping the returned instance.
+     */
+    @Override
+    protected ActionResponse getActionResponse(HttpServletRequest request, HttpServletResponse response) {
+        return new JsonResponse(request, response, jsonCodec);
+    }
+
+    /**
+     * Returns the authenticator used by this controller to associate users with requests through signed tokens instead of HTTP sessions.
+     *
+     * This method is called only once, during controller initialization. Controllers sharing users must return authenticators created with the same secret.
+     *
+     * @return token authenticator used by this controller. Default implementation returns null (users are stored in HTTP sessions).
+     */
+    protected TokenAuthenticator getTokenAuthenticator() {
+        return null;
+    }
+
+    /**
+     * Returns the user associated with given request, calling {@linkplain Controller#getUser(ActionRequest)} only once per request.
+     */
+    private User __getUser(ActionRequest request) throws ServletException, IOException {
+        Object attribute = request.getMetadata(REQUEST_ATTR_USER);
+
+        if (attribute instanceof ResolvedUser && ((ResolvedUser) attribute).controller == this)
+            return ((ResolvedUser) attribute).user;
+
+        User user = getUser(request);
+        request.putMetadata(REQUEST_ATTR_USER, new ResolvedUser(this, user));
+        return user;
+    }
+
+    /**
+     * Returns the role mask of given user. When there is a session, the mask is computed once and stored along with the session.
+     */
+    private long[] __getRoleMask(ActionRequest request, User user) {
+        int version = RoleRegistry.getVersion(); // <-- read before computing the mask, so concurrently registered roles invalidate it
+        HttpSession session = request.getServletRequest().getSession(false);
+
+        Object attribute = session == null ? null : session.getAttribute(SESSION_ATTR_ROLE_MASK);
+
+        if (attribute instanceof UserRoleMask) {
+            UserRoleMask userRoleMask = (UserRoleMask) attribute;
+
+            if (userRoleMask.user == user && userRoleMask.version == version)
+                return userRoleMask.mask;
+        }
+
+        long[] mask = RoleRegistry.getMask(user.getRoles());
+
+        if (session != null)
+            session.setAttribute(SESSION_ATTR_ROLE_MASK, new UserRoleMask(user, version, mask));
+
+        return mask;
+    }
+
     /**
      * This method instructs the controller how to retrieve the user associated with given HTTP exchange.
      *
      * @param request HTTP request. Default implementation checks for header {@linkplain Controller#XSRF_HEADER} in order to prevent XRSF attacks.
-     * @return an user associated with given request. Default uses servlet request session to retrive the user. If a user cannot be retrieved from given request, returns null.
+     * @return an user associated with given request. Default uses servlet request session (or the {@linkplain Controller#getTokenAuthenticator() token authenticator}, if any) to retrive the user. If a user cannot be retrieved from given request, returns null.
      * @throws ServletException if the HTTP request cannot be handled.
      * @throws IOException if an input or output error occurs while the servlet is handling the HTTP request.
      */
     protected User getUser(ActionRequest request) throws ServletException, IOException {
+        if (tokenAuthenticator != null)
+            return tokenAuthenticator.getUser(request);
+
         HttpSession session = request.getServletRequest().getSession(false);
 
         if (session == null)
@@ -389,7 +1539,7 @@ public class Controller extends ActionServlet {
         String sessionToken = (String) session.getAttribute(SESSION_ATTR_XSRF_TOKEN);
         String requestToken = request.getHeader(XSRF_HEADER);
 
-        if (!Objects.equals(sessionToken, requestToken))
+        if (sessionToken == null ? requestToken != null : !TokenGenerator.isEqual(sessionToken, requestToken))
             return null;
 
         return user;
@@ -398,7 +1548,7 @@ public class Controller extends ActionServlet {
     /**
      * This method instructs the controller how to associate an user with a HTTP exchange.
      *
-     * Default implementation uses servlet request session associated with given request.
+     * Default implementation uses servlet request session associated with given request (or the {@linkplain Controller#getTokenAuthenticator() token authenticator}, if any).
      * Default implementation also sends a cookie ({@linkplain Controller#XSRF_COOKIE}) containing a XRSF token which must be sent on each request associated with given user
      * as a header ({@linkplain Controller#XSRF_HEADER}).
      *
@@ -409,6 +1559,12 @@ public class Controller extends ActionServlet {
      * @throws IOException if an input or output error occurs while the servlet is handling the HTTP request.
      */
     protected void setUser(ActionRequest request, ActionResponse response, User user) throws ServletException, IOException {
+        request.removeMetadata(REQUEST_ATTR_USER);
+
+        if (tokenAuthenticator != null) {
+            tokenAuthenticator.setUser(request, response, user);
+            return;
+        }
 
         if (user == null) {
             HttpSession session = request.getServletRequest().getSession(false);
@@ -416,14 +1572,16 @@ public class Controller extends ActionServlet {
             if (session != null) {
                 session.removeAttribute(SESSION_ATTR_USER);
                 session.removeAttribute(SESSION_ATTR_XSRF_TOKEN);
+                session.removeAttribute(SESSION_ATTR_ROLE_MASK);
                 response.removeCookie(XSRF_COOKIE);
             }
 
         } else {
             HttpSession session = request.getServletRequest().getSession();
             session.setAttribute(SESSION_ATTR_USER, user);
+            session.removeAttribute(SESSION_ATTR_ROLE_MASK); // <-- user roles may have changed even if the same instance is set again
 
-            String xsrfToken = __getRandom(XSRF_TOKEN_LENGTH);
+            String xsrfToken = TokenGenerator.nextToken(XSRF_TOKEN_LENGTH);
             session.setAttribute(SESSION_ATTR_XSRF_TOKEN, xsrfToken);
 
             response.addCookie(XSRF_COOKIE, xsrfToken, -1);
@@ -434,7 +1592,7 @@ public class Controller extends ActionServlet {
     /**
      * This method instructs the controller how to send an object to the client.
      *
-     * Default implementation serializes the DTO into a JSON response.
+     * Default implementation serializes the DTO into a JSON response using controller's {@linkplain Controller#getJsonCodec() codec}.
      *
      * @param request HTTP request.
      * @param response HTTP response.
@@ -443,7 +1601,7 @@ public class Controller extends ActionServlet {
      * @throws IOException if an input or output error occurs while the servlet is handling the HTTP request.
      */
     protected void sendObject(ActionRequest request, ActionResponse response, Object obj) throws ServletException, IOException {
-        new JsonResponse(response).sendObject(obj);
+        new JsonResponse(response, jsonCodec).sendObject(obj);
     }
 
     @Override
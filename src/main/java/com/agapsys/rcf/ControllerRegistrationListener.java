@@ -154,6 +154,8 @@ public class ControllerRegistrationListener implements ServletContextListener {
 
                 String urlPattern = String.format("/%s/*", controllerName);
                 dn.addMapping(urlPattern);
+                dn.setLoadOnStartup(1); // <-- registers controllers for internal requests (see ControllerRegistry) as soon as the application starts
+                dn.setAsyncSupported(true); // <-- actions with a timeout release container threads while running (see WebAction#timeout())
             }
         } else {
             throw new RuntimeException("REST Controller Framework requires Servlet 3.x specification support");
@@ -0,0 +1,136 @@
+/*
+ * Copyright 2017 Agapsys Tecnologia Ltda-ME.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.agapsys.rcf;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.servlet.ServletContext;
+import javax.servlet.ServletRegistration;
+
+/**
+ * Registry of initialized action servlets of a web application, keyed by their path mappings.
+ *
+ * Used to dispatch internal requests (see {@linkplain Controller#dispatchInternal(ActionRequest, Controller.InternalRequest, Class)}) straight to the target servlet, without going through the servlet container. Only prefix mappings (e.g. "/users/*") are registered.
+ */
+final class ControllerRegistry {
+
+    // <editor-fold desc="STATIC SCOPE" defaultstate="collapsed">
+    // =========================================================================
+    private static final String CONTEXT_ATTR_REGISTRY = ControllerRegistry.class.getName();
+
+    private static final String PREFIX_MAPPING_SUFFIX = "/*";
+
+    /** Servlet resolved for a path. */
+    static final class Target {
+        final ActionServlet servlet;
+        final String        servletPath;
+        final String        pathInfo;
+
+        private Target(ActionServlet servlet, String servletPath, String pathInfo) {
+            this.servlet = servlet;
+            this.servletPath = servletPath;
+            this.pathInfo = pathInfo;
+        }
+    }
+
+    /**
+     * Returns the registry of given web application.
+     *
+     * @param servletContext servlet context.
+     * @return the registry associated with given context.
+     */
+    static ControllerRegistry getInstance(ServletContext servletContext) {
+        synchronized (servletContext) {
+            ControllerRegistry registry = (ControllerRegistry) servletContext.getAttribute(CONTEXT_ATTR_REGISTRY);
+
+            if (registry == null) {
+                registry = new ControllerRegistry();
+                servletContext.setAttribute(CONTEXT_ATTR_REGISTRY, registry);
+            }
+
+            return registry;
+        }
+    }
+
+    private static Collection<String> __getMappings(ActionServlet servlet) {
+        ServletRegistration registration = servlet.getServletContext().getServletRegistration(servlet.getServletName());
+        return registration == null ? null : registration.getMappings();
+    }
+    // =========================================================================
+    // </editor-fold>
+
+    private final Map<String, ActionServlet> servletMap = new ConcurrentHashMap<>();
+
+    private ControllerRegistry() {}
+
+    /**
+     * Registers given servlet under its prefix mappings.
+     *
+     * @param servlet initialized servlet.
+     */
+    void register(ActionServlet servlet) {
+        Collection<String> mappings = __getMappings(servlet);
+
+        if (mappings == null)
+            return;
+
+        for (String mapping : mappings) {
+            if (mapping.endsWith(PREFIX_MAPPING_SUFFIX))
+                servletMap.put(mapping.substring(0, mapping.length() - PREFIX_MAPPING_SUFFIX.length()), servlet);
+        }
+    }
+
+    /**
+     * Removes given servlet from the registry.
+     *
+     * @param servlet servlet being destroyed.
+     */
+    void unregister(ActionServlet servlet) {
+        servletMap.values().remove(servlet);
+    }
+
+    /**
+     * Resolves the servlet mapped to given path.
+     *
+     * @param path context-relative path (without query string).
+     * @return resolved servlet or null if there is no registered servlet mapped to given path.
+     */
+    Target resolve(String path) {
+        // Longest prefix wins, as in servlet mapping rules...
+        String servletPath = path;
+
+        while (!servletPath.isEmpty()) {
+            ActionServlet servlet = servletMap.get(servletPath);
+
+            if (servlet != null) {
+                String pathInfo = path.substring(servletPath.length());
+                return new Target(servlet, servletPath, pathInfo.isEmpty() ? "/" : pathInfo);
+            }
+
+            int index = servletPath.lastIndexOf('/');
+
+            if (index < 0)
+                break;
+
+            servletPath = servletPath.substring(0, index);
+        }
+
+        return null;
+    }
+
+}
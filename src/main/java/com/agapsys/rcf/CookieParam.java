@@ -0,0 +1,42 @@
+/*
+ * Copyright 2017 Agapsys Tecnologia Ltda-ME.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.agapsys.rcf;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Binds an action parameter to a request cookie.
+ *
+ * Conversion rules are the same used by {@linkplain Param}.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.PARAMETER)
+public @interface CookieParam {
+
+    /** @return cookie name. */
+    String  value();
+
+    /** @return a boolean indicating if the cookie must be present in the request. Ignored when a default value is given. */
+    boolean required()     default true;
+
+    /** @return value used when the cookie is missing. Optional primitive parameters require a default value. */
+    String  defaultValue() default Param.NO_DEFAULT;
+
+}
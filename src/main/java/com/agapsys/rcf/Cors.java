@@ -0,0 +1,49 @@
+/*
+ * Copyright 2017 Agapsys Tecnologia Ltda-ME.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.agapsys.rcf;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Cross-origin resource sharing (CORS) policy.
+ *
+ * When placed on a controller, the policy applies to all controller's actions. When placed on an action method, it replaces controller's policy for that action.
+ * Preflight requests are answered by the dispatcher from precomputed headers, without invoking any action.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.TYPE, ElementType.METHOD})
+public @interface Cors {
+
+    /** @return allowed origins (e.g. "https://app.example.com"). Use "*" in order to allow any origin. */
+    String[] origins()        default {"*"};
+
+    /** @return request headers allowed in cross-origin requests. */
+    String[] allowedHeaders() default {"Content-Type", TokenAuthenticator.AUTHORIZATION_HEADER, Controller.XSRF_HEADER};
+
+    /** @return response headers exposed to cross-origin clients. */
+    String[] exposedHeaders() default {};
+
+    /** @return a boolean indicating if credentials (cookies) are allowed in cross-origin requests. Credentials cannot be allowed along with "*" origin. */
+    boolean  allowCredentials() default false;
+
+    /** @return how long (in seconds) clients may cache preflight responses. */
+    int      maxAge()         default 600;
+
+}
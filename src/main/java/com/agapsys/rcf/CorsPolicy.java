@@ -0,0 +1,148 @@
+/*
+ * Copyright 2017 Agapsys Tecnologia Ltda-ME.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.agapsys.rcf;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Resolved CORS policy (see {@linkplain Cors}).
+ *
+ * Header values are computed once, so applying a policy costs an origin lookup plus a few header writes.
+ */
+final class CorsPolicy {
+
+    // <editor-fold desc="STATIC SCOPE" defaultstate="collapsed">
+    // =========================================================================
+    static final String HEADER_ORIGIN                  = "Origin";
+    static final String HEADER_REQUEST_METHOD          = "Access-Control-Request-Method";
+    static final String HEADER_ALLOW_ORIGIN            = "Access-Control-Allow-Origin";
+    static final String HEADER_ALLOW_CREDENTIALS       = "Access-Control-Allow-Credentials";
+    static final String HEADER_ALLOW_METHODS           = "Access-Control-Allow-Methods";
+    static final String HEADER_ALLOW_HEADERS           = "Access-Control-Allow-Headers";
+    static final String HEADER_EXPOSE_HEADERS          = "Access-Control-Expose-Headers";
+    static final String HEADER_MAX_AGE                 = "Access-Control-Max-Age";
+    static final String HEADER_VARY                    = "Vary";
+
+    private static final String ANY_ORIGIN = "*";
+
+    /** Action associated with a CORS policy. */
+    static interface Source {
+
+        /** @return CORS policy of the action, or null if cross-origin requests are not allowed. */
+        public CorsPolicy getCorsPolicy();
+    }
+
+    private static String __join(String[] values) {
+        return values.length == 0 ? null : String.join(", ", values);
+    }
+    // =========================================================================
+    // </editor-fold>
+
+    private final Set<String> origins; // <-- null means any origin
+    private final boolean     allowCredentials;
+    private final String      allowHeaders;
+    private final String      exposeHeaders;
+    private final String      maxAge;
+
+    CorsPolicy(Cors cors) {
+        if (cors.maxAge() < 0)
+            throw new RuntimeException("Invalid CORS max age: " + cors.maxAge());
+
+        Set<String> tmpOrigins = new LinkedHashSet<>(Arrays.asList(cors.origins()));
+
+        if (tmpOrigins.isEmpty())
+            throw new RuntimeException("Missing CORS origins");
+
+        if (tmpOrigins.contains(ANY_ORIGIN) && cors.allowCredentials())
+            throw new RuntimeException("CORS credentials cannot be allowed for any origin"); // <-- browsers reject "*" along with credentials
+
+        this.origins = tmpOrigins.contains(ANY_ORIGIN) ? null : Collections.unmodifiableSet(tmpOrigins);
+        this.allowCredentials = cors.allowCredentials();
+        this.allowHeaders = __join(cors.allowedHeaders());
+        this.exposeHeaders = __join(cors.exposedHeaders());
+        this.maxAge = Integer.toString(cors.maxAge());
+    }
+
+    /**
+     * Returns a boolean indicating if given origin is allowed.
+     *
+     * @param origin value of Origin header.
+     * @return a boolean indicating if given origin is allowed.
+     */
+    boolean isAllowed(String origin) {
+        return origin != null && (origins == null || origins.contains(origin));
+    }
+
+    /**
+     * Sends the Vary header of a policy which allows specific origins. Such responses depend on the Origin header even when origin is missing or not allowed, so shared caches must not serve them to other origins.
+     *
+     * @param response HTTP response.
+     */
+    void applyVary(HttpServletResponse response) {
+        if (origins != null)
+            response.addHeader(HEADER_VARY, HEADER_ORIGIN);
+    }
+
+    private void __sendOrigin(HttpServletResponse response, String origin) {
+        response.setHeader(HEADER_ALLOW_ORIGIN, origins == null ? ANY_ORIGIN : origin);
+
+        if (allowCredentials)
+            response.setHeader(HEADER_ALLOW_CREDENTIALS, "true");
+    }
+
+    /**
+     * Sends CORS headers of an actual (non-preflight) request. Only the Vary header (see {@linkplain CorsPolicy#applyVary(HttpServletResponse)}) is sent if origin is not allowed.
+     *
+     * @param origin value of Origin header (may be null).
+     * @param response HTTP response.
+     */
+    void apply(String origin, HttpServletResponse response) {
+        applyVary(response);
+
+        if (!isAllowed(origin))
+            return;
+
+        __sendOrigin(response, origin);
+
+        if (exposeHeaders != null)
+            response.setHeader(HEADER_EXPOSE_HEADERS, exposeHeaders);
+    }
+
+    /**
+     * Sends the response of a preflight request.
+     *
+     * @param origin value of Origin header (must be allowed).
+     * @param allowMethods value of Access-Control-Allow-Methods header.
+     * @param response HTTP response.
+     */
+    void applyPreflight(String origin, String allowMethods, HttpServletResponse response) {
+        applyVary(response);
+        __sendOrigin(response, origin);
+        response.setHeader(HEADER_ALLOW_METHODS, allowMethods);
+
+        if (allowHeaders != null)
+            response.setHeader(HEADER_ALLOW_HEADERS, allowHeaders);
+
+        response.setHeader(HEADER_MAX_AGE, maxAge);
+        response.setStatus(HttpServletResponse.SC_NO_CONTENT);
+    }
+
+}
@@ -0,0 +1,229 @@
+/*
+ * Copyright 2017 Agapsys Tecnologia Ltda-ME.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.agapsys.rcf;
+
+import com.agapsys.rcf.exceptions.ClientException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Default error renderer.
+ *
+ * Supports plain text ({@code <appStatus>:<message>}), JSON ({@code {"status": ..., "appStatus": ..., "message": ...}}) and problem details (RFC 7807, {@code application/problem+json}) formats.
+ *
+ * Bodies are encoded straight to bytes and written to the output stream. Bodies of errors without a message (e.g. {@code new NotFoundException()}) depend only on the status codes, so they are encoded once and reused.
+ */
+public class DefaultErrorRenderer implements ErrorRenderer {
+
+    // <editor-fold desc="STATIC SCOPE" defaultstate="collapsed">
+    // =========================================================================
+    public static enum Format {
+        PLAIN("text/plain"),
+        JSON("application/json"),
+        PROBLEM_JSON("application/problem+json");
+
+        private final String contentType;
+
+        private Format(String contentType) {
+            this.contentType = contentType;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+    }
+
+    /** Renders errors as plain text. */
+    public static final DefaultErrorRenderer PLAIN = new DefaultErrorRenderer(Format.PLAIN);
+
+    /** Renders errors as JSON objects. */
+    public static final DefaultErrorRenderer JSON = new DefaultErrorRenderer(Format.JSON);
+
+    /** Renders errors as problem details (RFC 7807). */
+    public static final DefaultErrorRenderer PROBLEM_JSON = new DefaultErrorRenderer(Format.PROBLEM_JSON);
+
+    private static final String CHARACTER_ENCODING = "UTF-8";
+
+    private static final int MAX_CACHED_BODIES = 256;
+
+    private static String __getReasonPhrase(int httpStatus) {
+        switch (httpStatus) {
+            case 400: return "Bad Request";
+            case 401: return "Unauthorized";
+            case 403: return "Forbidden";
+            case 404: return "Not Found";
+            case 405: return "Method Not Allowed";
+            case 406: return "Not Acceptable";
+            case 409: return "Conflict";
+            case 410: return "Gone";
+            case 412: return "Precondition Failed";
+            case 413: return "Payload Too Large";
+            case 415: return "Unsupported Media Type";
+            case 422: return "Unprocessable Entity";
+            case 429: return "Too Many Requests";
+            case 500: return "Internal Server Error";
+            case 503: return "Service Unavailable";
+            case 504: return "Gateway Timeout";
+            default:  return "Error";
+        }
+    }
+
+    private static void __appendJsonString(StringBuilder sb, String str) {
+        sb.append('"');
+
+        for (int i = 0; i < str.length(); i++) {
+            char c = str.charAt(i);
+
+            switch (c) {
+                case '"':  sb.append("\\\""); break;
+                case '\\': sb.append("\\\\"); break;
+                case '\n': sb.append("\\n");  break;
+                case '\r': sb.append("\\r");  break;
+                case '\t': sb.append("\\t");  break;
+
+                default:
+                    if (c < 0x20 || c == '\u2028' || c == '\u2029') {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+            }
+        }
+
+        sb.append('"');
+    }
+
+    private static long __getCacheKey(int httpStatus, Integer appStatus) {
+        return ((long) httpStatus << 33) | (appStatus == null ? 1L << 32 : appStatus & 0xFFFFFFFFL);
+    }
+    // =========================================================================
+    // </editor-fold>
+
+    private final Format format;
+
+    private final ConcurrentHashMap<Long, byte[]> bodyCache = new ConcurrentHashMap<>();
+
+    public DefaultErrorRenderer(Format format) {
+        if (format == null)
+            throw new IllegalArgumentException("Null format");
+
+        this.format = format;
+    }
+
+    public Format getFormat() {
+        return format;
+    }
+
+    /**
+     * Returns the body of an error response.
+     *
+     * @param httpStatus HTTP status.
+     * @param appStatus application status. May be null.
+     * @param message error message.
+     * @return error body.
+     */
+    protected String getBody(int httpStatus, Integer appStatus, String message) {
+        StringBuilder sb = new StringBuilder();
+
+        switch (format) {
+            case PLAIN:
+                if (appStatus != null)
+                    sb.append(appStatus).append(':');
+
+                sb.append(message);
+                break;
+
+            case JSON:
+                sb.append("{\"status\":").append(httpStatus);
+
+                if (appStatus != null)
+                    sb.append(",\"appStatus\":").append(appStatus);
+
+                sb.append(",\"message\":");
+                __appendJsonString(sb, message);
+                sb.append('}');
+                break;
+
+            default:
+                sb.append("{\"type\":\"about:blank\",\"title\":");
+                __appendJsonString(sb, __getReasonPhrase(httpStatus));
+                sb.append(",\"status\":").append(httpStatus);
+
+                if (!message.isEmpty()) {
+                    sb.append(",\"detail\":");
+                    __appendJsonString(sb, message);
+                }
+
+                if (appStatus != null)
+                    sb.append(",\"appStatus\":").append(appStatus);
+
+                sb.append('}');
+                break;
+        }
+
+        return sb.toString();
+    }
+
+    private byte[] __getBody(ClientException error) {
+        String message = error.getMessage();
+
+        if (message == null)
+            message = "";
+
+        if (!message.isEmpty())
+            return getBody(error.getHttpStatus(), error.getAppStatus(), message).getBytes(StandardCharsets.UTF_8);
+
+        Long key = __getCacheKey(error.getHttpStatus(), error.getAppStatus());
+        byte[] body = bodyCache.get(key);
+
+        if (body == null) {
+            body = getBody(error.getHttpStatus(), error.getAppStatus(), message).getBytes(StandardCharsets.UTF_8);
+
+            if (bodyCache.size() < MAX_CACHED_BODIES) // <-- application statuses are not bounded
+                bodyCache.putIfAbsent(key, body);
+        }
+
+        return body;
+    }
+
+    @Override
+    public void render(ActionRequest request, ActionResponse response, ClientException error) throws ServletException, IOException {
+        byte[] body = __getBody(error);
+
+        HttpServletResponse servletResponse = response.getServletResponse();
+        servletResponse.setContentType(format.contentType);
+        servletResponse.setCharacterEncoding(CHARACTER_ENCODING);
+
+        ServletOutputStream out;
+
+        try {
+            out = servletResponse.getOutputStream();
+        } catch (IllegalStateException ex) {
+            // A writer was already obtained for this response...
+            servletResponse.getWriter().write(new String(body, StandardCharsets.UTF_8));
+            return;
+        }
+
+        servletResponse.setContentLength(body.length);
+        out.write(body);
+    }
+
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright 2017 Agapsys Tecnologia Ltda-ME.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.agapsys.rcf;
+
+import com.agapsys.rcf.exceptions.ClientException;
+import java.io.IOException;
+import javax.servlet.ServletException;
+
+/**
+ * Renders the body of client error responses.
+ *
+ * @see ActionServlet#getErrorRenderer()
+ * @see DefaultErrorRenderer
+ */
+public interface ErrorRenderer {
+
+    /**
+     * Writes the body of an error response. Response status is already set when this method is called.
+     *
+     * @param request HTTP request.
+     * @param response HTTP response.
+     * @param error client error.
+     * @throws ServletException if the HTTP request cannot be handled.
+     * @throws IOException if an input or output error occurs while the servlet is handling the HTTP request.
+     */
+    public void render(ActionRequest request, ActionResponse response, ClientException error) throws ServletException, IOException;
+
+}
@@ -0,0 +1,284 @@
+/*
+ * Copyright 2017 Agapsys Tecnologia Ltda-ME.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.agapsys.rcf;
+
+import com.agapsys.rcf.exceptions.BadRequestException;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonDeserializationContext;
+import com.google.gson.JsonDeserializer;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonIOException;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.JsonSerializationContext;
+import com.google.gson.JsonSerializer;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import com.google.gson.stream.MalformedJsonException;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.reflect.Type;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+/** Default {@linkplain JsonCodec} backed by Gson. */
+public class GsonJsonCodec implements JsonCodec {
+
+    // <editor-fold desc="STATIC SCOPE" defaultstate="collapsed">
+    // =========================================================================
+    /** Dates are represented as ISO-8601 timestamps in UTC (e.g. "2015-11-28T00:00:00.000Z"). */
+    private static class IsoDateAdapter implements JsonSerializer<Date>, JsonDeserializer<Date> {
+
+        private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'").withZone(ZoneOffset.UTC);
+
+        @Override
+        public JsonElement serialize(Date src, Type typeOfSrc, JsonSerializationContext context) {
+            return new JsonPrimitive(FORMATTER.format(Instant.ofEpochMilli(src.getTime())));
+        }
+
+        @Override
+        public Date deserialize(JsonElement json, Type typeOfT, JsonDeserializationContext context) throws JsonParseException {
+            if (!(json instanceof JsonPrimitive)) {
+                throw new JsonParseException("Invalid date");
+            }
+
+            long time;
+
+            try {
+                time = FORMATTER.parse(json.getAsString(), Instant::from).toEpochMilli();
+            } catch (DateTimeException ex) {
+                throw new JsonSyntaxException(ex);
+            }
+
+            if (typeOfT == Timestamp.class)
+                return new Timestamp(time);
+
+            if (typeOfT == Time.class)
+                return new Time(time);
+
+            if (typeOfT == java.sql.Date.class)
+                return new java.sql.Date(time);
+
+            return new Date(time);
+        }
+    }
+
+    /**
+     * Returns a Gson builder configured with framework defaults.
+     *
+     * @return a Gson builder configured with framework defaults. Applications may use this builder in order to customize the instance passed to {@linkplain GsonJsonCodec#GsonJsonCodec(Gson)}.
+     */
+    public static GsonBuilder getDefaultBuilder() {
+        GsonBuilder builder = new GsonBuilder();
+        IsoDateAdapter adapter = new IsoDateAdapter();
+        builder.registerTypeAdapter(Date.class, adapter);
+        builder.registerTypeAdapter(Time.class, adapter);
+        builder.registerTypeAdapter(java.sql.Date.class, adapter);
+        builder.registerTypeAdapter(Timestamp.class, adapter);
+        return builder;
+    }
+
+    /** Default instance. */
+    public static final GsonJsonCodec DEFAULT = new GsonJsonCodec(getDefaultBuilder().create());
+    // =========================================================================
+    // </editor-fold>
+
+    private class GsonObjectReader<T> implements ObjectReader<T> {
+        private final TypeAdapter<T> adapter;
+
+        private GsonObjectReader(TypeAdapter<T> adapter) {
+            this.adapter = adapter;
+        }
+
+        // Same semantics of Gson.fromJson(Reader, Type)
+        @Override
+        public T read(Reader reader) throws IOException, BadRequestException {
+            JsonReader jsonReader = new JsonReader(reader);
+            jsonReader.setLenient(true);
+
+            try {
+                try {
+                    jsonReader.peek();
+                } catch (EOFException ex) {
+                    return null; // <-- empty document
+                }
+
+                T obj = adapter.read(jsonReader);
+
+                if (obj != null && jsonReader.peek() != JsonToken.END_DOCUMENT)
+                    throw new BadRequestException("JSON document was not fully consumed.");
+
+                return obj;
+            } catch (MalformedJsonException | EOFException | JsonSyntaxException | IllegalStateException | NumberFormatException ex) {
+                throw new BadRequestException(ex.getMessage());
+            } catch (JsonIOException ex) {
+                throw new IOException(ex);
+            }
+        }
+    }
+
+    private class GsonFieldsReader implements FieldsReader {
+        private final Map<String, Integer> indexMap = new HashMap<>();
+        private final TypeAdapter[] adapters;
+
+        private GsonFieldsReader(String[] names, Type[] types) {
+            if (names.length != types.length)
+                throw new IllegalArgumentException("Names and types do not match");
+
+            this.adapters = new TypeAdapter[names.length];
+
+            for (int i = 0; i < names.length; i++) {
+                if (indexMap.put(names[i], i) != null)
+                    throw new IllegalArgumentException("Duplicate field: " + names[i]);
+
+                adapters[i] = types[i] instanceof Class ? GsonJsonCodec.this.adapters.get((Class<?>) types[i]) : gson.getAdapter(TypeToken.get(types[i]));
+            }
+        }
+
+        @Override
+        public Object[] read(Reader reader) throws IOException, BadRequestException {
+            Object[] values = new Object[adapters.length];
+
+            JsonReader jsonReader = new JsonReader(reader);
+            jsonReader.setLenient(true);
+
+            try {
+                try {
+                    if (jsonReader.peek() == JsonToken.NULL)
+                        return values;
+                } catch (EOFException ex) {
+                    return values; // <-- empty document
+                }
+
+                jsonReader.beginObject();
+
+                while (jsonReader.hasNext()) {
+                    Integer index = indexMap.get(jsonReader.nextName());
+
+                    if (index == null) {
+                        jsonReader.skipValue();
+                    } else {
+                        values[index] = adapters[index].read(jsonReader);
+                    }
+                }
+
+                jsonReader.endObject();
+
+                if (jsonReader.peek() != JsonToken.END_DOCUMENT)
+                    throw new BadRequestException("JSON document was not fully consumed.");
+
+                return values;
+            } catch (MalformedJsonException | EOFException | JsonSyntaxException | IllegalStateException | NumberFormatException ex) {
+                throw new BadRequestException(ex.getMessage());
+            } catch (JsonIOException ex) {
+                throw new IOException(ex);
+            }
+        }
+    }
+
+    private final Gson gson;
+
+    // Adapters/readers for concrete classes are resolved once and pinned to the class.
+    private final ClassValue<TypeAdapter> adapters = new ClassValue<TypeAdapter>() {
+        @Override
+        protected TypeAdapter computeValue(Class<?> type) {
+            return gson.getAdapter(type);
+        }
+    };
+
+    private final ClassValue<GsonObjectReader> readers = new ClassValue<GsonObjectReader>() {
+        @Override
+        protected GsonObjectReader computeValue(Class<?> type) {
+            return new GsonObjectReader(adapters.get(type));
+        }
+    };
+
+    public GsonJsonCodec(Gson gson) {
+        if (gson == null)
+            throw new IllegalArgumentException("Null gson");
+
+        this.gson = gson;
+    }
+
+    /**
+     * Returns the Gson instance used by this codec.
+     *
+     * @return the Gson instance used by this codec.
+     */
+    public final Gson getGson() {
+        return gson;
+    }
+
+    @Override
+    public <T> T readObject(Reader reader, Type type) throws IOException, BadRequestException {
+        return (T) getReader(type).read(reader);
+    }
+
+    @Override
+    public void writeObject(Writer writer, Object obj) throws IOException {
+        if (obj == null) {
+            writer.write("null");
+            return;
+        }
+
+        // Same semantics of Gson.toJson(Object, Appendable)
+        JsonWriter jsonWriter = gson.newJsonWriter(writer);
+        jsonWriter.setLenient(true);
+
+        try {
+            adapters.get(obj.getClass()).write(jsonWriter, obj);
+        } catch (JsonIOException ex) {
+            throw new IOException(ex);
+        }
+    }
+
+    @Override
+    public <T> ObjectReader<T> getReader(Type type) {
+        if (type instanceof Class)
+            return readers.get((Class<?>) type);
+
+        return new GsonObjectReader<>((TypeAdapter<T>) gson.getAdapter(TypeToken.get(type)));
+    }
+
+    @Override
+    public FieldsReader getFieldsReader(String[] names, Type[] types) {
+        return new GsonFieldsReader(names, types);
+    }
+
+    @Override
+    public void prepare(Type type) {
+        if (type instanceof Class) {
+            adapters.get((Class<?>) type);
+        } else {
+            gson.getAdapter(TypeToken.get(type));
+        }
+    }
+
+}
@@ -0,0 +1,639 @@
+/*
+ * Copyright 2017 Agapsys Tecnologia Ltda-ME.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.agapsys.rcf;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import javax.servlet.ReadListener;
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.HttpSession;
+
+/**
+ * Request executed on behalf of another one (e.g. sub-requests of a batch and internal dispatches).
+ *
+ * Method, given headers and body replace caller's ones, while everything else (session, cookies, remaining headers) is shared with caller's request.
+ * Caller's headers, cookies, attributes and session are read from a {@linkplain CallerState snapshot} taken by the request thread, so internal requests may be executed by other threads (container requests are not thread-safe).
+ * Attributes are kept apart from caller's request, so requests executed in parallel on behalf of the same caller do not see each other's data.
+ * Optionally, paths and parameters are replaced too (used when a request is dispatched without the servlet container).
+ * A request may also be {@linkplain InternalServletRequest#detach(HttpServletRequest) detached} from the container, so it can be handed to a thread which may outlive the container request.
+ */
+final class InternalServletRequest extends HttpServletRequestWrapper {
+
+    // <editor-fold desc="STATIC SCOPE" defaultstate="collapsed">
+    // =========================================================================
+    private static final String HEADER_CONTENT_TYPE   = "Content-Type";
+    private static final String HEADER_CONTENT_LENGTH = "Content-Length";
+
+    private static final Object REMOVED_ATTRIBUTE = new Object();
+
+    private static final byte[] EMPTY_BODY = new byte[0];
+
+    private static final String FORM_CONTENT_TYPE = "application/x-www-form-urlencoded";
+
+    /** Replaces the container request of a released request: container may have recycled it for another client. */
+    private static final HttpServletRequest RELEASED_REQUEST = (HttpServletRequest) Proxy.newProxyInstance(InternalServletRequest.class.getClassLoader(), new Class<?>[] {HttpServletRequest.class}, new InvocationHandler() {
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            throw new IllegalStateException("Request is no longer available");
+        }
+    });
+
+    /** Provides request body on demand. */
+    static interface BodySource {
+        public byte[] getBody() throws IOException;
+    }
+
+    /** Caller's headers which are not inherited: responses of internal requests are read by the server, so they must be complete and not encoded. */
+    private static final Set<String> NON_INHERITED_HEADERS;
+
+    static {
+        Set<String> tmpNonInheritedHeaders = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+        tmpNonInheritedHeaders.addAll(Arrays.asList(
+            "Accept-Encoding",
+            "If-Match",
+            "If-None-Match",
+            "If-Modified-Since",
+            "If-Unmodified-Since",
+            "If-Range",
+            "Range"
+        ));
+        NON_INHERITED_HEADERS = Collections.unmodifiableSet(tmpNonInheritedHeaders);
+    }
+
+    private static boolean __isContentHeader(String name) {
+        return name.equalsIgnoreCase(HEADER_CONTENT_TYPE) || name.equalsIgnoreCase(HEADER_CONTENT_LENGTH);
+    }
+
+    private static byte[] __readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+
+        for (int read = in.read(buffer); read >= 0; read = in.read(buffer)) {
+            baos.write(buffer, 0, read);
+        }
+
+        return baos.toByteArray();
+    }
+
+    /**
+     * Returns a copy of given request, which can be processed by another thread after the container has recycled given request (e.g. actions which timed out).
+     *
+     * Must be called by the thread which owns given request. Body and parameters are read by the calling thread. Members which are not copied (e.g. request dispatchers) are read from given request until the copy is {@linkplain InternalServletRequest#_release() released}.
+     *
+     * @param request container request.
+     * @return detached copy of given request.
+     * @throws IOException if an input or output error occurs while reading the body.
+     */
+    static InternalServletRequest detach(HttpServletRequest request) throws IOException {
+        String contentType = request.getContentType();
+        byte[] tmpBody = EMPTY_BODY;
+
+        if (contentType == null || !contentType.toLowerCase().startsWith(FORM_CONTENT_TYPE)) { // <-- form bodies are consumed by parameters
+            try {
+                tmpBody = __readAll(request.getInputStream());
+            } catch (IllegalStateException ex) {
+                // Body was already read through a reader...
+            }
+        }
+
+        final byte[] detachedBody = tmpBody;
+
+        BodySource bodySource = detachedBody.length == 0 ? null : new BodySource() {
+            @Override
+            public byte[] getBody() {
+                return detachedBody;
+            }
+        };
+
+        Map<String, String[]> parameterMap = new LinkedHashMap<>();
+
+        for (Map.Entry<String, String[]> param : request.getParameterMap().entrySet()) {
+            parameterMap.put(param.getKey(), param.getValue().clone());
+        }
+
+        InternalServletRequest detachedRequest = new InternalServletRequest(request, new CallerState(request), request.getMethod(), null, bodySource, contentType);
+        detachedRequest.characterEncoding = bodySource == null ? null : request.getCharacterEncoding();
+        detachedRequest.__setTarget(request.getServletPath(), request.getPathInfo(), parameterMap, request.getQueryString());
+        return detachedRequest;
+    }
+
+    /**
+     * Caller's state shared by internal requests.
+     *
+     * Must be created by the thread which owns caller's request, before internal requests are handed to other threads.
+     */
+    static final class CallerState {
+        private final HttpServletRequest        request;
+        private final Map<String, List<String>> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        private final Cookie[]                  cookies;
+        private final Map<String, Object>       attributes = new HashMap<>();
+        private final String                    contextPath;
+        private final String                    scheme;
+        private final String                    serverName;
+        private final int                       serverPort;
+        private final String                    remoteAddr;
+        private final String                    protocol;
+        private final boolean                   secure;
+        private final Locale                    locale;
+
+        private volatile HttpSession session;
+        private volatile boolean     released = false;
+
+        CallerState(HttpServletRequest request) {
+            this.request = request;
+            this.contextPath = request.getContextPath();
+            this.scheme = request.getScheme();
+            this.serverName = request.getServerName();
+            this.serverPort = request.getServerPort();
+            this.remoteAddr = request.getRemoteAddr();
+            this.protocol = request.getProtocol();
+            this.secure = request.isSecure();
+            this.locale = request.getLocale();
+
+            for (Enumeration<String> names = request.getHeaderNames(); names != null && names.hasMoreElements();) {
+                String name = names.nextElement();
+
+                if (__isContentHeader(name) || NON_INHERITED_HEADERS.contains(name))
+                    continue;
+
+                List<String> values = new ArrayList<>();
+
+                for (Enumeration<String> e = request.getHeaders(name); e != null && e.hasMoreElements();) {
+                    values.add(e.nextElement());
+                }
+
+                if (!values.isEmpty())
+                    headers.put(name, values);
+            }
+
+            Cookie[] tmpCookies = request.getCookies();
+            this.cookies = tmpCookies == null ? null : tmpCookies.clone();
+
+            for (Enumeration<String> names = request.getAttributeNames(); names != null && names.hasMoreElements();) {
+                String name = names.nextElement();
+                Object value = request.getAttribute(name);
+
+                if (value != null)
+                    attributes.put(name, value);
+            }
+
+            this.session = request.getSession(false);
+        }
+
+        private HttpSession __getSession(boolean create) {
+            HttpSession tmpSession = session;
+
+            if (tmpSession != null || !create)
+                return tmpSession;
+
+            if (released)
+                throw new IllegalStateException("Request is no longer available");
+
+            synchronized (request) { // <-- same lock used when forwarding through the container
+                if (session == null)
+                    session = request.getSession(true);
+
+                return session;
+            }
+        }
+    }
+    // =========================================================================
+    // </editor-fold>
+
+    private final CallerState         caller;
+    private final String              method;
+    private String                    characterEncoding;
+    private final Map<String, String> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+    private final BodySource          bodySource;
+    private final String              contentType;
+    private final Map<String, Object> attributes = new HashMap<>();
+
+    private byte[]                   body = null;
+    private ServletInputStream       inputStream = null;
+    private BufferedReader           reader = null;
+
+    // Replaced paths and parameters (null means caller's ones)...
+    private String                   servletPath = null;
+    private String                   pathInfo = null;
+    private Map<String, String[]>    parameterMap = null;
+    private String                   queryString = null;
+
+    /**
+     * Constructor.
+     *
+     * @param request caller's request.
+     * @param caller snapshot of caller's request.
+     * @param method HTTP method.
+     * @param headers headers replacing caller's ones (may be null).
+     * @param bodySource request body (may be null).
+     * @param contentType content type of the body.
+     */
+    InternalServletRequest(HttpServletRequest request, CallerState caller, String method, Map<String, String> headers, BodySource bodySource, String contentType) {
+        super(request);
+        this.caller = caller;
+        this.method = method;
+        this.bodySource = bodySource;
+        this.contentType = bodySource == null ? null : contentType;
+        this.characterEncoding = bodySource == null ? null : StandardCharsets.UTF_8.name();
+
+        if (headers != null)
+            this.headers.putAll(headers);
+
+        this.headers.remove(HEADER_CONTENT_TYPE);
+        this.headers.remove(HEADER_CONTENT_LENGTH);
+    }
+
+    /**
+     * Replaces paths and parameters of caller's request.
+     *
+     * @param servletPath servlet path.
+     * @param pathInfo path info.
+     * @param params request parameters (may be null).
+     */
+    void _setTarget(String servletPath, String pathInfo, Map<String, String> params) {
+        Map<String, String[]> tmpParameterMap = new LinkedHashMap<>();
+
+        StringBuilder sb = new StringBuilder();
+
+        if (params != null) {
+            for (Map.Entry<String, String> param : params.entrySet()) {
+                String value = param.getValue() == null ? "" : param.getValue();
+                tmpParameterMap.put(param.getKey(), new String[] {value});
+
+                if (sb.length() > 0)
+                    sb.append('&');
+
+                sb.append(param.getKey()).append('=').append(value);
+            }
+        }
+
+        __setTarget(servletPath, pathInfo, tmpParameterMap, sb.length() == 0 ? null : sb.toString());
+    }
+
+    private void __setTarget(String servletPath, String pathInfo, Map<String, String[]> parameterMap, String queryString) {
+        this.servletPath = servletPath;
+        this.pathInfo = pathInfo;
+        this.parameterMap = parameterMap;
+        this.queryString = queryString;
+    }
+
+    /**
+     * Stops delegating to caller's request (e.g. when the container may recycle it). Members which are not copied throw an IllegalStateException afterwards.
+     */
+    void _release() {
+        caller.released = true;
+        setRequest(RELEASED_REQUEST);
+    }
+
+    private byte[] __getBody() throws IOException {
+        if (body == null)
+            body = bodySource == null ? EMPTY_BODY : bodySource.getBody();
+
+        return body;
+    }
+
+    // Attributes --------------------------------------------------------------
+    @Override
+    public Object getAttribute(String name) {
+        Object value = attributes.get(name);
+
+        if (value == REMOVED_ATTRIBUTE)
+            return null;
+
+        return value == null ? caller.attributes.get(name) : value;
+    }
+
+    @Override
+    public Enumeration<String> getAttributeNames() {
+        Set<String> names = new LinkedHashSet<>(caller.attributes.keySet());
+
+        for (Map.Entry<String, Object> attribute : attributes.entrySet()) {
+            if (attribute.getValue() == REMOVED_ATTRIBUTE) {
+                names.remove(attribute.getKey());
+            } else {
+                names.add(attribute.getKey());
+            }
+        }
+
+        return Collections.enumeration(names);
+    }
+
+    @Override
+    public void setAttribute(String name, Object o) {
+        attributes.put(name, o == null ? REMOVED_ATTRIBUTE : o);
+    }
+
+    @Override
+    public void removeAttribute(String name) {
+        attributes.put(name, REMOVED_ATTRIBUTE);
+    }
+    // -------------------------------------------------------------------------
+
+    // Method and paths --------------------------------------------------------
+    @Override
+    public String getMethod() {
+        return method;
+    }
+
+    @Override
+    public String getContextPath() {
+        return caller.contextPath;
+    }
+
+    @Override
+    public String getScheme() {
+        return caller.scheme;
+    }
+
+    @Override
+    public String getServerName() {
+        return caller.serverName;
+    }
+
+    @Override
+    public int getServerPort() {
+        return caller.serverPort;
+    }
+
+    @Override
+    public String getRemoteAddr() {
+        return caller.remoteAddr;
+    }
+
+    @Override
+    public String getProtocol() {
+        return caller.protocol;
+    }
+
+    @Override
+    public boolean isSecure() {
+        return caller.secure;
+    }
+
+    @Override
+    public Locale getLocale() {
+        return caller.locale;
+    }
+
+    @Override
+    public String getServletPath() {
+        return servletPath == null ? super.getServletPath() : servletPath;
+    }
+
+    @Override
+    public String getPathInfo() {
+        return servletPath == null ? super.getPathInfo() : pathInfo;
+    }
+
+    @Override
+    public String getRequestURI() {
+        if (servletPath == null)
+            return super.getRequestURI();
+
+        String contextPath = getContextPath();
+        return (contextPath == null ? "" : contextPath) + servletPath + (pathInfo == null ? "" : pathInfo);
+    }
+
+    @Override
+    public StringBuffer getRequestURL() {
+        if (servletPath == null)
+            return super.getRequestURL();
+
+        return new StringBuffer(String.format("%s://%s:%d%s", getScheme(), getServerName(), getServerPort(), getRequestURI()));
+    }
+
+    @Override
+    public String getQueryString() {
+        return parameterMap == null ? super.getQueryString() : queryString;
+    }
+    // -------------------------------------------------------------------------
+
+    // Parameters --------------------------------------------------------------
+    @Override
+    public String getParameter(String name) {
+        if (parameterMap == null)
+            return super.getParameter(name);
+
+        String[] values = parameterMap.get(name);
+        return values == null ? null : values[0];
+    }
+
+    @Override
+    public String[] getParameterValues(String name) {
+        if (parameterMap == null)
+            return super.getParameterValues(name);
+
+        String[] values = parameterMap.get(name);
+        return values == null ? null : values.clone();
+    }
+
+    @Override
+    public Map<String, String[]> getParameterMap() {
+        return parameterMap == null ? super.getParameterMap() : Collections.unmodifiableMap(parameterMap);
+    }
+
+    @Override
+    public Enumeration<String> getParameterNames() {
+        return parameterMap == null ? super.getParameterNames() : Collections.enumeration(parameterMap.keySet());
+    }
+    // -------------------------------------------------------------------------
+
+    // Headers -----------------------------------------------------------------
+    @Override
+    public String getHeader(String name) {
+        if (name.equalsIgnoreCase(HEADER_CONTENT_TYPE))
+            return getContentType();
+
+        if (name.equalsIgnoreCase(HEADER_CONTENT_LENGTH))
+            return bodySource == null ? null : Integer.toString(getContentLength());
+
+        if (headers.containsKey(name))
+            return headers.get(name);
+
+        List<String> values = caller.headers.get(name);
+        return values == null ? null : values.get(0);
+    }
+
+    @Override
+    public Enumeration<String> getHeaders(String name) {
+        if (!headers.containsKey(name) && !__isContentHeader(name)) {
+            List<String> values = caller.headers.get(name);
+            return values == null ? Collections.<String>emptyEnumeration() : Collections.enumeration(values);
+        }
+
+        String value = getHeader(name);
+        return value == null ? Collections.<String>emptyEnumeration() : Collections.enumeration(Collections.singletonList(value));
+    }
+
+    @Override
+    public Enumeration<String> getHeaderNames() {
+        Set<String> names = new LinkedHashSet<>(caller.headers.keySet());
+        names.addAll(headers.keySet());
+
+        if (bodySource != null) {
+            names.add(HEADER_CONTENT_TYPE);
+            names.add(HEADER_CONTENT_LENGTH);
+        }
+
+        return Collections.enumeration(names);
+    }
+
+    @Override
+    public int getIntHeader(String name) {
+        String value = getHeader(name);
+        return value == null ? -1 : Integer.parseInt(value);
+    }
+
+    @Override
+    public long getDateHeader(String name) {
+        String value = getHeader(name);
+
+        if (value == null)
+            return -1;
+
+        try {
+            return ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+        } catch (DateTimeParseException ex) {
+            throw new IllegalArgumentException(ex);
+        }
+    }
+    // -------------------------------------------------------------------------
+
+    // Session and cookies -----------------------------------------------------
+    @Override
+    public Cookie[] getCookies() {
+        return caller.cookies == null ? null : caller.cookies.clone();
+    }
+
+    @Override
+    public HttpSession getSession(boolean create) {
+        return caller.__getSession(create);
+    }
+
+    @Override
+    public HttpSession getSession() {
+        return caller.__getSession(true);
+    }
+    // -------------------------------------------------------------------------
+
+    // Body --------------------------------------------------------------------
+    @Override
+    public String getContentType() {
+        return contentType;
+    }
+
+    @Override
+    public int getContentLength() {
+        if (bodySource == null)
+            return -1;
+
+        try {
+            return __getBody().length;
+        } catch (IOException ex) {
+            return -1;
+        }
+    }
+
+    @Override
+    public long getContentLengthLong() {
+        return getContentLength();
+    }
+
+    @Override
+    public String getCharacterEncoding() {
+        return characterEncoding;
+    }
+
+    @Override
+    public ServletInputStream getInputStream() throws IOException {
+        if (reader != null)
+            throw new IllegalStateException("getReader() was already called");
+
+        if (inputStream == null) {
+            final ByteArrayInputStream in = new ByteArrayInputStream(__getBody());
+
+            inputStream = new ServletInputStream() {
+                @Override
+                public boolean isFinished() {
+                    return in.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener readListener) {
+                    throw new UnsupportedOperationException("Not supported");
+                }
+
+                @Override
+                public int read() throws IOException {
+                    return in.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) throws IOException {
+                    return in.read(b, off, len);
+                }
+            };
+        }
+
+        return inputStream;
+    }
+
+    @Override
+    public BufferedReader getReader() throws IOException {
+        if (inputStream != null)
+            throw new IllegalStateException("getInputStream() was already called");
+
+        if (reader == null)
+            reader = new BufferedReader(new InputStreamReader(new ByteArrayInputStream(__getBody()), characterEncoding == null ? StandardCharsets.ISO_8859_1.name() : characterEncoding));
+
+        return reader;
+    }
+    // -------------------------------------------------------------------------
+
+}
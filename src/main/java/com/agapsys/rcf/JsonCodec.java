@@ -0,0 +1,130 @@
+/*
+ * Copyright 2017 Agapsys Tecnologia Ltda-ME.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.agapsys.rcf;
+
+import com.agapsys.rcf.exceptions.BadRequestException;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.reflect.Type;
+
+/**
+ * JSON engine used by the framework to read request bodies and to write response bodies.
+ *
+ * Implementations must be thread-safe, since a single instance is shared by all requests processed by a controller.
+ *
+ * @see GsonJsonCodec
+ * @see Controller#getJsonCodec()
+ */
+public interface JsonCodec {
+
+    /**
+     * Reader bound to a specific type.
+     *
+     * @param <T> object type.
+     */
+    public static interface ObjectReader<T> {
+
+        /**
+         * Reads an object from given reader.
+         *
+         * @param reader reader containing JSON data.
+         * @return read object.
+         * @throws IOException if an I/O error happened during the process.
+         * @throws BadRequestException if given data does not represent an instance of reader's type.
+         */
+        public T read(Reader reader) throws IOException, BadRequestException;
+    }
+
+    /**
+     * Reader of selected members of a JSON object.
+     */
+    public static interface FieldsReader {
+
+        /**
+         * Reads selected members of a JSON object from given reader, in a single pass. Other members are skipped.
+         *
+         * @param reader reader containing a JSON object.
+         * @return values of selected members, in the same order given to {@linkplain JsonCodec#getFieldsReader(java.lang.String[], java.lang.reflect.Type[])}. Missing members are returned as null values.
+         * @throws IOException if an I/O error happened during the process.
+         * @throws BadRequestException if given data is not a JSON object or if a member does not represent an instance of its type.
+         */
+        public Object[] read(Reader reader) throws IOException, BadRequestException;
+    }
+
+    /**
+     * Reads an object from given reader.
+     *
+     * @param <T> object type.
+     * @param reader reader containing JSON data.
+     * @param type object type.
+     * @return read object.
+     * @throws IOException if an I/O error happened during the process.
+     * @throws BadRequestException if given data does not represent an instance of given type.
+     */
+    public <T> T readObject(Reader reader, Type type) throws IOException, BadRequestException;
+
+    /**
+     * Writes an object into given writer.
+     *
+     * @param writer writer which will receive JSON data.
+     * @param obj object to be written (may be null).
+     * @throws IOException if an I/O error happened during the process.
+     */
+    public void writeObject(Writer writer, Object obj) throws IOException;
+
+    /**
+     * Returns a reader bound to given type.
+     *
+     * Controllers resolve readers during initialization, so implementations should perform type resolution here instead of in {@linkplain ObjectReader#read(java.io.Reader)}.
+     *
+     * @param <T> object type.
+     * @param type object type.
+     * @return a reader bound to given type. Default implementation delegates to {@linkplain JsonCodec#readObject(java.io.Reader, java.lang.reflect.Type)}.
+     */
+    public default <T> ObjectReader<T> getReader(final Type type) {
+        return new ObjectReader<T>() {
+            @Override
+            public T read(Reader reader) throws IOException, BadRequestException {
+                return readObject(reader, type);
+            }
+        };
+    }
+
+    /**
+     * Returns a reader bound to selected members of a JSON object.
+     *
+     * Controllers resolve these readers during initialization (see {@linkplain JsonField}).
+     *
+     * @param names member names.
+     * @param types member types.
+     * @return a reader bound to given members.
+     * @throws UnsupportedOperationException if this codec is not able to read members individually. Default implementation always throws this exception.
+     */
+    public default FieldsReader getFieldsReader(String[] names, Type[] types) {
+        throw new UnsupportedOperationException(String.format("%s does not support JSON fields", getClass().getName()));
+    }
+
+    /**
+     * Prepares this codec to write instances of given type.
+     *
+     * Called during controller initialization for the return type of each action, so resolution costs are paid at deployment time.
+     *
+     * @param type type of objects which will be written by this codec. Default implementation does nothing.
+     */
+    public default void prepare(Type type) {}
+
+}
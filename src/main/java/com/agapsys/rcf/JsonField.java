@@ -0,0 +1,37 @@
+/*
+ * Copyright 2017 Agapsys Tecnologia Ltda-ME.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.agapsys.rcf;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Binds an action parameter to a member of the JSON object sent in request body.
+ *
+ * An action may declare several parameters bound to distinct members (e.g. {@code {"filter": ..., "page": ...}}). The body is read only once, in a single pass, and members which are not bound to any parameter are skipped.
+ * A missing member is passed as null (missing members bound to primitive parameters cause a {@linkplain com.agapsys.rcf.exceptions.BadRequestException}).
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.PARAMETER)
+public @interface JsonField {
+
+    /** @return name of the member of the JSON object. */
+    String value();
+
+}
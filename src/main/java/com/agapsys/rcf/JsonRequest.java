@@ -16,30 +16,13 @@
 package com.agapsys.rcf;
 
 import com.agapsys.rcf.exceptions.BadRequestException;
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
-import com.google.gson.JsonDeserializationContext;
-import com.google.gson.JsonDeserializer;
-import com.google.gson.JsonElement;
-import com.google.gson.JsonIOException;
-import com.google.gson.JsonParseException;
-import com.google.gson.JsonPrimitive;
-import com.google.gson.JsonSerializationContext;
-import com.google.gson.JsonSerializer;
-import com.google.gson.JsonSyntaxException;
+import com.agapsys.rcf.util.Utf8Reader;
 import java.io.IOException;
-import java.io.InputStreamReader;
 import java.io.Reader;
-import java.io.UnsupportedEncodingException;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
-import java.sql.Time;
-import java.sql.Timestamp;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
-import java.util.Date;
+import java.util.Arrays;
 import java.util.List;
-import java.util.TimeZone;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
@@ -50,19 +33,7 @@ public class JsonRequest extends ActionRequest {
     public static final String JSON_CONTENT_TYPE = "application/json";
     public static final String JSON_ENCODING     = "UTF-8";
 
-    static final Gson DEFAULT_GSON;
-
-    static {
-        GsonBuilder builder = new GsonBuilder();
-        IsoDateAdapter adapter = new IsoDateAdapter();
-        builder.registerTypeAdapter(Date.class, adapter);
-        builder.registerTypeAdapter(Time.class, adapter);
-        builder.registerTypeAdapter(java.sql.Date.class, adapter);
-        builder.registerTypeAdapter(Timestamp.class, adapter);
-        DEFAULT_GSON = builder.create();
-    }
-
-    private static class ListType implements ParameterizedType {
+    static class ListType implements ParameterizedType {
 
         private final Type[] typeArguments = new Type[1];
 
@@ -87,56 +58,128 @@ public class JsonRequest extends ActionRequest {
 
         @Override
         public Type getOwnerType() {
-            return List.class;
+            return null;
         }
-    }
 
-    private static class IsoDateAdapter implements JsonSerializer<Date>, JsonDeserializer<Date> {
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj)
+                return true;
 
-        private final SimpleDateFormat sdf;
+            if (!(obj instanceof ParameterizedType))
+                return false;
 
-        public IsoDateAdapter() {
-            this.sdf = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'");
-            this.sdf.setTimeZone(TimeZone.getTimeZone("UTC"));
+            ParameterizedType other = (ParameterizedType) obj;
+            return other.getOwnerType() == null && List.class.equals(other.getRawType()) && Arrays.equals(typeArguments, other.getActualTypeArguments());
         }
 
         @Override
-        public JsonElement serialize(Date src, Type typeOfSrc, JsonSerializationContext context) {
-            return new JsonPrimitive(sdf.format(src));
+        public int hashCode() {
+            return Arrays.hashCode(typeArguments) ^ List.class.hashCode(); // <-- same as JDK's ParameterizedType implementation
         }
+    }
 
-        @Override
-        public Date deserialize(JsonElement json, Type typeOfT, JsonDeserializationContext context) throws JsonParseException {
-            if (!(json instanceof JsonPrimitive)) {
-                throw new JsonParseException("Invalid date");
-            }
-
-            try {
-                return sdf.parse(json.getAsString());
-            } catch (ParseException ex) {
-                throw new JsonSyntaxException(ex);
-            }
+    /**
+     * Reads an object using given codec.
+     *
+     * @param <T> object type.
+     * @param jsonCodec JSON codec (see {@linkplain JsonRequest#getJsonCodec()} and {@linkplain Controller#getJsonCodec()}).
+     * @param reader reader providing JSON data.
+     * @param targetClass object class.
+     * @return read object.
+     * @throws BadRequestException if data does not represent an instance of given class.
+     */
+    public static <T> T readObject(JsonCodec jsonCodec, Reader reader, Class<T> targetClass) throws BadRequestException {
+        try {
+            return jsonCodec.readObject(reader, targetClass);
+        } catch (IOException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    /**
+     * Reads a list of objects using given codec.
+     *
+     * @param <E> element type.
+     * @param jsonCodec JSON codec (see {@linkplain JsonRequest#getJsonCodec()} and {@linkplain Controller#getJsonCodec()}).
+     * @param reader reader providing JSON data.
+     * @param elementClass element class.
+     * @return read list.
+     * @throws BadRequestException if data does not represent a list of objects.
+     */
+    public static <E> List<E> readList(JsonCodec jsonCodec, Reader reader, Class<E> elementClass) throws BadRequestException {
+        try {
+            return jsonCodec.readObject(reader, new ListType(elementClass));
+        } catch (IOException ex) {
+            throw new RuntimeException(ex);
         }
     }
 
-    public static <T> T readObject(Reader reader, Class<T> targetClass) {
-        return DEFAULT_GSON.fromJson(reader, targetClass);
+    /** @deprecated uses {@linkplain GsonJsonCodec#DEFAULT} regardless of controller's codec. Use {@linkplain JsonRequest#readObject(JsonCodec, Reader, Class)} instead. */
+    @Deprecated
+    public static <T> T readObject(Reader reader, Class<T> targetClass) throws BadRequestException {
+        return readObject(GsonJsonCodec.DEFAULT, reader, targetClass);
+    }
+
+    /** @deprecated uses {@linkplain GsonJsonCodec#DEFAULT} regardless of controller's codec. Use {@linkplain JsonRequest#readList(JsonCodec, Reader, Class)} instead. */
+    @Deprecated
+    public static <E> List<E> readList(Reader reader, Class<E> elementClass) throws BadRequestException {
+        return readList(GsonJsonCodec.DEFAULT, reader, elementClass);
     }
 
-    public static <E> List<E> readList(Reader reader, Class<E> elementClass) {
-        return DEFAULT_GSON.fromJson(reader, new ListType(elementClass));
+    /** Returns the codec of the nearest JSON request wrapped by given request (controllers create JSON requests, see {@linkplain Controller#getJsonCodec()}). */
+    private static JsonCodec __getJsonCodec(ActionRequest request) {
+        for (ActionRequest current = request; current != null; current = current.getWrappedRequest()) {
+            if (current instanceof JsonRequest)
+                return ((JsonRequest) current).jsonCodec;
+        }
+
+        return GsonJsonCodec.DEFAULT;
     }
     // =========================================================================
     // </editor-fold>
 
-    public JsonRequest(ActionRequest wrappedRequest) {
+    private final JsonCodec jsonCodec;
+
+    public JsonRequest(ActionRequest wrappedRequest, JsonCodec jsonCodec) {
         super(wrappedRequest);
+
+        if (jsonCodec == null)
+            throw new IllegalArgumentException("Null JSON codec");
+
+        this.jsonCodec = jsonCodec;
     }
 
-    public JsonRequest(HttpServletRequest servletRequest, HttpServletResponse servletResponse) {
+    public JsonRequest(ActionRequest wrappedRequest) {
+        this(wrappedRequest, __getJsonCodec(wrappedRequest));
+    }
+
+    public JsonRequest(HttpServletRequest servletRequest, HttpServletResponse servletResponse, JsonCodec jsonCodec) {
         super(servletRequest, servletResponse);
+
+        if (jsonCodec == null)
+            throw new IllegalArgumentException("Null JSON codec");
+
+        this.jsonCodec = jsonCodec;
+    }
+
+    public JsonRequest(HttpServletRequest servletRequest, HttpServletResponse servletResponse) {
+        this(servletRequest, servletResponse, GsonJsonCodec.DEFAULT);
+    }
+
+    /**
+     * Returns the codec used by this request.
+     *
+     * @return the codec used by this request.
+     */
+    public final JsonCodec getJsonCodec() {
+        return jsonCodec;
+    }
+
+    /** Request body is always decoded as UTF-8 (see {@linkplain JsonRequest#JSON_ENCODING}). */
+    private Reader __openReader() throws IOException {
+        return new Utf8Reader(getServletRequest().getInputStream());
     }
-    
 
     /**
      * Reads an object represented by JSON request.
@@ -156,18 +199,82 @@ public class JsonRequest extends ActionRequest {
         if (targetClass == null)
             throw new IllegalArgumentException("Null targetClass");
 
-        try {
-            Reader reader = new InputStreamReader(getServletRequest().getInputStream(), JSON_ENCODING);
-            return readObject(reader, targetClass);
-        } catch (UnsupportedEncodingException ex) {
-            throw new RuntimeException(ex);
-        } catch (JsonIOException ex) {
-            throw new IOException(ex);
-        } catch (JsonSyntaxException ex) {
+        try (Reader reader = __openReader()) {
+            return jsonCodec.readObject(reader, targetClass);
+        } catch (BadRequestException ex) {
+            throw new BadRequestException("Invalid data");
+        }
+    }
+
+    /**
+     * Reads an object represented by JSON request using a reader previously obtained from {@linkplain JsonCodec#getReader(java.lang.reflect.Type)}.
+     *
+     * @param <T> object type.
+     * @param objectReader object reader.
+     * @return an object contained in the request.
+     * @throws IOException if an I/O error happened during the process.
+     * @throws BadRequestException if data contained in the request does not represent an instance of reader's type.
+     */
+    public final <T> T readObject(JsonCodec.ObjectReader<T> objectReader) throws IOException, BadRequestException {
+        String reqContentType = getServletRequest().getContentType();
+
+        if (reqContentType == null || !reqContentType.startsWith(JSON_CONTENT_TYPE))
+            throw new BadRequestException("Invalid content-type: " + reqContentType);
+
+        if (objectReader == null)
+            throw new IllegalArgumentException("Null object reader");
+
+        try (Reader reader = __openReader()) {
+            return objectReader.read(reader);
+        } catch (BadRequestException ex) {
             throw new BadRequestException("Invalid data");
         }
     }
 
+    /**
+     * Reads selected members of the JSON object contained in request using a reader previously obtained from {@linkplain JsonCodec#getFieldsReader(java.lang.String[], java.lang.reflect.Type[])}.
+     *
+     * @param fieldsReader fields reader.
+     * @return values of selected members (missing members are returned as null values).
+     * @throws IOException if an I/O error happened during the process.
+     * @throws BadRequestException if data contained in the request is not a JSON object or if a member does not represent an instance of its type.
+     */
+    public final Object[] readFields(JsonCodec.FieldsReader fieldsReader) throws IOException, BadRequestException {
+        String reqContentType = getServletRequest().getContentType();
+
+        if (reqContentType == null || !reqContentType.startsWith(JSON_CONTENT_TYPE))
+            throw new BadRequestException("Invalid content-type: " + reqContentType);
+
+        if (fieldsReader == null)
+            throw new IllegalArgumentException("Null fields reader");
+
+        try (Reader reader = __openReader()) {
+            return fieldsReader.read(reader);
+        } catch (BadRequestException ex) {
+            throw new BadRequestException("Invalid data");
+        }
+    }
+
+    /**
+     * Reads a list of objects contained in request using a reader previously obtained from {@linkplain JsonCodec#getReader(java.lang.reflect.Type)}.
+     *
+     * Unlike {@linkplain JsonRequest#readObject(com.agapsys.rcf.JsonCodec.ObjectReader)}, content type is not checked.
+     *
+     * @param <E> element type.
+     * @param listReader list reader.
+     * @return a list of object contained in the request.
+     * @throws IOException if an I/O error happened during the process.
+     * @throws BadRequestException if data contained in the request does not represent a list of objects.
+     */
+    public final <E> List<E> readList(JsonCodec.ObjectReader<List<E>> listReader) throws IOException, BadRequestException {
+        if (listReader == null)
+            throw new IllegalArgumentException("Null list reader");
+
+        try (Reader reader = __openReader()) {
+            return listReader.read(reader);
+        }
+    }
+
     /**
      * Reads a list of objects contained in request.
      *
@@ -178,15 +285,8 @@ public class JsonRequest extends ActionRequest {
      * @throws BadRequestException if data contained in the request does not represent a list of objects.
      */
     public final <E> List<E> readList(Class<E> elementClass) throws IOException, BadRequestException {
-        try {
-            Reader reader = new InputStreamReader(getServletRequest().getInputStream(), JSON_ENCODING);
-            return readList(reader, elementClass);
-        } catch (UnsupportedEncodingException ex) {
-            throw new RuntimeException(ex);
-        } catch (JsonIOException ex) {
-            throw new IOException(ex);
-        } catch (JsonSyntaxException ex) {
-            throw new BadRequestException(ex.getMessage());
+        try (Reader reader = __openReader()) {
+            return jsonCodec.readObject(reader, new ListType(elementClass));
         }
     }
 }
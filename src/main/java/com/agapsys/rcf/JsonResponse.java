@@ -15,8 +15,10 @@
  */
 package com.agapsys.rcf;
 
+import com.agapsys.rcf.util.Utf8Writer;
 import java.io.IOException;
-import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.io.Writer;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
@@ -24,20 +26,79 @@ public class JsonResponse extends ActionResponse {
 
     // <editor-fold desc="STATIC SCOPE" defaultstate="collapsed">
     // =========================================================================
+    /**
+     * Serializes an object using given codec.
+     *
+     * @param jsonCodec JSON codec (see {@linkplain JsonResponse#getJsonCodec()} and {@linkplain Controller#getJsonCodec()}).
+     * @param obj object to be serialized.
+     * @return JSON representation of given object.
+     */
+    public static String toJson(JsonCodec jsonCodec, Object obj) {
+        StringWriter writer = new StringWriter();
+
+        try {
+            jsonCodec.writeObject(writer, obj);
+        } catch (IOException ex) {
+            throw new RuntimeException(ex); // <-- StringWriter does not throw I/O errors
+        }
+
+        return writer.toString();
+    }
+
+    /** Serializes an object using {@linkplain GsonJsonCodec#DEFAULT} (see {@linkplain JsonResponse#toJson(JsonCodec, Object)}). */
     public static String toJson(Object obj) {
-        return JsonRequest.DEFAULT_GSON.toJson(obj);
+        return toJson(GsonJsonCodec.DEFAULT, obj);
+    }
+
+    /** Returns the codec of the nearest JSON response wrapped by given response (controllers create JSON responses, see {@linkplain Controller#getJsonCodec()}). */
+    private static JsonCodec __getJsonCodec(ActionResponse response) {
+        for (ActionResponse current = response; current != null; current = current.getWrappedResponse()) {
+            if (current instanceof JsonResponse)
+                return ((JsonResponse) current).jsonCodec;
+        }
+
+        return GsonJsonCodec.DEFAULT;
     }
     // =========================================================================
     // </editor-fold>
 
-    public JsonResponse(ActionResponse wrappedResponse) {
+    private final JsonCodec jsonCodec;
+
+    public JsonResponse(ActionResponse wrappedResponse, JsonCodec jsonCodec) {
         super(wrappedResponse);
+
+        if (jsonCodec == null)
+            throw new IllegalArgumentException("Null JSON codec");
+
+        this.jsonCodec = jsonCodec;
     }
 
-    public JsonResponse(HttpServletRequest serlvetRequest, HttpServletResponse servletResponse) {
+    public JsonResponse(ActionResponse wrappedResponse) {
+        this(wrappedResponse, __getJsonCodec(wrappedResponse));
+    }
+
+    public JsonResponse(HttpServletRequest serlvetRequest, HttpServletResponse servletResponse, JsonCodec jsonCodec) {
         super(serlvetRequest, servletResponse);
+
+        if (jsonCodec == null)
+            throw new IllegalArgumentException("Null JSON codec");
+
+        this.jsonCodec = jsonCodec;
+    }
+
+    public JsonResponse(HttpServletRequest serlvetRequest, HttpServletResponse servletResponse) {
+        this(serlvetRequest, servletResponse, GsonJsonCodec.DEFAULT);
     }
-    
+
+    /**
+     * Returns the codec used by this response.
+     *
+     * @return the codec used by this response.
+     */
+    public final JsonCodec getJsonCodec() {
+        return jsonCodec;
+    }
+
     /**
      * Sends an object in the response.
      *
@@ -50,8 +111,10 @@ public class JsonResponse extends ActionResponse {
         resp.setContentType(JsonRequest.JSON_CONTENT_TYPE);
         resp.setCharacterEncoding(JsonRequest.JSON_ENCODING);
 
-        PrintWriter out = resp.getWriter();
-        out.write(toJson(object));
+        try (Writer out = new Utf8Writer(resp.getOutputStream(), false)) { // <-- response stays open, so later stages (e.g. afterAction) may still set headers
+            jsonCodec.writeObject(out, object);
+        }
+
         return this;
     }
 
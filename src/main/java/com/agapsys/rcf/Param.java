@@ -0,0 +1,46 @@
+/*
+ * Copyright 2017 Agapsys Tecnologia Ltda-ME.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.agapsys.rcf;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Binds an action parameter to a request parameter (e.g. a query string value).
+ *
+ * Supported types are strings, numbers (including primitives), booleans, dates (yyyy-MM-dd) and enums. The converter and the default value are resolved during controller initialization.
+ * A missing required value or a value which cannot be converted causes a {@linkplain com.agapsys.rcf.exceptions.BadRequestException}.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.PARAMETER)
+public @interface Param {
+
+    /** Default value of {@linkplain Param#defaultValue()}, {@linkplain Header#defaultValue()} and {@linkplain Cookie#defaultValue()} meaning "no default value". */
+    public static final String NO_DEFAULT = "\u0000";
+
+    /** @return parameter name. */
+    String  value();
+
+    /** @return a boolean indicating if the parameter must be present in the request. Ignored when a default value is given. */
+    boolean required()     default true;
+
+    /** @return value used when the parameter is missing. Optional primitive parameters require a default value. */
+    String  defaultValue() default NO_DEFAULT;
+
+}
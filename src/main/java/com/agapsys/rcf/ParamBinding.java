@@ -0,0 +1,135 @@
+/*
+ * Copyright 2017 Agapsys Tecnologia Ltda-ME.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.agapsys.rcf;
+
+import com.agapsys.rcf.exceptions.BadRequestException;
+import java.lang.reflect.Parameter;
+
+/**
+ * Binding between an action parameter and a request parameter, header or cookie (see {@linkplain Param}, {@linkplain Header} and {@linkplain CookieParam}).
+ *
+ * Converters and default values are resolved once, so binding a value costs a lookup plus a parse.
+ */
+final class ParamBinding {
+
+    // <editor-fold desc="STATIC SCOPE" defaultstate="collapsed">
+    // =========================================================================
+    private static final int SOURCE_PARAMETER = 0;
+    private static final int SOURCE_HEADER    = 1;
+    private static final int SOURCE_COOKIE    = 2;
+
+    private static final String[] SOURCE_NAMES = {"parameter", "header", "cookie"};
+
+    /**
+     * Returns the binding of given action parameter.
+     *
+     * @param param action parameter.
+     * @return the binding of given parameter, or null if parameter is not annotated.
+     */
+    static ParamBinding getBinding(Parameter param) {
+        Param       paramAnnotation  = param.getAnnotation(Param.class);
+        Header      headerAnnotation = param.getAnnotation(Header.class);
+        CookieParam cookieAnnotation = param.getAnnotation(CookieParam.class);
+
+        int annotationCount = (paramAnnotation != null ? 1 : 0) + (headerAnnotation != null ? 1 : 0) + (cookieAnnotation != null ? 1 : 0);
+
+        if (annotationCount == 0)
+            return null;
+
+        if (annotationCount > 1)
+            throw new RuntimeException(String.format("Parameter '%s' has more than one binding annotation", param.getName()));
+
+        if (paramAnnotation != null)
+            return new ParamBinding(param, SOURCE_PARAMETER, paramAnnotation.value(), paramAnnotation.required(), paramAnnotation.defaultValue());
+
+        if (headerAnnotation != null)
+            return new ParamBinding(param, SOURCE_HEADER, headerAnnotation.value(), headerAnnotation.required(), headerAnnotation.defaultValue());
+
+        return new ParamBinding(param, SOURCE_COOKIE, cookieAnnotation.value(), cookieAnnotation.required(), cookieAnnotation.defaultValue());
+    }
+    // =========================================================================
+    // </editor-fold>
+
+    private final int                           source;
+    private final String                        name;
+    private final boolean                       required;
+    private final Object                        defaultValue;
+    private final ActionRequest.ParamConverter  converter;
+
+    private ParamBinding(Parameter param, int source, String name, boolean required, String defaultValue) {
+        Class<?> paramClass = param.getType();
+
+        if (name.trim().isEmpty())
+            throw new RuntimeException(String.format("Missing %s name for parameter '%s'", SOURCE_NAMES[source], param.getName()));
+
+        this.source = source;
+        this.name = name;
+        this.converter = ActionRequest.getParamConverter(paramClass);
+
+        if (converter == null)
+            throw new RuntimeException(String.format("Unsupported type for parameter '%s': %s", param.getName(), paramClass.getName()));
+
+        if (defaultValue.equals(Param.NO_DEFAULT)) {
+            if (!required && paramClass.isPrimitive())
+                throw new RuntimeException(String.format("Optional primitive parameter '%s' requires a default value", param.getName()));
+
+            this.required = required;
+            this.defaultValue = null;
+        } else {
+            this.required = false;
+
+            try {
+                this.defaultValue = converter.getParam(defaultValue);
+            } catch (BadRequestException ex) {
+                throw new RuntimeException(String.format("Invalid default value for parameter '%s': %s", param.getName(), defaultValue));
+            }
+        }
+    }
+
+    private String __getString(ActionRequest request) {
+        switch (source) {
+            case SOURCE_PARAMETER:
+                return request.getServletRequest().getParameter(name);
+
+            case SOURCE_HEADER:
+                return request.getHeader(name);
+
+            default:
+                return request.getCookie(name);
+        }
+    }
+
+    /**
+     * Returns bound value.
+     *
+     * @param request action request.
+     * @return bound value. Missing optional values are returned as the default value (or null, if there is no default value).
+     * @throws BadRequestException if a required value is missing or if value cannot be converted.
+     */
+    Object getValue(ActionRequest request) throws BadRequestException {
+        Object value = converter.getParam(__getString(request));
+
+        if (value != null)
+            return value;
+
+        if (required)
+            throw new BadRequestException("Missing %s: %s", SOURCE_NAMES[source], name);
+
+        return defaultValue;
+    }
+
+}
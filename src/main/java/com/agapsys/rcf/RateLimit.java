@@ -0,0 +1,59 @@
+/*
+ * Copyright 2017 Agapsys Tecnologia Ltda-ME.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.agapsys.rcf;
+
+import com.agapsys.rcf.util.RateLimiter;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Rate limit annotation.
+ *
+ * When placed on a controller, the limit is shared by all controller's actions. When placed on an action method, the limit applies to that action only.
+ * Requests exceeding the limit are rejected with a {@linkplain com.agapsys.rcf.exceptions.RateLimitingException} and a Retry-After header.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.TYPE, ElementType.METHOD})
+public @interface RateLimit {
+
+    /** Defines how requests are grouped when counted. */
+    public static enum Scope {
+        /** All requests share the same limit. */
+        GLOBAL,
+
+        /** Each user has its own limit (users are compared through equals/hashCode). Requests without a user are grouped by origin IP. */
+        USER,
+
+        /** Each origin IP has its own limit. */
+        ORIGIN_IP;
+    }
+
+    /** @return number of permitted requests per period. This is also the maximum burst. */
+    int   permits();
+
+    /** @return period length (in seconds). */
+    int   period()  default 1;
+
+    /** @return how requests are grouped. */
+    Scope scope()   default Scope.ORIGIN_IP;
+
+    /** @return maximum number of tracked users/IPs. */
+    int   maxKeys() default RateLimiter.DEFAULT_MAX_KEYS;
+
+}
@@ -0,0 +1,355 @@
+/*
+ * Copyright 2017 Agapsys Tecnologia Ltda-ME.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.agapsys.rcf;
+
+import com.agapsys.rcf.exceptions.NotModifiedException;
+import com.agapsys.rcf.util.BufferedServletResponse;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Server-side cache of action responses (see {@linkplain WebAction#cacheTtl()}).
+ *
+ * Entries are keyed by request path, selected parameters and a variant (e.g. negotiated encoding and user roles). Only successful GET responses which do not set cookies are cached.
+ *
+ * Eviction follows the CLOCK (second chance) policy, an approximation of LRU which does not require locking on reads.
+ * Concurrent misses for the same key are collapsed: a single request produces the response while the others wait for it. Waiting is bounded (see {@linkplain ResponseCache#MAX_WAIT_MILLIS}): a request whose producer takes too long invokes the action by itself.
+ */
+final class ResponseCache {
+
+    // <editor-fold desc="STATIC SCOPE" defaultstate="collapsed">
+    // =========================================================================
+    private static final char KEY_SEPARATOR = '\u0000';
+
+    /** Maximum time (in milliseconds) a request waits for the response being produced by another request. The remaining time of the request (see {@linkplain ActionRequest#getRemainingTime()}) also bounds the wait. */
+    static final long MAX_WAIT_MILLIS = 5000;
+
+    /** Produces the response of an action. */
+    static interface ResponseProducer {
+        public void produce(ActionResponse response) throws ServletException, IOException;
+    }
+
+    private static class CachedResponse {
+        private final int status;
+        private final String contentType;
+        private final Map<String, List<String>> headers;
+        private final byte[] body;
+
+        private CachedResponse(int status, String contentType, Map<String, List<String>> headers, byte[] body) {
+            this.status = status;
+            this.contentType = contentType;
+            this.headers = headers;
+            this.body = body;
+        }
+    }
+
+    private static class Entry {
+        private final String key;
+        private final CompletableFuture<CachedResponse> response = new CompletableFuture<>();
+
+        private volatile long expiresAt = 0;
+        private volatile boolean referenced = false;
+
+        private Entry(String key) {
+            this.key = key;
+        }
+
+        /** Returns cached response if entry is complete and still valid, or null otherwise. */
+        private CachedResponse __getValid(long now) {
+            CachedResponse cachedResponse = response.getNow(null);
+
+            if (cachedResponse == null || now >= expiresAt)
+                return null;
+
+            return cachedResponse;
+        }
+    }
+    // =========================================================================
+    // </editor-fold>
+
+    private final long     ttlMillis;
+    private final int      maxEntries;
+    private final String[] params;
+
+    private final ConcurrentHashMap<String, Entry> entryMap = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<Entry>     clock    = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger                    clockSize = new AtomicInteger();
+
+    ResponseCache(int ttlSeconds, int maxEntries, String[] params) {
+        if (ttlSeconds <= 0)
+            throw new IllegalArgumentException("Invalid TTL: " + ttlSeconds);
+
+        if (maxEntries <= 0)
+            throw new IllegalArgumentException("Invalid max entries: " + maxEntries);
+
+        this.ttlMillis = ttlSeconds * 1000L;
+        this.maxEntries = maxEntries;
+        this.params = params.clone();
+    }
+
+    private String __getKey(ActionRequest request, String variant) {
+        StringBuilder sb = new StringBuilder(request.getPathInfo());
+
+        for (String param : params) {
+            sb.append(KEY_SEPARATOR);
+
+            String[] values = request.getParameterValues(param);
+
+            if (values != null) {
+                for (String value : values) {
+                    sb.append(value.length()).append(':').append(value); // <-- length prefix keeps keys unambiguous
+                }
+            }
+        }
+
+        sb.append(KEY_SEPARATOR);
+
+        if (variant != null)
+            sb.append(variant);
+
+        return sb.toString();
+    }
+
+    /** Makes the entry eligible for eviction. */
+    private void __enqueue(Entry entry) {
+        clock.offer(entry);
+
+        if (clockSize.incrementAndGet() > maxEntries)
+            __evict();
+    }
+
+    private void __evict() {
+        // Purges entries which were already replaced or removed from the map...
+        if (clockSize.get() > 2 * maxEntries) {
+            for (int i = clockSize.get(); i > 0; i--) {
+                Entry entry = clock.poll();
+
+                if (entry == null)
+                    break;
+
+                if (entryMap.get(entry.key) == entry) {
+                    clock.offer(entry);
+                } else {
+                    clockSize.decrementAndGet();
+                }
+            }
+        }
+
+        while (entryMap.size() > maxEntries) {
+            Entry entry = clock.poll();
+
+            if (entry == null)
+                break;
+
+            if (entryMap.get(entry.key) != entry) {
+                clockSize.decrementAndGet();
+                continue;
+            }
+
+            if (entry.referenced) {
+                entry.referenced = false; // <-- second chance
+                clock.offer(entry);
+                continue;
+            }
+
+            clockSize.decrementAndGet();
+            entryMap.remove(entry.key, entry);
+        }
+    }
+
+    private static void __replay(ActionRequest request, HttpServletResponse servletResponse, CachedResponse cachedResponse) throws IOException {
+        List<String> etags = cachedResponse.headers.get(ActionValidator.HEADER_ETAG);
+
+        if (etags != null && !etags.isEmpty() && ActionValidator.isConditional(request)) {
+            String etag = etags.get(etags.size() - 1);
+
+            if (ActionValidator.matches(request.getHeader(ActionValidator.HEADER_IF_NONE_MATCH), etag)) {
+                servletResponse.setHeader(ActionValidator.HEADER_ETAG, etag);
+                throw new NotModifiedException();
+            }
+        }
+
+        servletResponse.setStatus(cachedResponse.status);
+
+        if (cachedResponse.contentType != null)
+            servletResponse.setContentType(cachedResponse.contentType);
+
+        for (Map.Entry<String, List<String>> header : cachedResponse.headers.entrySet()) {
+            Iterator<String> values = header.getValue().iterator();
+            servletResponse.setHeader(header.getKey(), values.next());
+
+            while (values.hasNext()) {
+                servletResponse.addHeader(header.getKey(), values.next());
+            }
+        }
+
+        __send(servletResponse, cachedResponse.body);
+    }
+
+    private static void __send(HttpServletResponse servletResponse, byte[] body) throws IOException {
+        servletResponse.setContentLength(body.length);
+
+        OutputStream out = servletResponse.getOutputStream();
+        out.write(body); // <-- not flushed: flushing would commit the response before afterAction()
+    }
+
+    /**
+     * Produces the response and sends it to the client.
+     *
+     * @return produced response if it can be cached, or null otherwise.
+     */
+    private CachedResponse __produce(ActionRequest request, ActionResponse response, ResponseProducer producer) throws ServletException, IOException {
+        HttpServletResponse servletResponse = response.getServletResponse();
+
+        BufferedServletResponse bufferedResponse = new BufferedServletResponse(servletResponse, true);
+        ActionResponse actionResponse = new ActionResponse(request.getServletRequest(), bufferedResponse);
+        actionResponse._setRequest(request);
+
+        producer.produce(actionResponse);
+
+        if (servletResponse.isCommitted())
+            return null; // <-- producer already sent something (e.g. an error or a redirect)
+
+        byte[] body = bufferedResponse.getBytes();
+        __send(servletResponse, body);
+
+        if (request.getMethod() != HttpMethod.GET || servletResponse.getStatus() != HttpServletResponse.SC_OK || bufferedResponse.isCookiesAdded())
+            return null;
+
+        Map<String, List<String>> headers = new LinkedHashMap<>(bufferedResponse.getRecordedHeaders());
+        return new CachedResponse(servletResponse.getStatus(), servletResponse.getContentType(), headers, body);
+    }
+
+    /**
+     * Sends a cached response or, when there is no valid cached response, produces (and caches) a new one.
+     *
+     * @param request action request.
+     * @param response action response.
+     * @param variant additional key component (e.g. negotiated content encoding). May be null.
+     * @param producer response producer.
+     * @throws ServletException if the HTTP request cannot be handled.
+     * @throws IOException if an input or output error occurs while the servlet is handling the HTTP request.
+     */
+    void process(ActionRequest request, ActionResponse response, String variant, ResponseProducer producer) throws ServletException, IOException {
+        HttpServletResponse servletResponse = response.getServletResponse();
+
+        if (request.getMethod() != HttpMethod.GET) {
+            producer.produce(response);
+            return;
+        }
+
+        String key = __getKey(request, variant);
+
+        while (true) {
+            long now = System.currentTimeMillis();
+            Entry entry = entryMap.get(key);
+
+            if (entry != null) {
+                CachedResponse cachedResponse;
+
+                if (entry.response.isDone()) {
+                    cachedResponse = entry.__getValid(now);
+                } else {
+                    // Another request is producing the response...
+                    try {
+                        cachedResponse = entry.response.get(Math.min(MAX_WAIT_MILLIS, request.getRemainingTime()), TimeUnit.MILLISECONDS);
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                        cachedResponse = null;
+                    } catch (TimeoutException ex) {
+                        cachedResponse = null; // <-- producer is stuck: this request does not hang with it
+                    } catch (ExecutionException ex) {
+                        throw new RuntimeException(ex); // <-- never completed exceptionally
+                    }
+
+                    if (cachedResponse == null) {
+                        // Response could not be cached (or was not produced in time)...
+                        producer.produce(response);
+                        return;
+                    }
+                }
+
+                if (cachedResponse != null) {
+                    entry.referenced = true;
+                    __replay(request, servletResponse, cachedResponse);
+                    return;
+                }
+            }
+
+            Entry newEntry = new Entry(key);
+
+            if (entry == null) {
+                if (entryMap.putIfAbsent(key, newEntry) != null)
+                    continue;
+            } else {
+                if (!entryMap.replace(key, entry, newEntry))
+                    continue;
+            }
+
+            CachedResponse producedResponse = null;
+
+            try {
+                producedResponse = __produce(request, response, producer);
+            } finally {
+                if (producedResponse == null) {
+                    entryMap.remove(key, newEntry);
+                } else {
+                    newEntry.expiresAt = System.currentTimeMillis() + ttlMillis;
+                }
+
+                newEntry.response.complete(producedResponse); // <-- wakes up waiting requests
+
+                if (producedResponse != null)
+                    __enqueue(newEntry);
+            }
+
+            return;
+        }
+    }
+
+    /** Removes all cached responses. */
+    void clear() {
+        entryMap.clear();
+
+        while (clock.poll() != null) {
+            clockSize.decrementAndGet(); // <-- decremented per removed entry: size stays consistent with concurrent enqueues
+        }
+    }
+
+    /**
+     * Returns the number of cached entries.
+     *
+     * @return the number of cached entries.
+     */
+    int size() {
+        return entryMap.size();
+    }
+
+}
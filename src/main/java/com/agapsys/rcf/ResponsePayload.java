@@ -0,0 +1,299 @@
+/*
+ * Copyright 2017 Agapsys Tecnologia Ltda-ME.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.agapsys.rcf;
+
+import com.agapsys.rcf.exceptions.NotModifiedException;
+import com.agapsys.rcf.util.BufferedServletResponse;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Payload settings of an action: compression, caching and entity tags. See {@linkplain WebAction#compressionThreshold()}, {@linkplain WebAction#compressionLevel()}, {@linkplain WebAction#cacheable()} and {@linkplain WebAction#etag()}.
+ */
+final class ResponsePayload {
+
+    // <editor-fold desc="STATIC SCOPE" defaultstate="collapsed">
+    // =========================================================================
+    static final String ENCODING_GZIP    = "gzip";
+    static final String ENCODING_DEFLATE = "deflate";
+
+    private static final String HEADER_ACCEPT_ENCODING  = "Accept-Encoding";
+    private static final String HEADER_CONTENT_ENCODING = "Content-Encoding";
+    private static final String HEADER_VARY             = "Vary";
+
+    /** Writes the payload of an action into given response. */
+    static interface PayloadWriter {
+        public void write(ActionResponse response) throws ServletException, IOException;
+    }
+
+    /** Serialized payload of an action along with its entity tag and compressed forms, which are computed on demand. */
+    private static class Payload {
+        private final byte[] identity;
+
+        private volatile String etag    = null; // <-- a concurrent computation yields the same value
+        private volatile byte[] gzip    = null;
+        private volatile byte[] deflate = null;
+
+        private Payload(byte[] identity) {
+            this.identity = identity;
+        }
+
+        private String __getEtag() {
+            String result = etag;
+
+            if (result == null)
+                etag = result = getEtag(identity);
+
+            return result;
+        }
+
+        private byte[] __getCompressed(String encoding, int level) {
+            byte[] result;
+
+            if (ENCODING_GZIP.equals(encoding)) {
+                result = gzip;
+
+                if (result == null)
+                    gzip = result = compress(identity, encoding, level);
+            } else {
+                result = deflate;
+
+                if (result == null)
+                    deflate = result = compress(identity, encoding, level);
+            }
+
+            return result;
+        }
+    }
+
+    /**
+     * Returns a weak entity tag for given payload (64-bit FNV-1a hash).
+     *
+     * @param payload payload.
+     * @return weak entity tag.
+     */
+    static String getEtag(byte[] payload) {
+        long hash = 0xcbf29ce484222325L;
+
+        for (byte b : payload) {
+            hash ^= (b & 0xFF);
+            hash *= 0x100000001b3L;
+        }
+
+        return ActionValidator.getWeakEtag(String.format("%016x", hash));
+    }
+
+    /**
+     * Returns the preferred content coding accepted by the client.
+     *
+     * @param acceptEncoding value of Accept-Encoding header.
+     * @return either {@linkplain ResponsePayload#ENCODING_GZIP}, {@linkplain ResponsePayload#ENCODING_DEFLATE}, or null if client does not accept a compressed response.
+     */
+    static String getPreferredEncoding(String acceptEncoding) {
+        if (acceptEncoding == null || acceptEncoding.isEmpty())
+            return null;
+
+        double gzipQuality = -1;
+        double deflateQuality = -1;
+        double wildcardQuality = -1;
+
+        for (String token : acceptEncoding.split(",")) {
+            String[] parts = token.split(";");
+            String coding = parts[0].trim().toLowerCase();
+            double quality = 1;
+
+            for (int i = 1; i < parts.length; i++) {
+                String param = parts[i].trim();
+
+                if (param.startsWith("q=")) {
+                    try {
+                        quality = Double.parseDouble(param.substring(2).trim());
+                    } catch (NumberFormatException ex) {
+                        quality = 0;
+                    }
+                }
+            }
+
+            switch (coding) {
+                case ENCODING_GZIP:
+                case "x-gzip":
+                    gzipQuality = quality;
+                    break;
+
+                case ENCODING_DEFLATE:
+                    deflateQuality = quality;
+                    break;
+
+                case "*":
+                    wildcardQuality = quality;
+                    break;
+            }
+        }
+
+        if (gzipQuality < 0)
+            gzipQuality = wildcardQuality;
+
+        if (deflateQuality < 0)
+            deflateQuality = wildcardQuality;
+
+        if (gzipQuality <= 0 && deflateQuality <= 0)
+            return null;
+
+        return gzipQuality >= deflateQuality ? ENCODING_GZIP : ENCODING_DEFLATE;
+    }
+
+    /**
+     * Compresses given data.
+     *
+     * @param data data to be compressed.
+     * @param encoding either {@linkplain ResponsePayload#ENCODING_GZIP} or {@linkplain ResponsePayload#ENCODING_DEFLATE}.
+     * @param level compression level (see {@linkplain Deflater}).
+     * @return compressed data.
+     */
+    static byte[] compress(byte[] data, String encoding, final int level) {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream(Math.max(64, data.length / 4));
+
+        try {
+            if (ENCODING_GZIP.equals(encoding)) {
+                try (OutputStream out = new GZIPOutputStream(baos, 8192) {{ def.setLevel(level); }}) {
+                    out.write(data);
+                }
+            } else if (ENCODING_DEFLATE.equals(encoding)) {
+                Deflater deflater = new Deflater(level);
+
+                try (OutputStream out = new DeflaterOutputStream(baos, deflater, 8192)) {
+                    out.write(data);
+                } finally {
+                    deflater.end();
+                }
+            } else {
+                throw new IllegalArgumentException("Unsupported encoding: " + encoding);
+            }
+        } catch (IOException ex) {
+            throw new RuntimeException(ex); // <-- ByteArrayOutputStream does not throw I/O errors
+        }
+
+        return baos.toByteArray();
+    }
+    // =========================================================================
+    // </editor-fold>
+
+    private final int     threshold;
+    private final int     level;
+    private final boolean cacheable;
+    private final boolean etag;
+
+    private volatile Payload cachedPayload = null;
+
+    ResponsePayload(int threshold, int level, boolean cacheable, boolean etag) {
+        if (level < Deflater.DEFAULT_COMPRESSION || level > Deflater.BEST_COMPRESSION)
+            throw new IllegalArgumentException("Invalid compression level: " + level);
+
+        this.threshold = threshold;
+        this.level = level;
+        this.cacheable = cacheable;
+        this.etag = etag;
+    }
+
+    private boolean __isCompressionEnabled() {
+        return threshold >= 0;
+    }
+
+    /**
+     * Returns the content coding which will be used for given request.
+     *
+     * @param request action request.
+     * @return negotiated content coding, or null if response will not be compressed.
+     */
+    String getEncoding(ActionRequest request) {
+        return __isCompressionEnabled() ? getPreferredEncoding(request.getHeader(HEADER_ACCEPT_ENCODING)) : null;
+    }
+
+    private Payload __getPayload(ActionRequest request, HttpServletResponse servletResponse, PayloadWriter payloadWriter) throws ServletException, IOException {
+        BufferedServletResponse bufferedResponse = new BufferedServletResponse(servletResponse, false);
+        ActionResponse actionResponse = new ActionResponse(request.getServletRequest(), bufferedResponse);
+        actionResponse._setRequest(request);
+
+        payloadWriter.write(actionResponse);
+
+        if (servletResponse.isCommitted())
+            return null; // <-- payload writer already sent something (e.g. an error or a redirect)
+
+        byte[] identity = bufferedResponse.getBytes();
+
+        if (!cacheable || servletResponse.getStatus() != HttpServletResponse.SC_OK)
+            return new Payload(identity);
+
+        Payload payload = cachedPayload;
+
+        if (payload == null || !Arrays.equals(payload.identity, identity))
+            cachedPayload = payload = new Payload(identity); // <-- keyed on content: a modified object yields a new payload
+
+        return payload;
+    }
+
+    /**
+     * Sends the payload of an action, compressing it when client accepts it. When action is cacheable, entity tag and compressed bytes are reused while the payload writer produces the same body.
+     *
+     * @param request action request.
+     * @param response action response.
+     * @param payloadWriter writer which serializes returned object into a response.
+     * @throws ServletException if the HTTP request cannot be handled.
+     * @throws IOException if an input or output error occurs while the servlet is handling the HTTP request.
+     * @throws NotModifiedException if payload matches the entity tag sent by the client.
+     */
+    void send(ActionRequest request, ActionResponse response, PayloadWriter payloadWriter) throws ServletException, IOException, NotModifiedException {
+        HttpServletResponse servletResponse = response.getServletResponse();
+
+        Payload payload = __getPayload(request, servletResponse, payloadWriter);
+
+        if (payload == null)
+            return;
+
+        if (__isCompressionEnabled())
+            servletResponse.addHeader(HEADER_VARY, HEADER_ACCEPT_ENCODING);
+
+        if (etag && !servletResponse.containsHeader(ActionValidator.HEADER_ETAG)) {
+            String payloadEtag = payload.__getEtag();
+            servletResponse.setHeader(ActionValidator.HEADER_ETAG, payloadEtag);
+
+            if (ActionValidator.isConditional(request) && ActionValidator.matches(request.getHeader(ActionValidator.HEADER_IF_NONE_MATCH), payloadEtag))
+                throw new NotModifiedException();
+        }
+
+        byte[] body = payload.identity;
+        String encoding = getEncoding(request);
+
+        if (encoding != null && body.length >= threshold && !servletResponse.containsHeader(HEADER_CONTENT_ENCODING)) {
+            body = cacheable ? payload.__getCompressed(encoding, level) : compress(body, encoding, level);
+            servletResponse.setHeader(HEADER_CONTENT_ENCODING, encoding);
+        }
+
+        servletResponse.setContentLength(body.length);
+
+        OutputStream out = servletResponse.getOutputStream();
+        out.write(body); // <-- not flushed: flushing would commit the response before afterAction()
+    }
+
+}
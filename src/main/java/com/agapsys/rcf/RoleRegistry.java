@@ -0,0 +1,131 @@
+/*
+ * Copyright 2017 Agapsys Tecnologia Ltda-ME.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.agapsys.rcf;
+
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Registry of roles required by actions (see {@linkplain WebAction#requiredRoles()}).
+ *
+ * Each required role is interned to a small integer ID, so sets of roles can be represented as bitsets (arrays of longs) and compared with a few bitwise operations.
+ * Roles which are not required by any action are irrelevant for authorization and are not registered.
+ */
+final class RoleRegistry {
+
+    // <editor-fold desc="STATIC SCOPE" defaultstate="collapsed">
+    // =========================================================================
+    private static final long[] EMPTY_MASK = new long[0];
+
+    private static final ConcurrentHashMap<String, Integer> ID_MAP  = new ConcurrentHashMap<>();
+    private static final AtomicInteger                      COUNTER = new AtomicInteger();
+
+    private static final Function<String, Integer> ID_FACTORY = new Function<String, Integer>() {
+        @Override
+        public Integer apply(String role) {
+            return COUNTER.getAndIncrement();
+        }
+    };
+
+    private static long[] __setBit(long[] mask, int id) {
+        int word = id >>> 6;
+
+        if (word >= mask.length) {
+            long[] newMask = new long[word + 1];
+            System.arraycopy(mask, 0, newMask, 0, mask.length);
+            mask = newMask;
+        }
+
+        mask[word] |= 1L << id;
+        return mask;
+    }
+
+    /**
+     * Returns registry version. Version changes whenever a new role is registered, invalidating masks computed through {@linkplain RoleRegistry#getMask(Collection)}.
+     *
+     * @return registry version.
+     */
+    static int getVersion() {
+        return COUNTER.get();
+    }
+
+    /**
+     * Registers given roles and returns their mask.
+     *
+     * @param roles required roles.
+     * @return mask of given roles.
+     */
+    static long[] register(String[] roles) {
+        long[] mask = EMPTY_MASK;
+
+        for (String role : roles) {
+            if (role == null)
+                throw new IllegalArgumentException("Null role");
+
+            mask = __setBit(mask, ID_MAP.computeIfAbsent(role, ID_FACTORY));
+        }
+
+        return mask;
+    }
+
+    /**
+     * Returns the mask of given roles. Roles which were not registered are ignored.
+     *
+     * @param roles user roles. May be null.
+     * @return mask of given roles.
+     */
+    static long[] getMask(Collection<String> roles) {
+        long[] mask = EMPTY_MASK;
+
+        if (roles == null)
+            return mask;
+
+        for (String role : roles) {
+            Integer id = role == null ? null : ID_MAP.get(role);
+
+            if (id != null)
+                mask = __setBit(mask, id);
+        }
+
+        return mask;
+    }
+
+    /**
+     * Checks if a mask contains all bits of another one.
+     *
+     * @param mask mask to be checked.
+     * @param requiredMask required bits.
+     * @return a boolean indicating if given mask contains all required bits.
+     */
+    static boolean containsAll(long[] mask, long[] requiredMask) {
+        for (int i = 0; i < requiredMask.length; i++) {
+            long word = i < mask.length ? mask[i] : 0;
+
+            if ((word & requiredMask[i]) != requiredMask[i])
+                return false;
+        }
+
+        return true;
+    }
+    // =========================================================================
+    // </editor-fold>
+
+    private RoleRegistry() {}
+
+}
@@ -0,0 +1,385 @@
+/*
+ * Copyright 2017 Agapsys Tecnologia Ltda-ME.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.agapsys.rcf;
+
+import com.agapsys.rcf.util.TokenGenerator;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import javax.servlet.http.Cookie;
+
+/**
+ * Stateless user authentication based on signed tokens.
+ *
+ * A token is a compact string ({@code <payload>.<signature>}, both base64url-encoded) carrying the user id, user roles and permissions, an expiration time and a XSRF token, signed with HMAC-SHA256.
+ * Since tokens are self-contained, any node sharing the secret is able to verify them without a session store. Users are not serialized into tokens: implementations
+ * provide the id of an user ({@linkplain TokenAuthenticator#getUserId(User)}) and resolve the user associated with a verified token ({@linkplain TokenAuthenticator#findUser(String, Set, long)}).
+ *
+ * Tokens are sent to browsers through an HTTP-only cookie ({@linkplain TokenAuthenticator#TOKEN_COOKIE}). As with session-based authentication, requests authenticated through the cookie must also send the embedded XSRF token
+ * ({@linkplain Controller#XSRF_COOKIE}) through the header {@linkplain Controller#XSRF_HEADER}. Other clients may send the token through an {@code Authorization: Bearer} header, which does not require a XSRF token.
+ *
+ * Verified tokens are kept in a bounded cache, so repeated requests do not pay for signature verification and user lookup.
+ * Tokens cannot be revoked: signing out removes the cookies, but a copy of the token remains valid until it expires.
+ *
+ * @see Controller#getTokenAuthenticator()
+ */
+public abstract class TokenAuthenticator {
+
+    // <editor-fold desc="STATIC SCOPE" defaultstate="collapsed">
+    // =========================================================================
+    /** Name of the cookie used to send/retrieve an authentication token. */
+    public static final String TOKEN_COOKIE = "AUTH-TOKEN";
+
+    /** Name of the header used to retrieve a bearer token. */
+    public static final String AUTHORIZATION_HEADER = "Authorization";
+
+    public static final int DEFAULT_CACHE_SIZE = 1000;
+
+    private static final String BEARER_PREFIX = "Bearer ";
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+    private static final char   SEPARATOR = '.';
+
+    private static final int    XSRF_TOKEN_LENGTH = 128;
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private static class VerifiedToken {
+        private final User   user;
+        private final String xsrfToken;
+        private final long   expiresAt;
+
+        private VerifiedToken(User user, String xsrfToken, long expiresAt) {
+            this.user = user;
+            this.xsrfToken = xsrfToken;
+            this.expiresAt = expiresAt;
+        }
+    }
+    // =========================================================================
+    // </editor-fold>
+
+    private final SecretKeySpec key;
+    private final long          ttlMillis;
+    private final int           cacheSize;
+
+    private final ThreadLocal<Mac> macHolder = new ThreadLocal<Mac>() {
+        @Override
+        protected Mac initialValue() {
+            try {
+                Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+                mac.init(key);
+                return mac;
+            } catch (GeneralSecurityException ex) {
+                throw new RuntimeException(ex);
+            }
+        }
+    };
+
+    private final ConcurrentHashMap<String, VerifiedToken> cache = new ConcurrentHashMap<>();
+
+    /**
+     * Constructor.
+     *
+     * @param secret signing secret. It must be shared by all nodes of the application and it should have at least 32 bytes.
+     * @param ttl token time-to-live.
+     * @param unit time-to-live unit.
+     * @param cacheSize maximum number of verified tokens kept in memory.
+     */
+    public TokenAuthenticator(byte[] secret, long ttl, TimeUnit unit, int cacheSize) {
+        if (secret == null || secret.length == 0)
+            throw new IllegalArgumentException("Null/Empty secret");
+
+        if (ttl <= 0)
+            throw new IllegalArgumentException("Invalid TTL: " + ttl);
+
+        if (unit == null)
+            throw new IllegalArgumentException("Null time unit");
+
+        if (cacheSize < 0)
+            throw new IllegalArgumentException("Invalid cache size: " + cacheSize);
+
+        this.key = new SecretKeySpec(secret.clone(), HMAC_ALGORITHM);
+        this.ttlMillis = unit.toMillis(ttl);
+        this.cacheSize = cacheSize;
+
+        macHolder.get(); // <-- fails fast if HMAC is not available
+    }
+
+    /**
+     * Constructor. Caches up to {@linkplain TokenAuthenticator#DEFAULT_CACHE_SIZE} verified tokens.
+     *
+     * @param secret signing secret. It must be shared by all nodes of the application and it should have at least 32 bytes.
+     * @param ttl token time-to-live.
+     * @param unit time-to-live unit.
+     */
+    public TokenAuthenticator(byte[] secret, long ttl, TimeUnit unit) {
+        this(secret, ttl, unit, DEFAULT_CACHE_SIZE);
+    }
+
+    /**
+     * Returns the id of given user. This id is embedded into tokens and it is passed back to {@linkplain TokenAuthenticator#findUser(String, Set, long)} once a token is verified.
+     *
+     * @param user user to be associated with a token.
+     * @return the id of given user. Null values are not allowed.
+     */
+    protected abstract String getUserId(User user);
+
+    /**
+     * Returns the user associated with a verified token.
+     *
+     * This method is called only after token signature is verified and its result is cached along with the token. Implementations may look the user up by its id or
+     * build an user from given roles and permissions (which are the ones of the user when the token was created).
+     *
+     * @param userId user id (see {@linkplain TokenAuthenticator#getUserId(User)}).
+     * @param roles user roles when the token was created.
+     * @param permissions user permissions when the token was created.
+     * @return the user associated with given id, or null if there is no such user (token is rejected).
+     */
+    protected abstract User findUser(String userId, Set<String> roles, long permissions);
+
+    /**
+     * Returns a boolean indicating if the token cookie shall be sent only through secure connections.
+     *
+     * @param request HTTP request.
+     * @return a boolean indicating if the token cookie shall be sent only through secure connections. Default implementation returns true.
+     */
+    protected boolean isSecureCookie(ActionRequest request) {
+        return true;
+    }
+
+    private byte[] __sign(String encodedPayload) {
+        return macHolder.get().doFinal(encodedPayload.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private String __createToken(User user, String xsrfToken, long expiresAt) {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+
+        String userId = getUserId(user);
+
+        if (userId == null)
+            throw new RuntimeException("Null user id");
+
+        Set<String> roles = user.getRoles();
+
+        try (DataOutputStream out = new DataOutputStream(baos)) {
+            out.writeLong(expiresAt);
+            out.writeUTF(xsrfToken);
+            out.writeUTF(userId);
+            out.writeLong(user.getPermissions());
+
+            if (roles == null) {
+                out.writeInt(0);
+            } else {
+                out.writeInt(roles.size());
+                for (String role : roles) {
+                    out.writeUTF(role);
+                }
+            }
+        } catch (IOException ex) {
+            throw new RuntimeException("Cannot encode token", ex);
+        }
+
+        String encodedPayload = ENCODER.encodeToString(baos.toByteArray());
+        return encodedPayload + SEPARATOR + ENCODER.encodeToString(__sign(encodedPayload));
+    }
+
+    /**
+     * Returns a verified token, or null if given token is invalid or expired.
+     */
+    private VerifiedToken __verify(String token, long now) {
+        VerifiedToken verifiedToken = cache.get(token);
+
+        if (verifiedToken == null) {
+            int separatorIndex = token.indexOf(SEPARATOR);
+
+            if (separatorIndex < 0)
+                return null;
+
+            String encodedPayload = token.substring(0, separatorIndex);
+
+            try {
+                byte[] signature = DECODER.decode(token.substring(separatorIndex + 1));
+
+                if (!MessageDigest.isEqual(signature, __sign(encodedPayload)))
+                    return null;
+
+                // Payload is decoded only after signature is verified...
+                try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(DECODER.decode(encodedPayload)))) {
+                    long expiresAt = in.readLong();
+
+                    if (expiresAt <= now)
+                        return null; // <-- expired tokens do not trigger user lookups
+
+                    String xsrfToken = in.readUTF();
+                    String userId = in.readUTF();
+                    long permissions = in.readLong();
+
+                    int roleCount = in.readInt();
+                    Set<String> roles = new LinkedHashSet<>();
+                    for (int i = 0; i < roleCount; i++) {
+                        roles.add(in.readUTF());
+                    }
+
+                    User user = findUser(userId, Collections.unmodifiableSet(roles), permissions);
+
+                    if (user == null)
+                        return null;
+
+                    verifiedToken = new VerifiedToken(user, xsrfToken, expiresAt);
+                }
+            } catch (IllegalArgumentException | IOException ex) {
+                return null;
+            }
+
+            if (cacheSize > 0 && verifiedToken.expiresAt > now) {
+                if (cache.size() >= cacheSize)
+                    __sweep(now);
+
+                cache.put(token, verifiedToken);
+            }
+        }
+
+        if (verifiedToken.expiresAt <= now) {
+            cache.remove(token);
+            return null;
+        }
+
+        return verifiedToken;
+    }
+
+    private void __sweep(long now) {
+        for (Map.Entry<String, VerifiedToken> entry : cache.entrySet()) {
+            if (entry.getValue().expiresAt <= now)
+                cache.remove(entry.getKey(), entry.getValue());
+        }
+
+        // Leaves some room, so a flood of new tokens does not trigger a sweep on every request...
+        int targetSize = cacheSize - cacheSize / 10 - 1;
+
+        Iterator<String> iterator = cache.keySet().iterator();
+        while (cache.size() > targetSize && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+
+    /**
+     * Creates a token for given user. Created token can be sent by clients through an {@code Authorization: Bearer} header.
+     *
+     * @param user user to be associated with the token.
+     * @return signed token.
+     */
+    public String createToken(User user) {
+        if (user == null)
+            throw new IllegalArgumentException("Null user");
+
+        return __createToken(user, TokenGenerator.nextToken(XSRF_TOKEN_LENGTH), System.currentTimeMillis() + ttlMillis);
+    }
+
+    /**
+     * Returns the user associated with given token.
+     *
+     * @param token signed token.
+     * @return the user associated with given token, or null if token is invalid or expired.
+     */
+    public User getUser(String token) {
+        if (token == null)
+            return null;
+
+        VerifiedToken verifiedToken = __verify(token, System.currentTimeMillis());
+        return verifiedToken == null ? null : verifiedToken.user;
+    }
+
+    /**
+     * Returns the user associated with given request.
+     *
+     * @param request HTTP request.
+     * @return the user associated with given request, or null if request does not carry a valid token.
+     */
+    public User getUser(ActionRequest request) {
+        String authorization = request.getHeader(AUTHORIZATION_HEADER);
+
+        if (authorization != null && authorization.regionMatches(true, 0, BEARER_PREFIX, 0, BEARER_PREFIX.length()))
+            return getUser(authorization.substring(BEARER_PREFIX.length()).trim());
+
+        String token = request.getCookie(TOKEN_COOKIE);
+
+        if (token == null)
+            return null;
+
+        VerifiedToken verifiedToken = __verify(token, System.currentTimeMillis());
+
+        if (verifiedToken == null)
+            return null;
+
+        // Cookies are sent automatically by browsers: double-submit XSRF token is required...
+        if (!TokenGenerator.isEqual(verifiedToken.xsrfToken, request.getHeader(Controller.XSRF_HEADER)))
+            return null;
+
+        return verifiedToken.user;
+    }
+
+    /**
+     * Associates an user with given HTTP exchange by sending a token cookie ({@linkplain TokenAuthenticator#TOKEN_COOKIE}) and a XSRF cookie ({@linkplain Controller#XSRF_COOKIE}).
+     *
+     * @param request HTTP request.
+     * @param response HTTP response.
+     * @param user user to be registered with given HTTP exchange. Passing null removes token cookies.
+     */
+    public void setUser(ActionRequest request, ActionResponse response, User user) {
+        if (user == null) {
+            String token = request.getCookie(TOKEN_COOKIE);
+
+            if (token != null)
+                cache.remove(token);
+
+            response.removeCookie(TOKEN_COOKIE);
+            response.removeCookie(Controller.XSRF_COOKIE);
+            return;
+        }
+
+        String xsrfToken = TokenGenerator.nextToken(XSRF_TOKEN_LENGTH);
+        String token = __createToken(user, xsrfToken, System.currentTimeMillis() + ttlMillis);
+
+        String path = request.getServletRequest().getContextPath();
+
+        Cookie cookie = new Cookie(TOKEN_COOKIE, token);
+        cookie.setPath(path.isEmpty() ? "/" : path);
+        cookie.setMaxAge(-1);
+        cookie.setHttpOnly(true); // <-- token is not readable by scripts
+        cookie.setSecure(isSecureCookie(request));
+        response.getServletResponse().addCookie(cookie);
+
+        response.addCookie(Controller.XSRF_COOKIE, xsrfToken, -1);
+    }
+
+}
@@ -20,6 +20,8 @@ import java.util.Set;
 
 /**
  * Represents an user accessing the application.
+ *
+ * Roles of a session user are evaluated once and the result is kept along with the session. In order to change the roles of a logged user, register a new instance through {@linkplain Controller#setUser(ActionRequest, ActionResponse, User)}.
  */
 public interface User extends Serializable {
 
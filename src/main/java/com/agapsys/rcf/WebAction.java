@@ -41,4 +41,43 @@ public @interface WebAction {
 
     long         requiredPerms() default 0;
 
+    /** @return minimum size (in bytes) of a response body to be compressed when client accepts a compressed response (gzip or deflate). A negative value disables compression. */
+    int          compressionThreshold() default -1;
+
+    /** @return compression level (0-9, or -1 for default level). Used only when compression is enabled (see {@linkplain WebAction#compressionThreshold()}). */
+    int          compressionLevel() default -1;
+
+    /** @return a boolean indicating if entity tag and compressed forms of the response body can be reused while the action produces the same body. Returned objects are always serialized (see {@linkplain Controller#sendObject(ActionRequest, ActionResponse, Object)}): cached data is keyed on serialized content. */
+    boolean      cacheable() default false;
+
+    /** @return a boolean indicating if an ETag shall be computed from serialized response body. Requests with a matching If-None-Match header are answered with a 304 status. */
+    boolean      etag() default false;
+
+    /** @return name of a public controller method which returns either the current version of action's response (String) or its last modification (Date or long). Such method may accept an {@linkplain ActionRequest} and is called before the action, so conditional requests can be answered without invoking the action. An empty string means the action has no validator. */
+    String       validator() default "";
+
+    /** @return time (in seconds) a GET response is kept in server-side cache. Zero disables the cache. */
+    int          cacheTtl() default 0;
+
+    /** @return maximum number of responses kept in server-side cache (see {@linkplain WebAction#cacheTtl()}). */
+    int          cacheMaxEntries() default 1000;
+
+    /** @return names of request parameters which are part of the cache key (see {@linkplain WebAction#cacheTtl()}). Other parameters are ignored by the cache. */
+    String[]     cacheParams() default {};
+
+    /** @return a boolean indicating if user roles are part of the cache key (see {@linkplain WebAction#cacheTtl()}). */
+    boolean      cacheByRoles() default false;
+
+    /** @return maximum number of concurrent executions of this action. Excess requests are queued (see {@linkplain WebAction#maxQueue()}) or rejected with a 503 status and a Retry-After header. Zero means unlimited. */
+    int          maxConcurrency() default 0;
+
+    /** @return maximum number of requests waiting for an execution slot when {@linkplain WebAction#maxConcurrency()} is reached. */
+    int          maxQueue() default 0;
+
+    /** @return maximum time (in milliseconds) a queued request waits for an execution slot (see {@linkplain WebAction#maxQueue()}). */
+    int          queueTimeout() default 1000;
+
+    /** @return maximum time (in milliseconds) the action may run. When this time (or the deadline declared by the client through {@linkplain ActionRequest#REQUEST_TIMEOUT_HEADER}, if shorter) elapses, the request is answered with a 504 status and the action is interrupted. Zero means no timeout (expired client deadlines are still rejected before the action is invoked). */
+    int          timeout() default 0;
+
 }
@@ -26,5 +26,14 @@ public @interface WebController {
 
     /** @return controller mapping value. Passing an null/empty string will use the type name as URL mapping. */
     String value() default "";
+
+    /** @return maximum number of concurrent executions shared by all controller's actions. Excess requests are queued (see {@linkplain WebController#maxQueue()}) or rejected with a 503 status and a Retry-After header. Zero means unlimited. */
+    int maxConcurrency() default 0;
+
+    /** @return maximum number of requests waiting for an execution slot when {@linkplain WebController#maxConcurrency()} is reached. */
+    int maxQueue() default 0;
+
+    /** @return maximum time (in milliseconds) a queued request waits for an execution slot (see {@linkplain WebController#maxQueue()}). */
+    int queueTimeout() default 1000;
     
 }
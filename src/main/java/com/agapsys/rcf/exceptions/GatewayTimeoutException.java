@@ -0,0 +1,43 @@
+/*
+ * Copyright 2017 Agapsys Tecnologia Ltda-ME.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.agapsys.rcf.exceptions;
+
+public class GatewayTimeoutException extends ClientException {
+
+    // <editor-fold desc="STATIC SCOPE" defaultstate="collapsed">
+    // =========================================================================
+    public static final int CODE = 504;
+    // =========================================================================
+    // </editor-fold>
+
+    public GatewayTimeoutException() {
+        this(null);
+    }
+
+    public GatewayTimeoutException(Integer appStatus) {
+        this(appStatus, "");
+    }
+
+    public GatewayTimeoutException(String msg, Object...msgArgs) {
+        this(null, msg, msgArgs);
+    }
+
+    public GatewayTimeoutException(Integer appStatus, String msg, Object... msgArgs) {
+        super(CODE, appStatus, msg, msgArgs);
+    }
+
+}
@@ -0,0 +1,322 @@
+/*
+ * Copyright 2017 Agapsys Tecnologia Ltda-ME.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.agapsys.rcf.util;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Concurrency limiter which adjusts its limit to measured latency.
+ *
+ * The limit follows a gradient algorithm: latencies are averaged over short windows and compared with a long-term average. While short-term latency stays within a tolerance of the long-term one, the limit grows (by its square root); when latency grows, the limit shrinks proportionally. Long-term average slowly follows sustained changes, so the limit converges to the concurrency a resource sustains without queueing.
+ *
+ * Callers exceeding the limit wait in a queue controlled by CoDel (controlled delay): while the queue drains regularly, callers wait up to the interval; once the queue has not been empty for a whole interval (i.e. it is a standing queue), callers wait only up to the target delay. Callers which cannot be admitted in time are rejected, so latency stays bounded under overload.
+ *
+ * Admission is lock-free. Only queued callers block.
+ */
+public class AdaptiveLimiter {
+
+    // <editor-fold desc="STATIC SCOPE" defaultstate="collapsed">
+    // =========================================================================
+    public static final long DEFAULT_TARGET_DELAY = TimeUnit.MILLISECONDS.toNanos(5);
+    public static final long DEFAULT_INTERVAL     = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private static final int    MIN_WINDOW_SAMPLES = 10;
+    private static final double LONG_WINDOWS       = 100; // <-- number of windows averaged by long-term latency
+    private static final double TOLERANCE          = 1.5; // <-- short-term latency may exceed long-term latency up to this factor before the limit shrinks
+    private static final double SMOOTHING          = 0.2;
+    private static final double MIN_GRADIENT       = 0.5;
+
+    private static final LongSupplier SYSTEM_CLOCK = new LongSupplier() {
+        @Override
+        public long getAsLong() {
+            return System.nanoTime();
+        }
+    };
+    // =========================================================================
+    // </editor-fold>
+
+    private final int          minLimit;
+    private final int          maxLimit;
+    private final int          maxQueue;
+    private final long         targetDelay;
+    private final long         interval;
+    private final LongSupplier clock;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger queued   = new AtomicInteger();
+    private final LongAdder     rejected = new LongAdder();
+    private final Object        queueLock = new Object();
+
+    private volatile double limit;
+    private volatile long   lastEmpty;    // <-- last time the queue was seen empty
+
+    // Current window...
+    private final AtomicLong    windowStart;
+    private final LongAdder     windowLatency = new LongAdder();
+    private final LongAdder     windowSamples = new LongAdder();
+    private final AtomicInteger windowMaxInFlight = new AtomicInteger();
+
+    private volatile double longLatency = 0; // <-- updated only by the thread which closes a window
+
+    AdaptiveLimiter(int initialLimit, int minLimit, int maxLimit, int maxQueue, long targetDelay, long interval, TimeUnit unit, LongSupplier clock) {
+        if (minLimit <= 0)
+            throw new IllegalArgumentException("Invalid min limit: " + minLimit);
+
+        if (maxLimit < minLimit)
+            throw new IllegalArgumentException("Invalid max limit: " + maxLimit);
+
+        if (initialLimit < minLimit || initialLimit > maxLimit)
+            throw new IllegalArgumentException("Invalid initial limit: " + initialLimit);
+
+        if (maxQueue < 0)
+            throw new IllegalArgumentException("Invalid max queue: " + maxQueue);
+
+        if (unit == null)
+            throw new IllegalArgumentException("Null time unit");
+
+        if (targetDelay <= 0 || interval < targetDelay)
+            throw new IllegalArgumentException(String.format("Invalid target delay/interval: %d/%d", targetDelay, interval));
+
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.maxQueue = maxQueue;
+        this.targetDelay = unit.toNanos(targetDelay);
+        this.interval = unit.toNanos(interval);
+        this.clock = clock;
+
+        long now = clock.getAsLong();
+        this.lastEmpty = now;
+        this.windowStart = new AtomicLong(now);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param initialLimit initial concurrency limit.
+     * @param minLimit minimum concurrency limit.
+     * @param maxLimit maximum concurrency limit.
+     * @param maxQueue maximum number of callers waiting for admission.
+     * @param targetDelay acceptable queueing delay when there is a standing queue.
+     * @param interval maximum queueing delay. This is also the length of the windows where latency is measured.
+     * @param unit time unit of target delay and interval.
+     */
+    public AdaptiveLimiter(int initialLimit, int minLimit, int maxLimit, int maxQueue, long targetDelay, long interval, TimeUnit unit) {
+        this(initialLimit, minLimit, maxLimit, maxQueue, targetDelay, interval, unit, SYSTEM_CLOCK);
+    }
+
+    /**
+     * Constructor. Uses {@linkplain AdaptiveLimiter#DEFAULT_TARGET_DELAY} and {@linkplain AdaptiveLimiter#DEFAULT_INTERVAL}, with a minimum limit of 1.
+     *
+     * @param initialLimit initial concurrency limit.
+     * @param maxLimit maximum concurrency limit.
+     * @param maxQueue maximum number of callers waiting for admission.
+     */
+    public AdaptiveLimiter(int initialLimit, int maxLimit, int maxQueue) {
+        this(initialLimit, 1, maxLimit, maxQueue, DEFAULT_TARGET_DELAY, DEFAULT_INTERVAL, TimeUnit.NANOSECONDS);
+    }
+
+    private boolean __tryAdmit() {
+        while (true) {
+            int current = inFlight.get();
+
+            if (current >= (int) limit)
+                return false;
+
+            if (inFlight.compareAndSet(current, current + 1))
+                return true;
+        }
+    }
+
+    private boolean __enqueue() {
+        while (true) {
+            int current = queued.get();
+
+            if (current >= maxQueue)
+                return false;
+
+            if (queued.compareAndSet(current, current + 1))
+                return true;
+        }
+    }
+
+    private boolean __await() {
+        long start = clock.getAsLong();
+
+        // CoDel: a queue which has not drained for a whole interval is a standing queue, whose callers are shed after the target delay...
+        long deadline = start + (start - lastEmpty > interval ? targetDelay : interval);
+
+        synchronized (queueLock) {
+            while (!__tryAdmit()) {
+                long remaining = deadline - clock.getAsLong();
+
+                if (remaining <= 0)
+                    return false;
+
+                try {
+                    queueLock.wait(TimeUnit.NANOSECONDS.toMillis(remaining), (int) (remaining % 1000000));
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+
+            return true;
+        }
+    }
+
+    /**
+     * Tries to admit a caller, waiting in the queue if the limit was reached.
+     *
+     * An admitted caller must call {@linkplain AdaptiveLimiter#release(long)} when done.
+     *
+     * @return a boolean indicating if the caller was admitted.
+     */
+    public boolean tryAcquire() {
+        if (queued.get() == 0 && __tryAdmit()) {
+            lastEmpty = clock.getAsLong();
+            return true;
+        }
+
+        if (!__enqueue()) {
+            rejected.increment();
+            return false;
+        }
+
+        boolean admitted;
+
+        try {
+            admitted = __await();
+        } finally {
+            if (queued.decrementAndGet() == 0)
+                lastEmpty = clock.getAsLong();
+        }
+
+        if (!admitted)
+            rejected.increment();
+
+        return admitted;
+    }
+
+    /**
+     * Releases an admitted caller, recording its latency.
+     *
+     * @param latency time (in nanoseconds) spent by the caller after being admitted.
+     */
+    public void release(long latency) {
+        int current = inFlight.get();
+
+        // Tracks peak concurrency of the window, so the limit does not grow while it is not being used...
+        while (true) {
+            int max = windowMaxInFlight.get();
+
+            if (current <= max || windowMaxInFlight.compareAndSet(max, current))
+                break;
+        }
+
+        windowLatency.add(Math.max(0, latency));
+        windowSamples.increment();
+
+        inFlight.decrementAndGet();
+
+        if (queued.get() > 0) {
+            synchronized (queueLock) {
+                queueLock.notify();
+            }
+        }
+
+        __closeWindow();
+    }
+
+    private void __closeWindow() {
+        long now = clock.getAsLong();
+        long start = windowStart.get();
+
+        if (now - start < interval || windowSamples.sum() < MIN_WINDOW_SAMPLES)
+            return;
+
+        if (!windowStart.compareAndSet(start, now))
+            return; // <-- another thread is closing the window
+
+        long samples = windowSamples.sumThenReset();
+        double shortLatency = Math.max(1, (double) windowLatency.sumThenReset() / Math.max(1, samples));
+        int maxInFlight = windowMaxInFlight.getAndSet(0);
+
+        __update(shortLatency, maxInFlight);
+    }
+
+    private void __update(double shortLatency, int maxInFlight) {
+        double currentLongLatency = longLatency == 0 ? shortLatency : longLatency + (shortLatency - longLatency) / LONG_WINDOWS;
+
+        if (currentLongLatency / shortLatency > 2)
+            currentLongLatency *= 0.95; // <-- latency dropped: forgets old baseline faster
+
+        longLatency = currentLongLatency;
+
+        double currentLimit = limit;
+
+        if (maxInFlight < currentLimit / 2)
+            return; // <-- limit is not being exercised: latency says nothing about it
+
+        double gradient = Math.max(MIN_GRADIENT, Math.min(1.0, TOLERANCE * currentLongLatency / shortLatency));
+        double newLimit = currentLimit * gradient + Math.sqrt(currentLimit);
+
+        newLimit = currentLimit * (1 - SMOOTHING) + newLimit * SMOOTHING;
+        limit = Math.max(minLimit, Math.min(maxLimit, newLimit));
+    }
+
+    /**
+     * Returns current concurrency limit.
+     *
+     * @return current concurrency limit.
+     */
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    /**
+     * Returns the number of admitted callers which were not released yet.
+     *
+     * @return the number of admitted callers which were not released yet.
+     */
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * Returns the number of callers waiting for admission.
+     *
+     * @return the number of callers waiting for admission.
+     */
+    public int getQueued() {
+        return queued.get();
+    }
+
+    /**
+     * Returns the number of rejected callers since this limiter was created.
+     *
+     * @return the number of rejected callers.
+     */
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+}
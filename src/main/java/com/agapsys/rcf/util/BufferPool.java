@@ -0,0 +1,73 @@
+/*
+ * Copyright 2017 Agapsys Tecnologia Ltda-ME.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.agapsys.rcf.util;
+
+/**
+ * Per-thread pool of byte buffers.
+ *
+ * Each thread keeps at most one idle buffer. Servlet containers reuse their worker threads, so a request usually gets the buffer released by the previous request served by the same thread.
+ */
+final class BufferPool {
+
+    // <editor-fold desc="STATIC SCOPE" defaultstate="collapsed">
+    // =========================================================================
+    public static final int DEFAULT_BUFFER_SIZE = 8192;
+
+    public static final BufferPool DEFAULT = new BufferPool(DEFAULT_BUFFER_SIZE);
+    // =========================================================================
+    // </editor-fold>
+
+    private final int bufferSize;
+    private final ThreadLocal<byte[]> idleBuffer = new ThreadLocal<>();
+
+    public BufferPool(int bufferSize) {
+        if (bufferSize < 4)
+            throw new IllegalArgumentException("Invalid buffer size: " + bufferSize);
+
+        this.bufferSize = bufferSize;
+    }
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    /**
+     * Returns a buffer from the pool (or a new one if there is no idle buffer for calling thread).
+     *
+     * @return a buffer with {@linkplain BufferPool#getBufferSize()} bytes.
+     */
+    public byte[] acquire() {
+        byte[] buffer = idleBuffer.get();
+
+        if (buffer == null)
+            return new byte[bufferSize];
+
+        idleBuffer.set(null);
+        return buffer;
+    }
+
+    /**
+     * Returns a buffer to the pool.
+     *
+     * @param buffer buffer previously obtained via {@linkplain BufferPool#acquire()}.
+     */
+    public void release(byte[] buffer) {
+        if (buffer != null && buffer.length == bufferSize)
+            idleBuffer.set(buffer);
+    }
+
+}
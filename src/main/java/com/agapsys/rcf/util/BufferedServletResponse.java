@@ -0,0 +1,181 @@
+/*
+ * Copyright 2017 Agapsys Tecnologia Ltda-ME.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.agapsys.rcf.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Response wrapper which keeps the body in memory instead of sending it to the client.
+ *
+ * Headers and status are forwarded to the wrapped response. Body can be retrieved through {@linkplain BufferedServletResponse#getBytes()}.
+ * Optionally, headers set through this wrapper are also recorded, so the response can be replayed later.
+ */
+public class BufferedServletResponse extends InterceptingServletResponse {
+
+    private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+
+    private final Map<String, List<String>> headers;
+
+    private boolean cookiesAdded = false;
+
+    public BufferedServletResponse(HttpServletResponse response, boolean recordHeaders) {
+        super(response);
+        this.headers = recordHeaders ? new TreeMap<String, List<String>>(String.CASE_INSENSITIVE_ORDER) : null;
+    }
+
+    public BufferedServletResponse(HttpServletResponse response) {
+        this(response, false);
+    }
+
+    @Override
+    protected void _write(int b) throws IOException {
+        buffer.write(b);
+    }
+
+    @Override
+    protected void _write(byte[] b, int off, int len) throws IOException {
+        buffer.write(b, off, len);
+    }
+
+    @Override
+    protected void _resetBody() {
+        buffer.reset();
+    }
+
+    private void __recordHeader(String name, String value, boolean add) {
+        if (headers == null)
+            return;
+
+        List<String> values = add ? headers.get(name) : null;
+
+        if (values == null) {
+            values = new LinkedList<>();
+            headers.put(name, values);
+        }
+
+        values.add(value);
+    }
+
+    @Override
+    public void setHeader(String name, String value) {
+        super.setHeader(name, value);
+        __recordHeader(name, value, false);
+    }
+
+    @Override
+    public void addHeader(String name, String value) {
+        super.addHeader(name, value);
+        __recordHeader(name, value, true);
+    }
+
+    @Override
+    public void setDateHeader(String name, long date) {
+        super.setDateHeader(name, date);
+        __recordHeader(name, formatDate(date), false);
+    }
+
+    @Override
+    public void addDateHeader(String name, long date) {
+        super.addDateHeader(name, date);
+        __recordHeader(name, formatDate(date), true);
+    }
+
+    @Override
+    public void setIntHeader(String name, int value) {
+        super.setIntHeader(name, value);
+        __recordHeader(name, Integer.toString(value), false);
+    }
+
+    @Override
+    public void addIntHeader(String name, int value) {
+        super.addIntHeader(name, value);
+        __recordHeader(name, Integer.toString(value), true);
+    }
+
+    @Override
+    public void addCookie(Cookie cookie) {
+        super.addCookie(cookie);
+        cookiesAdded = true;
+    }
+
+    @Override
+    public void setContentLength(int len) {} // <-- body length is defined by whoever sends buffered bytes
+
+    @Override
+    public void setContentLengthLong(long len) {} // <-- body length is defined by whoever sends buffered bytes
+
+    @Override
+    public void reset() {
+        super.reset();
+        resetBuffer();
+
+        if (headers != null)
+            headers.clear();
+    }
+
+    /**
+     * Returns headers set through this wrapper.
+     *
+     * @return headers set through this wrapper (or an empty map if headers are not recorded).
+     */
+    public Map<String, List<String>> getRecordedHeaders() {
+        if (headers == null)
+            return Collections.emptyMap();
+
+        return Collections.unmodifiableMap(headers);
+    }
+
+    /**
+     * Returns a boolean indicating if cookies were added through this wrapper.
+     *
+     * @return a boolean indicating if cookies were added through this wrapper.
+     */
+    public boolean isCookiesAdded() {
+        return cookiesAdded;
+    }
+
+    /**
+     * Returns the number of buffered bytes.
+     *
+     * @return the number of buffered bytes.
+     */
+    public int getSize() {
+        _flushWriter();
+
+        return buffer.size();
+    }
+
+    /**
+     * Returns buffered body.
+     *
+     * @return buffered body.
+     */
+    public byte[] getBytes() {
+        _flushWriter();
+
+        return buffer.toByteArray();
+    }
+
+}
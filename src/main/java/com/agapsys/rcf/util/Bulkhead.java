@@ -0,0 +1,161 @@
+/*
+ * Copyright 2017 Agapsys Tecnologia Ltda-ME.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.agapsys.rcf.util;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bulkhead bounding the number of concurrent executions of a resource.
+ *
+ * Up to a maximum number of callers execute at the same time. When all permits are taken, a bounded number of callers wait (for a limited time) for a permit, while the others are rejected immediately.
+ * Admission is lock-free: permits are taken through CAS operations on a non-fair semaphore and waiting slots through CAS operations on a counter. Only waiting callers are blocked.
+ */
+public class Bulkhead {
+
+    private final int  maxConcurrency;
+    private final int  maxQueue;
+    private final long queueTimeout; // <-- nanoseconds
+
+    private final Semaphore     permits;
+    private final AtomicInteger queued   = new AtomicInteger();
+    private final LongAdder     rejected = new LongAdder();
+
+    /**
+     * Constructor.
+     *
+     * @param maxConcurrency maximum number of concurrent executions.
+     * @param maxQueue maximum number of callers waiting for a permit. Zero means that callers never wait.
+     * @param queueTimeout maximum time a caller waits for a permit.
+     * @param unit time unit of the timeout.
+     */
+    public Bulkhead(int maxConcurrency, int maxQueue, long queueTimeout, TimeUnit unit) {
+        if (maxConcurrency <= 0)
+            throw new IllegalArgumentException("Invalid max concurrency: " + maxConcurrency);
+
+        if (maxQueue < 0)
+            throw new IllegalArgumentException("Invalid max queue: " + maxQueue);
+
+        if (queueTimeout < 0)
+            throw new IllegalArgumentException("Invalid queue timeout: " + queueTimeout);
+
+        if (unit == null)
+            throw new IllegalArgumentException("Null time unit");
+
+        this.maxConcurrency = maxConcurrency;
+        this.maxQueue = maxQueue;
+        this.queueTimeout = unit.toNanos(queueTimeout);
+        this.permits = new Semaphore(maxConcurrency, false);
+    }
+
+    private boolean __enqueue() {
+        while (true) {
+            int current = queued.get();
+
+            if (current >= maxQueue)
+                return false;
+
+            if (queued.compareAndSet(current, current + 1))
+                return true;
+        }
+    }
+
+    /**
+     * Tries to take a permit, waiting for one if there is room in the queue.
+     *
+     * A caller which takes a permit must return it through {@linkplain Bulkhead#exit()}.
+     *
+     * @return a boolean indicating if a permit was taken.
+     */
+    public boolean tryEnter() {
+        if (permits.tryAcquire())
+            return true;
+
+        if (!__enqueue()) {
+            rejected.increment();
+            return false;
+        }
+
+        boolean acquired = false;
+
+        try {
+            acquired = permits.tryAcquire(queueTimeout, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } finally {
+            queued.decrementAndGet();
+        }
+
+        if (!acquired)
+            rejected.increment();
+
+        return acquired;
+    }
+
+    /** Returns a permit taken through {@linkplain Bulkhead#tryEnter()}. */
+    public void exit() {
+        permits.release();
+    }
+
+    /**
+     * Returns the maximum number of concurrent executions.
+     *
+     * @return the maximum number of concurrent executions.
+     */
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    /**
+     * Returns the maximum number of callers waiting for a permit.
+     *
+     * @return the maximum number of callers waiting for a permit.
+     */
+    public int getMaxQueue() {
+        return maxQueue;
+    }
+
+    /**
+     * Returns the number of running executions.
+     *
+     * @return the number of running executions.
+     */
+    public int getActive() {
+        return maxConcurrency - permits.availablePermits();
+    }
+
+    /**
+     * Returns the number of callers waiting for a permit.
+     *
+     * @return the number of callers waiting for a permit.
+     */
+    public int getQueued() {
+        return queued.get();
+    }
+
+    /**
+     * Returns the number of rejected callers since this bulkhead was created.
+     *
+     * @return the number of rejected callers.
+     */
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+}
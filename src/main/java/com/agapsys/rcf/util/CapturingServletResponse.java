@@ -0,0 +1,334 @@
+/*
+ * Copyright 2017 Agapsys Tecnologia Ltda-ME.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.agapsys.rcf.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Response wrapper which captures status, headers and body, leaving the wrapped response untouched.
+ *
+ * Used to execute a request on behalf of another one (e.g. sub-requests of a batch): the captured response can be inspected once the request is processed. Cookies are captured too, but they are not sent to the client unless the captured response is explicitly sent (see {@linkplain CapturingServletResponse#writeTo(HttpServletResponse)}).
+ */
+public class CapturingServletResponse extends InterceptingServletResponse {
+
+    private final ByteArrayOutputStream     buffer  = new ByteArrayOutputStream();
+    private final Map<String, List<String>> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+    private final List<Cookie>              cookies = new LinkedList<>();
+
+    private int     status = HttpServletResponse.SC_OK;
+    private String  contentType = null;
+    private String  characterEncoding = null;
+    private Locale  locale = Locale.getDefault();
+    private boolean committed = false;
+
+    public CapturingServletResponse(HttpServletResponse response) {
+        super(response);
+    }
+
+    @Override
+    protected void _write(int b) throws IOException {
+        buffer.write(b);
+    }
+
+    @Override
+    protected void _write(byte[] b, int off, int len) throws IOException {
+        buffer.write(b, off, len);
+    }
+
+    @Override
+    protected void _resetBody() {
+        buffer.reset();
+    }
+
+    private void __setHeader(String name, String value, boolean add) {
+        List<String> values = add ? headers.get(name) : null;
+
+        if (values == null) {
+            values = new LinkedList<>();
+            headers.put(name, values);
+        }
+
+        values.add(value);
+    }
+
+    private void __checkNotCommitted() {
+        if (committed)
+            throw new IllegalStateException("Response is already committed");
+    }
+
+    // Status ------------------------------------------------------------------
+    @Override
+    public void setStatus(int sc) {
+        if (!committed)
+            status = sc;
+    }
+
+    @Override
+    public void setStatus(int sc, String sm) {
+        setStatus(sc);
+    }
+
+    @Override
+    public int getStatus() {
+        return status;
+    }
+
+    @Override
+    public void sendError(int sc, String msg) throws IOException {
+        __checkNotCommitted();
+        resetBuffer();
+        status = sc;
+
+        if (msg != null) {
+            setContentType("text/plain; charset=UTF-8");
+            getWriter().write(msg);
+        }
+
+        committed = true;
+    }
+
+    @Override
+    public void sendError(int sc) throws IOException {
+        sendError(sc, null);
+    }
+
+    @Override
+    public void sendRedirect(String location) throws IOException {
+        __checkNotCommitted();
+        resetBuffer();
+        status = HttpServletResponse.SC_FOUND;
+        setHeader("Location", location);
+        committed = true;
+    }
+    // -------------------------------------------------------------------------
+
+    // Headers -----------------------------------------------------------------
+    @Override
+    public void setHeader(String name, String value) {
+        if (committed)
+            return;
+
+        if (value == null) {
+            headers.remove(name);
+        } else {
+            __setHeader(name, value, false);
+        }
+    }
+
+    @Override
+    public void addHeader(String name, String value) {
+        if (!committed && value != null)
+            __setHeader(name, value, true);
+    }
+
+    @Override
+    public void setDateHeader(String name, long date) {
+        setHeader(name, formatDate(date));
+    }
+
+    @Override
+    public void addDateHeader(String name, long date) {
+        addHeader(name, formatDate(date));
+    }
+
+    @Override
+    public void setIntHeader(String name, int value) {
+        setHeader(name, Integer.toString(value));
+    }
+
+    @Override
+    public void addIntHeader(String name, int value) {
+        addHeader(name, Integer.toString(value));
+    }
+
+    @Override
+    public boolean containsHeader(String name) {
+        return headers.containsKey(name);
+    }
+
+    @Override
+    public String getHeader(String name) {
+        List<String> values = headers.get(name);
+        return values == null ? null : values.get(0);
+    }
+
+    @Override
+    public Collection<String> getHeaders(String name) {
+        List<String> values = headers.get(name);
+        return values == null ? Collections.<String>emptyList() : Collections.unmodifiableList(values);
+    }
+
+    @Override
+    public Collection<String> getHeaderNames() {
+        return Collections.unmodifiableSet(headers.keySet());
+    }
+
+    @Override
+    public void addCookie(Cookie cookie) {
+        if (!committed)
+            cookies.add(cookie);
+    }
+    // -------------------------------------------------------------------------
+
+    // Content -----------------------------------------------------------------
+    @Override
+    public void setContentType(String type) {
+        if (committed)
+            return;
+
+        contentType = type;
+
+        if (type != null) {
+            int charsetIndex = type.toLowerCase().indexOf("charset=");
+
+            if (charsetIndex >= 0)
+                characterEncoding = type.substring(charsetIndex + "charset=".length()).trim();
+        }
+    }
+
+    @Override
+    public String getContentType() {
+        return contentType;
+    }
+
+    @Override
+    public void setCharacterEncoding(String charset) {
+        if (!committed && !_isWriterObtained())
+            characterEncoding = charset;
+    }
+
+    @Override
+    public String getCharacterEncoding() {
+        return characterEncoding == null ? DEFAULT_CHARACTER_ENCODING : characterEncoding;
+    }
+
+    @Override
+    public void setLocale(Locale loc) {
+        if (!committed && loc != null)
+            locale = loc;
+    }
+
+    @Override
+    public Locale getLocale() {
+        return locale;
+    }
+
+    @Override
+    public void setContentLength(int len) {} // <-- body length is defined by captured bytes
+
+    @Override
+    public void setContentLengthLong(long len) {} // <-- body length is defined by captured bytes
+
+    @Override
+    public void setBufferSize(int size) {}
+
+    @Override
+    public int getBufferSize() {
+        return Integer.MAX_VALUE;
+    }
+
+    @Override
+    public boolean isCommitted() {
+        return committed;
+    }
+
+    @Override
+    public void resetBuffer() {
+        __checkNotCommitted();
+        super.resetBuffer();
+    }
+
+    @Override
+    public void reset() {
+        resetBuffer();
+        headers.clear();
+        cookies.clear();
+        status = HttpServletResponse.SC_OK;
+        contentType = null;
+        characterEncoding = null;
+    }
+    // -------------------------------------------------------------------------
+
+    /**
+     * Returns captured cookies.
+     *
+     * @return captured cookies.
+     */
+    public List<Cookie> getCookies() {
+        return Collections.unmodifiableList(cookies);
+    }
+
+    /**
+     * Returns captured body.
+     *
+     * @return captured body.
+     */
+    public byte[] getBytes() {
+        _flushWriter();
+
+        return buffer.toByteArray();
+    }
+
+    /**
+     * Sends captured status, headers, cookies and body through given response.
+     *
+     * @param response response which will receive captured data (usually the wrapped one).
+     * @throws IOException if an input or output error occurs while sending the body.
+     */
+    public void writeTo(HttpServletResponse response) throws IOException {
+        byte[] body = getBytes();
+
+        response.setStatus(status);
+
+        if (contentType != null)
+            response.setContentType(contentType);
+
+        for (Map.Entry<String, List<String>> header : headers.entrySet()) {
+            Iterator<String> values = header.getValue().iterator();
+            response.setHeader(header.getKey(), values.next());
+
+            while (values.hasNext()) {
+                response.addHeader(header.getKey(), values.next());
+            }
+        }
+
+        for (Cookie cookie : cookies) {
+            response.addCookie(cookie);
+        }
+
+        if (body.length > 0) {
+            response.setContentLength(body.length);
+
+            OutputStream out = response.getOutputStream();
+            out.write(body);
+            out.flush();
+        }
+    }
+
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2017 Agapsys Tecnologia Ltda-ME.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.agapsys.rcf.util;
+
+import java.io.IOException;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Response wrapper which discards the body, counting its length.
+ *
+ * Used to answer HEAD requests through GET actions: headers and status are forwarded to the wrapped response and, once the action is finished, {@linkplain CountingServletResponse#finish()} sends the length of the discarded body as Content-Length.
+ */
+public class CountingServletResponse extends InterceptingServletResponse {
+
+    private long length = 0;
+    private boolean contentLengthSet = false;
+
+    public CountingServletResponse(HttpServletResponse response) {
+        super(response);
+    }
+
+    @Override
+    protected void _write(int b) throws IOException {
+        length++;
+    }
+
+    @Override
+    protected void _write(byte[] b, int off, int len) throws IOException {
+        length += len;
+    }
+
+    @Override
+    protected void _resetBody() {
+        length = 0;
+    }
+
+    @Override
+    public void setContentLength(int len) {
+        super.setContentLength(len);
+        contentLengthSet = true;
+    }
+
+    @Override
+    public void setContentLengthLong(long len) {
+        super.setContentLengthLong(len);
+        contentLengthSet = true;
+    }
+
+    @Override
+    public void reset() {
+        super.reset();
+        resetBuffer();
+        contentLengthSet = false;
+    }
+
+    /**
+     * Returns the number of discarded bytes.
+     *
+     * @return the number of discarded bytes.
+     */
+    public long getLength() {
+        _flushWriter();
+
+        return length;
+    }
+
+    /** Sends the length of discarded body, unless a length was already set or the response is already committed. */
+    public void finish() {
+        long bodyLength = getLength();
+
+        if (!contentLengthSet && !isCommitted())
+            super.setContentLengthLong(bodyLength);
+    }
+
+}
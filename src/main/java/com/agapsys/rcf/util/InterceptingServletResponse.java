@@ -0,0 +1,160 @@
+/*
+ * Copyright 2017 Agapsys Tecnologia Ltda-ME.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.agapsys.rcf.util;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+
+/**
+ * Response wrapper which keeps the body away from the wrapped response.
+ *
+ * Bytes written either through {@linkplain InterceptingServletResponse#getOutputStream()} or {@linkplain InterceptingServletResponse#getWriter()} are handed to subclasses (see {@linkplain InterceptingServletResponse#_write(byte[], int, int)}), which decide what to do with them (e.g. buffer or count them).
+ */
+public abstract class InterceptingServletResponse extends HttpServletResponseWrapper {
+
+    // <editor-fold desc="STATIC SCOPE" defaultstate="collapsed">
+    // =========================================================================
+    protected static final String DEFAULT_CHARACTER_ENCODING = "ISO-8859-1"; // <-- Servlet specification default
+
+    private static final DateTimeFormatter HTTP_DATE_FORMATTER = DateTimeFormatter.RFC_1123_DATE_TIME.withZone(ZoneOffset.UTC);
+
+    /**
+     * Formats a date header value.
+     *
+     * @param date date (milliseconds since epoch).
+     * @return HTTP date.
+     */
+    protected static String formatDate(long date) {
+        return HTTP_DATE_FORMATTER.format(Instant.ofEpochMilli(date));
+    }
+
+    private class InterceptingOutputStream extends ServletOutputStream {
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+            throw new UnsupportedOperationException("Not supported");
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            _write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            _write(b, off, len);
+        }
+    }
+    // =========================================================================
+    // </editor-fold>
+
+    private ServletOutputStream outputStream = null;
+    private PrintWriter writer = null;
+
+    public InterceptingServletResponse(HttpServletResponse response) {
+        super(response);
+    }
+
+    /**
+     * Receives a byte of the body.
+     *
+     * @param b byte.
+     * @throws IOException if an I/O error occurs.
+     */
+    protected abstract void _write(int b) throws IOException;
+
+    /**
+     * Receives a chunk of the body.
+     *
+     * @param b data.
+     * @param off offset.
+     * @param len number of bytes.
+     * @throws IOException if an I/O error occurs.
+     */
+    protected abstract void _write(byte[] b, int off, int len) throws IOException;
+
+    /** Discards the body received so far. */
+    protected abstract void _resetBody();
+
+    /**
+     * Returns a boolean indicating if a writer was already obtained.
+     *
+     * @return a boolean indicating if a writer was already obtained (after that, character encoding cannot be changed).
+     */
+    protected final boolean _isWriterObtained() {
+        return writer != null;
+    }
+
+    /** Hands characters pending in the writer (if any) to {@linkplain InterceptingServletResponse#_write(byte[], int, int)}. */
+    protected final void _flushWriter() {
+        if (writer != null)
+            writer.flush();
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() throws IOException {
+        if (writer != null)
+            throw new IllegalStateException("getWriter() was already called");
+
+        if (outputStream == null)
+            outputStream = new InterceptingOutputStream();
+
+        return outputStream;
+    }
+
+    @Override
+    public PrintWriter getWriter() throws IOException {
+        if (outputStream != null)
+            throw new IllegalStateException("getOutputStream() was already called");
+
+        if (writer == null) {
+            String characterEncoding = getCharacterEncoding();
+
+            if (characterEncoding == null)
+                characterEncoding = DEFAULT_CHARACTER_ENCODING;
+
+            writer = new PrintWriter(new OutputStreamWriter(new InterceptingOutputStream(), characterEncoding));
+        }
+
+        return writer;
+    }
+
+    @Override
+    public void flushBuffer() throws IOException {
+        _flushWriter(); // <-- wrapped response is not committed
+    }
+
+    @Override
+    public void resetBuffer() {
+        _flushWriter();
+        _resetBody();
+    }
+
+}
@@ -19,16 +19,40 @@ package com.agapsys.rcf.util;
 import com.agapsys.rcf.ActionRequest;
 import com.agapsys.rcf.exceptions.CheckedException;
 import java.io.UnsupportedEncodingException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Array;
 import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
 import java.math.BigDecimal;
 import java.net.URLDecoder;
 import java.net.URLEncoder;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.temporal.ChronoField;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.Map;
-import java.util.TimeZone;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import javax.servlet.ServletRequest;
 
 public class ParamMapSerializer {
 
@@ -62,6 +86,27 @@ public class ParamMapSerializer {
         public T getObject(String str) throws SerializerException;
     }
 
+    /** Serializer able to handle {@code int} values without boxing. */
+    public static interface IntTypeSerializer extends TypeSerializer<Integer> {
+        public String toString(int value);
+
+        public int getInt(String str) throws SerializerException;
+    }
+
+    /** Serializer able to handle {@code long} values without boxing. */
+    public static interface LongTypeSerializer extends TypeSerializer<Long> {
+        public String toString(long value);
+
+        public long getLong(String str) throws SerializerException;
+    }
+
+    /** Serializer able to handle {@code double} values without boxing. */
+    public static interface DoubleTypeSerializer extends TypeSerializer<Double> {
+        public String toString(double value);
+
+        public double getDouble(String str) throws SerializerException;
+    }
+
     public abstract static class DefaultTypeSerializer<T> implements TypeSerializer<T> {
 
         @Override
@@ -130,13 +175,26 @@ public class ParamMapSerializer {
 
     }
 
-    public static class IntegerSerializer extends DefaultTypeSerializer<Integer> {
+    public static class IntegerSerializer extends DefaultTypeSerializer<Integer> implements IntTypeSerializer {
+
+        @Override
+        public String toString(int value) {
+            return Integer.toString(value);
+        }
 
         @Override
         public Integer getObject(String str) throws SerializerException {
             if (str == null || str.trim().isEmpty())
                 return null;
 
+            return getInt(str);
+        }
+
+        @Override
+        public int getInt(String str) throws SerializerException {
+            if (str == null)
+                throw new SerializerException("Invalid integer value: %s", str);
+
             try {
                 return Integer.parseInt(str);
             } catch (NumberFormatException ex) {
@@ -146,13 +204,26 @@ public class ParamMapSerializer {
 
     }
 
-    public static class LongSerializer extends DefaultTypeSerializer<Long> {
+    public static class LongSerializer extends DefaultTypeSerializer<Long> implements LongTypeSerializer {
+
+        @Override
+        public String toString(long value) {
+            return Long.toString(value);
+        }
 
         @Override
         public Long getObject(String str) throws SerializerException {
             if (str == null || str.trim().isEmpty())
                 return null;
 
+            return getLong(str);
+        }
+
+        @Override
+        public long getLong(String str) throws SerializerException {
+            if (str == null)
+                throw new SerializerException("Invalid long value: %s", str);
+
             try {
                 return Long.parseLong(str);
             } catch (NumberFormatException ex) {
@@ -178,13 +249,26 @@ public class ParamMapSerializer {
 
     }
 
-    public static class DoubleSerializer extends DefaultTypeSerializer<Double> {
+    public static class DoubleSerializer extends DefaultTypeSerializer<Double> implements DoubleTypeSerializer {
+
+        @Override
+        public String toString(double value) {
+            return Double.toString(value);
+        }
 
         @Override
         public Double getObject(String str) throws SerializerException {
             if (str == null || str.trim().isEmpty())
                 return null;
 
+            return getDouble(str);
+        }
+
+        @Override
+        public double getDouble(String str) throws SerializerException {
+            if (str == null)
+                throw new SerializerException("Invalid double value: %s", str);
+
             try {
                 return Double.parseDouble(str);
             } catch (NumberFormatException ex) {
@@ -211,31 +295,79 @@ public class ParamMapSerializer {
     }
 
     public static class TimestampSerializer extends DefaultTypeSerializer<Date> {
-        private volatile boolean initialized = false;
-        private SimpleDateFormat sdf;
 
-        private synchronized void __init() {
-            if (!initialized) {
-                sdf = new SimpleDateFormat(getFormatPattern());
-                sdf.setTimeZone(TimeZone.getTimeZone("UTC"));
-                initialized = true;
+        /**
+         * Returns a boolean indicating if given pattern contains any of given pattern letters (quoted literals are ignored).
+         */
+        private static boolean __hasPatternLetter(String pattern, String letters) {
+            boolean quoted = false;
+
+            for (int i = 0; i < pattern.length(); i++) {
+                char c = pattern.charAt(i);
+
+                if (c == '\'') {
+                    quoted = !quoted; // <-- an escaped quote ('') toggles twice
+                } else if (!quoted && letters.indexOf(c) >= 0) {
+                    return true;
+                }
             }
+
+            return false;
         }
 
+        private volatile DateTimeFormatter formatter; // <-- lazily created: getFormatPattern() may depend on subclass state
+
+        private DateTimeFormatter __getFormatter() {
+            DateTimeFormatter result = formatter;
+
+            if (result == null) {
+                String pattern = getFormatPattern();
+                DateTimeFormatterBuilder builder = new DateTimeFormatterBuilder().appendPattern(pattern);
+
+                // Time fields missing from the pattern default to zero (e.g. date-only patterns)...
+                if (!__hasPatternLetter(pattern, "HkhKA"))
+                    builder.parseDefaulting(ChronoField.HOUR_OF_DAY, 0);
+
+                if (!__hasPatternLetter(pattern, "mA"))
+                    builder.parseDefaulting(ChronoField.MINUTE_OF_HOUR, 0);
+
+                if (!__hasPatternLetter(pattern, "sA"))
+                    builder.parseDefaulting(ChronoField.SECOND_OF_MINUTE, 0);
+
+                if (!__hasPatternLetter(pattern, "SnNA"))
+                    builder.parseDefaulting(ChronoField.NANO_OF_SECOND, 0);
+
+                result = builder.toFormatter().withZone(ZoneOffset.UTC);
+                formatter = result; // <-- concurrent initializations create equivalent instances
+            }
+
+            return result;
+        }
+
+        /**
+         * Returns the pattern used by this serializer.
+         *
+         * This method is called only once, when the serializer is used for the first time.
+         *
+         * @return the pattern used by this serializer (see {@linkplain DateTimeFormatter}). Timestamps are always handled in UTC.
+         */
         protected String getFormatPattern() {
              return "yyyy-MM-dd'T'HH:mm:ss.SSS'Z'";
         }
 
         @Override
-        public Date getObject(String str) throws SerializerException {
-            __init();
+        public String toString(Date srcObject) {
+            return __getFormatter().format(srcObject.toInstant());
+        }
 
+        @Override
+        public Date getObject(String str) throws SerializerException {
             if (str == null || str.trim().isEmpty())
                 return null;
 
             try {
-                return sdf.parse(str);
-            } catch (ParseException ex) {
+                return Date.from(__getFormatter().parse(str, Instant::from));
+            } catch (DateTimeException ex) {
                 throw new SerializerException("Invalid timestamp value: %s", str);
             }
         }
@@ -249,12 +381,171 @@ public class ParamMapSerializer {
             return "yyyy-MM-dd";
         }
     }
+    public static class EnumSerializer<E extends Enum<E>> implements TypeSerializer<E> {
+        private final Class<E> enumClass;
+        private final Map<String, E> constantMap;
+
+        public EnumSerializer(Class<E> enumClass) {
+            if (enumClass == null)
+                throw new IllegalArgumentException("Null enum class");
+
+            this.enumClass = enumClass;
+
+            Map<String, E> tmpConstantMap = new HashMap<>();
+            for (E e : enumClass.getEnumConstants()) {
+                tmpConstantMap.put(e.name(), e);
+            }
+            constantMap = tmpConstantMap;
+        }
+
+        @Override
+        public String toString(E srcObject) {
+            return srcObject.name();
+        }
+
+        @Override
+        public E getObject(String str) throws SerializerException {
+            if (str == null || str.trim().isEmpty())
+                return null;
+
+            E e = constantMap.get(str);
+
+            if (e == null)
+                throw new SerializerException("Invalid %s value: %s", enumClass.getSimpleName(), str);
+
+            return e;
+        }
+
+    }
     // =========================================================================
     // </editor-fold>
 
-    private final Map<Class, TypeSerializer> typeSerializerMap = new LinkedHashMap<>();
+    // <editor-fold desc="Serializer registry" defaultstate="collapsed">
+    // -------------------------------------------------------------------------
+    /**
+     * Immutable snapshot of registered serializers.
+     *
+     * Registering a serializer publishes a new snapshot, so request threads never observe a map under modification and
+     * cached resolutions/binding plans are discarded together.
+     */
+    private static class Registry {
+        private final Map<Class, TypeSerializer> typeSerializerMap;
+
+        private final ClassValue<Optional<TypeSerializer>> serializers = new ClassValue<Optional<TypeSerializer>>() {
+            @Override
+            protected Optional<TypeSerializer> computeValue(Class<?> type) {
+                return Optional.ofNullable(__resolve(typeSerializerMap, type)); // <-- ClassValue does not hold nulls: missing serializers are cached as empty values
+            }
+        };
+
+        private final ClassValue<BindingPlan> bindingPlans = new ClassValue<BindingPlan>() {
+            @Override
+            protected BindingPlan computeValue(Class<?> type) {
+                return __compile(Registry.this, type);
+            }
+        };
+
+        private Registry(Map<Class, TypeSerializer> typeSerializerMap) {
+            this.typeSerializerMap = Collections.unmodifiableMap(typeSerializerMap);
+        }
+
+        private TypeSerializer getSerializer(Class<?> type) {
+            return serializers.get(type).orElse(null);
+        }
+    }
+
+    /** Adapts a serializer registered for {@linkplain Date} (or one of its subclasses) to a subclass (e.g. {@linkplain java.sql.Timestamp}). */
+    private static class DateSubclassSerializer implements TypeSerializer<Date> {
+        private final TypeSerializer<Date> serializer;
+        private final Class<?>             type;
+        private final MethodHandle         constructor; // <-- (long) constructor of the subclass
+
+        private DateSubclassSerializer(TypeSerializer<Date> serializer, Class<?> type, MethodHandle constructor) {
+            this.serializer = serializer;
+            this.type = type;
+            this.constructor = constructor;
+        }
+
+        @Override
+        public String toString(Date srcObject) {
+            return serializer.toString(srcObject);
+        }
+
+        @Override
+        public Date getObject(String str) throws SerializerException {
+            Date date = serializer.getObject(str);
+
+            if (date == null || type.isInstance(date))
+                return date;
+
+            try {
+                return (Date) constructor.invoke(date.getTime());
+            } catch (Throwable ex) {
+                throw new SerializerException("Cannot convert \"%s\" into %s", str, type.getName());
+            }
+        }
+    }
+
+    private static TypeSerializer __adapt(TypeSerializer serializer, Class<?> superClass, Class<?> type) {
+        if (!Date.class.isAssignableFrom(superClass))
+            return serializer;
+
+        try {
+            MethodHandle constructor = MethodHandles.publicLookup().findConstructor(type, MethodType.methodType(void.class, long.class));
+            return new DateSubclassSerializer(serializer, type, constructor);
+        } catch (NoSuchMethodException | IllegalAccessException ex) {
+            return serializer; // <-- values which cannot be converted are rejected when a field is set
+        }
+    }
+
+    private static TypeSerializer __resolve(Map<Class, TypeSerializer> typeSerializerMap, Class<?> type) {
+        // Exact match...
+        TypeSerializer serializer = typeSerializerMap.get(type);
+        if (serializer != null)
+            return serializer;
+
+        // Closest registered super class...
+        for (Class<?> superClass = type.getSuperclass(); superClass != null; superClass = superClass.getSuperclass()) {
+            serializer = typeSerializerMap.get(superClass);
+            if (serializer != null)
+                return __adapt(serializer, superClass, type);
+        }
+
+        // Closest registered interface...
+        Set<Class<?>> visited = new HashSet<>();
+        Deque<Class<?>> queue = new ArrayDeque<>();
+        for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+            queue.addAll(Arrays.asList(c.getInterfaces()));
+        }
+        while (!queue.isEmpty()) {
+            Class<?> iface = queue.poll();
+            if (!visited.add(iface))
+                continue;
+
+            serializer = typeSerializerMap.get(iface);
+            if (serializer != null)
+                return serializer;
+
+            queue.addAll(Arrays.asList(iface.getInterfaces()));
+        }
+
+        // Enums...
+        if (type.isEnum())
+            return new EnumSerializer(type);
+
+        if (type.getSuperclass() != null && type.getSuperclass().isEnum()) // <-- constant-specific class body
+            return new EnumSerializer(type.getSuperclass());
+
+        return null;
+    }
+
+    private volatile Registry registry;
+    // -------------------------------------------------------------------------
+    // </editor-fold>
 
     public ParamMapSerializer() {
+        Map<Class, TypeSerializer> typeSerializerMap = new LinkedHashMap<>();
+
         typeSerializerMap.put(String.class, new StringSerializer());
 
         BooleanSerializer booleanSerializer = new BooleanSerializer();
@@ -283,6 +574,8 @@ public class ParamMapSerializer {
 
         typeSerializerMap.put(BigDecimal.class, new BigDecimalSerializer());
         typeSerializerMap.put(Date.class,       new TimestampSerializer());
+
+        registry = new Registry(typeSerializerMap);
     }
 
     public final void registerTypeSerializer(Class<?> type, TypeSerializer typeSerializer) throws SerializerException {
@@ -292,79 +585,672 @@ public class ParamMapSerializer {
         if (typeSerializer == null)
             throw new IllegalArgumentException("Null type serializer");
 
-        typeSerializerMap.put(type, typeSerializer);
+        synchronized (this) {
+            Map<Class, TypeSerializer> typeSerializerMap = new LinkedHashMap<>(registry.typeSerializerMap);
+            typeSerializerMap.put(type, typeSerializer);
+            registry = new Registry(typeSerializerMap);
+        }
+    }
+
+    /**
+     * Returns the serializer used for given type.
+     *
+     * Resolution checks for an exact match, then for the closest registered super class and interface. Serializers resolved from
+     * {@linkplain Date} produce instances of the requested subclass (e.g. {@linkplain java.sql.Timestamp}). Enums without a
+     * registered serializer are handled by name.
+     *
+     * @param type value type.
+     * @return the serializer used for given type or null if there is no such serializer.
+     */
+    public final TypeSerializer getTypeSerializer(Class<?> type) {
+        if (type == null)
+            throw new IllegalArgumentException("Null type");
+
+        return registry.getSerializer(type);
+    }
+
+    // <editor-fold desc="Binding plans" defaultstate="collapsed">
+    // -------------------------------------------------------------------------
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+
+    /** Compiled accessor for a single field, paired with the serializer resolved for its type. */
+    private static class FieldBinding {
+        protected final String         name;
+        protected final Class<?>       type;
+        protected final TypeSerializer serializer; // <-- null if there is no serializer for field type
+        protected final MethodHandle   setter;
+        protected final MethodHandle   getter;
+
+        private FieldBinding(Field field, TypeSerializer serializer, MethodHandle setter, MethodHandle getter) {
+            this.name = field.getName();
+            this.type = field.getType();
+            this.serializer = serializer;
+            this.setter = setter;
+            this.getter = getter;
+        }
+
+        protected void set(Object target, String str) throws Throwable {
+            if (serializer == null)
+                throw new MissingSerializerException("Missing serializer for " + type.getName());
+
+            Object value = serializer.getObject(str);
+
+            // A serializer resolved from a super type may not produce instances of the field type...
+            if (value != null && !type.isPrimitive() && !type.isInstance(value))
+                throw new SerializerException("Cannot convert \"%s\" into %s", str, type.getName());
+
+            setter.invokeExact(target, value);
+        }
+
+        /** Single-valued fields keep the last value (same behaviour of {@linkplain ActionRequest#getParameterMap()}). */
+        protected void setValues(Object target, String[] values) throws Throwable {
+            set(target, values.length == 0 ? null : values[values.length - 1]);
+        }
+
+        protected String get(Object target) throws Throwable {
+            Object fieldValue = getter.invokeExact(target);
+
+            if (fieldValue == null)
+                return null;
+
+            if (serializer == null)
+                throw new RuntimeException("Missing serializer for " + type.getName());
+
+            return serializer.toString(fieldValue);
+        }
+
+        /** Single-valued fields are represented by a single value. */
+        protected String[] getValues(Object target) throws Throwable {
+            String value = get(target);
+            return value == null ? null : new String[] {value};
+        }
     }
 
-    private <T> T __getParameter(String paramValue, Class<T> targetClass) throws MissingSerializerException, SerializerException {
-        TypeSerializer serializer = typeSerializerMap.get(targetClass);
+    private static class IntFieldBinding extends FieldBinding {
+        private final IntTypeSerializer intSerializer;
 
-        if (serializer == null)
-            throw new MissingSerializerException("Missing serializer for " + targetClass.getName());
+        private IntFieldBinding(Field field, IntTypeSerializer serializer, MethodHandle setter, MethodHandle getter) {
+            super(field, serializer, setter, getter);
+            this.intSerializer = serializer;
+        }
 
-        return (T) serializer.getObject(paramValue);
+        @Override
+        protected void set(Object target, String str) throws Throwable {
+            setter.invokeExact(target, intSerializer.getInt(str));
+        }
+
+        @Override
+        protected String get(Object target) throws Throwable {
+            return intSerializer.toString((int) getter.invokeExact(target));
+        }
     }
 
-    public <T> T getObject(Map<String, String> paramMap, Class<T> targetClass) throws MissingSerializerException, SerializerException {
-        if (targetClass == null)
-            throw new IllegalArgumentException("Null target class");
+    private static class LongFieldBinding extends FieldBinding {
+        private final LongTypeSerializer longSerializer;
 
-        if (paramMap == null)
-            throw new IllegalArgumentException("Null field map");
+        private LongFieldBinding(Field field, LongTypeSerializer serializer, MethodHandle setter, MethodHandle getter) {
+            super(field, serializer, setter, getter);
+            this.longSerializer = serializer;
+        }
+
+        @Override
+        protected void set(Object target, String str) throws Throwable {
+            setter.invokeExact(target, longSerializer.getLong(str));
+        }
+
+        @Override
+        protected String get(Object target) throws Throwable {
+            return longSerializer.toString((long) getter.invokeExact(target));
+        }
+    }
+
+    private static class DoubleFieldBinding extends FieldBinding {
+        private final DoubleTypeSerializer doubleSerializer;
+
+        private DoubleFieldBinding(Field field, DoubleTypeSerializer serializer, MethodHandle setter, MethodHandle getter) {
+            super(field, serializer, setter, getter);
+            this.doubleSerializer = serializer;
+        }
+
+        @Override
+        protected void set(Object target, String str) throws Throwable {
+            setter.invokeExact(target, doubleSerializer.getDouble(str));
+        }
+
+        @Override
+        protected String get(Object target) throws Throwable {
+            return doubleSerializer.toString((double) getter.invokeExact(target));
+        }
+    }
+
+    /**
+     * Binding for array and collection fields.
+     *
+     * Each value of a repeated parameter becomes an element. Arrays of int/long/double are filled directly when element
+     * serializer supports primitive conversion.
+     */
+    private static class MultiValuedFieldBinding extends FieldBinding {
+        private final Class<?>     elementType;        // <-- null if element type cannot be determined
+        private final MethodHandle collectionFactory; // <-- ()Object, null for arrays
+
+        private MultiValuedFieldBinding(Field field, Class<?> elementType, TypeSerializer elementSerializer, MethodHandle collectionFactory, MethodHandle setter, MethodHandle getter) {
+            super(field, elementSerializer, setter, getter);
+            this.elementType = elementType;
+            this.collectionFactory = collectionFactory;
+        }
+
+        @Override
+        protected void set(Object target, String str) throws Throwable {
+            if (str == null) {
+                setter.invokeExact(target, (Object) null); // <-- null fields are represented by null values (see toMultiValuedParamMap)
+                return;
+            }
+
+            setValues(target, new String[] {str});
+        }
+
+        @Override
+        protected void setValues(Object target, String[] values) throws Throwable {
+            if (elementType == null || serializer == null)
+                throw new MissingSerializerException("Missing serializer for elements of " + name);
+
+            Object fieldValue;
+
+            if (collectionFactory == null) {
+                fieldValue = __getArray(values);
+            } else {
+                Collection collection = (Collection) (Object) collectionFactory.invokeExact();
+                for (String value : values) {
+                    collection.add(__getElement(value));
+                }
+                fieldValue = collection;
+            }
+
+            setter.invokeExact(target, fieldValue);
+        }
+
+        private Object __getElement(String str) throws SerializerException {
+            Object element = serializer.getObject(str);
+
+            if (element != null && !elementType.isPrimitive() && !elementType.isInstance(element))
+                throw new SerializerException("Cannot convert \"%s\" into %s", str, elementType.getName());
+
+            return element;
+        }
+
+        private Object __getArray(String[] values) throws SerializerException {
+            int length = values.length;
+
+            if (elementType == int.class && serializer instanceof IntTypeSerializer) {
+                IntTypeSerializer intSerializer = (IntTypeSerializer) serializer;
+                int[] array = new int[length];
+                for (int i = 0; i < length; i++) {
+                    array[i] = intSerializer.getInt(values[i]);
+                }
+                return array;
+            }
+
+            if (elementType == long.class && serializer instanceof LongTypeSerializer) {
+                LongTypeSerializer longSerializer = (LongTypeSerializer) serializer;
+                long[] array = new long[length];
+                for (int i = 0; i < length; i++) {
+                    array[i] = longSerializer.getLong(values[i]);
+                }
+                return array;
+            }
 
-        T targetObject;
+            if (elementType == double.class && serializer instanceof DoubleTypeSerializer) {
+                DoubleTypeSerializer doubleSerializer = (DoubleTypeSerializer) serializer;
+                double[] array = new double[length];
+                for (int i = 0; i < length; i++) {
+                    array[i] = doubleSerializer.getDouble(values[i]);
+                }
+                return array;
+            }
+
+            Object array = Array.newInstance(elementType, length);
+            for (int i = 0; i < length; i++) {
+                Array.set(array, i, __getElement(values[i]));
+            }
+            return array;
+        }
+
+        @Override
+        protected String get(Object target) throws Throwable {
+            if (getter.invokeExact(target) == null)
+                return null;
+
+            throw new RuntimeException("Multi-valued field cannot be represented as a single parameter: " + name);
+        }
+
+        /** Each element becomes a value (null elements are represented by empty values). */
+        @Override
+        protected String[] getValues(Object target) throws Throwable {
+            Object fieldValue = getter.invokeExact(target);
+
+            if (fieldValue == null)
+                return null;
+
+            if (serializer == null)
+                throw new RuntimeException("Missing serializer for elements of " + name);
+
+            String[] values;
+
+            if (fieldValue instanceof Collection) {
+                Collection collection = (Collection) fieldValue;
+                values = new String[collection.size()];
+                int i = 0;
+                for (Object element : collection) {
+                    values[i++] = element == null ? "" : serializer.toString(element);
+                }
+            } else {
+                values = new String[Array.getLength(fieldValue)];
+                for (int i = 0; i < values.length; i++) {
+                    Object element = Array.get(fieldValue, i);
+                    values[i] = element == null ? "" : serializer.toString(element);
+                }
+            }
+
+            return values;
+        }
+    }
 
+    /** Binding for fields holding nested objects (addressed by dotted paths, e.g. "filter.name"). */
+    private static class NestedFieldBinding extends FieldBinding {
+
+        private NestedFieldBinding(Field field, MethodHandle setter, MethodHandle getter) {
+            super(field, null, setter, getter);
+        }
+
+        private Object getOrCreate(Object target, BindingPlan nestedPlan) throws Throwable {
+            Object nested = getter.invokeExact(target);
+
+            if (nested == null) {
+                nested = nestedPlan.newInstance(type);
+                setter.invokeExact(target, nested);
+            }
+
+            return nested;
+        }
+
+        @Override
+        protected void set(Object target, String str) throws Throwable {
+            if (str != null)
+                throw new MissingSerializerException("Missing serializer for " + type.getName());
+
+            setter.invokeExact(target, (Object) null); // <-- null nested objects are represented by null values (see toParamMap)
+        }
+    }
+
+    /** Per-class binding plan. */
+    private static class BindingPlan {
+        private final MethodHandle              constructor; // <-- ()Object, or null if class cannot be instantiated
+        private final Map<String, FieldBinding> fieldMap;    // <-- declared fields (used by getObject)
+        private final FieldBinding[]            getters;     // <-- public fields (used by toParamMap)
+
+        private BindingPlan(MethodHandle constructor, Map<String, FieldBinding> fieldMap, FieldBinding[] getters) {
+            this.constructor = constructor;
+            this.fieldMap = fieldMap;
+            this.getters = getters;
+        }
+
+        private Object newInstance(Class<?> targetClass) {
+            if (constructor == null)
+                throw new RuntimeException(new InstantiationException(targetClass.getName()));
+
+            try {
+                return constructor.invokeExact();
+            } catch (RuntimeException | Error ex) {
+                throw ex;
+            } catch (Throwable ex) {
+                throw new RuntimeException(ex);
+            }
+        }
+    }
+
+    private static MethodHandle __getDefaultConstructor(MethodHandles.Lookup lookup, Class<?> targetClass) {
         try {
-            targetObject = targetClass.newInstance();
-        } catch (InstantiationException | IllegalAccessException ex) {
-            throw new RuntimeException(ex);
+            Constructor<?> defaultConstructor = targetClass.getDeclaredConstructor();
+            defaultConstructor.setAccessible(true);
+            return lookup.unreflectConstructor(defaultConstructor).asType(MethodType.methodType(Object.class));
+        } catch (NoSuchMethodException | IllegalAccessException | SecurityException ex) {
+            return null;
         }
+    }
+
+    private static MethodHandle __getCollectionFactory(MethodHandles.Lookup lookup, Class<?> collectionType) {
+        if (collectionType.isAssignableFrom(ArrayList.class))
+            return __getDefaultConstructor(lookup, ArrayList.class);
+
+        if (collectionType.isAssignableFrom(LinkedHashSet.class))
+            return __getDefaultConstructor(lookup, LinkedHashSet.class);
+
+        if (collectionType.isAssignableFrom(TreeSet.class))
+            return __getDefaultConstructor(lookup, TreeSet.class);
+
+        if (collectionType.isInterface() || Modifier.isAbstract(collectionType.getModifiers()))
+            return null;
+
+        return __getDefaultConstructor(lookup, collectionType);
+    }
+
+    private static boolean __isNestedType(Class<?> type) {
+        if (type.isPrimitive() || type.isArray() || type.isEnum() || type.isInterface() || Modifier.isAbstract(type.getModifiers()))
+            return false;
+
+        String typeName = type.getName();
+        return !typeName.startsWith("java.") && !typeName.startsWith("javax.");
+    }
+
+    private static FieldBinding __getFieldBinding(MethodHandles.Lookup lookup, Registry registry, Field field, MethodHandle setter, MethodHandle getter) {
+        Class<?> type = field.getType();
+        TypeSerializer serializer = registry.getSerializer(type);
+
+        if (serializer == null) {
+            // Arrays...
+            if (type.isArray()) {
+                Class<?> elementType = type.getComponentType();
+
+                return new MultiValuedFieldBinding(field, elementType, registry.getSerializer(elementType), null, setter == null ? null : setter.asType(SETTER_TYPE), getter == null ? null : getter.asType(GETTER_TYPE));
+            }
+
+            // Collections...
+            if (Collection.class.isAssignableFrom(type)) {
+                Class<?> elementType = null;
+
+                Type genericType = field.getGenericType();
+                if (genericType instanceof ParameterizedType) {
+                    Type typeArg = ((ParameterizedType) genericType).getActualTypeArguments()[0];
+                    if (typeArg instanceof Class)
+                        elementType = (Class<?>) typeArg;
+                }
+
+                MethodHandle collectionFactory = __getCollectionFactory(lookup, type);
+                TypeSerializer elementSerializer = elementType == null || collectionFactory == null ? null : registry.getSerializer(elementType);
+
+                return new MultiValuedFieldBinding(field, elementType, elementSerializer, collectionFactory, setter == null ? null : setter.asType(SETTER_TYPE), getter == null ? null : getter.asType(GETTER_TYPE));
+            }
+
+            // Nested objects...
+            if (setter != null && __isNestedType(type))
+                return new NestedFieldBinding(field, setter.asType(SETTER_TYPE), getter.asType(GETTER_TYPE));
+        }
+
+        // Primitive fields whose serializer supports primitive conversion are bound without boxing...
+        if (type == int.class && serializer instanceof IntTypeSerializer) {
+            return new IntFieldBinding(
+                field,
+                (IntTypeSerializer) serializer,
+                setter == null ? null : setter.asType(MethodType.methodType(void.class, Object.class, int.class)),
+                getter == null ? null : getter.asType(MethodType.methodType(int.class, Object.class))
+            );
+        }
+
+        if (type == long.class && serializer instanceof LongTypeSerializer) {
+            return new LongFieldBinding(
+                field,
+                (LongTypeSerializer) serializer,
+                setter == null ? null : setter.asType(MethodType.methodType(void.class, Object.class, long.class)),
+                getter == null ? null : getter.asType(MethodType.methodType(long.class, Object.class))
+            );
+        }
+
+        if (type == double.class && serializer instanceof DoubleTypeSerializer) {
+            return new DoubleFieldBinding(
+                field,
+                (DoubleTypeSerializer) serializer,
+                setter == null ? null : setter.asType(MethodType.methodType(void.class, Object.class, double.class)),
+                getter == null ? null : getter.asType(MethodType.methodType(double.class, Object.class))
+            );
+        }
+
+        if (serializer == null && setter == null && getter != null && __isNestedType(type))
+            return new NestedFieldBinding(field, null, getter.asType(GETTER_TYPE));
+
+        return new FieldBinding(
+            field,
+            serializer,
+            setter == null ? null : setter.asType(SETTER_TYPE),
+            getter == null ? null : getter.asType(GETTER_TYPE)
+        );
+    }
+
+    private static BindingPlan __compile(Registry registry, Class<?> targetClass) {
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+
+        Map<String, FieldBinding> fieldMap = new LinkedHashMap<>();
+        for (Field field : targetClass.getDeclaredFields()) {
+            if (Modifier.isStatic(field.getModifiers()) || Modifier.isFinal(field.getModifiers()))
+                continue;
 
-        for (Map.Entry<String, String> entry : paramMap.entrySet()) {
             try {
-                Field field = targetClass.getDeclaredField(entry.getKey());
-                boolean wasAccessible = field.isAccessible();
                 field.setAccessible(true);
-                field.set(targetObject, __getParameter(paramMap.get(entry.getKey()), field.getType()));
-                field.setAccessible(wasAccessible);
-            } catch (IllegalArgumentException | IllegalAccessException | NoSuchFieldException | SecurityException ex) {
+                fieldMap.put(field.getName(), __getFieldBinding(lookup, registry, field, lookup.unreflectSetter(field), lookup.unreflectGetter(field)));
+            } catch (IllegalAccessException | SecurityException ex) {
                 throw new RuntimeException(ex);
             }
         }
 
-        return targetObject;
-    }
+        Field[] publicFields = targetClass.getFields();
+        FieldBinding[] getters = new FieldBinding[publicFields.length];
+        for (int i = 0; i < publicFields.length; i++) {
+            Field field = publicFields[i];
 
-    public final <T> T getObject(ActionRequest request, Class<T> targetClass) throws MissingSerializerException, SerializerException {
-        return getObject(request.getParameterMap(), targetClass);
+            try {
+                MethodHandle getter = lookup.unreflectGetter(field);
+                if (Modifier.isStatic(field.getModifiers())) {
+                    getter = MethodHandles.dropArguments(getter, 0, Object.class);
+                }
+
+                getters[i] = __getFieldBinding(lookup, registry, field, null, getter);
+            } catch (IllegalAccessException ex) {
+                throw new RuntimeException(ex);
+            }
+        }
+
+        return new BindingPlan(__getDefaultConstructor(lookup, targetClass), Collections.unmodifiableMap(fieldMap), getters);
     }
 
-    public Map<String, String> toParamMap(Object object) {
-        if (object == null)
-            throw new IllegalArgumentException("Null object");
+    /**
+     * Binds a parameter to a target object.
+     *
+     * @param registry registry snapshot used during the binding.
+     * @param plan binding plan of target object.
+     * @param target target object.
+     * @param path parameter name (may be a dotted path for nested objects).
+     * @param value single parameter value (used when values is null).
+     * @param values all parameter values.
+     */
+    private static void __bind(Registry registry, BindingPlan plan, Object target, String path, String value, String[] values) throws SerializerException {
+        int fromIndex = 0;
 
-        Map<String, String> map = new LinkedHashMap<>();
+        while (true) {
+            int dotIndex = path.indexOf('.', fromIndex);
+            String name = dotIndex == -1 ? (fromIndex == 0 ? path : path.substring(fromIndex)) : path.substring(fromIndex, dotIndex);
 
-        for (Field field : object.getClass().getFields()) {
-            Object fieldValue;
+            FieldBinding binding = plan.fieldMap.get(name);
+
+            if (binding == null)
+                throw new RuntimeException(new NoSuchFieldException(path));
 
             try {
-                fieldValue = field.get(object);
-            } catch (IllegalArgumentException | IllegalAccessException ex) {
+                if (dotIndex == -1) {
+                    if (values == null) {
+                        binding.set(target, value);
+                    } else {
+                        binding.setValues(target, values);
+                    }
+
+                    return;
+                }
+
+                if (!(binding instanceof NestedFieldBinding))
+                    throw new RuntimeException(new NoSuchFieldException(path));
+
+                plan = registry.bindingPlans.get(binding.type);
+                target = ((NestedFieldBinding) binding).getOrCreate(target, plan);
+                fromIndex = dotIndex + 1;
+
+            } catch (SerializerException | RuntimeException | Error ex) {
+                throw ex;
+            } catch (Throwable ex) {
                 throw new RuntimeException(ex);
             }
+        }
+    }
 
-            if (fieldValue == null) {
-                map.put(field.getName(), null);
-            } else {
-                TypeSerializer serializer = typeSerializerMap.get(field.getType());
+    private static void __toParamMap(Registry registry, Object object, String prefix, Map<String, String> map) {
+        BindingPlan plan = registry.bindingPlans.get(object.getClass());
 
-                if (serializer == null)
-                    throw new RuntimeException("Missing serializer for " + field.getType().getName());
+        for (FieldBinding binding : plan.getters) {
+            String name = prefix == null ? binding.name : prefix + binding.name;
 
-                map.put(field.getName(), serializer.toString(fieldValue));
+            try {
+                if (binding instanceof NestedFieldBinding) {
+                    Object nested = binding.getter.invokeExact(object);
+
+                    if (nested == null) {
+                        map.put(name, null);
+                    } else {
+                        __toParamMap(registry, nested, name + ".", map);
+                    }
+                } else {
+                    map.put(name, binding.get(object));
+                }
+            } catch (RuntimeException | Error ex) {
+                throw ex;
+            } catch (Throwable ex) {
+                throw new RuntimeException(ex);
+            }
+        }
+    }
+
+    private static void __toMultiValuedParamMap(Registry registry, Object object, String prefix, Map<String, String[]> map) {
+        BindingPlan plan = registry.bindingPlans.get(object.getClass());
+
+        for (FieldBinding binding : plan.getters) {
+            String name = prefix == null ? binding.name : prefix + binding.name;
+
+            try {
+                if (binding instanceof NestedFieldBinding) {
+                    Object nested = binding.getter.invokeExact(object);
+
+                    if (nested == null) {
+                        map.put(name, null);
+                    } else {
+                        __toMultiValuedParamMap(registry, nested, name + ".", map);
+                    }
+                } else {
+                    map.put(name, binding.getValues(object));
+                }
+            } catch (RuntimeException | Error ex) {
+                throw ex;
+            } catch (Throwable ex) {
+                throw new RuntimeException(ex);
             }
         }
+    }
+    // -------------------------------------------------------------------------
+    // </editor-fold>
+
+    /**
+     * Creates an object from a single-valued parameter map.
+     *
+     * Map keys are field names or dotted paths addressing fields of nested objects (e.g. "filter.name").
+     *
+     * @param <T> object type.
+     * @param paramMap parameter map.
+     * @param targetClass object class.
+     * @return an instance of given class populated with given parameters.
+     * @throws MissingSerializerException if there is no serializer for a field type.
+     * @throws SerializerException if a value cannot be converted.
+     */
+    public <T> T getObject(Map<String, String> paramMap, Class<T> targetClass) throws MissingSerializerException, SerializerException {
+        if (targetClass == null)
+            throw new IllegalArgumentException("Null target class");
+
+        if (paramMap == null)
+            throw new IllegalArgumentException("Null field map");
+
+        Registry registry = this.registry;
+        BindingPlan plan = registry.bindingPlans.get(targetClass);
+        T targetObject = (T) plan.newInstance(targetClass);
+
+        for (Map.Entry<String, String> entry : paramMap.entrySet()) {
+            __bind(registry, plan, targetObject, entry.getKey(), entry.getValue(), null);
+        }
+
+        return targetObject;
+    }
+
+    /**
+     * Creates an object from a multi-valued parameter map (as returned by {@linkplain ServletRequest#getParameterMap()}).
+     *
+     * Repeated parameters are bound to array/collection fields. Single-valued fields receive the last value. Map keys
+     * may be dotted paths addressing fields of nested objects.
+     *
+     * @param <T> object type.
+     * @param paramMap parameter map.
+     * @param targetClass object class.
+     * @return an instance of given class populated with given parameters.
+     * @throws MissingSerializerException if there is no serializer for a field type.
+     * @throws SerializerException if a value cannot be converted.
+     */
+    public <T> T getMultiValuedObject(Map<String, String[]> paramMap, Class<T> targetClass) throws MissingSerializerException, SerializerException {
+        if (targetClass == null)
+            throw new IllegalArgumentException("Null target class");
+
+        if (paramMap == null)
+            throw new IllegalArgumentException("Null field map");
+
+        Registry registry = this.registry;
+        BindingPlan plan = registry.bindingPlans.get(targetClass);
+        T targetObject = (T) plan.newInstance(targetClass);
+
+        for (Map.Entry<String, String[]> entry : paramMap.entrySet()) {
+            __bind(registry, plan, targetObject, entry.getKey(), null, entry.getValue());
+        }
+
+        return targetObject;
+    }
+
+    public final <T> T getObject(ActionRequest request, Class<T> targetClass) throws MissingSerializerException, SerializerException {
+        return getMultiValuedObject(request.getServletRequest().getParameterMap(), targetClass);
+    }
+
+    /**
+     * Returns a single-valued parameter map representing public fields of given object.
+     *
+     * Fields of nested objects are represented by dotted paths (e.g. "filter.name"). Array and collection fields cannot be represented by a single value: use {@linkplain ParamMapSerializer#toMultiValuedParamMap(Object)} for objects having such fields.
+     *
+     * @param object object to be represented.
+     * @return parameter map (null fields are represented by null values).
+     * @throws RuntimeException if object has a non-null array or collection field.
+     */
+    public Map<String, String> toParamMap(Object object) {
+        if (object == null)
+            throw new IllegalArgumentException("Null object");
+
+        Map<String, String> map = new LinkedHashMap<>();
+        __toParamMap(registry, object, null, map);
+        return map;
+    }
+
+    /**
+     * Returns a multi-valued parameter map (see {@linkplain ParamMapSerializer#getMultiValuedObject(Map, Class)}) representing public fields of given object.
+     *
+     * Each element of an array or collection field becomes a value. Other fields are represented by a single value. Fields of nested objects are represented by dotted paths (e.g. "filter.name").
+     *
+     * @param object object to be represented.
+     * @return parameter map (null fields are represented by null values).
+     */
+    public Map<String, String[]> toMultiValuedParamMap(Object object) {
+        if (object == null)
+            throw new IllegalArgumentException("Null object");
 
+        Map<String, String[]> map = new LinkedHashMap<>();
+        __toMultiValuedParamMap(registry, object, null, map);
         return map;
     }
 
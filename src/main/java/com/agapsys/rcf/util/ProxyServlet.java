@@ -16,16 +16,19 @@
 
 package com.agapsys.rcf.util;
 
+import com.agapsys.rcf.ActionRequest;
 import com.agapsys.rcf.util.UriBuilder.QueryParameters;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.HttpURLConnection;
+import java.net.SocketTimeoutException;
 import java.net.URL;
 import java.util.Enumeration;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
@@ -37,6 +40,10 @@ public abstract class ProxyServlet extends HttpServlet {
     // =========================================================================
     public static final int DEFAULT_BUFFER_SIZE = 512;
 
+    public static final int DEFAULT_CONNECT_TIMEOUT = 10000;
+
+    public static final int DEFAULT_READ_TIMEOUT = 60000;
+
     private static class Header {
 
         public final String name;
@@ -77,6 +84,31 @@ public abstract class ProxyServlet extends HttpServlet {
         return headerList;
     }
 
+    /** Returns the time budget (in milliseconds) declared by the client, or Long.MAX_VALUE if there is no such budget. */
+    private static long __getBudget(HttpServletRequest req) {
+        String timeout = req.getHeader(ActionRequest.REQUEST_TIMEOUT_HEADER);
+
+        if (timeout == null)
+            return Long.MAX_VALUE;
+
+        try {
+            return Math.max(0, Long.parseLong(timeout.trim()));
+        } catch (NumberFormatException ex) {
+            return Long.MAX_VALUE; // <-- invalid values are ignored
+        }
+    }
+
+    /** Returns a connection timeout bounded by given budget (zero means no timeout). */
+    private static int __getTimeout(int timeout, long budget) {
+        if (budget == Long.MAX_VALUE)
+            return Math.max(0, timeout);
+
+        if (timeout <= 0)
+            return (int) Math.min(budget, Integer.MAX_VALUE);
+
+        return (int) Math.min(budget, timeout);
+    }
+
     private static void __redirect(InputStream is, OutputStream os, int bufferSize) throws IOException {
         byte[] buffer = new byte[bufferSize];
         int bytesRead;
@@ -104,8 +136,36 @@ public abstract class ProxyServlet extends HttpServlet {
         return DEFAULT_BUFFER_SIZE;
     }
 
+    /**
+     * Returns the maximum time to establish a connection with forwarding location.
+     *
+     * @return connect timeout in milliseconds (zero means no timeout). Default implementation returns {@linkplain ProxyServlet#DEFAULT_CONNECT_TIMEOUT}.
+     */
+    protected int getConnectTimeout() {
+        return DEFAULT_CONNECT_TIMEOUT;
+    }
+
+    /**
+     * Returns the maximum time to wait for data from forwarding location.
+     *
+     * When the client declares a time budget (see {@linkplain ActionRequest#REQUEST_TIMEOUT_HEADER}), both connect and read timeouts are bounded by it and the remaining budget is forwarded.
+     *
+     * @return read timeout in milliseconds (zero means no timeout). Default implementation returns {@linkplain ProxyServlet#DEFAULT_READ_TIMEOUT}.
+     */
+    protected int getReadTimeout() {
+        return DEFAULT_READ_TIMEOUT;
+    }
+
     @Override
     protected final void service(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+        long budget = __getBudget(req);
+        long start = System.nanoTime();
+
+        if (budget == 0) {
+            resp.setStatus(HttpServletResponse.SC_GATEWAY_TIMEOUT); // <-- client has already given up
+            return;
+        }
+
         String path = req.getPathInfo();
         QueryParameters queryParams = UriBuilder.getQueryParameters(req.getQueryString());
 
@@ -121,6 +181,26 @@ public abstract class ProxyServlet extends HttpServlet {
             con.setRequestProperty(header.name, header.value);
         }
 
+        if (budget != Long.MAX_VALUE) {
+            budget = Math.max(1, budget - TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            con.setRequestProperty(ActionRequest.REQUEST_TIMEOUT_HEADER, Long.toString(budget));
+        }
+
+        con.setConnectTimeout(__getTimeout(getConnectTimeout(), budget));
+        con.setReadTimeout(__getTimeout(getReadTimeout(), budget));
+
+        try {
+            __forward(req, resp, con);
+        } catch (SocketTimeoutException ex) {
+            if (resp.isCommitted())
+                throw ex;
+
+            resp.reset();
+            resp.setStatus(HttpServletResponse.SC_GATEWAY_TIMEOUT);
+        }
+    }
+
+    private void __forward(HttpServletRequest req, HttpServletResponse resp, HttpURLConnection con) throws IOException {
         int bufferSize = getBufferSize();
 
         switch (req.getMethod()) {
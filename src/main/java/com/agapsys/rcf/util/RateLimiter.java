@@ -0,0 +1,182 @@
+/*
+ * Copyright 2017 Agapsys Tecnologia Ltda-ME.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.agapsys.rcf.util;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Lock-free keyed rate limiter.
+ *
+ * Each key owns a token bucket holding up to the given number of permits, refilled at a constant rate.
+ * Buckets are implemented through GCRA (generic cell rate algorithm): the state of a bucket is a single "theoretical arrival time", updated with one CAS per acquisition, without allocation.
+ *
+ * Buckets which are full again (idle keys) are evicted periodically. If the number of keys still exceeds the configured maximum, arbitrary buckets are evicted (i.e. reset).
+ */
+public class RateLimiter {
+
+    // <editor-fold desc="STATIC SCOPE" defaultstate="collapsed">
+    // =========================================================================
+    public static final int DEFAULT_MAX_KEYS = 10000;
+
+    private static final long MIN_SWEEP_INTERVAL = TimeUnit.SECONDS.toNanos(1);
+
+    private static final LongSupplier SYSTEM_CLOCK = new LongSupplier() {
+        @Override
+        public long getAsLong() {
+            return System.nanoTime();
+        }
+    };
+    // =========================================================================
+    // </editor-fold>
+
+    private final long emissionInterval; // <-- nanoseconds between permits
+    private final long burstTolerance;   // <-- how far ahead of current time the theoretical arrival time may go
+    private final int  maxKeys;
+    private final long sweepInterval;
+    private final LongSupplier clock;
+
+    private final ConcurrentHashMap<Object, AtomicLong> bucketMap = new ConcurrentHashMap<>();
+    private final AtomicLong nextSweep;
+
+    RateLimiter(int permits, long period, TimeUnit unit, int maxKeys, LongSupplier clock) {
+        if (permits <= 0)
+            throw new IllegalArgumentException("Invalid permits: " + permits);
+
+        if (period <= 0)
+            throw new IllegalArgumentException("Invalid period: " + period);
+
+        if (unit == null)
+            throw new IllegalArgumentException("Null time unit");
+
+        if (maxKeys <= 0)
+            throw new IllegalArgumentException("Invalid max keys: " + maxKeys);
+
+        long periodNanos = unit.toNanos(period);
+
+        this.emissionInterval = Math.max(1, periodNanos / permits);
+        this.burstTolerance = emissionInterval * (permits - 1);
+        this.maxKeys = maxKeys;
+        this.sweepInterval = Math.max(MIN_SWEEP_INTERVAL, periodNanos);
+        this.clock = clock;
+        this.nextSweep = new AtomicLong(clock.getAsLong() + sweepInterval);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param permits number of permits per period for each key (this is also the maximum burst).
+     * @param period period length.
+     * @param unit period unit.
+     * @param maxKeys maximum number of tracked keys.
+     */
+    public RateLimiter(int permits, long period, TimeUnit unit, int maxKeys) {
+        this(permits, period, unit, maxKeys, SYSTEM_CLOCK);
+    }
+
+    /**
+     * Constructor. Tracks up to {@linkplain RateLimiter#DEFAULT_MAX_KEYS} keys.
+     *
+     * @param permits number of permits per period for each key (this is also the maximum burst).
+     * @param period period length.
+     * @param unit period unit.
+     */
+    public RateLimiter(int permits, long period, TimeUnit unit) {
+        this(permits, period, unit, DEFAULT_MAX_KEYS);
+    }
+
+    private void __sweep(long now) {
+        long sweepAt = nextSweep.get();
+
+        if (now - sweepAt < 0 && bucketMap.size() <= maxKeys)
+            return;
+
+        if (!nextSweep.compareAndSet(sweepAt, now + sweepInterval))
+            return; // <-- another thread is sweeping
+
+        // A bucket whose theoretical arrival time is in the past is full: dropping it loses nothing...
+        for (Map.Entry<Object, AtomicLong> entry : bucketMap.entrySet()) {
+            if (entry.getValue().get() - now <= 0)
+                bucketMap.remove(entry.getKey(), entry.getValue());
+        }
+
+        // Leaves some room, so a flood of new keys does not trigger a sweep on every request...
+        int targetSize = maxKeys - maxKeys / 10;
+
+        Iterator<Map.Entry<Object, AtomicLong>> iterator = bucketMap.entrySet().iterator();
+        while (bucketMap.size() > targetSize && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+
+    /**
+     * Tries to acquire a permit for given key.
+     *
+     * @param key rate limiting key (e.g. an IP address). Keys must implement equals/hashCode.
+     * @return zero if a permit was acquired. Otherwise, returns the time (in nanoseconds) after which a permit will be available.
+     */
+    public long tryAcquire(Object key) {
+        if (key == null)
+            throw new IllegalArgumentException("Null key");
+
+        long now = clock.getAsLong();
+
+        AtomicLong bucket = bucketMap.get(key);
+
+        if (bucket == null) {
+            __sweep(now); // <-- sweeps only when keys are added, so known keys never pay for it
+
+            AtomicLong newBucket = new AtomicLong(now);
+            bucket = bucketMap.putIfAbsent(key, newBucket);
+
+            if (bucket == null)
+                bucket = newBucket;
+        }
+
+        while (true) {
+            long tat = bucket.get();
+            long base = tat - now > 0 ? tat : now;
+            long wait = base - now - burstTolerance;
+
+            if (wait > 0)
+                return wait;
+
+            if (bucket.compareAndSet(tat, base + emissionInterval))
+                return 0;
+        }
+    }
+
+    /**
+     * Returns the number of tracked keys.
+     *
+     * @return the number of tracked keys.
+     */
+    public int size() {
+        return bucketMap.size();
+    }
+
+    /** Removes all tracked keys. */
+    public void clear() {
+        bucketMap.clear();
+    }
+
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2017 Agapsys Tecnologia Ltda-ME.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.agapsys.rcf.util;
+
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+
+/**
+ * Generator of random tokens (e.g. XSRF tokens).
+ *
+ * Random bytes are drawn in bulk from a per-thread {@linkplain SecureRandom} (seeded from the platform default without blocking for entropy, and free of contention between threads) and encoded as base64url, without padding, so tokens are safe to be used in URLs, headers and cookies.
+ */
+public final class TokenGenerator {
+
+    // <editor-fold desc="STATIC SCOPE" defaultstate="collapsed">
+    // =========================================================================
+    private static final int POOL_SIZE = 4096;
+
+    private static final char[] ALPHABET = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_".toCharArray();
+
+    private static final String PRNG_ALGORITHM = "SHA1PRNG";
+    private static final int    SEED_LENGTH    = 32;
+
+    // Platform default generator: reads from a non-blocking source (e.g. /dev/urandom) under a global lock, so it is used only to seed per-thread generators
+    private static final SecureRandom SEED_SOURCE = new SecureRandom();
+
+    private static SecureRandom __newRandom() {
+        byte[] seed = new byte[SEED_LENGTH];
+        SEED_SOURCE.nextBytes(seed);
+
+        try {
+            SecureRandom random = SecureRandom.getInstance(PRNG_ALGORITHM);
+            random.setSeed(seed); // <-- seeding before first use prevents self-seeding, which may block
+            return random;
+        } catch (NoSuchAlgorithmException ex) {
+            return new SecureRandom(seed);
+        }
+    }
+
+    private static class RandomPool {
+        private final SecureRandom random = __newRandom();
+        private final byte[] pool = new byte[POOL_SIZE];
+        private int position = POOL_SIZE;
+
+        private int __next() {
+            if (position == POOL_SIZE) {
+                random.nextBytes(pool); // <-- one call to the generator for many tokens
+                position = 0;
+            }
+
+            int b = pool[position] & 0xFF;
+            pool[position++] = 0; // <-- consumed bytes are not kept in memory
+            return b;
+        }
+    }
+
+    private static final ThreadLocal<RandomPool> POOL_HOLDER = new ThreadLocal<RandomPool>() {
+        @Override
+        protected RandomPool initialValue() {
+            return new RandomPool();
+        }
+    };
+
+    /**
+     * Returns a random token.
+     *
+     * @param length token length (in characters). Each character carries 6 random bits.
+     * @return random token.
+     */
+    public static String nextToken(int length) {
+        if (length < 1)
+            throw new IllegalArgumentException("Invalid length: " + length);
+
+        RandomPool pool = POOL_HOLDER.get();
+        char[] chars = new char[length];
+
+        int i = 0;
+        while (i < length) {
+            // Three bytes are encoded into four characters...
+            int bits = (pool.__next() << 16) | (pool.__next() << 8) | pool.__next();
+
+            for (int shift = 18; shift >= 0 && i < length; shift -= 6) {
+                chars[i++] = ALPHABET[(bits >>> shift) & 0x3F];
+            }
+        }
+
+        return new String(chars);
+    }
+
+    /**
+     * Compares two strings in a time which does not depend on where they differ, so the comparison cannot be used to guess secrets (e.g. tokens) through timing.
+     *
+     * @param a first string. May be null.
+     * @param b second string. May be null.
+     * @return a boolean indicating if both strings are not null and they are equal.
+     */
+    public static boolean isEqual(String a, String b) {
+        if (a == null || b == null)
+            return false;
+
+        int length = a.length();
+        int result = length ^ b.length();
+
+        for (int i = 0; i < length; i++) {
+            result |= a.charAt(i) ^ (i < b.length() ? b.charAt(i) : 0);
+        }
+
+        return result == 0;
+    }
+    // =========================================================================
+    // </editor-fold>
+
+    private TokenGenerator() {}
+
+}
@@ -0,0 +1,214 @@
+/*
+ * Copyright 2017 Agapsys Tecnologia Ltda-ME.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.agapsys.rcf.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+
+/**
+ * Buffered reader which decodes UTF-8 bytes straight from an input stream.
+ *
+ * ASCII bytes are copied without going through a charset decoder. Malformed sequences are replaced by U+FFFD, as {@linkplain java.io.InputStreamReader} does.
+ *
+ * Instances are not thread-safe. Closing the reader returns its buffer to the pool and closes the wrapped stream.
+ */
+public class Utf8Reader extends Reader {
+
+    // <editor-fold desc="STATIC SCOPE" defaultstate="collapsed">
+    // =========================================================================
+    private static final char REPLACEMENT_CHAR = '\uFFFD';
+    // =========================================================================
+    // </editor-fold>
+
+    private final InputStream in;
+    private final BufferPool pool;
+
+    private byte[] buffer;
+    private int position = 0;
+    private int limit = 0;
+    private boolean eof = false;
+    private int pendingChar = -1; // <-- low surrogate which did not fit in caller's buffer
+
+    Utf8Reader(InputStream in, BufferPool pool) {
+        if (in == null)
+            throw new IllegalArgumentException("Null input stream");
+
+        this.in = in;
+        this.pool = pool;
+        this.buffer = pool.acquire();
+    }
+
+    public Utf8Reader(InputStream in) {
+        this(in, BufferPool.DEFAULT);
+    }
+
+    private void __checkOpen() throws IOException {
+        if (buffer == null)
+            throw new IOException("Reader is closed");
+    }
+
+    /**
+     * Ensures that at least given number of bytes are available in the buffer.
+     *
+     * @return false if end of stream was reached before that.
+     */
+    private boolean __ensure(int count) throws IOException {
+        if (limit - position >= count)
+            return true;
+
+        if (position > 0) {
+            System.arraycopy(buffer, position, buffer, 0, limit - position);
+            limit -= position;
+            position = 0;
+        }
+
+        while (!eof && limit < count) {
+            int read = in.read(buffer, limit, buffer.length - limit);
+
+            if (read < 0) {
+                eof = true;
+            } else {
+                limit += read;
+            }
+        }
+
+        return limit >= count;
+    }
+
+    private static boolean __isContinuation(int b) {
+        return (b & 0xC0) == 0x80;
+    }
+
+    @Override
+    public int read(char[] cbuf, int off, int len) throws IOException {
+        __checkOpen();
+
+        if (off < 0 || len < 0 || off + len > cbuf.length)
+            throw new IndexOutOfBoundsException();
+
+        if (len == 0)
+            return 0;
+
+        int count = 0;
+
+        if (pendingChar >= 0) {
+            cbuf[off + count++] = (char) pendingChar;
+            pendingChar = -1;
+        }
+
+        while (count < len) {
+            if (position == limit) {
+                if (count > 0)
+                    break; // <-- do not block if there is something to return
+
+                if (!__ensure(1))
+                    return -1;
+            }
+
+            // ASCII fast path...
+            int end = Math.min(limit, position + (len - count));
+            while (position < end && buffer[position] >= 0) {
+                cbuf[off + count++] = (char) buffer[position++];
+            }
+
+            if (count == len || position == limit)
+                continue;
+
+            // Multi-byte sequence...
+            int b0 = buffer[position] & 0xFF;
+            int needed;
+            int minCodePoint;
+
+            if ((b0 & 0xE0) == 0xC0) {
+                needed = 2;
+                minCodePoint = 0x80;
+            } else if ((b0 & 0xF0) == 0xE0) {
+                needed = 3;
+                minCodePoint = 0x800;
+            } else if ((b0 & 0xF8) == 0xF0) {
+                needed = 4;
+                minCodePoint = 0x10000;
+            } else {
+                position++;
+                cbuf[off + count++] = REPLACEMENT_CHAR;
+                continue;
+            }
+
+            if (!__ensure(needed)) {
+                // Truncated sequence at the end of stream...
+                position++;
+                while (position < limit && __isContinuation(buffer[position])) {
+                    position++;
+                }
+
+                cbuf[off + count++] = REPLACEMENT_CHAR;
+                continue;
+            }
+
+            int codePoint = b0 & (0xFF >> (needed + 1));
+            int i;
+            for (i = 1; i < needed; i++) {
+                int b = buffer[position + i];
+
+                if (!__isContinuation(b))
+                    break;
+
+                codePoint = (codePoint << 6) | (b & 0x3F);
+            }
+
+            if (i < needed || codePoint < minCodePoint || codePoint > Character.MAX_CODE_POINT || (codePoint >= Character.MIN_SURROGATE && codePoint <= Character.MAX_SURROGATE)) {
+                position += i;
+                cbuf[off + count++] = REPLACEMENT_CHAR;
+                continue;
+            }
+
+            position += needed;
+
+            if (codePoint < Character.MIN_SUPPLEMENTARY_CODE_POINT) {
+                cbuf[off + count++] = (char) codePoint;
+            } else {
+                cbuf[off + count++] = Character.highSurrogate(codePoint);
+
+                if (count < len) {
+                    cbuf[off + count++] = Character.lowSurrogate(codePoint);
+                } else {
+                    pendingChar = Character.lowSurrogate(codePoint);
+                }
+            }
+        }
+
+        return count;
+    }
+
+    @Override
+    public boolean ready() throws IOException {
+        __checkOpen();
+        return pendingChar >= 0 || position < limit || in.available() > 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (buffer == null)
+            return;
+
+        pool.release(buffer);
+        buffer = null;
+        in.close();
+    }
+
+}
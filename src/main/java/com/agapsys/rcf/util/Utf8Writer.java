@@ -0,0 +1,268 @@
+/*
+ * Copyright 2017 Agapsys Tecnologia Ltda-ME.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.agapsys.rcf.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+
+/**
+ * Buffered writer which encodes characters as UTF-8 bytes straight into an output stream.
+ *
+ * ASCII characters are copied without going through a charset encoder. Unpaired surrogates are replaced by '?', as {@linkplain java.io.OutputStreamWriter} does.
+ *
+ * Instances are not thread-safe. Closing the writer flushes it, returns its buffer to the pool and (unless stated otherwise on construction) closes the wrapped stream.
+ */
+public class Utf8Writer extends Writer {
+
+    // <editor-fold desc="STATIC SCOPE" defaultstate="collapsed">
+    // =========================================================================
+    private static final byte REPLACEMENT_BYTE = '?';
+    // =========================================================================
+    // </editor-fold>
+
+    private final OutputStream out;
+    private final BufferPool pool;
+    private final boolean closeStream;
+
+    private byte[] buffer;
+    private int position = 0;
+    private int pendingHighSurrogate = -1; // <-- high surrogate written at the end of previous call
+
+    Utf8Writer(OutputStream out, BufferPool pool, boolean closeStream) {
+        if (out == null)
+            throw new IllegalArgumentException("Null output stream");
+
+        this.out = out;
+        this.pool = pool;
+        this.closeStream = closeStream;
+        this.buffer = pool.acquire();
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param out wrapped stream.
+     * @param closeStream a boolean indicating if wrapped stream shall be flushed and closed when this writer is closed. Streams owned by someone else (e.g. servlet output streams) should be left alone: flushing a servlet output stream commits the response.
+     */
+    public Utf8Writer(OutputStream out, boolean closeStream) {
+        this(out, BufferPool.DEFAULT, closeStream);
+    }
+
+    /**
+     * Constructor. Wrapped stream is closed when this writer is closed.
+     *
+     * @param out wrapped stream.
+     */
+    public Utf8Writer(OutputStream out) {
+        this(out, true);
+    }
+
+    private void __checkOpen() throws IOException {
+        if (buffer == null)
+            throw new IOException("Writer is closed");
+    }
+
+    private void __flushBuffer() throws IOException {
+        if (position > 0) {
+            out.write(buffer, 0, position);
+            position = 0;
+        }
+    }
+
+    /** Encodes a non-ASCII character. Returns the number of consumed chars from given source. */
+    private int __writeNonAscii(char c, CharSequence src, char[] srcArray, int next, int end) throws IOException {
+        if (buffer.length - position < 4)
+            __flushBuffer();
+
+        if (c < 0x800) {
+            buffer[position++] = (byte) (0xC0 | (c >> 6));
+            buffer[position++] = (byte) (0x80 | (c & 0x3F));
+            return 1;
+        }
+
+        if (!Character.isSurrogate(c)) {
+            buffer[position++] = (byte) (0xE0 | (c >> 12));
+            buffer[position++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+            buffer[position++] = (byte) (0x80 | (c & 0x3F));
+            return 1;
+        }
+
+        if (Character.isLowSurrogate(c)) {
+            buffer[position++] = REPLACEMENT_BYTE;
+            return 1;
+        }
+
+        // High surrogate...
+        if (next == end) {
+            pendingHighSurrogate = c;
+            return 1;
+        }
+
+        char low = srcArray != null ? srcArray[next] : src.charAt(next);
+
+        if (!Character.isLowSurrogate(low)) {
+            buffer[position++] = REPLACEMENT_BYTE;
+            return 1;
+        }
+
+        __writeCodePoint(Character.toCodePoint(c, low));
+        return 2;
+    }
+
+    private void __writeCodePoint(int codePoint) {
+        buffer[position++] = (byte) (0xF0 | (codePoint >> 18));
+        buffer[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+        buffer[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+        buffer[position++] = (byte) (0x80 | (codePoint & 0x3F));
+    }
+
+    private void __write(CharSequence src, char[] srcArray, int off, int len) throws IOException {
+        __checkOpen();
+
+        int i = off;
+        int end = off + len;
+
+        if (pendingHighSurrogate >= 0 && i < end) {
+            char low = srcArray != null ? srcArray[i] : src.charAt(i);
+
+            if (buffer.length - position < 4)
+                __flushBuffer();
+
+            if (Character.isLowSurrogate(low)) {
+                __writeCodePoint(Character.toCodePoint((char) pendingHighSurrogate, low));
+                i++;
+            } else {
+                buffer[position++] = REPLACEMENT_BYTE;
+            }
+
+            pendingHighSurrogate = -1;
+        }
+
+        while (i < end) {
+            if (position == buffer.length)
+                __flushBuffer();
+
+            // ASCII fast path...
+            int asciiEnd = Math.min(end, i + (buffer.length - position));
+            if (srcArray != null) {
+                char c;
+                while (i < asciiEnd && (c = srcArray[i]) < 0x80) {
+                    buffer[position++] = (byte) c;
+                    i++;
+                }
+            } else {
+                char c;
+                while (i < asciiEnd && (c = src.charAt(i)) < 0x80) {
+                    buffer[position++] = (byte) c;
+                    i++;
+                }
+            }
+
+            if (i < asciiEnd) {
+                char c = srcArray != null ? srcArray[i] : src.charAt(i);
+                i += __writeNonAscii(c, src, srcArray, i + 1, end);
+            }
+        }
+    }
+
+    @Override
+    public void write(char[] cbuf, int off, int len) throws IOException {
+        if (off < 0 || len < 0 || off + len > cbuf.length)
+            throw new IndexOutOfBoundsException();
+
+        __write(null, cbuf, off, len);
+    }
+
+    @Override
+    public void write(String str, int off, int len) throws IOException {
+        if (off < 0 || len < 0 || off + len > str.length())
+            throw new IndexOutOfBoundsException();
+
+        __write(str, null, off, len);
+    }
+
+    @Override
+    public void write(int c) throws IOException {
+        __checkOpen();
+
+        if (c < 0x80 && pendingHighSurrogate < 0) {
+            if (position == buffer.length)
+                __flushBuffer();
+
+            buffer[position++] = (byte) c;
+        } else {
+            __write(String.valueOf((char) c), null, 0, 1);
+        }
+    }
+
+    @Override
+    public Writer append(CharSequence csq, int start, int end) throws IOException {
+        if (csq == null)
+            csq = "null";
+
+        if (start < 0 || start > end || end > csq.length())
+            throw new IndexOutOfBoundsException();
+
+        __write(csq, null, start, end - start);
+        return this;
+    }
+
+    @Override
+    public Writer append(CharSequence csq) throws IOException {
+        if (csq == null)
+            csq = "null";
+
+        __write(csq, null, 0, csq.length());
+        return this;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        __checkOpen();
+        __flushBuffer();
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (buffer == null)
+            return;
+
+        try {
+            if (pendingHighSurrogate >= 0) {
+                if (position == buffer.length)
+                    __flushBuffer();
+
+                buffer[position++] = REPLACEMENT_BYTE;
+                pendingHighSurrogate = -1;
+            }
+
+            __flushBuffer();
+
+            if (closeStream)
+                out.flush(); // <-- a stream owned by someone else (e.g. a servlet response) is flushed by its owner
+        } finally {
+            pool.release(buffer);
+            buffer = null;
+
+            if (closeStream)
+                out.close();
+        }
+    }
+
+}
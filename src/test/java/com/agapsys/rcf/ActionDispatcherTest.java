@@ -15,8 +15,19 @@
  */
 package com.agapsys.rcf;
 
+import com.agapsys.rcf.exceptions.NotFoundException;
+import com.agapsys.rcf.exceptions.ServiceUnavailableException;
+import com.agapsys.rcf.util.AdaptiveLimiter;
 import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
@@ -42,6 +53,31 @@ public class ActionDispatcherTest {
         }
     }
 
+    @SuppressWarnings("unchecked")
+    private static <T> T getStub(Class<T> type, final String method, final String pathInfo) {
+        return (T) Proxy.newProxyInstance(ActionDispatcherTest.class.getClassLoader(), new Class[] {type}, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method m, Object[] args) throws Throwable {
+                switch (m.getName()) {
+                    case "getMethod":
+                        return method;
+
+                    case "getPathInfo":
+                        return pathInfo;
+
+                    case "getRequestURI":
+                        return "/app" + pathInfo;
+
+                    case "isAsyncStarted":
+                        return false;
+
+                    default:
+                        return null;
+                }
+            }
+        });
+    }
+
     private ActionDispatcher dispatcher;
 
     @Before
@@ -104,5 +140,150 @@ public class ActionDispatcherTest {
         parent = "/abc/";
         Assert.assertEquals("/", ActionDispatcher.getRelativePath(parent, child));
     }
+
+    private void dispatch(String method, String pathInfo, HttpServletResponse servletResponse) throws ServletException, IOException {
+        HttpServletRequest servletRequest = getStub(HttpServletRequest.class, method, pathInfo);
+
+        ActionRequest request = new ActionRequest(servletRequest, servletResponse);
+        ActionResponse response = new ActionResponse(servletRequest, servletResponse);
+        request._setResponse(response);
+        response._setRequest(request);
+
+        dispatcher.dispatch(request, response);
+    }
+
+    @Test
+    public void testImplicitHeadAndOptions() throws ServletException, IOException {
+        TestAction getAction = new TestAction();
+        TestAction headAction = new TestAction();
+        TestAction postAction = new TestAction();
+
+        dispatcher.registerAction(HttpMethod.GET, "/foo", getAction);
+        dispatcher.registerAction(HttpMethod.POST, "/foo", postAction);
+        dispatcher.registerAction(HttpMethod.GET, "/bar", getAction);
+        dispatcher.registerAction(HttpMethod.HEAD, "/bar", headAction);
+
+        final Map<String, Object> headers = new LinkedHashMap<>();
+
+        HttpServletResponse servletResponse = (HttpServletResponse) Proxy.newProxyInstance(ActionDispatcherTest.class.getClassLoader(), new Class[] {HttpServletResponse.class}, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method m, Object[] args) throws Throwable {
+                switch (m.getName()) {
+                    case "setHeader":
+                    case "setContentLength":
+                    case "setContentLengthLong":
+                        headers.put(args.length == 2 ? (String) args[0] : "Content-Length", args[args.length - 1]);
+                        return null;
+
+                    case "isCommitted":
+                        return false;
+
+                    default:
+                        return null;
+                }
+            }
+        });
+
+        // HEAD is answered by GET action, unless a HEAD action is registered...
+        dispatch("HEAD", "/foo", servletResponse);
+        getAction.assertCalled();
+        Assert.assertEquals(0L, headers.get("Content-Length"));
+
+        dispatch("HEAD", "/bar", servletResponse);
+        headAction.assertCalled();
+
+        // OPTIONS is answered from registered routes without invoking any action...
+        headers.clear();
+        dispatch("OPTIONS", "/foo", servletResponse);
+        Assert.assertEquals("GET, HEAD, OPTIONS, POST", headers.get(ActionDispatcher.ALLOW_HEADER));
+        Assert.assertEquals(0, headers.get("Content-Length"));
+
+        dispatch("OPTIONS", "/bar", servletResponse);
+        Assert.assertEquals("GET, HEAD, OPTIONS", headers.get(ActionDispatcher.ALLOW_HEADER));
+    }
+
+    @Test(expected = NotFoundException.class)
+    public void testUnknownMethod() throws ServletException, IOException {
+        dispatcher.registerAction(HttpMethod.GET, "/foo", new TestAction());
+        dispatch("DELETE", "/foo", getStub(HttpServletResponse.class, "DELETE", "/foo"));
+    }
+
+    @Test
+    public void testConcurrencyLimiter() throws ServletException, IOException {
+        dispatcher = new ActionDispatcher() {
+            @Override
+            protected AdaptiveLimiter getConcurrencyLimiter(HttpMethod method, String path) {
+                return path.equals("/limited") ? new AdaptiveLimiter(1, 1, 0) : null;
+            }
+        };
+
+        final HttpServletResponse servletResponse = getStub(HttpServletResponse.class, "GET", "/limited");
+        final ServiceUnavailableException[] nestedError = new ServiceUnavailableException[1];
+
+        dispatcher.registerAction(HttpMethod.GET, "/limited", new Action() {
+            @Override
+            public void processRequest(ActionRequest request, ActionResponse response) throws ServletException, IOException {
+                try {
+                    dispatch("GET", "/limited", servletResponse); // <-- limit is taken by this request
+                } catch (ServiceUnavailableException ex) {
+                    nestedError[0] = ex;
+                }
+            }
+        });
+
+        TestAction unlimitedAction = new TestAction();
+        dispatcher.registerAction(HttpMethod.GET, "/unlimited", unlimitedAction);
+
+        dispatch("GET", "/limited", servletResponse);
+        Assert.assertNotNull(nestedError[0]);
+
+        // Limit was released...
+        nestedError[0] = null;
+        dispatch("GET", "/limited", servletResponse);
+        Assert.assertNotNull(nestedError[0]);
+
+        dispatch("GET", "/unlimited", servletResponse);
+        unlimitedAction.assertCalled();
+    }
+
+    @Test
+    public void testDispatchAllocation() throws ServletException, IOException {
+        if (!(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean)) {
+            System.out.println("Allocation measurement is not supported by this JVM");
+            return;
+        }
+
+        com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+
+        TestAction action = new TestAction();
+        dispatcher.registerAction(HttpMethod.GET, "/test/*", action);
+
+        HttpServletRequest servletRequest = getStub(HttpServletRequest.class, "GET", "/test/sub");
+        HttpServletResponse servletResponse = getStub(HttpServletResponse.class, "GET", "/test/sub");
+
+        final int warmup = 20000;
+        final int iterations = 20000;
+
+        long allocated = 0;
+
+        for (int i = 0; i < warmup + iterations; i++) {
+            if (i == warmup)
+                allocated = threadBean.getThreadAllocatedBytes(threadId);
+
+            ActionRequest request = new ActionRequest(servletRequest, servletResponse);
+            ActionResponse response = new ActionResponse(servletRequest, servletResponse);
+            request._setResponse(response);
+            response._setRequest(request);
+
+            dispatcher.dispatch(request, response);
+        }
+
+        allocated = (threadBean.getThreadAllocatedBytes(threadId) - allocated) / iterations;
+        System.out.println(String.format("Dispatch allocation: %d bytes/request", allocated));
+
+        action.assertCalled();
+        Assert.assertTrue(allocated < 4096); // <-- generous ceiling (figures depend on the JVM): request, response, wrapped request and relative path take a few hundred bytes
+    }
     // =========================================================================
 }
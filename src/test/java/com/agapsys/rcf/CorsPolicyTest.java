@@ -0,0 +1,104 @@
+/*
+ * Copyright 2016 Agapsys Tecnologia Ltda-ME.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.agapsys.rcf;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.servlet.http.HttpServletResponse;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class CorsPolicyTest {
+    // CLASS SCOPE =============================================================
+    @BeforeClass
+    public static void beforeClass() {
+        System.out.println(String.format("=== %s ===", CorsPolicyTest.class.getSimpleName()));
+    }
+
+    @Cors(origins = "*", allowCredentials = true)
+    private static class AnyOriginWithCredentials {}
+
+    @Cors(origins = {"https://app.example.com", "*"}, allowCredentials = true)
+    private static class MixedOriginsWithCredentials {}
+
+    @Cors(origins = "*")
+    private static class AnyOrigin {}
+
+    @Cors(origins = "https://app.example.com")
+    private static class SpecificOrigin {}
+
+    private static HttpServletResponse getResponseStub(final Map<String, String> headers) {
+        return (HttpServletResponse) Proxy.newProxyInstance(CorsPolicyTest.class.getClassLoader(), new Class[] {HttpServletResponse.class}, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method m, Object[] args) throws Throwable {
+                switch (m.getName()) {
+                    case "setHeader":
+                    case "addHeader":
+                        headers.put((String) args[0], (String) args[1]);
+                        return null;
+
+                    default:
+                        return null;
+                }
+            }
+        });
+    }
+    // =========================================================================
+
+    @Test
+    public void anyOriginWithCredentialsTest() {
+        for (Class<?> c : new Class<?>[] {AnyOriginWithCredentials.class, MixedOriginsWithCredentials.class}) {
+            try {
+                new CorsPolicy(c.getAnnotation(Cors.class));
+                Assert.fail("Policy accepted for " + c.getSimpleName());
+            } catch (RuntimeException ex) {
+                Assert.assertEquals("CORS credentials cannot be allowed for any origin", ex.getMessage());
+            }
+        }
+
+        CorsPolicy policy = new CorsPolicy(AnyOrigin.class.getAnnotation(Cors.class));
+        Assert.assertTrue(policy.isAllowed("https://app.example.com"));
+    }
+
+    @Test
+    public void varyTest() {
+        Map<String, String> headers = new LinkedHashMap<>();
+        HttpServletResponse response = getResponseStub(headers);
+
+        // Specific origins: responses always vary by origin...
+        CorsPolicy policy = new CorsPolicy(SpecificOrigin.class.getAnnotation(Cors.class));
+
+        for (String origin : new String[] {"https://app.example.com", "https://other.example.com", null}) {
+            headers.clear();
+            policy.apply(origin, response);
+            Assert.assertEquals(CorsPolicy.HEADER_ORIGIN, headers.get(CorsPolicy.HEADER_VARY));
+        }
+
+        Assert.assertFalse(headers.containsKey(CorsPolicy.HEADER_ALLOW_ORIGIN));
+
+        // Any origin: responses do not depend on origin...
+        policy = new CorsPolicy(AnyOrigin.class.getAnnotation(Cors.class));
+        headers.clear();
+        policy.apply("https://app.example.com", response);
+        Assert.assertFalse(headers.containsKey(CorsPolicy.HEADER_VARY));
+        Assert.assertEquals("*", headers.get(CorsPolicy.HEADER_ALLOW_ORIGIN));
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2017 Agapsys Tecnologia Ltda-ME.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.agapsys.rcf;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class DefaultErrorRendererTest {
+    // CLASS SCOPE =============================================================
+    @BeforeClass
+    public static void beforeClass() {
+        System.out.println(String.format("=== %s ===", DefaultErrorRendererTest.class.getSimpleName()));
+    }
+    // =========================================================================
+
+    @Test
+    public void plainTest() {
+        Assert.assertEquals("", DefaultErrorRenderer.PLAIN.getBody(404, null, ""));
+        Assert.assertEquals("12:Invalid data", DefaultErrorRenderer.PLAIN.getBody(400, 12, "Invalid data"));
+    }
+
+    @Test
+    public void jsonTest() {
+        Assert.assertEquals("{\"status\":404,\"message\":\"\"}", DefaultErrorRenderer.JSON.getBody(404, null, ""));
+        Assert.assertEquals("{\"status\":400,\"appStatus\":12,\"message\":\"Invalid \\\"name\\\"\\n\\u0001\"}", DefaultErrorRenderer.JSON.getBody(400, 12, "Invalid \"name\"\n\u0001"));
+    }
+
+    @Test
+    public void problemJsonTest() {
+        Assert.assertEquals("{\"type\":\"about:blank\",\"title\":\"Not Found\",\"status\":404}", DefaultErrorRenderer.PROBLEM_JSON.getBody(404, null, ""));
+        Assert.assertEquals("{\"type\":\"about:blank\",\"title\":\"Too Many Requests\",\"status\":429,\"detail\":\"Slow down\",\"appStatus\":3}", DefaultErrorRenderer.PROBLEM_JSON.getBody(429, 3, "Slow down"));
+    }
+
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright 2017 Agapsys Tecnologia Ltda-ME.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.agapsys.rcf;
+
+import com.agapsys.rcf.exceptions.BadRequestException;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.lang.reflect.Type;
+import java.util.Date;
+import java.util.LinkedList;
+import java.util.List;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class JsonCodecTest {
+    // CLASS SCOPE =============================================================
+    @BeforeClass
+    public static void beforeClass() {
+        System.out.println(String.format("=== %s ===", JsonCodecTest.class.getSimpleName()));
+    }
+
+    // Classes -----------------------------------------------------------------
+    public static class ItemDto {
+        public long    id;
+        public String  name;
+        public String  description;
+        public double  price;
+        public boolean active;
+        public Date    createdAt;
+    }
+
+    public static class PageDto {
+        public int           page;
+        public int           total;
+        public List<ItemDto> items;
+    }
+
+    /** Reference codec: serializes the whole payload into a String before writing it. */
+    private static class StringBufferedCodec implements JsonCodec {
+
+        @Override
+        public <T> T readObject(Reader reader, Type type) throws IOException, BadRequestException {
+            return GsonJsonCodec.DEFAULT.readObject(reader, type);
+        }
+
+        @Override
+        public void writeObject(Writer writer, Object obj) throws IOException {
+            writer.write(GsonJsonCodec.DEFAULT.getGson().toJson(obj));
+        }
+    }
+    // -------------------------------------------------------------------------
+
+    private static ItemDto __getItem(long id) {
+        ItemDto item = new ItemDto();
+        item.id = id;
+        item.name = "Item " + id;
+        item.description = "Description of item " + id + " with some accents: áéíóú";
+        item.price = id * 1.25;
+        item.active = id % 2 == 0;
+        item.createdAt = new Date(1448668800000l + id * 1000);
+        return item;
+    }
+
+    private static PageDto __getPage(int page, int size) {
+        PageDto dto = new PageDto();
+        dto.page = page;
+        dto.total = size;
+        dto.items = new LinkedList<>();
+
+        for (int i = 0; i < size; i++) {
+            dto.items.add(__getItem(page * size + i));
+        }
+
+        return dto;
+    }
+
+    private static String __write(JsonCodec codec, Object obj) throws IOException {
+        StringWriter writer = new StringWriter();
+        codec.writeObject(writer, obj);
+        return writer.toString();
+    }
+
+    private static void __assertEquivalent(JsonCodec expectedCodec, JsonCodec codec, Object payload, Type type) throws IOException {
+        String json = __write(expectedCodec, payload);
+
+        Assert.assertEquals(json, __write(codec, payload));
+        Assert.assertEquals(json, __write(codec, codec.readObject(new StringReader(json), type)));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T getStub(Class<T> type) {
+        return (T) Proxy.newProxyInstance(JsonCodecTest.class.getClassLoader(), new Class[] {type}, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method m, Object[] args) throws Throwable {
+                switch (m.getName()) {
+                    case "getMethod":
+                        return "GET";
+
+                    case "getRequestURI":
+                        return "/app/test";
+
+                    default:
+                        return null;
+                }
+            }
+        });
+    }
+    // =========================================================================
+
+    // INSTANCE SCOPE ==========================================================
+    @Test
+    public void streamingCodecTest() throws IOException {
+        JsonCodec expectedCodec = new StringBufferedCodec();
+
+        List<PageDto> pages = new LinkedList<>();
+        for (int i = 0; i < 10; i++) {
+            pages.add(__getPage(i, 100));
+        }
+
+        __assertEquivalent(expectedCodec, GsonJsonCodec.DEFAULT, __getItem(1), ItemDto.class);
+        __assertEquivalent(expectedCodec, GsonJsonCodec.DEFAULT, __getPage(0, 100), PageDto.class);
+        __assertEquivalent(expectedCodec, GsonJsonCodec.DEFAULT, pages, new JsonRequest.ListType(PageDto.class));
+    }
+
+    @Test
+    public void inheritedCodecTest() throws IOException {
+        JsonCodec codec = new StringBufferedCodec();
+        HttpServletRequest servletRequest = getStub(HttpServletRequest.class);
+        HttpServletResponse servletResponse = getStub(HttpServletResponse.class);
+
+        // Codec is inherited through plain wrappers (e.g. the ones created by ActionDispatcher)...
+        ActionRequest request = new ActionRequest(new JsonRequest(servletRequest, servletResponse, codec));
+        Assert.assertSame(codec, new JsonRequest(request).getJsonCodec());
+        Assert.assertSame(GsonJsonCodec.DEFAULT, new JsonRequest(new ActionRequest(servletRequest, servletResponse)).getJsonCodec());
+
+        ActionResponse response = new ActionResponse(new JsonResponse(servletRequest, servletResponse, codec));
+        Assert.assertSame(codec, new JsonResponse(response).getJsonCodec());
+        Assert.assertSame(GsonJsonCodec.DEFAULT, new JsonResponse(new ActionResponse(servletRequest, servletResponse)).getJsonCodec());
+
+        Assert.assertEquals(JsonResponse.toJson(__getItem(1)), JsonResponse.toJson(codec, __getItem(1)));
+    }
+    // =========================================================================
+}
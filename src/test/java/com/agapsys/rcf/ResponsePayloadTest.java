@@ -0,0 +1,220 @@
+/*
+ * Copyright 2017 Agapsys Tecnologia Ltda-ME.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.agapsys.rcf;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class ResponsePayloadTest {
+    // CLASS SCOPE =============================================================
+    @BeforeClass
+    public static void beforeClass() {
+        System.out.println(String.format("=== %s ===", ResponsePayloadTest.class.getSimpleName()));
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        int read;
+
+        while ((read = in.read(buffer)) >= 0) {
+            baos.write(buffer, 0, read);
+        }
+
+        return baos.toByteArray();
+    }
+
+    private static HttpServletRequest getRequestStub(final String acceptEncoding) {
+        return (HttpServletRequest) Proxy.newProxyInstance(ResponsePayloadTest.class.getClassLoader(), new Class[] {HttpServletRequest.class}, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method m, Object[] args) throws Throwable {
+                switch (m.getName()) {
+                    case "getMethod":
+                        return "GET";
+
+                    case "getHeader":
+                        return "Accept-Encoding".equals(args[0]) ? acceptEncoding : null;
+
+                    default:
+                        return null;
+                }
+            }
+        });
+    }
+
+    private static HttpServletResponse getResponseStub(final Map<String, String> headers, final ByteArrayOutputStream body) {
+        return (HttpServletResponse) Proxy.newProxyInstance(ResponsePayloadTest.class.getClassLoader(), new Class[] {HttpServletResponse.class}, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method m, Object[] args) throws Throwable {
+                switch (m.getName()) {
+                    case "getOutputStream":
+                        return new ServletOutputStream() {
+                            @Override
+                            public boolean isReady() {
+                                return true;
+                            }
+
+                            @Override
+                            public void setWriteListener(WriteListener writeListener) {}
+
+                            @Override
+                            public void write(int b) throws IOException {
+                                body.write(b);
+                            }
+                        };
+
+                    case "setHeader":
+                    case "addHeader":
+                        headers.put((String) args[0], (String) args[1]);
+                        return null;
+
+                    case "containsHeader":
+                        return headers.containsKey((String) args[0]);
+
+                    case "getStatus":
+                        return HttpServletResponse.SC_OK;
+
+                    case "isCommitted":
+                        return false;
+
+                    default:
+                        return null;
+                }
+            }
+        });
+    }
+
+    private static byte[] send(ResponsePayload payload, String acceptEncoding, Map<String, String> headers, final String content) throws ServletException, IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        HttpServletRequest servletRequest = getRequestStub(acceptEncoding);
+        HttpServletResponse servletResponse = getResponseStub(headers, body);
+
+        ActionRequest request = new ActionRequest(servletRequest, servletResponse);
+        ActionResponse response = new ActionResponse(servletRequest, servletResponse);
+        request._setResponse(response);
+        response._setRequest(request);
+
+        payload.send(request, response, new ResponsePayload.PayloadWriter() {
+            @Override
+            public void write(ActionResponse response) throws ServletException, IOException {
+                response.getServletResponse().getOutputStream().write(content.getBytes(StandardCharsets.UTF_8));
+            }
+        });
+
+        return body.toByteArray();
+    }
+    // =========================================================================
+
+    @Test
+    public void preferredEncodingTest() {
+        Assert.assertNull(ResponsePayload.getPreferredEncoding(null));
+        Assert.assertNull(ResponsePayload.getPreferredEncoding(""));
+        Assert.assertNull(ResponsePayload.getPreferredEncoding("identity"));
+        Assert.assertNull(ResponsePayload.getPreferredEncoding("gzip;q=0, deflate;q=0"));
+        Assert.assertNull(ResponsePayload.getPreferredEncoding("br, *;q=0"));
+
+        Assert.assertEquals(ResponsePayload.ENCODING_GZIP, ResponsePayload.getPreferredEncoding("gzip"));
+        Assert.assertEquals(ResponsePayload.ENCODING_GZIP, ResponsePayload.getPreferredEncoding("gzip, deflate"));
+        Assert.assertEquals(ResponsePayload.ENCODING_GZIP, ResponsePayload.getPreferredEncoding("*"));
+        Assert.assertEquals(ResponsePayload.ENCODING_DEFLATE, ResponsePayload.getPreferredEncoding("deflate"));
+        Assert.assertEquals(ResponsePayload.ENCODING_DEFLATE, ResponsePayload.getPreferredEncoding("gzip;q=0.5, deflate"));
+        Assert.assertEquals(ResponsePayload.ENCODING_DEFLATE, ResponsePayload.getPreferredEncoding("gzip;q=0, *"));
+    }
+
+    @Test
+    public void compressTest() throws IOException {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            sb.append(String.format("{\"id\":%d,\"name\":\"item%d\"},", i, i));
+        }
+
+        byte[] data = sb.toString().getBytes(StandardCharsets.UTF_8);
+
+        byte[] gzip = ResponsePayload.compress(data, ResponsePayload.ENCODING_GZIP, 9);
+        Assert.assertTrue(gzip.length < data.length);
+        Assert.assertArrayEquals(data, readAll(new GZIPInputStream(new ByteArrayInputStream(gzip))));
+
+        byte[] deflate = ResponsePayload.compress(data, ResponsePayload.ENCODING_DEFLATE, 1);
+        Assert.assertTrue(deflate.length < data.length);
+        Assert.assertArrayEquals(data, readAll(new InflaterInputStream(new ByteArrayInputStream(deflate))));
+    }
+
+    @Test
+    public void etagTest() {
+        byte[] data = "{\"id\":1}".getBytes(StandardCharsets.UTF_8);
+        String etag = ResponsePayload.getEtag(data);
+
+        Assert.assertTrue(etag.startsWith("W/\""));
+        Assert.assertEquals(etag, ResponsePayload.getEtag(data.clone()));
+        Assert.assertNotEquals(etag, ResponsePayload.getEtag("{\"id\":2}".getBytes(StandardCharsets.UTF_8)));
+
+        String strongEtag = etag.substring(2);
+        Assert.assertTrue(ActionValidator.matches(etag, etag));
+        Assert.assertTrue(ActionValidator.matches(strongEtag, etag));
+        Assert.assertTrue(ActionValidator.matches("\"other\", " + strongEtag, etag));
+        Assert.assertTrue(ActionValidator.matches("*", etag));
+        Assert.assertFalse(ActionValidator.matches("\"other\"", etag));
+        Assert.assertFalse(ActionValidator.matches(null, etag));
+    }
+
+    @Test
+    public void cacheableContentTest() throws ServletException, IOException {
+        ResponsePayload payload = new ResponsePayload(0, -1, true, true);
+        Map<String, String> headers = new LinkedHashMap<>();
+
+        // Same instance modified between calls: cached data is keyed on content...
+        byte[] body = send(payload, "gzip", headers, "{\"id\":1}");
+        String etag = headers.get(ActionValidator.HEADER_ETAG);
+        Assert.assertEquals("gzip", headers.get("Content-Encoding"));
+        Assert.assertArrayEquals("{\"id\":1}".getBytes(StandardCharsets.UTF_8), readAll(new GZIPInputStream(new ByteArrayInputStream(body))));
+
+        headers.clear();
+        body = send(payload, "gzip", headers, "{\"id\":2}");
+        Assert.assertNotEquals(etag, headers.get(ActionValidator.HEADER_ETAG));
+        Assert.assertArrayEquals("{\"id\":2}".getBytes(StandardCharsets.UTF_8), readAll(new GZIPInputStream(new ByteArrayInputStream(body))));
+
+        // Compressed forms are computed for the negotiated encoding...
+        headers.clear();
+        body = send(payload, "deflate", headers, "{\"id\":2}");
+        Assert.assertEquals("deflate", headers.get("Content-Encoding"));
+        Assert.assertArrayEquals("{\"id\":2}".getBytes(StandardCharsets.UTF_8), readAll(new InflaterInputStream(new ByteArrayInputStream(body))));
+
+        headers.clear();
+        body = send(payload, null, headers, "{\"id\":2}");
+        Assert.assertNull(headers.get("Content-Encoding"));
+        Assert.assertArrayEquals("{\"id\":2}".getBytes(StandardCharsets.UTF_8), body);
+    }
+
+}
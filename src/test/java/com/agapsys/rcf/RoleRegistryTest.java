@@ -0,0 +1,67 @@
+/*
+ * Copyright 2017 Agapsys Tecnologia Ltda-ME.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.agapsys.rcf;
+
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class RoleRegistryTest {
+    // CLASS SCOPE =============================================================
+    @BeforeClass
+    public static void beforeClass() {
+        System.out.println(String.format("=== %s ===", RoleRegistryTest.class.getSimpleName()));
+    }
+
+    private static Set<String> setOf(String...roles) {
+        return new LinkedHashSet<>(Arrays.asList(roles));
+    }
+    // =========================================================================
+
+    @Test
+    public void maskTest() {
+        String[] required = new String[100];
+        for (int i = 0; i < required.length; i++) {
+            required[i] = "RoleRegistryTest.role" + i;
+        }
+
+        long[] requiredMask = RoleRegistry.register(required);
+        long[] singleMask = RoleRegistry.register(new String[] {required[99]});
+
+        Assert.assertTrue(RoleRegistry.containsAll(RoleRegistry.getMask(setOf(required)), requiredMask));
+        Assert.assertTrue(RoleRegistry.containsAll(RoleRegistry.getMask(setOf(required[99], "unregistered", null)), singleMask));
+        Assert.assertFalse(RoleRegistry.containsAll(RoleRegistry.getMask(setOf(required[98])), singleMask));
+        Assert.assertFalse(RoleRegistry.containsAll(RoleRegistry.getMask(null), singleMask));
+        Assert.assertTrue(RoleRegistry.containsAll(RoleRegistry.getMask(null), RoleRegistry.register(new String[] {})));
+    }
+
+    @Test
+    public void versionTest() {
+        int version = RoleRegistry.getVersion();
+
+        RoleRegistry.register(new String[] {"RoleRegistryTest.versionRole"});
+        Assert.assertNotEquals(version, RoleRegistry.getVersion());
+
+        version = RoleRegistry.getVersion();
+        RoleRegistry.register(new String[] {"RoleRegistryTest.versionRole"}); // <-- already registered
+        Assert.assertEquals(version, RoleRegistry.getVersion());
+    }
+
+}
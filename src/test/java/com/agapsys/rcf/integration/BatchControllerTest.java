@@ -0,0 +1,125 @@
+/*
+ * Copyright 2016 Agapsys Tecnologia Ltda-ME.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.agapsys.rcf.integration;
+
+import com.agapsys.http.HttpClient;
+import com.agapsys.http.HttpResponse.StringResponse;
+import com.agapsys.http.StringEntityRequest;
+import com.agapsys.jee.StacktraceErrorHandler;
+import com.agapsys.rcf.BatchController;
+import com.agapsys.rcf.JsonResponse;
+import com.agapsys.rcf.RcfContainer;
+import com.agapsys.rcf.integration.controllers.JsonController;
+import com.agapsys.rcf.integration.controllers.ParamController;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class BatchControllerTest {
+
+    @BeforeClass
+    public static void beforeClass() {
+        System.out.println(String.format("=== %s ===", BatchControllerTest.class.getSimpleName()));
+    }
+
+    private RcfContainer rc;
+    private StringResponse resp;
+
+    @Before
+    public void before() {
+        rc = RcfContainer.newInstance()
+            .registerController(BatchController.class)
+            .registerController(JsonController.class)
+            .registerController(ParamController.class)
+            .setErrorHandler(new StacktraceErrorHandler());
+
+        rc.start();
+    }
+
+    @After
+    public void after() {
+        rc.stop();
+    }
+
+    private StringResponse postBatch(String json) {
+        StringEntityRequest.StringEntityPost post = new StringEntityRequest.StringEntityPost("application/json", "utf-8", "/batch/");
+        post.setContentBody(json);
+        return rc.doRequest(post);
+    }
+
+    @Test
+    public void testBatch() {
+        resp = postBatch(
+            "["
+            + "{\"path\": \"/param/query\", \"params\": {\"id\": \"1\", \"q\": \"a b\"}},"
+            + "{\"path\": \"/param/headers\", \"headers\": {\"X-Count\": \"3\"}},"
+            + "{\"method\": \"POST\", \"path\": \"/json/dto\", \"body\": \"{\\\"string\\\": \\\"string\\\", \\\"integer\\\": 12}\"},"
+            + "{\"path\": \"/param/query\"},"
+            + "{\"path\": \"/batch/\"}"
+            + "]"
+        );
+
+        Assert.assertEquals(200, resp.getStatusCode());
+
+        String content = resp.getContentString();
+        Assert.assertTrue(content.startsWith(
+            "["
+            + "{\"status\":200,\"body\":\"1:1:a b:ASC:false\"},"
+            + "{\"status\":200,\"body\":\"3:null\"},"
+            + "{\"status\":200,\"body\":\"OK\"},"
+            + "{\"status\":400,\"body\":\"Missing parameter: id\"},"
+            + "{\"status\":400,"
+        ));
+        Assert.assertTrue(content.endsWith("}]"));
+    }
+
+    @Test
+    public void testCallerEncodingHeaders() {
+        HttpClient client = new HttpClient();
+        client.addDefaultHeader("Accept-Encoding", "gzip, deflate");
+        client.addDefaultHeader("If-None-Match", "*");
+
+        StringEntityRequest.StringEntityPost post = new StringEntityRequest.StringEntityPost("application/json", "utf-8", "/batch/");
+        post.setContentBody("[{\"path\": \"/json/cachedDto\"}, {\"path\": \"/json/etagDto\", \"headers\": {\"Accept-Encoding\": \"gzip\"}}]");
+        resp = rc.doRequest(client, post);
+
+        // Sub-requests neither compress their bodies nor answer with 304 because of caller's headers...
+        String dto = JsonResponse.toJson(JsonController.CACHED_DTO);
+        Assert.assertEquals(200, resp.getStatusCode());
+        Assert.assertEquals(String.format("[{\"status\":200,\"body\":%s},{\"status\":200,\"body\":%s}]", dto, dto), resp.getContentString());
+    }
+
+    @Test
+    public void testInvalidBatch() {
+        resp = postBatch("[]");
+        Assert.assertEquals(400, resp.getStatusCode());
+
+        StringBuilder sb = new StringBuilder("[");
+
+        for (int i = 0; i <= BatchController.DEFAULT_MAX_REQUESTS; i++) {
+            if (i > 0)
+                sb.append(',');
+
+            sb.append("{\"path\": \"/param/query\"}");
+        }
+
+        resp = postBatch(sb.append(']').toString());
+        Assert.assertEquals(400, resp.getStatusCode());
+    }
+
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2016 Agapsys Tecnologia Ltda-ME.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.agapsys.rcf.integration;
+
+import com.agapsys.http.HttpClient;
+import com.agapsys.http.HttpGet;
+import com.agapsys.http.HttpResponse.StringResponse;
+import com.agapsys.jee.StacktraceErrorHandler;
+import com.agapsys.rcf.Controller;
+import com.agapsys.rcf.RcfContainer;
+import com.agapsys.rcf.integration.controllers.BulkheadController;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class BulkheadControllerTest {
+
+    @BeforeClass
+    public static void beforeClass() {
+        System.out.println(String.format("=== %s ===", BulkheadControllerTest.class.getSimpleName()));
+    }
+
+    private RcfContainer rc;
+
+    @Before
+    public void before() {
+        BulkheadController.entered = new CountDownLatch(1);
+        BulkheadController.release = new CountDownLatch(1);
+
+        rc = RcfContainer.newInstance()
+            .registerController(BulkheadController.class)
+            .setErrorHandler(new StacktraceErrorHandler());
+
+        rc.start();
+    }
+
+    @After
+    public void after() {
+        BulkheadController.release.countDown();
+        rc.stop();
+    }
+
+    @Test
+    public void testRejection() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        try {
+            Future<StringResponse> slowResponse = executor.submit(new Callable<StringResponse>() {
+                @Override
+                public StringResponse call() {
+                    return rc.doRequest(new HttpClient(), new HttpGet("/bulkhead/slow"));
+                }
+            });
+
+            Assert.assertTrue(BulkheadController.entered.await(10, TimeUnit.SECONDS));
+
+            // Action is full...
+            StringResponse resp = rc.doRequest(new HttpGet("/bulkhead/slow"));
+            Assert.assertEquals(503, resp.getStatusCode());
+            Assert.assertEquals("1", resp.getFirstHeader(Controller.RETRY_AFTER_HEADER).getValue());
+
+            // Other actions are not affected...
+            resp = rc.doRequest(new HttpGet("/bulkhead/fast"));
+            Assert.assertEquals(200, resp.getStatusCode());
+
+            BulkheadController.release.countDown();
+            Assert.assertEquals(200, slowResponse.get(10, TimeUnit.SECONDS).getStatusCode());
+
+            resp = rc.doRequest(new HttpGet("/bulkhead/slow"));
+            Assert.assertEquals(200, resp.getStatusCode());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2016 Agapsys Tecnologia Ltda-ME.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.agapsys.rcf.integration;
+
+import com.agapsys.http.HttpGet;
+import com.agapsys.http.HttpResponse.StringResponse;
+import com.agapsys.jee.StacktraceErrorHandler;
+import com.agapsys.rcf.RcfContainer;
+import com.agapsys.rcf.integration.controllers.ComposeController;
+import com.agapsys.rcf.integration.controllers.JsonController;
+import com.agapsys.rcf.integration.controllers.ParamController;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class ComposeControllerTest {
+
+    @BeforeClass
+    public static void beforeClass() {
+        System.out.println(String.format("=== %s ===", ComposeControllerTest.class.getSimpleName()));
+    }
+
+    private RcfContainer rc;
+    private StringResponse resp;
+
+    @Before
+    public void before() {
+        rc = RcfContainer.newInstance()
+            .registerController(ComposeController.class)
+            .registerController(ParamController.class)
+            .registerController(JsonController.class)
+            .setErrorHandler(new StacktraceErrorHandler());
+
+        rc.start();
+    }
+
+    @After
+    public void after() {
+        rc.stop();
+    }
+
+    private void assertResponse(int expectedStatus, String expectedContent) {
+        Assert.assertEquals(expectedStatus, resp.getStatusCode());
+
+        if (expectedContent != null)
+            Assert.assertEquals(expectedContent, resp.getContentString());
+    }
+
+    @Test
+    public void testDispatch() {
+        // First call may reach an uninitialized target through the container, later calls go straight to it...
+        for (int i = 0; i < 2; i++) {
+            resp = rc.doRequest(new HttpGet("/compose/query?id=%d", 10));
+            assertResponse(200, "\"compose:10:1:null:ASC:false\"");
+        }
+    }
+
+    @Test
+    public void testClientError() {
+        for (int i = 0; i < 2; i++) {
+            resp = rc.doRequest(new HttpGet("/compose/query"));
+            assertResponse(400, "Missing parameter: id");
+        }
+    }
+
+    @Test
+    public void testTypedResults() {
+        for (int i = 0; i < 2; i++) {
+            // Returned object is given back as-is...
+            resp = rc.doRequest(new HttpGet("/compose/sameDto"));
+            assertResponse(200, "true");
+
+            // Body object is given to the target as-is...
+            resp = rc.doRequest(new HttpGet("/compose/postDto"));
+            assertResponse(200, "\"OK\"");
+
+            // Body object is serialized when target reads JSON fields...
+            resp = rc.doRequest(new HttpGet("/compose/fields"));
+            assertResponse(200, "\"abc:5:2:[a, b]\"");
+        }
+    }
+
+    @Test
+    public void testFanOut() {
+        resp = rc.doRequest(new HttpGet("/param/query?id=%d", 1)); // <-- initializes target controller, so parallel requests go straight to it
+        assertResponse(200, null);
+
+        for (int i = 0; i < 2; i++) {
+            resp = rc.doRequest(new HttpGet("/compose/fanOut"));
+            assertResponse(200, "[\"1:1:null:ASC:false\",\"2:1:null:ASC:false\",\"3:1:null:ASC:false\"]");
+        }
+    }
+
+}
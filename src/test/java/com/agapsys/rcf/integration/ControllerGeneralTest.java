@@ -44,7 +44,7 @@ public class ControllerGeneralTest {
     // Phase actions -----------------------------------------------------------
     public static final String PHASE_DEFAULT_URL       = "/phase/";
     public static final String PHASE_BEFORE_HEADER     = "before-header";
-    public static final String PHASE_AFTER_HEADER      = "before-header";
+    public static final String PHASE_AFTER_HEADER      = "after-header";
     public static final String PHASE_NOT_FOUND_HEADER  = "not-found";
 
     // Secured actions ---------------------------------------------------------
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2016 Agapsys Tecnologia Ltda-ME.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.agapsys.rcf.integration;
+
+import com.agapsys.http.HttpClient;
+import com.agapsys.http.HttpGet;
+import com.agapsys.http.HttpOptions;
+import com.agapsys.http.HttpResponse.StringResponse;
+import com.agapsys.jee.StacktraceErrorHandler;
+import com.agapsys.rcf.ActionDispatcher;
+import com.agapsys.rcf.RcfContainer;
+import com.agapsys.rcf.integration.controllers.CorsController;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class CorsControllerTest {
+
+    @BeforeClass
+    public static void beforeClass() {
+        System.out.println(String.format("=== %s ===", CorsControllerTest.class.getSimpleName()));
+    }
+
+    private RcfContainer rc;
+    private StringResponse resp;
+
+    @Before
+    public void before() {
+        rc = RcfContainer.newInstance()
+            .registerController(CorsController.class)
+            .setErrorHandler(new StacktraceErrorHandler());
+
+        rc.start();
+    }
+
+    @After
+    public void after() {
+        rc.stop();
+    }
+
+    private HttpClient getClient(String origin, String requestMethod) {
+        HttpClient client = new HttpClient();
+        client.addDefaultHeader("Origin", origin);
+
+        if (requestMethod != null)
+            client.addDefaultHeader("Access-Control-Request-Method", requestMethod);
+
+        return client;
+    }
+
+    @Test
+    public void testPreflight() {
+        resp = rc.doRequest(getClient(CorsController.ORIGIN, "POST"), new HttpOptions("/cors/items"));
+        Assert.assertEquals(204, resp.getStatusCode());
+        Assert.assertEquals(CorsController.ORIGIN, resp.getFirstHeader("Access-Control-Allow-Origin").getValue());
+        Assert.assertEquals("true", resp.getFirstHeader("Access-Control-Allow-Credentials").getValue());
+        Assert.assertEquals("GET, POST", resp.getFirstHeader("Access-Control-Allow-Methods").getValue());
+        Assert.assertEquals(Integer.toString(CorsController.MAX_AGE), resp.getFirstHeader("Access-Control-Max-Age").getValue());
+        Assert.assertNotNull(resp.getFirstHeader("Access-Control-Allow-Headers"));
+
+        // Disallowed origin: request is handled as a plain OPTIONS request...
+        resp = rc.doRequest(getClient("https://evil.example.com", "POST"), new HttpOptions("/cors/items"));
+        Assert.assertEquals(200, resp.getStatusCode());
+        Assert.assertNull(resp.getFirstHeader("Access-Control-Allow-Origin"));
+        Assert.assertNotNull(resp.getFirstHeader(ActionDispatcher.ALLOW_HEADER));
+
+        // Disallowed method...
+        resp = rc.doRequest(getClient(CorsController.ORIGIN, "DELETE"), new HttpOptions("/cors/items"));
+        Assert.assertNull(resp.getFirstHeader("Access-Control-Allow-Origin"));
+    }
+
+    @Test
+    public void testActualRequest() {
+        resp = rc.doRequest(getClient(CorsController.ORIGIN, null), new HttpGet("/cors/items"));
+        Assert.assertEquals(200, resp.getStatusCode());
+        Assert.assertEquals(CorsController.ORIGIN, resp.getFirstHeader("Access-Control-Allow-Origin").getValue());
+        Assert.assertEquals(CorsController.EXPOSED_HEADER, resp.getFirstHeader("Access-Control-Expose-Headers").getValue());
+        Assert.assertEquals("Origin", resp.getFirstHeader("Vary").getValue());
+
+        resp = rc.doRequest(getClient("https://evil.example.com", null), new HttpGet("/cors/items"));
+        Assert.assertEquals(200, resp.getStatusCode());
+        Assert.assertNull(resp.getFirstHeader("Access-Control-Allow-Origin"));
+
+        // Action policy replaces controller policy...
+        resp = rc.doRequest(getClient("https://evil.example.com", null), new HttpGet("/cors/open"));
+        Assert.assertEquals("*", resp.getFirstHeader("Access-Control-Allow-Origin").getValue());
+    }
+
+}
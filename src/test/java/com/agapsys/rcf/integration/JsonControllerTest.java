@@ -15,11 +15,25 @@
  */
 package com.agapsys.rcf.integration;
 
+import com.agapsys.http.HttpClient;
+import com.agapsys.http.HttpGet;
+import com.agapsys.http.HttpHead;
+import com.agapsys.http.HttpHeader;
+import com.agapsys.http.HttpOptions;
 import com.agapsys.http.HttpResponse;
 import com.agapsys.http.StringEntityRequest;
 import com.agapsys.jee.StacktraceErrorHandler;
+import com.agapsys.rcf.ActionDispatcher;
+import com.agapsys.rcf.ActionRequest;
+import com.agapsys.rcf.JsonResponse;
 import com.agapsys.rcf.RcfContainer;
 import com.agapsys.rcf.integration.controllers.JsonController;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import org.junit.After;
 import org.junit.Assert;
 import org.junit.Before;
@@ -134,4 +148,163 @@ public class JsonControllerTest {
         
         Assert.assertEquals(400, resp.getStatusCode());
     }
+
+    @Test
+    public void testFields() {
+        StringEntityRequest.StringEntityPost post = new StringEntityRequest.StringEntityPost("application/json", "utf-8", "/json/fields");
+        post.setContentBody("{\"ignored\": {\"a\": [1, 2]}, \"page\": 3, \"dto\": {\"string\": \"s\", \"integer\": 1}, \"tags\": [\"a\", \"b\"]}");
+
+        resp = rc.doRequest(post);
+        Assert.assertEquals(200, resp.getStatusCode());
+        Assert.assertEquals("\"s:1:3:[a, b]\"", resp.getContentString());
+
+        // Missing members are null...
+        post = new StringEntityRequest.StringEntityPost("application/json", "utf-8", "/json/fields");
+        post.setContentBody("{\"page\": 1}");
+
+        resp = rc.doRequest(post);
+        Assert.assertEquals(200, resp.getStatusCode());
+        Assert.assertEquals("\"null:0:1:null\"", resp.getContentString());
+
+        // ...unless bound to a primitive parameter
+        post = new StringEntityRequest.StringEntityPost("application/json", "utf-8", "/json/fields");
+        post.setContentBody("{\"tags\": []}");
+
+        resp = rc.doRequest(post);
+        Assert.assertEquals(400, resp.getStatusCode());
+
+        post = new StringEntityRequest.StringEntityPost("application/json", "utf-8", "/json/fields");
+        post.setContentBody("[1, 2]");
+
+        resp = rc.doRequest(post);
+        Assert.assertEquals(400, resp.getStatusCode());
+    }
+
+    @Test
+    public void testCompressedList() {
+        resp = rc.doRequest(new HttpGet("/json/compressedList"));
+        Assert.assertEquals(200, resp.getStatusCode());
+
+        String json = resp.getContentString();
+        Assert.assertTrue(json.startsWith("[{\"string\":\"item0\",\"integer\":0},"));
+        Assert.assertTrue(json.endsWith(String.format("{\"string\":\"item%d\",\"integer\":%d}]", JsonController.COMPRESSED_LIST_SIZE - 1, JsonController.COMPRESSED_LIST_SIZE - 1)));
+    }
+
+    @Test
+    public void testCachedDto() {
+        String expected = JsonResponse.toJson(JsonController.CACHED_DTO);
+
+        for (int i = 0; i < 2; i++) {
+            resp = rc.doRequest(new HttpGet("/json/cachedDto"));
+            Assert.assertEquals(200, resp.getStatusCode());
+            Assert.assertEquals(expected, resp.getContentString());
+            Assert.assertEquals("Dto", resp.getFirstHeader(JsonController.PAYLOAD_HEADER).getValue()); // <-- replayed along with cached body
+        }
+    }
+
+    @Test
+    public void testHeadAndOptions() {
+        String expected = JsonResponse.toJson(JsonController.CACHED_DTO);
+
+        resp = rc.doRequest(new HttpHead("/json/etagDto"));
+        Assert.assertEquals(200, resp.getStatusCode());
+        Assert.assertNotNull(resp.getFirstHeader("ETag"));
+        Assert.assertEquals(Integer.toString(expected.getBytes().length), resp.getFirstHeader("Content-Length").getValue());
+
+        resp = rc.doRequest(new HttpOptions("/json/dto"));
+        Assert.assertEquals(200, resp.getStatusCode());
+        Assert.assertEquals("OPTIONS, POST", resp.getFirstHeader(ActionDispatcher.ALLOW_HEADER).getValue());
+
+        resp = rc.doRequest(new HttpOptions("/json/cachedDto"));
+        Assert.assertEquals("GET, HEAD, OPTIONS", resp.getFirstHeader(ActionDispatcher.ALLOW_HEADER).getValue());
+    }
+
+    @Test
+    public void testEtag() {
+        resp = rc.doRequest(new HttpGet("/json/etagDto"));
+        Assert.assertEquals(200, resp.getStatusCode());
+
+        HttpHeader etag = resp.getFirstHeader("ETag");
+        Assert.assertNotNull(etag);
+
+        HttpClient client = new HttpClient();
+        client.addDefaultHeader("If-None-Match", etag.getValue());
+
+        resp = rc.doRequest(client, new HttpGet("/json/etagDto"));
+        Assert.assertEquals(304, resp.getStatusCode());
+        Assert.assertEquals(etag.getValue(), resp.getFirstHeader("ETag").getValue());
+    }
+
+    @Test
+    public void testValidator() {
+        resp = rc.doRequest(new HttpGet("/json/versionedDto"));
+        Assert.assertEquals(200, resp.getStatusCode());
+        Assert.assertEquals(String.format("W/\"%s\"", JsonController.DTO_VERSION), resp.getFirstHeader("ETag").getValue());
+
+        int calls = JsonController.versionedDtoCalls;
+
+        HttpClient client = new HttpClient();
+        client.addDefaultHeader("If-None-Match", String.format("\"%s\"", JsonController.DTO_VERSION));
+
+        resp = rc.doRequest(client, new HttpGet("/json/versionedDto"));
+        Assert.assertEquals(304, resp.getStatusCode());
+        Assert.assertEquals(calls, JsonController.versionedDtoCalls); // <-- action was not invoked
+    }
+
+    @Test
+    public void testResponseCache() {
+        int calls = JsonController.cachedCounterCalls.get();
+
+        resp = rc.doRequest(new HttpGet("/json/cachedCounter?id=1&ignored=a"));
+        Assert.assertEquals(200, resp.getStatusCode());
+        String firstResponse = resp.getContentString();
+        Assert.assertEquals(String.format("\"1:%d\"", calls + 1), firstResponse);
+
+        resp = rc.doRequest(new HttpGet("/json/cachedCounter?id=1&ignored=b"));
+        Assert.assertEquals(200, resp.getStatusCode());
+        Assert.assertEquals(firstResponse, resp.getContentString()); // <-- served from cache
+        Assert.assertEquals(calls + 1, JsonController.cachedCounterCalls.get());
+
+        resp = rc.doRequest(new HttpGet("/json/cachedCounter?id=2"));
+        Assert.assertEquals(String.format("\"2:%d\"", calls + 2), resp.getContentString());
+
+        resp = rc.doRequest(new HttpGet("/json/invalidateCache"));
+        Assert.assertEquals(200, resp.getStatusCode());
+
+        resp = rc.doRequest(new HttpGet("/json/cachedCounter?id=1"));
+        Assert.assertEquals(String.format("\"1:%d\"", calls + 3), resp.getContentString());
+    }
+
+    @Test
+    public void testResponseCacheBoundedWait() throws Exception {
+        JsonController.slowCachedCalls.set(0);
+        JsonController.slowCachedEntered = new CountDownLatch(1);
+        JsonController.slowCachedRelease = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<HttpResponse.StringResponse> first = executor.submit(new Callable<HttpResponse.StringResponse>() {
+                @Override
+                public HttpResponse.StringResponse call() throws Exception {
+                    return rc.doRequest(new HttpClient(), new HttpGet("/json/slowCached"));
+                }
+            });
+
+            Assert.assertTrue(JsonController.slowCachedEntered.await(10, TimeUnit.SECONDS));
+
+            // Second request must not wait for the stuck producer beyond its deadline...
+            HttpClient client = new HttpClient();
+            client.addDefaultHeader(ActionRequest.REQUEST_TIMEOUT_HEADER, "300");
+            resp = rc.doRequest(client, new HttpGet("/json/slowCached"));
+            Assert.assertEquals(200, resp.getStatusCode());
+            Assert.assertEquals("2", resp.getContentString());
+            Assert.assertFalse(first.isDone());
+
+            JsonController.slowCachedRelease.countDown();
+            Assert.assertEquals("1", first.get(10, TimeUnit.SECONDS).getContentString());
+        } finally {
+            JsonController.slowCachedRelease.countDown();
+            executor.shutdownNow();
+        }
+    }
 }
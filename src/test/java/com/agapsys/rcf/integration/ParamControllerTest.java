@@ -0,0 +1,102 @@
+/*
+ * Copyright 2016 Agapsys Tecnologia Ltda-ME.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.agapsys.rcf.integration;
+
+import com.agapsys.http.HttpClient;
+import com.agapsys.http.HttpGet;
+import com.agapsys.http.HttpResponse.StringResponse;
+import com.agapsys.jee.StacktraceErrorHandler;
+import com.agapsys.rcf.RcfContainer;
+import com.agapsys.rcf.integration.controllers.ParamController;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class ParamControllerTest {
+
+    @BeforeClass
+    public static void beforeClass() {
+        System.out.println(String.format("=== %s ===", ParamControllerTest.class.getSimpleName()));
+    }
+
+    private RcfContainer rc;
+    private StringResponse resp;
+
+    @Before
+    public void before() {
+        rc = RcfContainer.newInstance()
+            .registerController(ParamController.class)
+            .setErrorHandler(new StacktraceErrorHandler());
+
+        rc.start();
+    }
+
+    @After
+    public void after() {
+        rc.stop();
+    }
+
+    private void assertResponse(int expectedStatus, String expectedContent) {
+        Assert.assertEquals(expectedStatus, resp.getStatusCode());
+
+        if (expectedContent != null)
+            Assert.assertEquals(expectedContent, resp.getContentString());
+    }
+
+    @Test
+    public void testQueryParams() {
+        resp = rc.doRequest(new HttpGet("/param/query?id=%d&page=%d&q=%s&order=%s&active=%s", 10, 3, "abc", "DESC", "true"));
+        assertResponse(200, "\"10:3:abc:DESC:true\"");
+
+        // Defaults...
+        resp = rc.doRequest(new HttpGet("/param/query?id=%d", 10));
+        assertResponse(200, "\"10:1:null:ASC:false\"");
+
+        // Missing required parameter...
+        resp = rc.doRequest(new HttpGet("/param/query"));
+        assertResponse(400, "Missing parameter: id");
+
+        // Invalid values...
+        resp = rc.doRequest(new HttpGet("/param/query?id=%s", "abc"));
+        assertResponse(400, null);
+
+        resp = rc.doRequest(new HttpGet("/param/query?id=%d&order=%s", 10, "RANDOM"));
+        assertResponse(400, "Invalid enum value: RANDOM");
+
+        resp = rc.doRequest(new HttpGet("/param/query?id=%d&active=%s", 10, "yes"));
+        assertResponse(400, null);
+    }
+
+    @Test
+    public void testHeadersAndCookies() {
+        resp = rc.doRequest(new HttpGet("/param/headers"));
+        assertResponse(400, "Missing header: " + ParamController.HEADER_COUNT);
+
+        HttpClient client = new HttpClient();
+        client.addDefaultHeader(ParamController.HEADER_COUNT, "5");
+
+        resp = rc.doRequest(client, new HttpGet("/param/headers"));
+        assertResponse(200, "\"5:null\"");
+
+        client.addDefaultHeader("Cookie", ParamController.COOKIE_SESSION + "=xyz");
+
+        resp = rc.doRequest(client, new HttpGet("/param/headers"));
+        assertResponse(200, "\"5:xyz\"");
+    }
+
+}
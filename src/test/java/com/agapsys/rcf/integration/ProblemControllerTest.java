@@ -0,0 +1,67 @@
+/*
+ * Copyright 2016 Agapsys Tecnologia Ltda-ME.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.agapsys.rcf.integration;
+
+import com.agapsys.http.HttpGet;
+import com.agapsys.http.HttpResponse.StringResponse;
+import com.agapsys.jee.StacktraceErrorHandler;
+import com.agapsys.rcf.RcfContainer;
+import com.agapsys.rcf.integration.controllers.ProblemController;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ProblemControllerTest {
+
+    private RcfContainer rc;
+    private StringResponse resp;
+
+    @Before
+    public void before() {
+        rc = RcfContainer.newInstance()
+            .registerController(ProblemController.class)
+            .setErrorHandler(new StacktraceErrorHandler());
+
+        rc.start();
+    }
+
+    @After
+    public void after() {
+        rc.stop();
+    }
+
+    @Test
+    public void testNotFound() {
+        for (int i = 0; i < 2; i++) { // <-- second response uses cached body
+            resp = rc.doRequest(new HttpGet("/problem/notFound"));
+            Assert.assertEquals(404, resp.getStatusCode());
+            Assert.assertTrue(resp.getFirstHeader("Content-Type").getValue().startsWith("application/problem+json"));
+            Assert.assertEquals("{\"type\":\"about:blank\",\"title\":\"Not Found\",\"status\":404}", resp.getContentString());
+        }
+    }
+
+    @Test
+    public void testBadRequest() {
+        resp = rc.doRequest(new HttpGet("/problem/badRequest"));
+        Assert.assertEquals(400, resp.getStatusCode());
+        Assert.assertEquals(
+            String.format("{\"type\":\"about:blank\",\"title\":\"Bad Request\",\"status\":400,\"detail\":\"Invalid \\\"id\\\"\",\"appStatus\":%d}", ProblemController.APP_STATUS),
+            resp.getContentString()
+        );
+    }
+
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2017 Agapsys Tecnologia Ltda-ME.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.agapsys.rcf.integration;
+
+import com.agapsys.http.HttpGet;
+import com.agapsys.http.HttpResponse;
+import com.agapsys.jee.StacktraceErrorHandler;
+import com.agapsys.rcf.Controller;
+import com.agapsys.rcf.RcfContainer;
+import com.agapsys.rcf.integration.controllers.RateLimitedController;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class RateLimitControllerTest {
+
+    private RcfContainer rc;
+
+    @Before
+    public void before() {
+        rc = new RcfContainer<>()
+            .registerController(RateLimitedController.class)
+            .setErrorHandler(new StacktraceErrorHandler());
+
+        rc.start();
+    }
+
+    @After
+    public void after() {
+        rc.stop();
+    }
+
+    @Test
+    public void testActionLimit() {
+        HttpResponse.StringResponse resp;
+
+        for (int i = 0; i < 2; i++) {
+            resp = rc.doRequest(new HttpGet("/rateLimited/limited"));
+            Assert.assertEquals(200, resp.getStatusCode());
+        }
+
+        resp = rc.doRequest(new HttpGet("/rateLimited/limited"));
+        Assert.assertEquals(429, resp.getStatusCode());
+        Assert.assertNotNull(resp.getFirstHeader(Controller.RETRY_AFTER_HEADER));
+        Assert.assertTrue(Integer.parseInt(resp.getFirstHeader(Controller.RETRY_AFTER_HEADER).getValue()) > 0);
+    }
+
+    @Test
+    public void testControllerLimit() {
+        HttpResponse.StringResponse resp;
+
+        for (int i = 0; i < 5; i++) {
+            resp = rc.doRequest(new HttpGet("/rateLimited/controllerLimited"));
+            Assert.assertEquals(200, resp.getStatusCode());
+        }
+
+        resp = rc.doRequest(new HttpGet("/rateLimited/controllerLimited"));
+        Assert.assertEquals(429, resp.getStatusCode());
+    }
+
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2016 Agapsys Tecnologia Ltda-ME.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.agapsys.rcf.integration;
+
+import com.agapsys.http.HttpClient;
+import com.agapsys.http.HttpGet;
+import com.agapsys.http.HttpResponse.StringResponse;
+import com.agapsys.jee.StacktraceErrorHandler;
+import com.agapsys.rcf.ActionRequest;
+import com.agapsys.rcf.RcfContainer;
+import com.agapsys.rcf.integration.controllers.TimeoutController;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class TimeoutControllerTest {
+
+    @BeforeClass
+    public static void beforeClass() {
+        System.out.println(String.format("=== %s ===", TimeoutControllerTest.class.getSimpleName()));
+    }
+
+    private RcfContainer rc;
+    private StringResponse resp;
+
+    @Before
+    public void before() {
+        TimeoutController.interrupted = new CountDownLatch(1);
+
+        rc = RcfContainer.newInstance()
+            .registerController(TimeoutController.class)
+            .setErrorHandler(new StacktraceErrorHandler());
+
+        rc.start();
+    }
+
+    @After
+    public void after() {
+        rc.stop();
+    }
+
+    @Test
+    public void testTimeout() throws InterruptedException {
+        long start = System.currentTimeMillis();
+        resp = rc.doRequest(new HttpGet("/timeout/slow"));
+
+        Assert.assertEquals(504, resp.getStatusCode());
+        Assert.assertTrue(System.currentTimeMillis() - start < 5000);
+        Assert.assertTrue(TimeoutController.interrupted.await(5, TimeUnit.SECONDS)); // <-- timed out action is interrupted
+    }
+
+    @Test
+    public void testCompletion() {
+        resp = rc.doRequest(new HttpGet("/timeout/fast"));
+        Assert.assertEquals(200, resp.getStatusCode());
+        Assert.assertEquals("\"OK\"", resp.getContentString());
+
+        resp = rc.doRequest(new HttpGet("/timeout/fail"));
+        Assert.assertEquals(400, resp.getStatusCode());
+        Assert.assertEquals("Invalid request", resp.getContentString());
+    }
+
+    @Test
+    public void testDeadlineHeader() {
+        resp = rc.doRequest(new HttpGet("/timeout/budget"));
+        Assert.assertEquals(200, resp.getStatusCode());
+        Assert.assertEquals(Long.toString(Long.MAX_VALUE), resp.getContentString());
+
+        HttpClient client = new HttpClient();
+        client.addDefaultHeader(ActionRequest.REQUEST_TIMEOUT_HEADER, "5000");
+
+        resp = rc.doRequest(client, new HttpGet("/timeout/budget"));
+        Assert.assertEquals(200, resp.getStatusCode());
+        long remaining = Long.parseLong(resp.getContentString());
+        Assert.assertTrue(remaining > 0 && remaining <= 5000);
+
+        // Action timeout is shorter than client's budget...
+        resp = rc.doRequest(client, new HttpGet("/timeout/timedBudget"));
+        Assert.assertEquals(200, resp.getStatusCode());
+        remaining = Long.parseLong(resp.getContentString());
+        Assert.assertTrue(remaining > 0 && remaining <= 1000);
+
+        // Client has already given up...
+        client = new HttpClient();
+        client.addDefaultHeader(ActionRequest.REQUEST_TIMEOUT_HEADER, "0");
+
+        resp = rc.doRequest(client, new HttpGet("/timeout/budget"));
+        Assert.assertEquals(504, resp.getStatusCode());
+    }
+
+}
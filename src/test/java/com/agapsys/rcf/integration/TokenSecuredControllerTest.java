@@ -0,0 +1,105 @@
+/*
+ * Copyright 2016 Agapsys Tecnologia Ltda-ME.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.agapsys.rcf.integration;
+
+import com.agapsys.http.HttpClient;
+import com.agapsys.http.HttpGet;
+import com.agapsys.http.HttpResponse.StringResponse;
+import com.agapsys.jee.StacktraceErrorHandler;
+import com.agapsys.rcf.Controller;
+import com.agapsys.rcf.RcfContainer;
+import com.agapsys.rcf.TokenAuthenticator;
+import com.agapsys.rcf.integration.controllers.TokenSecuredController;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TokenSecuredControllerTest {
+
+    private RcfContainer rc;
+    private StringResponse resp;
+
+    @Before
+    public void before() {
+        rc = RcfContainer.newInstance()
+            .registerController(TokenSecuredController.class)
+            .setErrorHandler(new StacktraceErrorHandler());
+
+        rc.start();
+    }
+
+    @After
+    public void after() {
+        rc.stop();
+    }
+
+    @Test
+    public void testCookieToken() {
+        HttpClient client = new HttpClient();
+
+        resp = rc.doRequest(client, new HttpGet("/tokenSecured/logUser?%s=%s", TokenSecuredController.PARAM_ROLE, TokenSecuredController.ROLE));
+        Assert.assertEquals(200, resp.getStatusCode());
+        Assert.assertNotNull(resp.getCookie(TokenAuthenticator.TOKEN_COOKIE));
+
+        String xsrfToken = resp.getCookie(Controller.XSRF_COOKIE).value;
+
+        // Token cookie without XSRF header is rejected...
+        resp = rc.doRequest(client, new HttpGet("/tokenSecured/securedGet"));
+        Assert.assertEquals(401, resp.getStatusCode());
+
+        client.addDefaultHeader(Controller.XSRF_HEADER, xsrfToken); // <-- Sets XSRF token header for each request.
+
+        resp = rc.doRequest(client, new HttpGet("/tokenSecured/securedGet"));
+        Assert.assertEquals(200, resp.getStatusCode());
+        resp = rc.doRequest(client, new HttpGet("/tokenSecured/securedGetWithRoles"));
+        Assert.assertEquals(200, resp.getStatusCode());
+
+        resp = rc.doRequest(client, new HttpGet("/tokenSecured/unlogUser"));
+        Assert.assertEquals(200, resp.getStatusCode());
+
+        resp = rc.doRequest(client, new HttpGet("/tokenSecured/securedGet"));
+        Assert.assertEquals(401, resp.getStatusCode());
+    }
+
+    @Test
+    public void testBearerToken() {
+        resp = rc.doRequest(new HttpGet("/tokenSecured/logUser"));
+        Assert.assertEquals(200, resp.getStatusCode());
+
+        String token = resp.getCookie(TokenAuthenticator.TOKEN_COOKIE).value;
+
+        // Bearer tokens do not require a XSRF header...
+        HttpClient client = new HttpClient();
+        client.addDefaultHeader(TokenAuthenticator.AUTHORIZATION_HEADER, "Bearer " + token);
+
+        resp = rc.doRequest(client, new HttpGet("/tokenSecured/securedGet"));
+        Assert.assertEquals(200, resp.getStatusCode());
+        resp = rc.doRequest(client, new HttpGet("/tokenSecured/securedGetWithRoles"));
+        Assert.assertEquals(403, resp.getStatusCode());
+
+        // Tampered tokens are rejected...
+        char[] tamperedToken = token.toCharArray();
+        tamperedToken[5] = tamperedToken[5] == 'A' ? 'B' : 'A'; // <-- changes the payload
+
+        client = new HttpClient();
+        client.addDefaultHeader(TokenAuthenticator.AUTHORIZATION_HEADER, "Bearer " + new String(tamperedToken));
+
+        resp = rc.doRequest(client, new HttpGet("/tokenSecured/securedGet"));
+        Assert.assertEquals(401, resp.getStatusCode());
+    }
+
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright 2016 Agapsys Tecnologia Ltda-ME.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.agapsys.rcf.integration.controllers;
+
+import com.agapsys.rcf.Controller;
+import com.agapsys.rcf.WebAction;
+import com.agapsys.rcf.WebController;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+@WebController(value = "bulkhead", maxConcurrency = 10)
+public class BulkheadController extends Controller {
+
+    public static volatile CountDownLatch entered = new CountDownLatch(1);
+    public static volatile CountDownLatch release = new CountDownLatch(1);
+
+    @WebAction(maxConcurrency = 1)
+    public String slow() throws InterruptedException {
+        entered.countDown();
+        release.await(10, TimeUnit.SECONDS);
+        return "OK";
+    }
+
+    @WebAction
+    public String fast() {
+        return "OK";
+    }
+
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2016 Agapsys Tecnologia Ltda-ME.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.agapsys.rcf.integration.controllers;
+
+import com.agapsys.rcf.ActionRequest;
+import com.agapsys.rcf.Controller;
+import com.agapsys.rcf.HttpMethod;
+import com.agapsys.rcf.Param;
+import com.agapsys.rcf.WebAction;
+import com.agapsys.rcf.WebController;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import javax.servlet.ServletException;
+
+@WebController("compose")
+public class ComposeController extends Controller {
+
+    private ExecutorService executor;
+
+    @Override
+    protected void onControllerInit() {
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @Override
+    public void destroy() {
+        super.destroy();
+
+        if (executor != null)
+            executor.shutdown();
+    }
+
+    @WebAction
+    public String query(ActionRequest request, @Param(value = "id", required = false) String id) throws ServletException, IOException {
+        InternalRequest internalRequest = new InternalRequest(HttpMethod.GET, "/param/query");
+
+        if (id != null)
+            internalRequest.setParam("id", id);
+
+        return "compose:" + dispatchInternal(request, internalRequest, String.class);
+    }
+
+    @WebAction
+    public boolean sameDto(ActionRequest request) throws ServletException, IOException {
+        return dispatchInternal(request, new InternalRequest(HttpMethod.GET, "/json/cachedDto"), JsonController.Dto.class) == JsonController.CACHED_DTO;
+    }
+
+    @WebAction
+    public String postDto(ActionRequest request) throws ServletException, IOException {
+        JsonController.Dto dto = new JsonController.Dto();
+        dto.string = "string";
+        dto.integer = 12;
+
+        return dispatchInternal(request, new InternalRequest(HttpMethod.POST, "/json/dto").setBody(dto), String.class);
+    }
+
+    @WebAction
+    public String fields(ActionRequest request) throws ServletException, IOException {
+        Map<String, Object> dto = new LinkedHashMap<>();
+        dto.put("string", "abc");
+        dto.put("integer", 5);
+
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("dto", dto);
+        body.put("page", 2);
+        body.put("tags", new String[] {"a", "b"});
+
+        return dispatchInternal(request, new InternalRequest(HttpMethod.POST, "/json/fields").setBody(body), String.class);
+    }
+
+    @WebAction
+    public List<String> fanOut(ActionRequest request) throws ServletException, IOException {
+        List<CompletableFuture<String>> futures = new LinkedList<>();
+
+        for (int i = 1; i <= 3; i++) {
+            futures.add(dispatchInternalAsync(request, new InternalRequest(HttpMethod.GET, "/param/query").setParam("id", Integer.toString(i)), String.class, executor));
+        }
+
+        List<String> results = new LinkedList<>();
+
+        for (CompletableFuture<String> future : futures) {
+            results.add(future.join());
+        }
+
+        return results;
+    }
+
+}
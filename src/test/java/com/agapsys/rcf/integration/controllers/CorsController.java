@@ -0,0 +1,43 @@
+/*
+ * Copyright 2016 Agapsys Tecnologia Ltda-ME.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.agapsys.rcf.integration.controllers;
+
+import com.agapsys.rcf.Controller;
+import com.agapsys.rcf.Cors;
+import com.agapsys.rcf.HttpMethod;
+import com.agapsys.rcf.WebAction;
+import com.agapsys.rcf.WebController;
+
+@WebController("cors")
+@Cors(origins = CorsController.ORIGIN, allowCredentials = true, exposedHeaders = CorsController.EXPOSED_HEADER, maxAge = CorsController.MAX_AGE)
+public class CorsController extends Controller {
+
+    public static final String ORIGIN = "https://app.example.com";
+    public static final String EXPOSED_HEADER = "X-Total";
+    public static final int    MAX_AGE = 3600;
+
+    @WebAction(httpMethods = {HttpMethod.GET, HttpMethod.POST}, mapping = "/items")
+    public String items() {
+        return "items";
+    }
+
+    @WebAction
+    @Cors
+    public String open() {
+        return "open";
+    }
+
+}
@@ -19,12 +19,19 @@ import com.agapsys.rcf.ActionRequest;
 import com.agapsys.rcf.ActionResponse;
 import com.agapsys.rcf.Controller;
 import com.agapsys.rcf.HttpMethod;
+import com.agapsys.rcf.JsonField;
 import com.agapsys.rcf.JsonRequest;
 import com.agapsys.rcf.JsonResponse;
 import com.agapsys.rcf.WebAction;
 import com.agapsys.rcf.WebController;
 import com.agapsys.rcf.exceptions.BadRequestException;
+import java.io.IOException;
+import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.servlet.ServletException;
 
 @WebController("json")
 public class JsonController extends Controller {
@@ -33,6 +40,15 @@ public class JsonController extends Controller {
         public String string;
         public int integer;
     }
+
+    public static final int COMPRESSED_LIST_SIZE = 200;
+
+    public static final Dto CACHED_DTO = new Dto();
+
+    static {
+        CACHED_DTO.string = "cached";
+        CACHED_DTO.integer = 1;
+    }
     
     @WebAction(httpMethods = HttpMethod.POST, mapping = "/list")
     public String list(List<String> stringList) {
@@ -82,4 +98,83 @@ public class JsonController extends Controller {
         return result;
     }
     
+    @WebAction(httpMethods = HttpMethod.POST, mapping = "/fields")
+    public String fields(@JsonField("dto") Dto dto, @JsonField("page") int page, @JsonField("tags") List<String> tags) {
+        return String.format("%s:%d:%d:%s", dto == null ? null : dto.string, dto == null ? 0 : dto.integer, page, tags);
+    }
+
+    @WebAction(mapping = "/compressedList", compressionThreshold = 256, compressionLevel = 6)
+    public List<Dto> compressedList() {
+        List<Dto> list = new LinkedList<>();
+
+        for (int i = 0; i < COMPRESSED_LIST_SIZE; i++) {
+            Dto dto = new Dto();
+            dto.string = "item" + i;
+            dto.integer = i;
+            list.add(dto);
+        }
+
+        return list;
+    }
+
+    @WebAction(mapping = "/cachedDto", compressionThreshold = 0, cacheable = true)
+    public Dto cachedDto() {
+        return CACHED_DTO;
+    }
+
+    public static final String DTO_VERSION = "v1";
+
+    public static volatile int versionedDtoCalls = 0;
+
+    @WebAction(mapping = "/etagDto", etag = true)
+    public Dto etagDto() {
+        return CACHED_DTO;
+    }
+
+    @WebAction(mapping = "/versionedDto", validator = "getDtoVersion")
+    public Dto versionedDto() {
+        versionedDtoCalls++;
+        return CACHED_DTO;
+    }
+
+    public String getDtoVersion() {
+        return DTO_VERSION;
+    }
+
+    public static final AtomicInteger cachedCounterCalls = new AtomicInteger();
+
+    @WebAction(mapping = "/cachedCounter", cacheTtl = 60, cacheParams = "id")
+    public String cachedCounter(ActionRequest request) {
+        return String.format("%s:%d", request.getOptionalParameter("id", ""), cachedCounterCalls.incrementAndGet());
+    }
+
+    public static volatile CountDownLatch slowCachedEntered = new CountDownLatch(1);
+    public static volatile CountDownLatch slowCachedRelease = new CountDownLatch(1);
+    public static final AtomicInteger slowCachedCalls = new AtomicInteger();
+
+    @WebAction(mapping = "/slowCached", cacheTtl = 60)
+    public int slowCached() throws InterruptedException {
+        int call = slowCachedCalls.incrementAndGet();
+
+        if (call == 1) {
+            slowCachedEntered.countDown();
+            slowCachedRelease.await(10, TimeUnit.SECONDS);
+        }
+
+        return call;
+    }
+
+    @WebAction(mapping = "/invalidateCache")
+    public void invalidateCache() {
+        invalidateResponseCache("/cachedCounter");
+    }
+
+    public static final String PAYLOAD_HEADER = "X-Payload";
+
+    @Override
+    protected void sendObject(ActionRequest request, ActionResponse response, Object obj) throws ServletException, IOException {
+        response.getServletResponse().setHeader(PAYLOAD_HEADER, obj == null ? "null" : obj.getClass().getSimpleName());
+        super.sendObject(request, response, obj);
+    }
+
 }
@@ -0,0 +1,46 @@
+/*
+ * Copyright 2016 Agapsys Tecnologia Ltda-ME.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.agapsys.rcf.integration.controllers;
+
+import com.agapsys.rcf.Controller;
+import com.agapsys.rcf.CookieParam;
+import com.agapsys.rcf.Header;
+import com.agapsys.rcf.Param;
+import com.agapsys.rcf.WebAction;
+import com.agapsys.rcf.WebController;
+
+@WebController("param")
+public class ParamController extends Controller {
+
+    public static enum Order {
+        ASC,
+        DESC;
+    }
+
+    public static final String HEADER_COUNT = "X-Count";
+    public static final String COOKIE_SESSION = "session";
+
+    @WebAction
+    public String query(@Param("id") long id, @Param(value = "page", defaultValue = "1") int page, @Param(value = "q", required = false) String q, @Param(value = "order", defaultValue = "ASC") Order order, @Param(value = "active", defaultValue = "false") boolean active) {
+        return String.format("%d:%d:%s:%s:%s", id, page, q, order, active);
+    }
+
+    @WebAction
+    public String headers(@Header(HEADER_COUNT) int count, @CookieParam(value = COOKIE_SESSION, required = false) String session) {
+        return String.format("%d:%s", count, session);
+    }
+
+}
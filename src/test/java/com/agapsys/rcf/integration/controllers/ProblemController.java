@@ -0,0 +1,48 @@
+/*
+ * Copyright 2016 Agapsys Tecnologia Ltda-ME.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.agapsys.rcf.integration.controllers;
+
+import com.agapsys.rcf.Controller;
+import com.agapsys.rcf.DefaultErrorRenderer;
+import com.agapsys.rcf.ErrorRenderer;
+import com.agapsys.rcf.WebAction;
+import com.agapsys.rcf.WebController;
+import com.agapsys.rcf.exceptions.BadRequestException;
+import com.agapsys.rcf.exceptions.NotFoundException;
+
+@WebController("problem")
+public class ProblemController extends Controller {
+
+    public static final int APP_STATUS = 7;
+
+    public static final String DETAIL = "Invalid \"id\"";
+
+    @Override
+    protected ErrorRenderer getErrorRenderer() {
+        return DefaultErrorRenderer.PROBLEM_JSON;
+    }
+
+    @WebAction
+    public void notFound() {
+        throw new NotFoundException();
+    }
+
+    @WebAction
+    public void badRequest() {
+        throw new BadRequestException(APP_STATUS, DETAIL);
+    }
+
+}
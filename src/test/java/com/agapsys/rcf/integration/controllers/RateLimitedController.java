@@ -0,0 +1,38 @@
+/*
+ * Copyright 2017 Agapsys Tecnologia Ltda-ME.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.agapsys.rcf.integration.controllers;
+
+import com.agapsys.rcf.Controller;
+import com.agapsys.rcf.RateLimit;
+import com.agapsys.rcf.WebAction;
+import com.agapsys.rcf.WebController;
+
+@WebController("rateLimited")
+@RateLimit(permits = 5, period = 60, scope = RateLimit.Scope.GLOBAL)
+public class RateLimitedController extends Controller {
+
+    @WebAction
+    @RateLimit(permits = 2, period = 60, scope = RateLimit.Scope.GLOBAL)
+    public String limited() {
+        return "OK";
+    }
+
+    @WebAction
+    public String controllerLimited() {
+        return "OK";
+    }
+
+}
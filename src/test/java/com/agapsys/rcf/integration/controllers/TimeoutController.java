@@ -0,0 +1,61 @@
+/*
+ * Copyright 2016 Agapsys Tecnologia Ltda-ME.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.agapsys.rcf.integration.controllers;
+
+import com.agapsys.rcf.ActionRequest;
+import com.agapsys.rcf.Controller;
+import com.agapsys.rcf.WebAction;
+import com.agapsys.rcf.WebController;
+import com.agapsys.rcf.exceptions.BadRequestException;
+import java.util.concurrent.CountDownLatch;
+
+@WebController("timeout")
+public class TimeoutController extends Controller {
+
+    public static volatile CountDownLatch interrupted = new CountDownLatch(1);
+
+    @WebAction(timeout = 200)
+    public String slow() {
+        try {
+            Thread.sleep(10000);
+        } catch (InterruptedException ex) {
+            interrupted.countDown();
+        }
+
+        return "OK";
+    }
+
+    @WebAction(timeout = 5000)
+    public String fast() {
+        return "OK";
+    }
+
+    @WebAction(timeout = 5000)
+    public String fail() throws BadRequestException {
+        throw new BadRequestException("Invalid request");
+    }
+
+    @WebAction
+    public long budget(ActionRequest request) {
+        return request.getRemainingTime();
+    }
+
+    @WebAction(timeout = 1000)
+    public long timedBudget(ActionRequest request) {
+        return request.getRemainingTime();
+    }
+
+}
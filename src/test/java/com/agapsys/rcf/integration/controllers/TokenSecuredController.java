@@ -0,0 +1,79 @@
+/*
+ * Copyright 2016 Agapsys Tecnologia Ltda-ME.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.agapsys.rcf.integration.controllers;
+
+import com.agapsys.rcf.ActionRequest;
+import com.agapsys.rcf.ActionResponse;
+import com.agapsys.rcf.Controller;
+import com.agapsys.rcf.TokenAuthenticator;
+import com.agapsys.rcf.User;
+import com.agapsys.rcf.WebAction;
+import com.agapsys.rcf.WebController;
+import com.agapsys.rcf.integration.AppUser;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import javax.servlet.ServletException;
+
+@WebController("tokenSecured")
+public class TokenSecuredController extends Controller {
+
+    public static final String ROLE = "tokenRole";
+
+    public static final String PARAM_ROLE = "role";
+
+    private static final String USER_ID = "tokenUser";
+
+    private static final byte[] SECRET = "0123456789abcdef0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+
+    @Override
+    protected TokenAuthenticator getTokenAuthenticator() {
+        return new TokenAuthenticator(SECRET, 1, TimeUnit.HOURS) {
+            @Override
+            protected String getUserId(User user) {
+                return USER_ID;
+            }
+
+            @Override
+            protected User findUser(String userId, Set<String> roles, long permissions) {
+                return USER_ID.equals(userId) ? new AppUser(permissions, roles.toArray(new String[roles.size()])) : null;
+            }
+
+            @Override
+            protected boolean isSecureCookie(ActionRequest request) {
+                return false; // <-- test container is accessed through plain HTTP
+            }
+        };
+    }
+
+    @WebAction(secured = true)
+    public void securedGet() {}
+
+    @WebAction(requiredRoles = {ROLE})
+    public void securedGetWithRoles() {}
+
+    @WebAction
+    public void logUser(ActionRequest request, ActionResponse response) throws ServletException, IOException {
+        setUser(request, response, new AppUser(request.getOptionalParameter(PARAM_ROLE, "")));
+    }
+
+    @WebAction
+    public void unlogUser(ActionRequest request, ActionResponse response) throws ServletException, IOException {
+        setUser(request, response, null);
+    }
+
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright 2016 Agapsys Tecnologia Ltda-ME.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.agapsys.rcf.util;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class AdaptiveLimiterTest {
+    // CLASS SCOPE =============================================================
+    @BeforeClass
+    public static void beforeClass() {
+        System.out.println(String.format("=== %s ===", AdaptiveLimiterTest.class.getSimpleName()));
+    }
+
+    private static class ManualClock implements LongSupplier {
+        private final AtomicLong now = new AtomicLong(0);
+
+        @Override
+        public long getAsLong() {
+            return now.get();
+        }
+
+        public void advance(long time, TimeUnit unit) {
+            now.addAndGet(unit.toNanos(time));
+        }
+    }
+
+    /** Runs a window where the limit is fully used and every call takes given latency. */
+    private static void runWindow(AdaptiveLimiter limiter, ManualClock clock, long latencyMillis) {
+        int admitted = 0;
+
+        for (int i = limiter.getLimit(); i > 0; i--) {
+            if (limiter.tryAcquire())
+                admitted++;
+        }
+
+        Assert.assertFalse(limiter.tryAcquire());
+        clock.advance(100, TimeUnit.MILLISECONDS);
+
+        for (int i = 0; i < admitted; i++) {
+            limiter.release(TimeUnit.MILLISECONDS.toNanos(latencyMillis));
+        }
+
+        for (int i = 0; i < 10; i++) {
+            Assert.assertTrue(limiter.tryAcquire());
+            limiter.release(TimeUnit.MILLISECONDS.toNanos(latencyMillis));
+        }
+    }
+    // =========================================================================
+
+    @Test
+    public void gradientTest() {
+        ManualClock clock = new ManualClock();
+        AdaptiveLimiter limiter = new AdaptiveLimiter(10, 1, 100, 0, 5, 100, TimeUnit.MILLISECONDS, clock);
+
+        // Stable latency: limit grows...
+        for (int i = 0; i < 20; i++) {
+            runWindow(limiter, clock, 10);
+        }
+
+        int grownLimit = limiter.getLimit();
+        Assert.assertTrue(grownLimit > 10);
+
+        // Latency increases: limit shrinks...
+        for (int i = 0; i < 5; i++) {
+            runWindow(limiter, clock, 50);
+        }
+
+        Assert.assertTrue(limiter.getLimit() < grownLimit);
+        Assert.assertTrue(limiter.getRejected() > 0);
+    }
+
+    @Test
+    public void unusedLimitTest() {
+        ManualClock clock = new ManualClock();
+        AdaptiveLimiter limiter = new AdaptiveLimiter(10, 1, 100, 0, 5, 100, TimeUnit.MILLISECONDS, clock);
+
+        // A single caller at a time says nothing about the limit...
+        for (int i = 0; i < 20; i++) {
+            for (int j = 0; j < 20; j++) {
+                Assert.assertTrue(limiter.tryAcquire());
+                limiter.release(TimeUnit.MILLISECONDS.toNanos(10));
+            }
+
+            clock.advance(100, TimeUnit.MILLISECONDS);
+        }
+
+        Assert.assertEquals(10, limiter.getLimit());
+    }
+
+    @Test
+    public void queueTest() throws Exception {
+        final AdaptiveLimiter limiter = new AdaptiveLimiter(1, 1, 1, 1, 5, 10000, TimeUnit.MILLISECONDS);
+
+        Assert.assertTrue(limiter.tryAcquire());
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        try {
+            Future<Boolean> waiting = executor.submit(new Callable<Boolean>() {
+                @Override
+                public Boolean call() {
+                    return limiter.tryAcquire();
+                }
+            });
+
+            while (limiter.getQueued() == 0) {
+                Thread.sleep(1);
+            }
+
+            // Queue is full...
+            Assert.assertFalse(limiter.tryAcquire());
+
+            limiter.release(0);
+            Assert.assertTrue(waiting.get(10, TimeUnit.SECONDS));
+            Assert.assertEquals(1, limiter.getInFlight());
+            Assert.assertEquals(0, limiter.getQueued());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void queueTimeoutTest() {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(1, 1, 1, 1, 5, 20, TimeUnit.MILLISECONDS);
+
+        Assert.assertTrue(limiter.tryAcquire());
+
+        long start = System.nanoTime();
+        Assert.assertFalse(limiter.tryAcquire());
+        Assert.assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(5));
+        Assert.assertEquals(0, limiter.getQueued());
+        Assert.assertEquals(1, limiter.getRejected());
+    }
+
+}
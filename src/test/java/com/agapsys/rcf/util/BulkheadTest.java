@@ -0,0 +1,97 @@
+/*
+ * Copyright 2016 Agapsys Tecnologia Ltda-ME.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.agapsys.rcf.util;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class BulkheadTest {
+    // CLASS SCOPE =============================================================
+    @BeforeClass
+    public static void beforeClass() {
+        System.out.println(String.format("=== %s ===", BulkheadTest.class.getSimpleName()));
+    }
+    // =========================================================================
+
+    @Test
+    public void rejectionTest() {
+        Bulkhead bulkhead = new Bulkhead(2, 0, 0, TimeUnit.MILLISECONDS);
+
+        Assert.assertTrue(bulkhead.tryEnter());
+        Assert.assertTrue(bulkhead.tryEnter());
+        Assert.assertFalse(bulkhead.tryEnter());
+        Assert.assertEquals(2, bulkhead.getActive());
+        Assert.assertEquals(1, bulkhead.getRejected());
+
+        bulkhead.exit();
+        Assert.assertEquals(1, bulkhead.getActive());
+        Assert.assertTrue(bulkhead.tryEnter());
+    }
+
+    @Test
+    public void queueTest() throws Exception {
+        final Bulkhead bulkhead = new Bulkhead(1, 1, 10, TimeUnit.SECONDS);
+        final CountDownLatch queued = new CountDownLatch(1);
+
+        Assert.assertTrue(bulkhead.tryEnter());
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        try {
+            Future<Boolean> waiting = executor.submit(new Callable<Boolean>() {
+                @Override
+                public Boolean call() {
+                    queued.countDown();
+                    return bulkhead.tryEnter();
+                }
+            });
+
+            queued.await();
+
+            while (bulkhead.getQueued() == 0) {
+                Thread.sleep(1);
+            }
+
+            // Queue is full...
+            Assert.assertFalse(bulkhead.tryEnter());
+
+            bulkhead.exit();
+            Assert.assertTrue(waiting.get(10, TimeUnit.SECONDS));
+            Assert.assertEquals(0, bulkhead.getQueued());
+            Assert.assertEquals(1, bulkhead.getActive());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void queueTimeoutTest() {
+        Bulkhead bulkhead = new Bulkhead(1, 1, 10, TimeUnit.MILLISECONDS);
+
+        Assert.assertTrue(bulkhead.tryEnter());
+        Assert.assertFalse(bulkhead.tryEnter());
+        Assert.assertEquals(0, bulkhead.getQueued());
+        Assert.assertEquals(1, bulkhead.getRejected());
+    }
+
+}
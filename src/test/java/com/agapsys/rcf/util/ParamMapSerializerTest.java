@@ -28,14 +28,24 @@ import com.agapsys.rcf.exceptions.BadRequestException;
 import com.agapsys.rcf.util.ParamMapSerializer.SerializerException;
 import java.io.IOException;
 import java.math.BigDecimal;
+import java.sql.Timestamp;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Random;
 import java.util.TimeZone;
 import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.regex.Pattern;
 import javax.servlet.http.HttpServletResponse;
 import org.junit.AfterClass;
@@ -157,6 +167,35 @@ public class ParamMapSerializerTest {
         }
     }
 
+    public static enum TestEnum {
+        ONE,
+        TWO
+    }
+
+    public static class FallbackDto {
+        public TestEnum  enumField;
+        public Timestamp timestampField;
+        public int       intField;
+        public long      longField;
+    }
+
+    public static class RangeDto {
+        public int from;
+        public int to;
+    }
+
+    public static class FilterDto {
+        public String   name;
+        public RangeDto range;
+    }
+
+    public static class SearchDto {
+        public int[]        ids;
+        public List<String> tags;
+        public FilterDto    filter;
+        public int          page;
+    }
+
     private static class UUIDFieldSerializer implements ParamMapSerializer.TypeSerializer<UUID> {
 
         @Override
@@ -283,6 +322,165 @@ public class ParamMapSerializerTest {
         Assert.assertEquals(dto, mapSerializer.getObject(serialized, TestDto.class));
     }
 
+    @Test
+    public void fallbackSerializerTest() throws SerializerException {
+        ParamMapSerializer mapSerializer = new ParamMapSerializer();
+
+        Map<String, String> paramMap = new LinkedHashMap<>();
+        paramMap.put("enumField", "TWO");
+        paramMap.put("intField", "12");
+        paramMap.put("longField", "9000000000");
+
+        FallbackDto dto = mapSerializer.getObject(paramMap, FallbackDto.class);
+        Assert.assertEquals(TestEnum.TWO, dto.enumField);
+        Assert.assertEquals(12, dto.intField);
+        Assert.assertEquals(9000000000l, dto.longField);
+
+
+        dto.timestampField = new Timestamp(1448706030400l);
+        paramMap.put("timestampField", "2015-11-28T10:20:30.400Z");
+        Assert.assertEquals(paramMap, mapSerializer.toParamMap(dto));
+
+        // Date serializer produces Timestamp instances for Timestamp fields...
+        FallbackDto parsed = mapSerializer.getObject(paramMap, FallbackDto.class);
+        Assert.assertEquals(Timestamp.class, parsed.timestampField.getClass());
+        Assert.assertEquals(dto.timestampField, parsed.timestampField);
+        Assert.assertEquals(paramMap, mapSerializer.toParamMap(parsed));
+    }
+
+    @Test(expected = SerializerException.class)
+    public void invalidEnumTest() throws SerializerException {
+        Map<String, String> paramMap = new LinkedHashMap<>();
+        paramMap.put("enumField", "THREE");
+        new ParamMapSerializer().getObject(paramMap, FallbackDto.class);
+    }
+
+    @Test
+    public void multiValuedAndNestedTest() throws SerializerException {
+        ParamMapSerializer mapSerializer = new ParamMapSerializer();
+
+        Map<String, String[]> paramMap = new LinkedHashMap<>();
+        paramMap.put("ids", new String[] {"1", "2", "3"});
+        paramMap.put("tags", new String[] {"a", "b"});
+        paramMap.put("filter.name", new String[] {"name"});
+        paramMap.put("filter.range.from", new String[] {"10"});
+        paramMap.put("filter.range.to", new String[] {"20"});
+        paramMap.put("page", new String[] {"1", "2"});
+
+        SearchDto dto = mapSerializer.getMultiValuedObject(paramMap, SearchDto.class);
+        Assert.assertArrayEquals(new int[] {1, 2, 3}, dto.ids);
+        Assert.assertEquals(Arrays.asList("a", "b"), dto.tags);
+        Assert.assertEquals("name", dto.filter.name);
+        Assert.assertEquals(10, dto.filter.range.from);
+        Assert.assertEquals(20, dto.filter.range.to);
+        Assert.assertEquals(2, dto.page); // <-- single-valued fields keep the last value
+
+        Map<String, String> expectedMap = new LinkedHashMap<>();
+        expectedMap.put("name", "name");
+        expectedMap.put("range.from", "10");
+        expectedMap.put("range.to", "20");
+        Assert.assertEquals(expectedMap, mapSerializer.toParamMap(dto.filter));
+    }
+
+    @Test
+    public void multiValuedParamMapTest() throws SerializerException {
+        ParamMapSerializer mapSerializer = new ParamMapSerializer();
+
+        SearchDto dto = new SearchDto();
+        dto.ids = new int[] {1, 2, 3};
+        dto.tags = Arrays.asList("a", "b");
+        dto.filter = new FilterDto();
+        dto.filter.name = "name";
+        dto.page = 2;
+
+        Map<String, String[]> paramMap = mapSerializer.toMultiValuedParamMap(dto);
+        Assert.assertArrayEquals(new String[] {"1", "2", "3"}, paramMap.get("ids"));
+        Assert.assertArrayEquals(new String[] {"a", "b"}, paramMap.get("tags"));
+        Assert.assertArrayEquals(new String[] {"name"}, paramMap.get("filter.name"));
+        Assert.assertArrayEquals(new String[] {"2"}, paramMap.get("page"));
+
+        SearchDto parsed = mapSerializer.getMultiValuedObject(paramMap, SearchDto.class);
+        Assert.assertArrayEquals(dto.ids, parsed.ids);
+        Assert.assertEquals(dto.tags, parsed.tags);
+        Assert.assertEquals("name", parsed.filter.name);
+        Assert.assertEquals(2, parsed.page);
+        Assert.assertNull(parsed.filter.range); // <-- null nested objects are represented by null values
+
+        // Single-valued maps cannot represent array and collection fields...
+        try {
+            mapSerializer.toParamMap(dto);
+            Assert.fail("Multi-valued field represented as a single value");
+        } catch (RuntimeException ex) {
+            Assert.assertEquals("Multi-valued field cannot be represented as a single parameter: ids", ex.getMessage());
+        }
+
+        dto.ids = null;
+        dto.tags = null;
+        Assert.assertNull(mapSerializer.toParamMap(dto).get("ids"));
+    }
+
+    @Test
+    public void concurrentTimestampTest() throws InterruptedException, ExecutionException {
+        final ParamMapSerializer.TimestampSerializer timestampSerializer = new ParamMapSerializer.TimestampSerializer();
+        final ParamMapSerializer.SimpleDateSerializer simpleDateSerializer = new ParamMapSerializer.SimpleDateSerializer();
+
+        final int threadCount = 8;
+        final int iterations = 10000;
+
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        List<Future<Integer>> futures = new LinkedList<>();
+
+        try {
+            for (int t = 0; t < threadCount; t++) {
+                final long seed = t;
+
+                futures.add(executor.submit(new Callable<Integer>() {
+                    @Override
+                    public Integer call() throws Exception {
+                        Random random = new Random(seed);
+                        int failures = 0;
+
+                        for (int i = 0; i < iterations; i++) {
+                            Date expectedTimestamp = new Date(Math.abs(random.nextLong()) % 4102444800000l); // <-- up to 2100-01-01
+                            String str = timestampSerializer.toString(expectedTimestamp);
+                            if (!expectedTimestamp.equals(timestampSerializer.getObject(str)))
+                                failures++;
+
+                            Date expectedDate = getSimpleDate(String.format("%04d-%02d-%02d", 1970 + random.nextInt(130), 1 + random.nextInt(12), 1 + random.nextInt(28)));
+                            str = simpleDateSerializer.toString(expectedDate);
+                            if (!expectedDate.equals(simpleDateSerializer.getObject(str)))
+                                failures++;
+                        }
+
+                        return failures;
+                    }
+                }));
+            }
+
+            for (Future<Integer> future : futures) {
+                Assert.assertEquals(0, (int) future.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void timestampPatternTest() throws SerializerException {
+        ParamMapSerializer.TimestampSerializer serializer = new ParamMapSerializer.TimestampSerializer() {
+            private final String pattern = "yyyy-MM-dd kk:mm"; // <-- initialized after super constructor
+
+            @Override
+            protected String getFormatPattern() {
+                return pattern;
+            }
+        };
+
+        Date expected = new Date(1577977440000l); // <-- 2020-01-02T15:04:00Z
+        Assert.assertEquals(expected, serializer.getObject("2020-01-02 15:04"));
+        Assert.assertEquals("2020-01-02 15:04", serializer.toString(expected));
+    }
+
     @Test
     public void testServlet () {
 
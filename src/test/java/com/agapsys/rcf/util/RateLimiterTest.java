@@ -0,0 +1,129 @@
+/*
+ * Copyright 2017 Agapsys Tecnologia Ltda-ME.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.agapsys.rcf.util;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.LinkedList;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class RateLimiterTest {
+    // CLASS SCOPE =============================================================
+    @BeforeClass
+    public static void beforeClass() {
+        System.out.println(String.format("=== %s ===", RateLimiterTest.class.getSimpleName()));
+    }
+
+    private static class ManualClock implements LongSupplier {
+        private final AtomicLong now = new AtomicLong(0);
+
+        @Override
+        public long getAsLong() {
+            return now.get();
+        }
+
+        public void advance(long time, TimeUnit unit) {
+            now.addAndGet(unit.toNanos(time));
+        }
+    }
+    // =========================================================================
+
+    @Test
+    public void burstAndRefillTest() {
+        ManualClock clock = new ManualClock();
+        RateLimiter limiter = new RateLimiter(3, 1, TimeUnit.SECONDS, 100, clock);
+
+        for (int i = 0; i < 3; i++) {
+            Assert.assertEquals(0, limiter.tryAcquire("a"));
+        }
+
+        long wait = limiter.tryAcquire("a");
+        Assert.assertTrue(wait > 0);
+        Assert.assertTrue(wait <= TimeUnit.SECONDS.toNanos(1));
+
+        Assert.assertEquals(0, limiter.tryAcquire("b")); // <-- keys are independent
+
+        clock.advance(wait, TimeUnit.NANOSECONDS);
+        Assert.assertEquals(0, limiter.tryAcquire("a"));
+        Assert.assertTrue(limiter.tryAcquire("a") > 0);
+
+        clock.advance(1, TimeUnit.SECONDS);
+        for (int i = 0; i < 3; i++) {
+            Assert.assertEquals(0, limiter.tryAcquire("a"));
+        }
+    }
+
+    @Test
+    public void evictionTest() {
+        ManualClock clock = new ManualClock();
+        RateLimiter limiter = new RateLimiter(1, 1, TimeUnit.SECONDS, 10, clock);
+
+        for (int i = 0; i < 100; i++) {
+            limiter.tryAcquire(i);
+            Assert.assertTrue(limiter.size() <= 11);
+        }
+
+        // Idle keys are removed on next sweep...
+        clock.advance(2, TimeUnit.SECONDS);
+        limiter.tryAcquire("new");
+        Assert.assertEquals(1, limiter.size());
+    }
+
+    @Test
+    public void concurrencyTest() throws Exception {
+        final RateLimiter limiter = new RateLimiter(1000, 1, TimeUnit.HOURS);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        try {
+            List<Future<Integer>> futures = new LinkedList<>();
+
+            for (int i = 0; i < 8; i++) {
+                futures.add(executor.submit(new Callable<Integer>() {
+                    @Override
+                    public Integer call() throws Exception {
+                        int acquired = 0;
+
+                        for (int j = 0; j < 500; j++) {
+                            if (limiter.tryAcquire("key") == 0)
+                                acquired++;
+                        }
+
+                        return acquired;
+                    }
+                }));
+            }
+
+            int total = 0;
+            for (Future<Integer> future : futures) {
+                total += future.get();
+            }
+
+            Assert.assertEquals(1000, total);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2017 Agapsys Tecnologia Ltda-ME.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.agapsys.rcf.util;
+
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class TokenGeneratorTest {
+    // CLASS SCOPE =============================================================
+    @BeforeClass
+    public static void beforeClass() {
+        System.out.println(String.format("=== %s ===", TokenGeneratorTest.class.getSimpleName()));
+    }
+
+    @AfterClass
+    public static void afterClass() {
+        System.out.println();
+    }
+
+    private static final int TOKEN_LENGTH = 128;
+    private static final int ITERATIONS   = 2000;
+    private static final int THREADS      = 4;
+    // =========================================================================
+
+    @Test
+    public void tokenTest() {
+        Set<String> tokens = new HashSet<>();
+
+        for (int length = 1; length <= 200; length++) {
+            String token = TokenGenerator.nextToken(length);
+
+            Assert.assertEquals(length, token.length());
+            Assert.assertTrue(token.matches("[A-Za-z0-9_-]+"));
+
+            if (length >= 16)
+                Assert.assertTrue(tokens.add(token));
+        }
+    }
+
+    @Test
+    public void isEqualTest() {
+        Assert.assertTrue(TokenGenerator.isEqual("abc", "abc"));
+        Assert.assertFalse(TokenGenerator.isEqual("abc", "abd"));
+        Assert.assertFalse(TokenGenerator.isEqual("abc", "ab"));
+        Assert.assertFalse(TokenGenerator.isEqual("ab", "abc"));
+        Assert.assertFalse(TokenGenerator.isEqual(null, "abc"));
+        Assert.assertFalse(TokenGenerator.isEqual(null, null));
+        Assert.assertTrue(TokenGenerator.isEqual("", ""));
+    }
+
+    @Test
+    public void concurrentTokenTest() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+
+        try {
+            List<Callable<List<String>>> tasks = new LinkedList<>();
+
+            for (int i = 0; i < THREADS; i++) {
+                tasks.add(new Callable<List<String>>() {
+                    @Override
+                    public List<String> call() throws Exception {
+                        List<String> tokens = new LinkedList<>();
+
+                        for (int j = 0; j < ITERATIONS; j++) {
+                            tokens.add(TokenGenerator.nextToken(TOKEN_LENGTH));
+                        }
+
+                        return tokens;
+                    }
+                });
+            }
+
+            Set<String> tokens = new HashSet<>();
+
+            for (Future<List<String>> future : executor.invokeAll(tasks)) {
+                for (String token : future.get()) {
+                    Assert.assertEquals(TOKEN_LENGTH, token.length());
+                    Assert.assertTrue(tokens.add(token)); // <-- pooled generators must not share state across threads
+                }
+            }
+
+            Assert.assertEquals(THREADS * ITERATIONS, tokens.size());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+}
@@ -0,0 +1,178 @@
+/*
+ * Copyright 2017 Agapsys Tecnologia Ltda-ME.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.agapsys.rcf.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class Utf8StreamsTest {
+    // CLASS SCOPE =============================================================
+    @BeforeClass
+    public static void beforeClass() {
+        System.out.println(String.format("=== %s ===", Utf8StreamsTest.class.getSimpleName()));
+    }
+
+    /** Input stream which returns data in small chunks, to exercise sequences split across reads. */
+    private static class ChunkedInputStream extends InputStream {
+        private final ByteArrayInputStream in;
+        private final Random random;
+
+        public ChunkedInputStream(byte[] data, Random random) {
+            this.in = new ByteArrayInputStream(data);
+            this.random = random;
+        }
+
+        @Override
+        public int read() throws IOException {
+            return in.read();
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            return in.read(b, off, Math.min(len, 1 + random.nextInt(50)));
+        }
+    }
+
+    private static String getRandomString(Random random, int length) {
+        StringBuilder sb = new StringBuilder();
+
+        for (int i = 0; i < length; i++) {
+            switch (random.nextInt(5)) {
+                case 0:
+                    sb.append((char) (0x80 + random.nextInt(0x800 - 0x80)));
+                    break;
+
+                case 1:
+                    sb.append((char) (0x800 + random.nextInt(Character.MIN_SURROGATE - 0x800)));
+                    break;
+
+                case 2:
+                    sb.appendCodePoint(Character.MIN_SUPPLEMENTARY_CODE_POINT + random.nextInt(Character.MAX_CODE_POINT - Character.MIN_SUPPLEMENTARY_CODE_POINT));
+                    break;
+
+                default:
+                    sb.append((char) (0x20 + random.nextInt(0x80 - 0x20)));
+                    break;
+            }
+        }
+
+        return sb.toString();
+    }
+
+    private static String decode(byte[] data, Random random) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        char[] cbuf = new char[1 + random.nextInt(300)];
+
+        try (Reader reader = new Utf8Reader(new ChunkedInputStream(data, random))) {
+            int read;
+            while ((read = reader.read(cbuf, 0, cbuf.length)) >= 0) {
+                sb.append(cbuf, 0, read);
+            }
+        }
+
+        return sb.toString();
+    }
+    // =========================================================================
+
+    @Test
+    public void roundTripTest() throws IOException {
+        Random random = new Random(1);
+
+        for (int i = 0; i < 200; i++) {
+            String str = getRandomString(random, random.nextInt(20000));
+
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            try (Writer writer = new Utf8Writer(baos)) {
+                int offset = 0;
+                while (offset < str.length()) {
+                    int len = Math.min(str.length() - offset, 1 + random.nextInt(100));
+
+                    if (random.nextBoolean()) {
+                        writer.write(str, offset, len);
+                    } else {
+                        writer.write(str.toCharArray(), offset, len);
+                    }
+
+                    offset += len;
+                }
+            }
+
+            byte[] expected = str.getBytes(StandardCharsets.UTF_8);
+            Assert.assertArrayEquals(expected, baos.toByteArray());
+            Assert.assertEquals(str, decode(expected, random));
+        }
+    }
+
+    @Test
+    public void malformedInputTest() throws IOException {
+        byte[] data = {'a', (byte) 0xC3, 'b', (byte) 0xE2, (byte) 0x82, (byte) 0xFF, (byte) 0xED, (byte) 0xA0, (byte) 0x80, (byte) 0xF0, (byte) 0x9F};
+
+        String decoded = decode(data, new Random(1));
+        Assert.assertEquals(new String(data, StandardCharsets.UTF_8).length(), decoded.length());
+        Assert.assertTrue(decoded.startsWith("a\uFFFDb\uFFFD"));
+
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (Writer writer = new Utf8Writer(baos)) {
+            writer.write("x\uDC00y\uD800");
+        }
+
+        Assert.assertEquals("x?y?", new String(baos.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void nonClosingWriterTest() throws IOException {
+        final boolean[] closed = {false};
+        final boolean[] flushed = {false};
+
+        ByteArrayOutputStream baos = new ByteArrayOutputStream() {
+            @Override
+            public void flush() throws IOException {
+                flushed[0] = true;
+            }
+
+            @Override
+            public void close() throws IOException {
+                closed[0] = true;
+            }
+        };
+
+        try (Writer writer = new Utf8Writer(baos, false)) {
+            writer.write("abc\u00e1");
+        }
+
+        Assert.assertFalse(flushed[0]); // <-- flushing a servlet output stream would commit the response
+        Assert.assertFalse(closed[0]); // <-- stream is owned by someone else (e.g. a servlet response)
+        Assert.assertEquals("abc\u00e1", new String(baos.toByteArray(), StandardCharsets.UTF_8));
+
+        try (Writer writer = new Utf8Writer(baos)) {
+            writer.write("d");
+        }
+
+        Assert.assertTrue(flushed[0]);
+        Assert.assertTrue(closed[0]);
+    }
+
+}